@@ -12,6 +12,8 @@ import race.net.ParallelPlayersPayload;
 import race.net.SeedLobbyListPayload;
 import race.net.JoinRequestStatusPayload;
 import race.net.RaceTimeSyncS2CPayload;
+import race.net.WorldPrepStatusPayload;
+import race.server.metrics.RaceMetrics;
 import race.server.world.ServerRaceConfig;
 import race.config.RaceConfig;
 import race.hub.HubManager;
@@ -33,17 +35,19 @@ public final class FabricRaceMod implements ModInitializer {
         
         // Регистрируем кастомные dimension types
         DimensionTypeRegistry.register();
-        PayloadTypeRegistry.playS2C().register(StartRacePayload.ID, StartRacePayload.CODEC);
-        PayloadTypeRegistry.playS2C().register(RaceBoardPayload.ID, RaceBoardPayload.CODEC);
-        PayloadTypeRegistry.playS2C().register(SeedLobbyListPayload.ID, SeedLobbyListPayload.CODEC);
-        PayloadTypeRegistry.playC2S().register(SeedHandshakeC2SPayload.ID, SeedHandshakeC2SPayload.CODEC);
-        PayloadTypeRegistry.playS2C().register(SeedAckS2CPayload.ID, SeedAckS2CPayload.CODEC);
+        // Кодеки обёрнуты RaceMetrics.measured: размеры пакетов видны в /race perf metrics net
+        PayloadTypeRegistry.playS2C().register(StartRacePayload.ID, RaceMetrics.measured("start", StartRacePayload.CODEC));
+        PayloadTypeRegistry.playS2C().register(RaceBoardPayload.ID, RaceMetrics.measured("board", RaceBoardPayload.CODEC));
+        PayloadTypeRegistry.playS2C().register(SeedLobbyListPayload.ID, RaceMetrics.measured("seed_lobby", SeedLobbyListPayload.CODEC));
+        PayloadTypeRegistry.playC2S().register(SeedHandshakeC2SPayload.ID, RaceMetrics.measured("seed_handshake", SeedHandshakeC2SPayload.CODEC));
+        PayloadTypeRegistry.playS2C().register(SeedAckS2CPayload.ID, RaceMetrics.measured("seed_ack", SeedAckS2CPayload.CODEC));
         // Клиент -> Сервер: активность и прогресс игрока
-        PayloadTypeRegistry.playC2S().register(PlayerProgressPayload.ID, PlayerProgressPayload.CODEC);
-        PayloadTypeRegistry.playS2C().register(GhostTrailPayload.ID, GhostTrailPayload.CODEC);
-        PayloadTypeRegistry.playS2C().register(ParallelPlayersPayload.ID, ParallelPlayersPayload.CODEC);
-        PayloadTypeRegistry.playS2C().register(JoinRequestStatusPayload.ID, JoinRequestStatusPayload.CODEC);
-        PayloadTypeRegistry.playS2C().register(RaceTimeSyncS2CPayload.ID, RaceTimeSyncS2CPayload.CODEC);
+        PayloadTypeRegistry.playC2S().register(PlayerProgressPayload.ID, RaceMetrics.measured("progress", PlayerProgressPayload.CODEC));
+        PayloadTypeRegistry.playS2C().register(GhostTrailPayload.ID, RaceMetrics.measured("ghost_trail", GhostTrailPayload.CODEC));
+        PayloadTypeRegistry.playS2C().register(ParallelPlayersPayload.ID, RaceMetrics.measured("parallel_players", ParallelPlayersPayload.CODEC));
+        PayloadTypeRegistry.playS2C().register(JoinRequestStatusPayload.ID, RaceMetrics.measured("join_status", JoinRequestStatusPayload.CODEC));
+        PayloadTypeRegistry.playS2C().register(RaceTimeSyncS2CPayload.ID, RaceMetrics.measured("time_sync", RaceTimeSyncS2CPayload.CODEC));
+        PayloadTypeRegistry.playS2C().register(WorldPrepStatusPayload.ID, RaceMetrics.measured("world_prep", WorldPrepStatusPayload.CODEC));
         
         // Инициализируем хаб при подключении игроков
         ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
@@ -52,6 +52,10 @@ public final class EnhancedRaceHud {
     private static volatile double currentTps = 20.0;
     private static volatile boolean tpsDisplayEnabled = false;
 
+    // Статус подготовки личного мира (см. WorldPrepStatusPayload)
+    private static volatile byte worldPrepStage = -1;
+    private static volatile long worldPrepSince = 0L;
+
     private EnhancedRaceHud() {}
 
     public static void render(DrawContext ctx, RenderTickCounter tickCounter) {
@@ -72,6 +76,7 @@ public final class EnhancedRaceHud {
         int hudH = Math.min(dynMaxH, contentH);
 
         drawTpsInfo(ctx, screenW, screenH);
+        drawWorldPrepStatus(ctx, screenW);
 
         if (hudH <= 0) return;
         drawBackground(ctx, x, y, dynWidth, hudH);
@@ -501,4 +506,38 @@ public final class EnhancedRaceHud {
         ctx.fill(x - 2, y - 2, x + textW + 2, y + 10, 0x80000000);
         ctx.drawText(tr, tpsText, x, y, color, false);
     }
-}
\ No newline at end of file
+
+    public static void setWorldPrepStatus(String worldId, byte stage) {
+        worldPrepStage = stage;
+        worldPrepSince = System.currentTimeMillis();
+    }
+
+    private static void drawWorldPrepStatus(DrawContext ctx, int screenW) {
+        byte stage = worldPrepStage;
+        if (stage < 0) return;
+        long age = System.currentTimeMillis() - worldPrepSince;
+        // Готовность и ошибку показываем недолго, подготовку — пока не придёт следующий статус
+        if (stage == race.net.WorldPrepStatusPayload.READY && age > 2000L) { worldPrepStage = -1; return; }
+        if (stage == race.net.WorldPrepStatusPayload.FAILED && age > 5000L) { worldPrepStage = -1; return; }
+
+        String text;
+        int color;
+        if (stage == race.net.WorldPrepStatusPayload.PREPARING) {
+            int dots = (int) ((age / 400L) % 4L);
+            text = "Подготовка мира" + ".".repeat(dots);
+            color = 0xFFFF55;
+        } else if (stage == race.net.WorldPrepStatusPayload.READY) {
+            text = "Мир готов";
+            color = 0x55FF55;
+        } else {
+            text = "Не удалось подготовить мир";
+            color = 0xFF5555;
+        }
+        var tr = MinecraftClient.getInstance().textRenderer;
+        int textW = tr.getWidth(text);
+        int x = (screenW - textW) / 2;
+        int y = 30;
+        ctx.fill(x - 3, y - 3, x + textW + 3, y + 11, 0x80000000);
+        ctx.drawText(tr, text, x, y, color, false);
+    }
+}
@@ -23,6 +23,8 @@ public final class FabricRaceClient implements ClientModInitializer {
     private static KeyBinding openMenuKey;
     private static KeyBinding toggleHudKey;
     private static KeyBinding openAchievementsKey;
+    // Состояние дельтового потока лайв‑точек (применяется в клиентском потоке)
+    private static final ParallelPlayersPayload.Decoder LIVE_DECODER = new ParallelPlayersPayload.Decoder();
 
     @Override
     public void onInitializeClient() {
@@ -82,7 +84,7 @@ public final class FabricRaceClient implements ClientModInitializer {
         );
         // Приём лайв‑точек параллельных игроков
         ClientPlayNetworking.registerGlobalReceiver(ParallelPlayersPayload.ID, (payload, ctx) ->
-                ctx.client().execute(() -> GhostOverlay.addLive("__live__", payload.points()))
+                ctx.client().execute(() -> GhostOverlay.addLive("__live__", LIVE_DECODER.apply(payload)))
         );
         
         // Приём статуса join-запроса
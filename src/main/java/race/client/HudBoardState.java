@@ -1,8 +1,66 @@
 package race.client;
 
+import race.net.RaceBoardPayload;
+
+/**
+ * Табло на клиенте: применяет патчи RaceBoardPayload на месте, заменяя только изменённые строки
+ */
 final class HudBoardState {
-    private static java.util.List<race.net.RaceBoardPayload.Row> rows = new java.util.ArrayList<>();
-    static void setRows(java.util.List<race.net.RaceBoardPayload.Row> r) { rows = new java.util.ArrayList<>(r); }
-    static java.util.List<race.net.RaceBoardPayload.Row> getRows() { return rows; }
-}
+    private static final java.util.ArrayList<RaceBoardPayload.Row> rows = new java.util.ArrayList<>();
+    // rowId строки в той же позиции, что и в rows
+    private static final java.util.ArrayList<Integer> rowIds = new java.util.ArrayList<>();
+    private static final java.util.HashMap<Integer, Integer> index = new java.util.HashMap<>();
+    private static final java.util.HashMap<Integer, String> strings = new java.util.HashMap<>();
+    private static final RaceBoardPayload.Row EMPTY = new RaceBoardPayload.Row("", 0L, "", "", "");
+
+    static void apply(RaceBoardPayload p) {
+        if ((p.flags() & RaceBoardPayload.FLAG_RESET_STRINGS) != 0) strings.clear();
+        if ((p.flags() & RaceBoardPayload.FLAG_SNAPSHOT) != 0) {
+            rows.clear();
+            rowIds.clear();
+            index.clear();
+        }
+        for (RaceBoardPayload.Str s : p.strings()) strings.put(s.id(), s.value());
+        for (int id : p.removed()) remove(id);
+        for (RaceBoardPayload.Patch patch : p.patches()) {
+            Integer idx = index.get(patch.rowId());
+            RaceBoardPayload.Row old = idx != null ? rows.get(idx) : EMPTY;
+            byte m = patch.mask();
+            RaceBoardPayload.Row row = new RaceBoardPayload.Row(
+                    (m & RaceBoardPayload.MASK_NAME) != 0 ? str(patch.name()) : old.name(),
+                    (m & RaceBoardPayload.MASK_RTA) != 0 ? patch.rtaMs() : old.rtaMs(),
+                    (m & RaceBoardPayload.MASK_STAGE) != 0 ? str(patch.stage()) : old.stage(),
+                    (m & RaceBoardPayload.MASK_ACTIVITY) != 0 ? str(patch.activity()) : old.activity(),
+                    (m & RaceBoardPayload.MASK_WORLD) != 0 ? str(patch.worldKey()) : old.worldKey()
+            );
+            if (idx != null) {
+                rows.set(idx, row);
+            } else {
+                index.put(patch.rowId(), rows.size());
+                rows.add(row);
+                rowIds.add(patch.rowId());
+            }
+        }
+    }
 
+    static java.util.List<RaceBoardPayload.Row> getRows() { return rows; }
+
+    // Удаление перестановкой последней строки на место удалённой; порядок строк табло не важен
+    private static void remove(int rowId) {
+        Integer idx = index.remove(rowId);
+        if (idx == null) return;
+        int last = rows.size() - 1;
+        if (idx != last) {
+            rows.set(idx, rows.get(last));
+            int movedId = rowIds.get(last);
+            rowIds.set(idx, movedId);
+            index.put(movedId, idx);
+        }
+        rows.remove(last);
+        rowIds.remove(last);
+    }
+
+    private static String str(int id) {
+        return strings.getOrDefault(id, "");
+    }
+}
@@ -7,6 +7,7 @@ import race.net.StartRacePayload;
 import race.net.TpsPayload;
 import race.net.RaceBoardPayload;
 import race.net.RaceTimeSyncS2CPayload;
+import race.net.WorldPrepStatusPayload;
 
 public final class RaceClientInit implements ClientModInitializer {
     @Override
@@ -28,7 +29,7 @@ public final class RaceClientInit implements ClientModInitializer {
 
         // Табло гонки
         ClientPlayNetworking.registerGlobalReceiver(RaceBoardPayload.ID, (payload, ctx) -> {
-            ctx.client().execute(() -> HudBoardState.setRows(payload.rows()));
+            ctx.client().execute(() -> HudBoardState.apply(payload));
         });
 
         // Виртуальное время
@@ -36,6 +37,11 @@ public final class RaceClientInit implements ClientModInitializer {
             ctx.client().execute(() -> race.client.time.ClientSlotTimeState.put(payload.worldId(), payload.time()));
         });
 
+        // Статус подготовки личного мира
+        ClientPlayNetworking.registerGlobalReceiver(WorldPrepStatusPayload.ID, (payload, ctx) -> {
+            ctx.client().execute(() -> EnhancedRaceHud.setWorldPrepStatus(payload.worldId(), payload.stage()));
+        });
+
         // Тикер RTA/прогресса
         RaceClientEvents.hookClientTick();
     }
@@ -388,6 +388,12 @@ public class HubManager {
         
         // Обновляем счетчик игроков для этого сида
         seedPlayerCount.put(seed, seedPlayerCount.getOrDefault(seed, 0) + 1);
+        
+        // Заранее прогреваем миры слота под выбранный сид, пока игрок в хабе
+        try {
+            MinecraftServer server = getServer();
+            if (server != null) race.server.world.WorldPool.requestWarm(server, playerId, seed);
+        } catch (Throwable ignored) {}
     }
 
     // Лидер игрока или сам игрок
@@ -644,18 +650,15 @@ public class HubManager {
         for (UUID playerId : playerIds) {
             ServerPlayerEntity player = server.getPlayerManager().getPlayer(playerId);
             if (player != null) {
-                // Создаем/получаем персональный мир для игрока (серверный тред)
-                var dst = race.server.world.EnhancedWorldManager.getOrCreateWorld(server, playerId, seed, net.minecraft.world.World.OVERWORLD);
-                race.server.world.EnhancedWorldManager.teleportToWorld(player, dst);
-                LOGGER.info("[Race] Player {} moved to personal world with seed {}", player.getGameProfile().getName(), seed);
-                // Регистрируем игрока в системе прогресса/активности
-                try { race.hub.ProgressSyncManager.registerPlayer(player, seed); } catch (Throwable ignored) {}
-                // Замораживаем до личного старта таймера
-                try {
-                    race.server.RaceServerInit.class.getDeclaredField("frozenUntilStart");
-                    race.server.RaceServerInit.class.getDeclaredField("freezePos");
-                } catch (NoSuchFieldException e) {}
-                race.server.RaceServerInit.freezePlayerUntilStart(player);
+                // Создаем/получаем персональный мир для игрока; телепорт — когда мир готов
+                var dst = race.server.world.EnhancedWorldManager.getOrCreateWorldAsync(server, playerId, seed, net.minecraft.world.World.OVERWORLD);
+                race.server.world.EnhancedWorldManager.teleportWhenReady(player, dst, world -> {
+                    LOGGER.info("[Race] Player {} moved to personal world with seed {}", player.getGameProfile().getName(), seed);
+                    // Регистрируем игрока в системе прогресса/активности
+                    try { race.hub.ProgressSyncManager.registerPlayer(player, seed); } catch (Throwable ignored) {}
+                    // Замораживаем до личного старта таймера
+                    race.server.RaceServerInit.freezePlayerUntilStart(player);
+                });
             }
         }
         
@@ -708,13 +711,10 @@ public class HubManager {
                     LOGGER.info("[Race] Player {} in wrong world, teleporting to personal world", 
                         player.getName().getString());
                     
-                    ServerWorld personalWorld = race.server.world.CustomWorldManager.getOrCreatePersonalWorld(server, playerId, seed);
-                    if (personalWorld != null) {
-                        net.minecraft.util.math.BlockPos spawn = personalWorld.getSpawnPos();
-                        player.teleport(personalWorld, spawn.getX() + 0.5, spawn.getY() + 1, spawn.getZ() + 0.5, 0, 0);
+                    var personalWorld = race.server.world.CustomWorldManager.getOrCreatePersonalWorldAsync(server, playerId, seed);
+                    race.server.world.EnhancedWorldManager.teleportWhenReady(player, personalWorld, w ->
                         player.sendMessage(net.minecraft.text.Text.literal("Возвращены в свой изолированный мир!")
-                            .formatted(net.minecraft.util.Formatting.GREEN), false);
-                    }
+                            .formatted(net.minecraft.util.Formatting.GREEN), false));
                 }
                 return;
             }
@@ -723,42 +723,36 @@ public class HubManager {
             LOGGER.info("[Race] Creating isolated world for player {} with seed {}", 
                 player.getName().getString(), seed);
             
-            // Создаем ПЕРСОНАЛЬНЫЙ изолированный мир (уникальный для каждого игрока)
-            ServerWorld personalWorld = race.server.world.CustomWorldManager.getOrCreatePersonalWorld(server, playerId, seed);
-            
-            System.out.println("✓ Personal isolated world created for " + player.getName().getString());
-            System.out.println("✓ World dimension: " + personalWorld.getDimensionEntry().getKey());
-            
-            net.minecraft.util.math.BlockPos spawn = personalWorld.getSpawnPos();
-            player.teleport(personalWorld, spawn.getX() + 0.5, spawn.getY() + 1, spawn.getZ() + 0.5, 0, 0);
-            
-            player.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-            player.sendAbilitiesUpdate();
-            
-            race.hub.ProgressSyncManager.registerPlayer(player, seed);
-            race.server.world.ReturnPointRegistry.saveCurrent(player);
-            
             // КРИТИЧЕСКОЕ ИСПРАВЛЕНИЕ: Сразу добавляем игрока в personalStarted
+            // (до готовности мира, чтобы повторный /race ready не запустил вторую сборку)
             race.server.RaceServerInit.personalStarted.add(playerId);
             LOGGER.info("[Race] Player {} added to personalStarted immediately", player.getName().getString());
             
-            // Замораживаем до старта только если гонка еще не началась
-            if (!race.server.RaceServerInit.personalStarted.contains(playerId)) {
-                race.server.RaceServerInit.freezePlayerUntilStart(player);
-            }
-            
-            // Отмечаем время создания мира
-            worldCreationTimestamps.put(playerId, System.currentTimeMillis());
-            
-            // ИСПРАВЛЕНИЕ: Сохраняем оригинальный мир игрока
-            String worldKey = personalWorld.getRegistryKey().getValue().toString();
-            race.server.RaceServerInit.savePlayerOriginalWorld(playerId, worldKey);
-            
-            LOGGER.info("[Race] Solo race started for player {} in isolated world with seed {}", 
-                player.getName().getString(), seed);
+            // Создаем ПЕРСОНАЛЬНЫЙ изолированный мир (уникальный для каждого игрока) без блокировки тика
+            var personalWorldFuture = race.server.world.CustomWorldManager.getOrCreatePersonalWorldAsync(server, playerId, seed);
+            race.server.world.EnhancedWorldManager.teleportWhenReady(player, personalWorldFuture, personalWorld -> {
+                System.out.println("✓ Personal isolated world created for " + player.getName().getString());
+                System.out.println("✓ World dimension: " + personalWorld.getDimensionEntry().getKey());
+                
+                player.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
+                player.sendAbilitiesUpdate();
                 
-            // Показываем информацию о возможности присоединения к другим
-            showJoinOptionsToPlayer(server, player, seed);
+                race.hub.ProgressSyncManager.registerPlayer(player, seed);
+                race.server.world.ReturnPointRegistry.saveCurrent(player);
+                
+                // Отмечаем время создания мира
+                worldCreationTimestamps.put(playerId, System.currentTimeMillis());
+                
+                // ИСПРАВЛЕНИЕ: Сохраняем оригинальный мир игрока
+                String worldKey = personalWorld.getRegistryKey().getValue().toString();
+                race.server.RaceServerInit.savePlayerOriginalWorld(playerId, worldKey);
+                
+                LOGGER.info("[Race] Solo race started for player {} in isolated world with seed {}", 
+                    player.getName().getString(), seed);
+                    
+                // Показываем информацию о возможности присоединения к другим
+                showJoinOptionsToPlayer(server, player, seed);
+            });
             
         } catch (Throwable t) {
             LOGGER.error("[Race] startRaceForSolo failed: {}", t.toString());
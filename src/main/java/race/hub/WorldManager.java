@@ -19,8 +19,6 @@ import java.util.UUID;
 public class WorldManager {
     private static final Map<UUID, ServerWorld> playerWorlds = new HashMap<>();
     private static final Map<UUID, Long> playerSeeds = new HashMap<>();
-    // ДОБАВЛЯЕМ: Кеширование слота игрока
-    private static final Map<UUID, Integer> playerSlots = new HashMap<>();
     
     /**
      * Создает персональный мир для игрока
@@ -30,6 +28,8 @@ public class WorldManager {
         
         // Получаем/создаем мир игрока через существующий менеджер
         ServerWorld playerWorld = EnhancedWorldManager.getOrCreateWorld(server, playerId, seed, World.OVERWORLD);
+        // Свободных слотов нет — игрок уже получил сообщение
+        if (playerWorld == null) return null;
         
         // Сохраняем ссылки
         playerWorlds.put(playerId, playerWorld);
@@ -118,21 +118,21 @@ public class WorldManager {
     public static void removePlayerWorld(UUID playerId) {
         playerWorlds.remove(playerId);
         playerSeeds.remove(playerId);
-        playerSlots.remove(playerId); // ДОБАВЛЯЕМ: Очистка слота
+        // Слот не трогаем: им владеет SlotAllocator (аренда снимается при выходе игрока)
     }
     
     /**
      * Получает кешированный слот игрока
      */
     public static int getPlayerSlot(UUID playerId) {
-        return playerSlots.getOrDefault(playerId, 0);
+        return race.server.world.SlotAllocator.get(playerId);
     }
     
     /**
      * Принудительно устанавливает слот для игрока (для отладки)
      */
     public static void setPlayerSlot(UUID playerId, int slot) {
-        playerSlots.put(playerId, slot);
+        race.server.world.SlotAllocator.bind(playerId, slot);
         System.out.println("✓ Manually set slot " + slot + " for player: " + playerId);
     }
     
@@ -141,7 +141,7 @@ public class WorldManager {
      */
     public static void debugPlayerSlots() {
         System.out.println("=== PLAYER SLOTS DEBUG ===");
-        for (Map.Entry<UUID, Integer> entry : playerSlots.entrySet()) {
+        for (Map.Entry<UUID, Integer> entry : race.server.world.SlotAllocator.snapshot().entrySet()) {
             System.out.println("Player " + entry.getKey() + " -> Slot " + entry.getValue());
         }
         System.out.println("========================");
@@ -164,8 +164,7 @@ public class WorldManager {
         
         // Если кешированного слота нет, пытаемся извлечь из текущего мира
         if (playerSlot == 0) {
-            String currentWorldKey = player.getServerWorld().getRegistryKey().getValue().toString();
-            playerSlot = extractSlotFromWorldKey(currentWorldKey);
+            playerSlot = Math.max(0, race.server.world.RaceWorldTraits.of(player.getServerWorld()).slot());
             System.out.println("🔍 Extracted slot from current world: " + playerSlot);
             
             // Кешируем найденный слот
@@ -204,8 +203,7 @@ public class WorldManager {
         
         // Если кешированного слота нет, пытаемся извлечь из текущего мира
         if (playerSlot == 0) {
-            String currentWorldKey = player.getServerWorld().getRegistryKey().getValue().toString();
-            playerSlot = extractSlotFromWorldKey(currentWorldKey);
+            playerSlot = Math.max(0, race.server.world.RaceWorldTraits.of(player.getServerWorld()).slot());
             System.out.println("🔍 Extracted slot from current world: " + playerSlot);
             
             // Кешируем найденный слот
@@ -229,33 +227,6 @@ public class WorldManager {
         return endWorld;
     }
     
-    /**
-     * Извлекает номер слота из ключа мира
-     */
-    private static int extractSlotFromWorldKey(String worldKey) {
-        try {
-            // Ищем паттерн "slot" + число
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("slot(\\d+)");
-            java.util.regex.Matcher matcher = pattern.matcher(worldKey);
-            if (matcher.find()) {
-                int slot = Integer.parseInt(matcher.group(1));
-                
-                // ИСПРАВЛЕНИЕ: Валидация разумных значений слота
-                if (slot >= 1 && slot <= 100) { // Предполагаем максимум 100 слотов
-                    System.out.println("✓ Extracted valid slot " + slot + " from world key: " + worldKey);
-                    return slot;
-                } else {
-                    System.err.println("⚠ Invalid slot number " + slot + " in world key: " + worldKey);
-                    return 0;
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to extract slot from world key: " + worldKey + " - " + e.getMessage());
-        }
-        System.out.println("⚠ No valid slot found in world key: " + worldKey + " (using personal world)");
-        return 0; // 0 означает персональный мир
-    }
-    
     /**
      * Телепортирует игрока в Нижний мир
      */
@@ -2,6 +2,7 @@ package race.mixin;
 
 import net.minecraft.network.packet.s2c.play.ChunkData;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Mutable;
 import org.spongepowered.asm.mixin.gen.Accessor;
 
 @Mixin(ChunkData.class)
@@ -9,6 +10,7 @@ public interface ChunkDataAccessor {
     @Accessor("sectionsData")
     byte[] race$getSectionsData();
 
+    @Mutable
     @Accessor("sectionsData")
     void race$setSectionsData(byte[] sectionsData);
 }
@@ -22,8 +22,7 @@ public class FlowableFluidMixin {
         if (!(world instanceof ServerWorld)) return;
         
         // Проверяем, это гоночный мир
-        String worldName = world.getRegistryKey().getValue().toString();
-        if (!worldName.startsWith("fabric_race:slot")) return;
+        if (race.server.world.RaceWorldTraits.of(world).slot() <= 0) return;
         
         // ИСПРАВЛЕНИЕ: Используем хеш позиции для стабильности между мирами
         int positionHash = (pos.getX() + pos.getY() * 31 + pos.getZ() * 961) % RACE_FLOW_DELAY;
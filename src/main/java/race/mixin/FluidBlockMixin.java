@@ -18,8 +18,7 @@ public class FluidBlockMixin {
      */
     @Inject(method = "randomTick", at = @At("HEAD"), cancellable = true)
     private void raceSlowFluidRandomTick(BlockState state, ServerWorld world, BlockPos pos, Random random, CallbackInfo ci) {
-        String worldName = world.getRegistryKey().getValue().toString();
-        if (!worldName.startsWith("fabric_race:slot")) return;
+        if (race.server.world.RaceWorldTraits.of(world).slot() <= 0) return;
         
         // Замедляем случайные обновления жидкостей в 10 раз
         if (random.nextInt(10) != 0) {
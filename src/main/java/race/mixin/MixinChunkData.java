@@ -0,0 +1,39 @@
+package race.mixin;
+
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.s2c.play.ChunkData;
+import net.minecraft.world.chunk.WorldChunk;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Mutable;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import race.server.phase.OverlayPacketCache;
+
+/**
+ * ChunkData(WorldChunk) с готовыми секциями из OverlayPacketCache: пока они выставлены,
+ * ванильная сериализация секций живого чанка пропускается, карты высот и блок‑сущности — как обычно.
+ */
+@Mixin(ChunkData.class)
+abstract class MixinChunkData {
+    @Shadow @Final @Mutable private byte[] sectionsData;
+
+    @Inject(method = "getSectionsPacketSize", at = @At("HEAD"), cancellable = true)
+    private static void race$skipSize(WorldChunk chunk, CallbackInfoReturnable<Integer> cir) {
+        if (OverlayPacketCache.pendingSections() != null) cir.setReturnValue(0);
+    }
+
+    @Inject(method = "writeSections", at = @At("HEAD"), cancellable = true)
+    private static void race$skipWrite(PacketByteBuf buf, WorldChunk chunk, CallbackInfo ci) {
+        if (OverlayPacketCache.pendingSections() != null) ci.cancel();
+    }
+
+    @Inject(method = "<init>(Lnet/minecraft/world/chunk/WorldChunk;)V", at = @At("RETURN"))
+    private void race$useCachedSections(WorldChunk chunk, CallbackInfo ci) {
+        byte[] sections = OverlayPacketCache.pendingSections();
+        if (sections != null) this.sectionsData = sections;
+    }
+}
@@ -15,7 +15,7 @@ public class MixinAdvancementRewards {
      */
     @Inject(method = "apply", at = @At("HEAD"))
     private void race$onAdvancementRewards(ServerPlayerEntity player, CallbackInfo ci) {
-        if (player.getServerWorld().getRegistryKey().getValue().toString().startsWith("fabric_race:")) {
+        if (race.server.world.RaceWorldTraits.isRace(player.getServerWorld())) {
             System.out.println("[Race] Advancement rewards applied to " + player.getName().getString() + 
                              " in world " + player.getServerWorld().getRegistryKey().getValue());
         }
@@ -8,6 +8,7 @@ import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import race.server.world.RaceWorldTraits;
 
 @Mixin(CollisionView.class)
 public interface MixinCollisionView {
@@ -16,8 +17,7 @@ public interface MixinCollisionView {
     private void race$spaceAlwaysFree(Entity entity, Box box, CallbackInfoReturnable<Boolean> cir) {
         CollisionView self = (CollisionView) this;
         if (!(self instanceof ServerWorld world)) return;
-        String key = world.getRegistryKey().getValue().toString();
-        if (key.startsWith("fabric_race:")) {
+        if (RaceWorldTraits.isRace(world)) {
             cir.setReturnValue(true);
         }
     }
@@ -26,8 +26,7 @@ public interface MixinCollisionView {
     private void race$spaceAlwaysFreeBox(Box box, CallbackInfoReturnable<Boolean> cir) {
         CollisionView self = (CollisionView) this;
         if (!(self instanceof ServerWorld world)) return;
-        String key = world.getRegistryKey().getValue().toString();
-        if (key.startsWith("fabric_race:")) {
+        if (RaceWorldTraits.isRace(world)) {
             cir.setReturnValue(true);
         }
     }
@@ -36,8 +35,7 @@ public interface MixinCollisionView {
     private void race$spaceAlwaysFreeEntity(Entity entity, CallbackInfoReturnable<Boolean> cir) {
         CollisionView self = (CollisionView) this;
         if (!(self instanceof ServerWorld world)) return;
-        String key = world.getRegistryKey().getValue().toString();
-        if (key.startsWith("fabric_race:")) {
+        if (RaceWorldTraits.isRace(world)) {
             cir.setReturnValue(true);
         }
     }
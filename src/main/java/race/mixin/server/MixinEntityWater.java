@@ -7,6 +7,7 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import race.server.world.RaceWorldTraits;
 
 @Mixin(Entity.class)
 public class MixinEntityWater {
@@ -15,8 +16,7 @@ public class MixinEntityWater {
     private void race$skipUpdateWaterState(CallbackInfoReturnable<Boolean> cir) {
         Entity self = (Entity) (Object) this;
         if (!(self.getWorld() instanceof ServerWorld sw)) return;
-        String key = sw.getRegistryKey().getValue().toString();
-        if (key.startsWith("fabric_race:")) {
+        if (RaceWorldTraits.isRace(sw)) {
             cir.setReturnValue(false);
         }
     }
@@ -25,8 +25,7 @@ public class MixinEntityWater {
     private void race$skipCheckWaterState(CallbackInfo ci) {
         Entity self = (Entity) (Object) this;
         if (!(self.getWorld() instanceof ServerWorld sw)) return;
-        String key = sw.getRegistryKey().getValue().toString();
-        if (key.startsWith("fabric_race:")) {
+        if (RaceWorldTraits.isRace(sw)) {
             ci.cancel();
         }
     }
@@ -0,0 +1,23 @@
+package race.mixin.server;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.GameRules;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Защита профиля gamerule'ов гонки (см. RaceGameRules): программная установка защищённого
+ * правила в значение не из профиля отменяется.
+ */
+@Mixin(GameRules.IntRule.class)
+public abstract class MixinGameRulesIntRule {
+
+    @Inject(method = "set(ILnet/minecraft/server/MinecraftServer;)V", at = @At("HEAD"), cancellable = true)
+    private void race$guardInt(int value, MinecraftServer server, CallbackInfo ci) {
+        if (!race.server.world.RaceGameRules.allow((GameRules.IntRule) (Object) this, value, server)) {
+            ci.cancel();
+        }
+    }
+}
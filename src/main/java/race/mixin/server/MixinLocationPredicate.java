@@ -6,14 +6,14 @@ import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import race.server.world.RaceWorldTraits;
 
 @Mixin(LocationPredicate.class)
 public class MixinLocationPredicate {
 
     @Inject(method = "test", at = @At("HEAD"), cancellable = true)
     private void race$skipLocationChecks(ServerWorld world, double x, double y, double z, CallbackInfoReturnable<Boolean> cir) {
-        String key = world.getRegistryKey().getValue().toString();
-        if (key.startsWith("fabric_race:")) {
+        if (RaceWorldTraits.isRace(world)) {
             // В персональных мирах пропускаем локационные проверки (биомы/структуры),
             // чтобы исключить синхронную загрузку чанков
             cir.setReturnValue(true);
@@ -17,8 +17,7 @@ public abstract class MixinMoveToTargetPosGoal {
     @Inject(method = "canStart", at = @At("HEAD"), cancellable = true)
     private void race$skipMoveToTargetInRaceWorlds(CallbackInfoReturnable<Boolean> cir) {
         if (!(this.mob.getWorld() instanceof ServerWorld serverWorld)) return;
-        String key = serverWorld.getRegistryKey().getValue().toString();
-        if (key.startsWith("fabric_race:")) {
+        if (race.server.world.RaceWorldTraits.isRace(serverWorld)) {
             cir.setReturnValue(false);
         }
     }
@@ -20,7 +20,7 @@ public class MixinPlayerAdvancementTracker {
      */
     @Inject(method = "grantCriterion", at = @At("HEAD"))
     private void race$logAdvancementProgress(AdvancementEntry advancement, String criterionName, CallbackInfoReturnable<Boolean> cir) {
-        if (owner != null && owner.getServerWorld().getRegistryKey().getValue().toString().startsWith("fabric_race:")) {
+        if (owner != null && race.server.world.RaceWorldTraits.isRace(owner.getServerWorld())) {
             System.out.println("[Race] Advancement progress: " + owner.getName().getString() + 
                              " completed '" + criterionName + "' for advancement '" + 
                              advancement.id() + "' in world " + owner.getServerWorld().getRegistryKey().getValue());
@@ -32,7 +32,7 @@ public class MixinPlayerAdvancementTracker {
      */
     @Inject(method = "onStatusUpdate", at = @At("HEAD"))
     private void race$onAdvancementComplete(AdvancementEntry advancement, CallbackInfo ci) {
-        if (owner != null && owner.getServerWorld().getRegistryKey().getValue().toString().startsWith("fabric_race:")) {
+        if (owner != null && race.server.world.RaceWorldTraits.isRace(owner.getServerWorld())) {
             System.out.println("[Race] Achievement status update for " + owner.getName().getString() + 
                              ": " + advancement.id() + " in world " + owner.getServerWorld().getRegistryKey().getValue());
         }
@@ -43,7 +43,7 @@ public class MixinPlayerAdvancementTracker {
      */
     @Inject(method = "beginTracking", at = @At("HEAD"))
     private void race$onBeginTracking(AdvancementEntry advancement, CallbackInfo ci) {
-        if (owner != null && owner.getServerWorld().getRegistryKey().getValue().toString().startsWith("fabric_race:")) {
+        if (owner != null && race.server.world.RaceWorldTraits.isRace(owner.getServerWorld())) {
             System.out.println("[Race] Begin tracking advancement: " + advancement.id() + 
                              " for " + owner.getName().getString());
         }
@@ -54,7 +54,7 @@ public class MixinPlayerAdvancementTracker {
      */
     @Inject(method = "endTrackingCompleted", at = @At("HEAD"))
     private void race$onEndTrackingCompleted(AdvancementEntry advancement, CallbackInfo ci) {
-        if (owner != null && owner.getServerWorld().getRegistryKey().getValue().toString().startsWith("fabric_race:")) {
+        if (owner != null && race.server.world.RaceWorldTraits.isRace(owner.getServerWorld())) {
             System.out.println("[Race] End tracking completed advancement: " + advancement.id() + 
                              " for " + owner.getName().getString());
         }
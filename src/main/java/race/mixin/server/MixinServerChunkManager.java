@@ -8,6 +8,7 @@ import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import race.server.world.RaceWorldTraits;
 
 @Mixin(ServerChunkManager.class)
 public abstract class MixinServerChunkManager {
@@ -16,8 +17,7 @@ public abstract class MixinServerChunkManager {
 
     @Inject(method = "tickChunks", at = @At("HEAD"), cancellable = true)
     private void race$skipTickChunks(CallbackInfo ci) {
-        String key = this.world.getRegistryKey().getValue().toString();
-        if (key.startsWith("fabric_race:")) {
+        if (RaceWorldTraits.isRace(this.world)) {
             // Пропускаем спавн мобов и другие тик-операции чанков, чтобы не триггерить синхронные обращения к структурам/чанкам
             ci.cancel();
         }
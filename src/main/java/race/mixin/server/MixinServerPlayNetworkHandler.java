@@ -0,0 +1,29 @@
+package race.mixin.server;
+
+import net.minecraft.network.packet.c2s.play.PlayerMoveC2SPacket;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import race.server.RaceFreeze;
+
+/**
+ * Заморозка до старта: пакеты движения замороженных игроков не доходят до обработки движения.
+ * Вход после forceMainThread — обработка уже в серверном потоке.
+ */
+@Mixin(ServerPlayNetworkHandler.class)
+public abstract class MixinServerPlayNetworkHandler {
+    @Shadow public ServerPlayerEntity player;
+
+    @Inject(method = "onPlayerMove",
+            at = @At(value = "INVOKE",
+                    target = "Lnet/minecraft/network/NetworkThreadUtils;forceMainThread(Lnet/minecraft/network/packet/Packet;Lnet/minecraft/network/listener/PacketListener;Lnet/minecraft/server/world/ServerWorld;)V",
+                    shift = At.Shift.AFTER),
+            cancellable = true)
+    private void race$rejectFrozenMove(PlayerMoveC2SPacket packet, CallbackInfo ci) {
+        if (RaceFreeze.onMovePacket(this.player, packet)) ci.cancel();
+    }
+}
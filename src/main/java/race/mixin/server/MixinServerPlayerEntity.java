@@ -25,7 +25,7 @@ public class MixinServerPlayerEntity {
             World world = player.getWorld();
             
             // Отключаем проверку погружения в воду для персональных миров
-            if (world.getRegistryKey().getValue().toString().startsWith("fabric_race:")) {
+            if (race.server.world.RaceWorldTraits.isRace(world)) {
                 // Просто отменяем выполнение метода, чтобы избежать вызовов getFluidState
                 ci.cancel();
             }
@@ -37,7 +37,7 @@ public class MixinServerPlayerEntity {
 		Entity entity = (Entity) (Object) this;
 		if (entity instanceof ServerPlayerEntity player) {
 			World world = player.getWorld();
-			if (world.getRegistryKey().getValue().toString().startsWith("fabric_race:")) {
+			if (race.server.world.RaceWorldTraits.isRace(world)) {
 				// Избегаем блокирующих getBlockState во время проверки застревания в блоках
 				cir.setReturnValue(false);
 			}
@@ -12,20 +12,57 @@ import net.minecraft.registry.RegistryKey;
 import net.minecraft.util.math.random.RandomSequencesState;
 import net.minecraft.world.gen.GeneratorOptions;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import race.server.metrics.LogHistogram;
+import race.server.metrics.RaceMetrics;
+import race.server.world.RaceWorld;
+import race.server.world.RaceWorldTraits;
 import race.server.world.WorldSeedRegistry;
 import org.slf4j.Logger;
 
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
 
 @Mixin(ServerWorld.class)
-public abstract class MixinServerWorld {
+public abstract class MixinServerWorld implements RaceWorld {
     private static final Logger LOGGER = LogUtils.getLogger();
 
+    // Разбираем ключ мира один раз; ключ выставляется в конструкторе World, поэтому лениво
+    @Unique private RaceWorldTraits race$traits;
+    // MSPT мира: начало текущего тика и гистограмма mspt:<ключ мира>
+    @Unique private long race$tickStartNs;
+    @Unique private LogHistogram race$mspt;
+
+    @Override
+    public RaceWorldTraits getRaceTraits_FAB() {
+        RaceWorldTraits t = this.race$traits;
+        if (t == null) {
+            t = RaceWorldTraits.parse(((ServerWorld)(Object)this).getRegistryKey());
+            this.race$traits = t;
+        }
+        return t;
+    }
+
+    @Inject(method = "tick", at = @At("HEAD"))
+    private void race$onTickHead(BooleanSupplier shouldKeepTicking, CallbackInfo ci) {
+        this.race$tickStartNs = System.nanoTime();
+    }
+
+    @Inject(method = "tick", at = @At("RETURN"))
+    private void race$onTickReturn(BooleanSupplier shouldKeepTicking, CallbackInfo ci) {
+        LogHistogram h = this.race$mspt;
+        if (h == null) {
+            h = RaceMetrics.nanos("mspt:" + ((ServerWorld)(Object)this).getRegistryKey().getValue());
+            this.race$mspt = h;
+        }
+        h.record(System.nanoTime() - this.race$tickStartNs);
+    }
+
     // Подменяем seed, который ServerWorld берёт из глобального GeneratorOptions,
     // на наш персональный сид для мира, если он зарегистрирован в WorldSeedRegistry.
     @org.spongepowered.asm.mixin.injection.Redirect(
@@ -55,14 +92,10 @@ public abstract class MixinServerWorld {
     @Inject(method = "getSeed", at = @At("HEAD"), cancellable = true)
     private void onGetSeed(CallbackInfoReturnable<Long> cir) {
         ServerWorld self = (ServerWorld)(Object)this;
-        String path = self.getRegistryKey().getValue().getPath();
-        int idx = path.lastIndexOf("_s");
-        if (idx >= 0) {
-            try {
-                long parsed = Long.parseUnsignedLong(path.substring(idx + 2));
-                cir.setReturnValue(parsed);
-                return;
-            } catch (Throwable ignored) {}
+        RaceWorldTraits traits = getRaceTraits_FAB();
+        if (traits.hasSeed()) {
+            cir.setReturnValue(traits.seed());
+            return;
         }
         Long forced = WorldSeedRegistry.get(self.getRegistryKey());
         if (forced != null) {
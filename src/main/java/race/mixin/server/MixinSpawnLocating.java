@@ -13,8 +13,7 @@ public class MixinSpawnLocating {
 
     @Inject(method = "findOverworldSpawn", at = @At("HEAD"), cancellable = true)
     private static void race$fastOverworldSpawn(ServerWorld world, int x, int z, CallbackInfoReturnable<BlockPos> cir) {
-        String key = world.getRegistryKey().getValue().toString();
-        if (!key.startsWith("fabric_race:")) return;
+        if (!race.server.world.RaceWorldTraits.isRace(world)) return;
         try {
             var gen = world.getChunkManager().getChunkGenerator();
             var noise = world.getChunkManager().getNoiseConfig();
@@ -15,8 +15,7 @@ public class MixinStepAndDestroyBlockGoal {
     @Inject(method = "isTargetPos", at = @At("HEAD"), cancellable = true)
     private void race$fastIsTargetPos(WorldView world, BlockPos pos, CallbackInfoReturnable<Boolean> cir) {
         if (world instanceof ServerWorld serverWorld) {
-            String key = serverWorld.getRegistryKey().getValue().toString();
-            if (key.startsWith("fabric_race:")) {
+            if (race.server.world.RaceWorldTraits.isRace(serverWorld)) {
                 cir.setReturnValue(false);
             }
         }
@@ -6,14 +6,14 @@ import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import race.server.world.RaceWorldTraits;
 
 @Mixin(TickCriterion.class)
 public class MixinTickCriterion {
 
     @Inject(method = "trigger", at = @At("HEAD"), cancellable = true)
     private void race$skipTickCriterion(ServerPlayerEntity player, CallbackInfo ci) {
-        String key = player.getServerWorld().getRegistryKey().getValue().toString();
-        if (key.startsWith("fabric_race:")) {
+        if (RaceWorldTraits.isRace(player.getServerWorld())) {
             // Пропускаем триггер, чтобы не вызывать вложенные LocationPredicate/StructureAccessor
             ci.cancel();
         }
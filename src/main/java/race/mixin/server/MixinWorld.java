@@ -19,6 +19,7 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import race.server.world.RaceWorldTraits;
 
 /**
  * В наших кастомных мирах fabric_race:* возвращаем AIR для незагруженных чанков
@@ -31,8 +32,7 @@ public abstract class MixinWorld {
     private void race$returnAirIfChunkMissing(BlockPos pos, CallbackInfoReturnable<BlockState> cir) {
         World self = (World) (Object) this;
         if (!(self instanceof ServerWorld serverWorld)) return;
-        String key = serverWorld.getRegistryKey().getValue().toString();
-        if (!key.startsWith("fabric_race:")) return;
+        if (!RaceWorldTraits.isRace(serverWorld)) return;
         int cx = pos.getX() >> 4;
         int cz = pos.getZ() >> 4;
         if (!serverWorld.getChunkManager().isChunkLoaded(cx, cz)) {
@@ -44,8 +44,7 @@ public abstract class MixinWorld {
     private void race$returnEmptyFluidIfChunkMissing(BlockPos pos, CallbackInfoReturnable<FluidState> cir) {
         World self = (World) (Object) this;
         if (!(self instanceof ServerWorld serverWorld)) return;
-        String key = serverWorld.getRegistryKey().getValue().toString();
-        if (!key.startsWith("fabric_race:")) return;
+        if (!RaceWorldTraits.isRace(serverWorld)) return;
         int cx = pos.getX() >> 4;
         int cz = pos.getZ() >> 4;
         if (!serverWorld.getChunkManager().isChunkLoaded(cx, cz)) {
@@ -57,8 +56,7 @@ public abstract class MixinWorld {
 	private void race$chunkViewGuard(int chunkX, int chunkZ, CallbackInfoReturnable<BlockView> cir) {
 		World self = (World) (Object) this;
 		if (!(self instanceof ServerWorld serverWorld)) return;
-		String key = serverWorld.getRegistryKey().getValue().toString();
-		if (!key.startsWith("fabric_race:")) return;
+		if (!RaceWorldTraits.isRace(serverWorld)) return;
 		// Возвращаем null только если чанк НЕ загружен, иначе позволяем ванили вернуть BlockView
 		if (!serverWorld.getChunkManager().isChunkLoaded(chunkX, chunkZ)) {
 			cir.setReturnValue(null);
@@ -70,8 +68,7 @@ public abstract class MixinWorld {
 	private void race$guardSetBlockState3(BlockPos pos, BlockState state, int flags, CallbackInfoReturnable<Boolean> cir) {
 		World self = (World) (Object) this;
 		if (!(self instanceof ServerWorld serverWorld)) return;
-		String key = serverWorld.getRegistryKey().getValue().toString();
-		if (!key.startsWith("fabric_race:")) return;
+		if (!RaceWorldTraits.isRace(serverWorld)) return;
 		int cx = pos.getX() >> 4;
 		int cz = pos.getZ() >> 4;
 		if (!serverWorld.getChunkManager().isChunkLoaded(cx, cz)) {
@@ -83,8 +80,7 @@ public abstract class MixinWorld {
 	private void race$guardSetBlockState4(BlockPos pos, BlockState state, int flags, int maxUpdateDepth, CallbackInfoReturnable<Boolean> cir) {
 		World self = (World) (Object) this;
 		if (!(self instanceof ServerWorld serverWorld)) return;
-		String key = serverWorld.getRegistryKey().getValue().toString();
-		if (!key.startsWith("fabric_race:")) return;
+		if (!RaceWorldTraits.isRace(serverWorld)) return;
 		int cx = pos.getX() >> 4;
 		int cz = pos.getZ() >> 4;
 		if (!serverWorld.getChunkManager().isChunkLoaded(cx, cz)) {
@@ -97,8 +93,7 @@ public abstract class MixinWorld {
 	private void race$skipMarkDirty(BlockPos pos, CallbackInfo ci) {
 		World self = (World) (Object) this;
 		if (!(self instanceof ServerWorld serverWorld)) return;
-		String key = serverWorld.getRegistryKey().getValue().toString();
-		if (!key.startsWith("fabric_race:")) return;
+		if (!RaceWorldTraits.isRace(serverWorld)) return;
 		ci.cancel();
 	}
 }
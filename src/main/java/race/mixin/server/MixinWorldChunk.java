@@ -1,25 +1,36 @@
 package race.mixin.server;
 
-import net.minecraft.server.world.ServerWorld;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.chunk.WorldChunk;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
-import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import race.server.phase.RevisionedChunk;
+
+import java.util.concurrent.atomic.AtomicLong;
 
 @Mixin(WorldChunk.class)
-public class MixinWorldChunk {
+public abstract class MixinWorldChunk implements RevisionedChunk {
+    // Общий счётчик: новый объект чанка (после перезагрузки) не совпадёт ревизией со старым
+    @Unique private static final AtomicLong race$NEXT_REVISION = new AtomicLong();
+    @Unique private long race$revision;
 
-    @Inject(method = "runPostProcessing", at = @At("HEAD"), cancellable = true)
-    private void race$skipChunkPostProcessing(CallbackInfo ci) {
-        WorldChunk self = (WorldChunk) (Object) this;
-        if (!(self.getWorld() instanceof ServerWorld serverWorld)) return;
-        String key = serverWorld.getRegistryKey().getValue().toString();
-        if (key.startsWith("fabric_race:")) {
-            // Восстанавливаем пост-обработку для корректного освещения и высотных карт
-            // Больше не отменяем - это нужно для спавна монстров
+    @Override
+    public long getBlockRevision_FAB() {
+        long r = this.race$revision;
+        if (r == 0L) {
+            r = race$NEXT_REVISION.incrementAndGet();
+            this.race$revision = r;
         }
+        return r;
     }
-}
-
 
+    @Inject(method = "setBlockState", at = @At("RETURN"))
+    private void race$onSetBlockState(BlockPos pos, BlockState state, boolean moved, CallbackInfoReturnable<BlockState> cir) {
+        // null — состояние не изменилось
+        if (cir.getReturnValue() != null) this.race$revision = 0L;
+    }
+}
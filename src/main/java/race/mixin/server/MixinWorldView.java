@@ -10,6 +10,7 @@ import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import race.server.world.RaceWorldTraits;
 
 @Mixin(WorldView.class)
 public interface MixinWorldView {
@@ -18,8 +19,7 @@ public interface MixinWorldView {
     private void race$fastBiome(int biomeX, int biomeY, int biomeZ, CallbackInfoReturnable<RegistryEntry<Biome>> cir) {
         WorldView self = (WorldView) this;
         if (!(self instanceof ServerWorld serverWorld)) return;
-        String key = serverWorld.getRegistryKey().getValue().toString();
-        if (!key.startsWith("fabric_race:")) return;
+        if (!RaceWorldTraits.isRace(serverWorld)) return;
         RegistryEntry<Biome> plains = serverWorld.getRegistryManager().get(RegistryKeys.BIOME).entryOf(BiomeKeys.PLAINS);
         cir.setReturnValue(plains);
     }
@@ -29,8 +29,7 @@ public interface MixinWorldView {
     private void race$nullChunk3(int chunkX, int chunkZ, net.minecraft.world.chunk.ChunkStatus status, CallbackInfoReturnable<net.minecraft.world.chunk.Chunk> cir) {
         WorldView self = (WorldView) this;
         if (!(self instanceof ServerWorld serverWorld)) return;
-        String key = serverWorld.getRegistryKey().getValue().toString();
-        if (!key.startsWith("fabric_race:")) return;
+        if (!RaceWorldTraits.isRace(serverWorld)) return;
         // Не вмешиваемся в рабочие потоки генерации — пусть генератор получит настоящий чанк
         if (!"Server thread".equals(Thread.currentThread().getName())) return;
         // Для главного треда: если чанк не загружен, возвращаем null (не вызывать sync load)
@@ -28,8 +28,7 @@ public class SpawnHelperMixin {
         BlockPos.Mutable pos, double squaredDistance,
         CallbackInfoReturnable<Boolean> cir) {
         
-        String worldName = world.getRegistryKey().getValue().toString();
-        if (!worldName.startsWith("fabric_race:")) {
+        if (!race.server.world.RaceWorldTraits.isRace(world)) {
             return; // Обычная логика для не-гоночных миров
         }
         
@@ -46,9 +45,15 @@ public class SpawnHelperMixin {
                 return;
             }
             
+            // Бюджет мобов в окрестности ближайших игроков исчерпан — моба не создаём
+            if (!race.server.world.HostileMobBudget.canSpawn(world, pos)) {
+                cir.setReturnValue(false);
+                return;
+            }
+            
             // DEBUG: Логируем успешный спавн
             if (Math.random() < 0.01) { // 1% логов
-                System.out.println("[Race] Allowing monster spawn in world " + worldName + 
+                System.out.println("[Race] Allowing monster spawn in world " + world.getRegistryKey().getValue() + 
                                   " (night time: " + timeOfDay + ")");
             }
         }
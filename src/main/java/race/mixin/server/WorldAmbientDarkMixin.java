@@ -20,8 +20,7 @@ public abstract class WorldAmbientDarkMixin {
         World self = (World) (Object) this;
         if (!(self instanceof ServerWorld w)) return;
         
-        String id = w.getRegistryKey().getValue().toString();
-        if (!id.startsWith("fabric_race:")) return;
+        if (!race.server.world.RaceWorldTraits.isRace(w)) return;
         
         // Берём градиенты дождя/грозы из мира как есть (они у вас стабильны)
         float rain = self.getRainGradient(1.0F);
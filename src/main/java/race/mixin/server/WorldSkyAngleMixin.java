@@ -19,8 +19,7 @@ public abstract class WorldSkyAngleMixin {
         World self = (World) (Object) this;
         if (!(self instanceof ServerWorld w)) return;
         
-        String id = w.getRegistryKey().getValue().toString();
-        if (!id.startsWith("fabric_race:")) return;
+        if (!race.server.world.RaceWorldTraits.isRace(w)) return;
         
         // Получаем виртуальное время из SlotTimeService
         long t = race.server.SlotTimeService.getTime(w.getRegistryKey());
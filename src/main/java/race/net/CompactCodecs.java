@@ -0,0 +1,43 @@
+package race.net;
+
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.network.PacketByteBuf;
+
+/**
+ * Общие примитивы компактного формата для частых пейлоадов (силуэты, шлейфы):
+ * версия формата, координаты в 1/32 блока и zigzag‑varint для знаковых разностей.
+ */
+final class CompactCodecs {
+    // Позиции квантуются до 1/32 блока; 16 блоков чанка = 512 единиц
+    static final int UNITS_PER_BLOCK = 32;
+    static final int CHUNK_SHIFT = 9;
+    static final int LOCAL_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private CompactCodecs() {}
+
+    static int quantize(double v) {
+        return (int) Math.round(v * UNITS_PER_BLOCK);
+    }
+
+    static double dequantize(int q) {
+        return q / (double) UNITS_PER_BLOCK;
+    }
+
+    static void writeVersion(PacketByteBuf buf, byte version) {
+        buf.writeByte(version);
+    }
+
+    static void readVersion(PacketByteBuf buf, byte expected, String what) {
+        byte v = buf.readByte();
+        if (v != expected) throw new DecoderException("[Race] " + what + ": unsupported format version " + v + ", expected " + expected);
+    }
+
+    static void writeZigZag(PacketByteBuf buf, int v) {
+        buf.writeVarInt((v << 1) ^ (v >> 31));
+    }
+
+    static int readZigZag(PacketByteBuf buf) {
+        int v = buf.readVarInt();
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
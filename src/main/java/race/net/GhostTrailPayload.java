@@ -2,7 +2,6 @@ package race.net;
 
 import net.minecraft.network.RegistryByteBuf;
 import net.minecraft.network.codec.PacketCodec;
-import net.minecraft.network.codec.PacketCodecs;
 import net.minecraft.network.packet.CustomPayload;
 import net.minecraft.util.Identifier;
 
@@ -13,20 +12,50 @@ public record GhostTrailPayload(String playerName, String cause, List<GhostTrail
         implements CustomPayload {
     public static final CustomPayload.Id<GhostTrailPayload> ID = new CustomPayload.Id<>(Identifier.of("fabric_race", "ghost_trail"));
 
-    public static final PacketCodec<RegistryByteBuf, Point> POINT_CODEC = PacketCodec.tuple(
-            PacketCodecs.DOUBLE, Point::x,
-            PacketCodecs.DOUBLE, Point::y,
-            PacketCodecs.DOUBLE, Point::z,
-            Point::new
-    );
+    public static final byte VERSION = 1;
 
-    public static final PacketCodec<RegistryByteBuf, GhostTrailPayload> CODEC = PacketCodec.tuple(
-            PacketCodecs.STRING, GhostTrailPayload::playerName,
-            PacketCodecs.STRING, GhostTrailPayload::cause,
-            PacketCodecs.collection(ArrayList::new, POINT_CODEC), GhostTrailPayload::points,
-            GhostTrailPayload::new
+    /**
+     * Шлейф — цепочка близких точек: первая передаётся целиком, остальные — разностью с предыдущей
+     * в 1/32 блока (zigzag‑varint, обычно 1–2 байта на координату вместо 8).
+     */
+    public static final PacketCodec<RegistryByteBuf, GhostTrailPayload> CODEC = PacketCodec.of(
+            GhostTrailPayload::write,
+            GhostTrailPayload::read
     );
 
+    private void write(RegistryByteBuf buf) {
+        CompactCodecs.writeVersion(buf, VERSION);
+        buf.writeString(playerName);
+        buf.writeString(cause);
+        buf.writeVarInt(points.size());
+        int px = 0, py = 0, pz = 0;
+        for (Point p : points) {
+            int qx = CompactCodecs.quantize(p.x());
+            int qy = CompactCodecs.quantize(p.y());
+            int qz = CompactCodecs.quantize(p.z());
+            CompactCodecs.writeZigZag(buf, qx - px);
+            CompactCodecs.writeZigZag(buf, qy - py);
+            CompactCodecs.writeZigZag(buf, qz - pz);
+            px = qx; py = qy; pz = qz;
+        }
+    }
+
+    private static GhostTrailPayload read(RegistryByteBuf buf) {
+        CompactCodecs.readVersion(buf, VERSION, "ghost_trail");
+        String playerName = buf.readString();
+        String cause = buf.readString();
+        int n = buf.readVarInt();
+        ArrayList<Point> points = new ArrayList<>(Math.min(n, 1024));
+        int qx = 0, qy = 0, qz = 0;
+        for (int i = 0; i < n; i++) {
+            qx += CompactCodecs.readZigZag(buf);
+            qy += CompactCodecs.readZigZag(buf);
+            qz += CompactCodecs.readZigZag(buf);
+            points.add(new Point(CompactCodecs.dequantize(qx), CompactCodecs.dequantize(qy), CompactCodecs.dequantize(qz)));
+        }
+        return new GhostTrailPayload(playerName, cause, points);
+    }
+
     public record Point(double x, double y, double z) {}
 
     @Override
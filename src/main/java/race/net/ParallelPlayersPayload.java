@@ -2,35 +2,192 @@ package race.net;
 
 import net.minecraft.network.RegistryByteBuf;
 import net.minecraft.network.codec.PacketCodec;
-import net.minecraft.network.codec.PacketCodecs;
 import net.minecraft.network.packet.CustomPayload;
 import net.minecraft.util.Identifier;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
-public record ParallelPlayersPayload(List<ParallelPlayersPayload.Point> points) implements CustomPayload {
+/**
+ * Кадр лайв‑точек параллельных игроков. Формат дельтовый и привязан к соединению:
+ * имена передаются один раз и дальше заменяются номерами из таблицы, позиции квантуются до 1/32 блока
+ * (номер чанка + смещение внутри чанка), а обычный кадр несёт только сдвинувшихся и ушедших игроков.
+ * Каждые KEYFRAME_EVERY кадров отправляется полный кадр. Состояние сервера — Encoder на каждого зрителя,
+ * клиента — один Decoder, который восстанавливает полный список Point.
+ */
+public record ParallelPlayersPayload(byte flags, List<Name> names, List<Integer> removed, List<Entry> entries) implements CustomPayload {
     public static final Id<ParallelPlayersPayload> ID = new Id<>(Identifier.of("fabric_race", "parallel_players"));
 
-    public static final PacketCodec<RegistryByteBuf, Point> POINT_CODEC = PacketCodec.tuple(
-            PacketCodecs.STRING, Point::name,
-            PacketCodecs.DOUBLE, Point::x,
-            PacketCodecs.DOUBLE, Point::y,
-            PacketCodecs.DOUBLE, Point::z,
-            PacketCodecs.BYTE, Point::type,
-            Point::new
-    );
+    public static final byte VERSION = 1;
+    // Полный кадр: клиент забывает всех видимых игроков и берёт список из entries
+    public static final byte FLAG_KEYFRAME = 1;
+    // Таблица имён начинается заново (новое соединение или переполнение)
+    public static final byte FLAG_RESET_NAMES = 2;
 
-    public static final PacketCodec<RegistryByteBuf, ParallelPlayersPayload> CODEC = PacketCodec.tuple(
-            PacketCodecs.collection(ArrayList::new, POINT_CODEC), ParallelPlayersPayload::points,
-            ParallelPlayersPayload::new
+    public static final PacketCodec<RegistryByteBuf, ParallelPlayersPayload> CODEC = PacketCodec.of(
+            ParallelPlayersPayload::write,
+            ParallelPlayersPayload::read
     );
 
     // type: 0 default, 1 mine, 2 place, 3 fight, 4 move, 5 chest, 6 portal, 7 craft
     public record Point(String name, double x, double y, double z, byte type) {}
 
+    public record Name(int id, String name) {}
+
+    /** Позиция в 1/32 блока */
+    public record Entry(int id, byte type, int qx, int qy, int qz) {}
+
+    private void write(RegistryByteBuf buf) {
+        CompactCodecs.writeVersion(buf, VERSION);
+        buf.writeByte(flags);
+        buf.writeVarInt(names.size());
+        for (Name n : names) {
+            buf.writeVarInt(n.id());
+            buf.writeString(n.name());
+        }
+        buf.writeVarInt(removed.size());
+        for (int id : removed) buf.writeVarInt(id);
+        buf.writeVarInt(entries.size());
+        for (Entry e : entries) {
+            buf.writeVarInt(e.id());
+            buf.writeByte(e.type());
+            CompactCodecs.writeZigZag(buf, e.qx() >> CompactCodecs.CHUNK_SHIFT);
+            CompactCodecs.writeZigZag(buf, e.qz() >> CompactCodecs.CHUNK_SHIFT);
+            buf.writeShort(e.qx() & CompactCodecs.LOCAL_MASK);
+            buf.writeShort(e.qz() & CompactCodecs.LOCAL_MASK);
+            buf.writeShort(e.qy());
+        }
+    }
+
+    private static ParallelPlayersPayload read(RegistryByteBuf buf) {
+        CompactCodecs.readVersion(buf, VERSION, "parallel_players");
+        byte flags = buf.readByte();
+        int n = buf.readVarInt();
+        ArrayList<Name> names = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) names.add(new Name(buf.readVarInt(), buf.readString()));
+        n = buf.readVarInt();
+        ArrayList<Integer> removed = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) removed.add(buf.readVarInt());
+        n = buf.readVarInt();
+        ArrayList<Entry> entries = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int id = buf.readVarInt();
+            byte type = buf.readByte();
+            int cx = CompactCodecs.readZigZag(buf);
+            int cz = CompactCodecs.readZigZag(buf);
+            int lx = buf.readUnsignedShort();
+            int lz = buf.readUnsignedShort();
+            int qy = buf.readShort();
+            entries.add(new Entry(id, type, (cx << CompactCodecs.CHUNK_SHIFT) | lx, qy, (cz << CompactCodecs.CHUNK_SHIFT) | lz));
+        }
+        return new ParallelPlayersPayload(flags, names, removed, entries);
+    }
+
     @Override
     public Id<? extends CustomPayload> getId() { return ID; }
-}
 
+    // ---- Состояние соединения на сервере ----
+
+    private static final Map<UUID, Encoder> ENCODERS = new ConcurrentHashMap<>();
+
+    public static Encoder encoderFor(UUID viewer) {
+        return ENCODERS.computeIfAbsent(viewer, id -> new Encoder());
+    }
+
+    public static Encoder encoderIfPresent(UUID viewer) {
+        return ENCODERS.get(viewer);
+    }
 
+    public static void forgetEncoder(UUID viewer) {
+        ENCODERS.remove(viewer);
+    }
+
+    /**
+     * Серверная сторона: помнит, что уже известно клиенту, и собирает из полного списка точек дельту
+     */
+    public static final class Encoder {
+        private static final int KEYFRAME_EVERY = 16;
+        private static final int MAX_NAMES = 512;
+
+        private final HashMap<String, Integer> ids = new HashMap<>();
+        private HashMap<Integer, Entry> sent = new HashMap<>();
+        private int nextId;
+        private int frames;
+
+        /**
+         * Кадр для отправки или null, если клиенту нечего сообщать (не было и нет точек)
+         */
+        public ParallelPlayersPayload encode(List<Point> pts) {
+            if (pts.isEmpty() && sent.isEmpty()) return null;
+            byte flags = 0;
+            boolean keyframe = frames % KEYFRAME_EVERY == 0;
+            if (keyframe) {
+                flags |= FLAG_KEYFRAME;
+                // Первый кадр соединения тоже сбрасывает таблицу: у клиента могли остаться имена с прошлого сервера
+                if (frames == 0 || ids.size() > MAX_NAMES) {
+                    ids.clear();
+                    nextId = 0;
+                    flags |= FLAG_RESET_NAMES;
+                }
+            }
+            frames++;
+
+            ArrayList<Name> names = new ArrayList<>();
+            ArrayList<Entry> entries = new ArrayList<>(pts.size());
+            HashMap<Integer, Entry> now = new HashMap<>(pts.size() * 2);
+            for (Point p : pts) {
+                String name = p.name() == null ? "?" : p.name();
+                Integer id = ids.get(name);
+                if (id == null) {
+                    id = nextId++;
+                    ids.put(name, id);
+                    names.add(new Name(id, name));
+                }
+                Entry e = new Entry(id, p.type(), CompactCodecs.quantize(p.x()),
+                        clampShort(CompactCodecs.quantize(p.y())), CompactCodecs.quantize(p.z()));
+                if (now.putIfAbsent(id, e) != null) continue;
+                if (keyframe || !e.equals(sent.get(id))) entries.add(e);
+            }
+            ArrayList<Integer> removed = new ArrayList<>();
+            if (!keyframe) {
+                for (Integer id : sent.keySet()) {
+                    if (!now.containsKey(id)) removed.add(id);
+                }
+            }
+            sent = now;
+            return new ParallelPlayersPayload(flags, names, removed, entries);
+        }
+
+        private static int clampShort(int v) {
+            return Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, v));
+        }
+    }
+
+    /**
+     * Клиентская сторона: применяет кадры по порядку и возвращает полный список видимых игроков
+     */
+    public static final class Decoder {
+        private final HashMap<Integer, String> names = new HashMap<>();
+        private final LinkedHashMap<Integer, Entry> present = new LinkedHashMap<>();
+
+        public List<Point> apply(ParallelPlayersPayload frame) {
+            if ((frame.flags() & FLAG_RESET_NAMES) != 0) names.clear();
+            if ((frame.flags() & FLAG_KEYFRAME) != 0) present.clear();
+            for (Name n : frame.names()) names.put(n.id(), n.name());
+            for (int id : frame.removed()) present.remove(id);
+            for (Entry e : frame.entries()) present.put(e.id(), e);
+
+            ArrayList<Point> out = new ArrayList<>(present.size());
+            for (Entry e : present.values()) {
+                out.add(new Point(names.getOrDefault(e.id(), "?"), CompactCodecs.dequantize(e.qx()),
+                        CompactCodecs.dequantize(e.qy()), CompactCodecs.dequantize(e.qz()), e.type()));
+            }
+            return out;
+        }
+    }
+}
@@ -1,27 +1,89 @@
 package race.net;
 
+import java.util.ArrayList;
 import java.util.List;
 import net.minecraft.network.RegistryByteBuf;
 import net.minecraft.network.codec.PacketCodec;
-import net.minecraft.network.codec.PacketCodecs;
 import net.minecraft.network.packet.CustomPayload;
 import net.minecraft.util.Identifier;
 
-public record RaceBoardPayload(List<Row> rows) implements CustomPayload {
+/**
+ * Патч табло гонки. Первый пакет соединения — полный снимок (FLAG_SNAPSHOT), дальше только
+ * изменённые поля изменённых строк. Все строки (имена, этапы, активности, ключи миров) передаются
+ * один раз в таблицу соединения, в патчах — их номера. Клиент собирает из патчей список Row.
+ */
+public record RaceBoardPayload(byte flags, List<Str> strings, List<Integer> removed, List<Patch> patches) implements CustomPayload {
     public static final Id<RaceBoardPayload> ID = new Id<>(Identifier.of("fabric_race", "board"));
-    public static final PacketCodec<RegistryByteBuf, RaceBoardPayload> CODEC =
-            PacketCodec.tuple(Row.CODEC.collect(PacketCodecs.toList()), RaceBoardPayload::rows, RaceBoardPayload::new);
-
-    public record Row(String name, long rtaMs, String stage, String activity, String worldKey) {
-        public static final PacketCodec<RegistryByteBuf, Row> CODEC =
-                PacketCodec.tuple(
-                        PacketCodecs.STRING, Row::name,
-                        PacketCodecs.VAR_LONG, Row::rtaMs,
-                        PacketCodecs.STRING, Row::stage,
-                        PacketCodecs.STRING, Row::activity,
-                        PacketCodecs.STRING, Row::worldKey,
-                        Row::new
-                );
+
+    public static final byte VERSION = 1;
+    // Клиент забывает все строки табло перед применением патчей
+    public static final byte FLAG_SNAPSHOT = 1;
+    // Таблица строк начинается заново
+    public static final byte FLAG_RESET_STRINGS = 2;
+
+    // Какие поля есть в патче
+    public static final byte MASK_NAME = 1;
+    public static final byte MASK_RTA = 2;
+    public static final byte MASK_STAGE = 4;
+    public static final byte MASK_ACTIVITY = 8;
+    public static final byte MASK_WORLD = 16;
+
+    public static final PacketCodec<RegistryByteBuf, RaceBoardPayload> CODEC = PacketCodec.of(
+            RaceBoardPayload::write,
+            RaceBoardPayload::read
+    );
+
+    public record Row(String name, long rtaMs, String stage, String activity, String worldKey) {}
+
+    public record Str(int id, String value) {}
+
+    /** Поля без бита в mask не передаются; строковые поля — номера из таблицы строк */
+    public record Patch(int rowId, byte mask, int name, long rtaMs, int stage, int activity, int worldKey) {}
+
+    private void write(RegistryByteBuf buf) {
+        CompactCodecs.writeVersion(buf, VERSION);
+        buf.writeByte(flags);
+        buf.writeVarInt(strings.size());
+        for (Str s : strings) {
+            buf.writeVarInt(s.id());
+            buf.writeString(s.value());
+        }
+        buf.writeVarInt(removed.size());
+        for (int id : removed) buf.writeVarInt(id);
+        buf.writeVarInt(patches.size());
+        for (Patch p : patches) {
+            buf.writeVarInt(p.rowId());
+            buf.writeByte(p.mask());
+            if ((p.mask() & MASK_NAME) != 0) buf.writeVarInt(p.name());
+            if ((p.mask() & MASK_RTA) != 0) buf.writeVarLong(p.rtaMs());
+            if ((p.mask() & MASK_STAGE) != 0) buf.writeVarInt(p.stage());
+            if ((p.mask() & MASK_ACTIVITY) != 0) buf.writeVarInt(p.activity());
+            if ((p.mask() & MASK_WORLD) != 0) buf.writeVarInt(p.worldKey());
+        }
+    }
+
+    private static RaceBoardPayload read(RegistryByteBuf buf) {
+        CompactCodecs.readVersion(buf, VERSION, "board");
+        byte flags = buf.readByte();
+        int n = buf.readVarInt();
+        ArrayList<Str> strings = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) strings.add(new Str(buf.readVarInt(), buf.readString()));
+        n = buf.readVarInt();
+        ArrayList<Integer> removed = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) removed.add(buf.readVarInt());
+        n = buf.readVarInt();
+        ArrayList<Patch> patches = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int rowId = buf.readVarInt();
+            byte mask = buf.readByte();
+            int name = (mask & MASK_NAME) != 0 ? buf.readVarInt() : 0;
+            long rtaMs = (mask & MASK_RTA) != 0 ? buf.readVarLong() : 0L;
+            int stage = (mask & MASK_STAGE) != 0 ? buf.readVarInt() : 0;
+            int activity = (mask & MASK_ACTIVITY) != 0 ? buf.readVarInt() : 0;
+            int worldKey = (mask & MASK_WORLD) != 0 ? buf.readVarInt() : 0;
+            patches.add(new Patch(rowId, mask, name, rtaMs, stage, activity, worldKey));
+        }
+        return new RaceBoardPayload(flags, strings, removed, patches);
     }
 
     @Override public Id<? extends CustomPayload> getId() { return ID; }
@@ -0,0 +1,30 @@
+package race.net;
+
+import net.minecraft.network.RegistryByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * Статус подготовки личного мира: сервер шлёт PREPARING при постановке в очередь,
+ * READY — после телепорта, FAILED — если мир не удалось подготовить.
+ */
+public record WorldPrepStatusPayload(String worldId, byte stage) implements CustomPayload {
+    public static final byte PREPARING = 0;
+    public static final byte READY = 1;
+    public static final byte FAILED = 2;
+
+    public static final Id<WorldPrepStatusPayload> ID = new Id<>(Identifier.of("fabric_race", "world_prep_status"));
+    public static final PacketCodec<RegistryByteBuf, WorldPrepStatusPayload> CODEC = PacketCodec.of(
+        (payload, buf) -> {
+            buf.writeString(payload.worldId);
+            buf.writeByte(payload.stage);
+        },
+        buf -> new WorldPrepStatusPayload(buf.readString(), buf.readByte())
+    );
+
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
@@ -0,0 +1,135 @@
+package race.replay;
+
+import java.util.Arrays;
+
+/**
+ * Столбцовый формат повторов (версия 1).
+ *
+ * Файл: заголовок [magic, версия, UUID игрока, сид, старт гонки, кадров в чанке], затем чанки
+ * [CHUNK_MAGIC, кадров, время первого кадра, длина, данные], в конце индекс чанков [смещение, время первого
+ * кадра, кадров]… , смещение индекса и FOOTER_MAGIC. Без индекса (запись оборвалась) файл читается
+ * последовательным проходом по чанкам.
+ *
+ * Данные чанка — столбцы подряд (время, x, y, z, yaw, pitch, здоровье, еда, уровень): каждое значение
+ * — разность с предыдущим в столбце, zig-zag и varint. Дробные поля квантуются: позиция — 1/4096
+ * блока, углы — 1/256 градуса, здоровье — 1/100.
+ */
+final class ReplayFormat {
+    static final int MAGIC = 0x52504C59; // "RPLY"
+    static final int VERSION = 1;
+    static final int FOOTER_MAGIC = 0x52504958; // "RPIX"
+    static final int CHUNK_MAGIC = 0x5250434B; // "RPCK"
+    static final int CHUNK_FRAMES = 256;
+    // magic, версия, UUID, сид, старт, кадров в чанке
+    static final int HEADER_BYTES = 4 + 4 + 16 + 8 + 8 + 4;
+    // CHUNK_MAGIC, кадров, время первого кадра, длина данных
+    static final int CHUNK_HEADER_BYTES = 4 + 4 + 8 + 4;
+    // смещение индекса, FOOTER_MAGIC
+    static final int FOOTER_BYTES = 8 + 4;
+    static final int INDEX_ENTRY_BYTES = 8 + 8 + 4;
+
+    static final double POS_SCALE = 4096.0;
+    static final double ANGLE_SCALE = 256.0;
+    static final double HEALTH_SCALE = 100.0;
+
+    private static final int T = 0, X = 1, Y = 2, Z = 3, YAW = 4, PITCH = 5, HEALTH = 6, FOOD = 7, XP = 8;
+    static final int COLUMNS = 9;
+
+    private ReplayFormat() {}
+
+    /** Кадры одного чанка по столбцам (уже квантованные) */
+    static final class Chunk {
+        final long[][] cols = new long[COLUMNS][CHUNK_FRAMES];
+        int size;
+
+        boolean isFull() { return size == CHUNK_FRAMES; }
+
+        void add(long timestamp, double x, double y, double z, float yaw, float pitch, float health, int food, int xp) {
+            int i = size++;
+            cols[T][i] = timestamp;
+            cols[X][i] = Math.round(x * POS_SCALE);
+            cols[Y][i] = Math.round(y * POS_SCALE);
+            cols[Z][i] = Math.round(z * POS_SCALE);
+            cols[YAW][i] = Math.round(yaw * ANGLE_SCALE);
+            cols[PITCH][i] = Math.round(pitch * ANGLE_SCALE);
+            cols[HEALTH][i] = Math.round(health * HEALTH_SCALE);
+            cols[FOOD][i] = food;
+            cols[XP][i] = xp;
+        }
+
+        long firstTimestamp() { return size > 0 ? cols[T][0] : 0L; }
+
+        ReplayManager.ReplayFrame frame(int i) {
+            return new ReplayManager.ReplayFrame(
+                    cols[T][i],
+                    new net.minecraft.util.math.Vec3d(cols[X][i] / POS_SCALE, cols[Y][i] / POS_SCALE, cols[Z][i] / POS_SCALE),
+                    (float) (cols[YAW][i] / ANGLE_SCALE),
+                    (float) (cols[PITCH][i] / ANGLE_SCALE),
+                    (float) (cols[HEALTH][i] / HEALTH_SCALE),
+                    (int) cols[FOOD][i],
+                    (int) cols[XP][i]);
+        }
+    }
+
+    static byte[] encode(Chunk c) {
+        Bytes out = new Bytes(c.size * COLUMNS * 2 + 16);
+        for (int col = 0; col < COLUMNS; col++) {
+            long[] values = c.cols[col];
+            long prev = 0L;
+            for (int i = 0; i < c.size; i++) {
+                long d = values[i] - prev;
+                out.writeVarLong((d << 1) ^ (d >> 63));
+                prev = values[i];
+            }
+        }
+        return out.toArray();
+    }
+
+    static Chunk decode(byte[] data, int frames) {
+        if (frames < 0 || frames > CHUNK_FRAMES) throw new IllegalArgumentException("bad frame count " + frames);
+        Chunk c = new Chunk();
+        c.size = frames;
+        int[] pos = {0};
+        for (int col = 0; col < COLUMNS; col++) {
+            long[] values = c.cols[col];
+            long prev = 0L;
+            for (int i = 0; i < frames; i++) {
+                long z = readVarLong(data, pos);
+                prev += (z >>> 1) ^ -(z & 1);
+                values[i] = prev;
+            }
+        }
+        return c;
+    }
+
+    private static long readVarLong(byte[] data, int[] pos) {
+        long value = 0L;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= data.length || shift > 63) throw new IllegalArgumentException("truncated varint");
+            byte b = data[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            shift += 7;
+        }
+    }
+
+    // Растущий буфер без ByteArrayOutputStream: varint пишется побайтно в массив
+    private static final class Bytes {
+        private byte[] buf;
+        private int size;
+
+        Bytes(int capacity) { buf = new byte[Math.max(16, capacity)]; }
+
+        void writeVarLong(long v) {
+            if (buf.length - size < 10) buf = Arrays.copyOf(buf, buf.length * 2);
+            while ((v & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        byte[] toArray() { return Arrays.copyOf(buf, size); }
+    }
+}
@@ -1,10 +1,12 @@
 package race.replay;
 
+import com.mojang.logging.LogUtils;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
+import org.slf4j.Logger;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -17,11 +19,13 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Система записи и воспроизведения повторов гонок
+ * Система записи и воспроизведения повторов гонок.
+ * Формат файла и потоковая запись — см. {@link ReplayFormat}, {@link ReplayWriter}.
  */
 public final class ReplayManager {
+    private static final Logger LOGGER = LogUtils.getLogger();
     private static final Path REPLAY_DIR = Paths.get("replays");
-    private static final Map<UUID, ReplayRecorder> activeRecordings = new ConcurrentHashMap<>();
+    private static final Map<UUID, ReplayWriter> activeRecordings = new ConcurrentHashMap<>();
     
     /**
      * Начинает запись гонки для игрока
@@ -33,28 +37,23 @@ public final class ReplayManager {
             stopRecording(playerId);
         }
         
-        ReplayRecorder recorder = new ReplayRecorder(playerId, raceSeed, raceStartTime);
-        activeRecordings.put(playerId, recorder);
+        // Генерируем имя файла: запись идёт в него сразу, по чанкам
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
+        String filename = String.format("replay_%s_%s.replay", timestamp, playerId.toString().substring(0, 8));
+        ReplayWriter writer = new ReplayWriter(REPLAY_DIR.resolve(filename), playerId, raceSeed, raceStartTime);
+        activeRecordings.put(playerId, writer);
         
         // Записываем начальное состояние
-        recorder.recordFrame(new ReplayFrame(
-            System.currentTimeMillis(),
-            player.getPos(),
-            player.getYaw(),
-            player.getPitch(),
-            player.getHealth(),
-            player.getHungerManager().getFoodLevel(),
-            player.experienceLevel
-        ));
+        record(writer, player);
     }
     
     /**
-     * Останавливает запись гонки
+     * Останавливает запись гонки: остаток и индекс дописываются в фоне
      */
     public static void stopRecording(UUID playerId) {
-        ReplayRecorder recorder = activeRecordings.remove(playerId);
-        if (recorder != null) {
-            saveReplay(recorder);
+        ReplayWriter writer = activeRecordings.remove(playerId);
+        if (writer != null) {
+            writer.close();
         }
     }
     
@@ -62,69 +61,60 @@ public final class ReplayManager {
      * Записывает кадр повтора
      */
     public static void recordFrame(ServerPlayerEntity player) {
-        UUID playerId = player.getUuid();
-        ReplayRecorder recorder = activeRecordings.get(playerId);
-        
-        if (recorder != null) {
-            recorder.recordFrame(new ReplayFrame(
-                System.currentTimeMillis(),
-                player.getPos(),
-                player.getYaw(),
-                player.getPitch(),
-                player.getHealth(),
-                player.getHungerManager().getFoodLevel(),
-                player.experienceLevel
-            ));
+        ReplayWriter writer = activeRecordings.get(player.getUuid());
+        if (writer != null) {
+            record(writer, player);
         }
     }
     
     /**
-     * Сохраняет повтор в файл
+     * Закрывает незавершённые записи и дописывает очередь (остановка сервера)
      */
-    private static void saveReplay(ReplayRecorder recorder) {
-        try {
-            // Создаем директорию если не существует
-            if (!Files.exists(REPLAY_DIR)) {
-                Files.createDirectories(REPLAY_DIR);
-            }
-            
-            // Генерируем имя файла
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
-            String filename = String.format("replay_%s_%s.replay", timestamp, recorder.getPlayerId().toString().substring(0, 8));
-            Path filePath = REPLAY_DIR.resolve(filename);
-            
-            // Сохраняем повтор
-            try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(filePath))) {
-                out.writeObject(recorder.getReplayData());
-            }
-            
-            System.out.println("Replay saved: " + filename);
-            
-        } catch (IOException e) {
-            System.err.println("Failed to save replay: " + e.getMessage());
-        }
+    public static void shutdown() {
+        for (UUID id : List.copyOf(activeRecordings.keySet())) stopRecording(id);
+        ReplayWriter.drain();
+    }
+    
+    private static void record(ReplayWriter writer, ServerPlayerEntity player) {
+        writer.record(
+            System.currentTimeMillis(),
+            player.getX(), player.getY(), player.getZ(),
+            player.getYaw(),
+            player.getPitch(),
+            player.getHealth(),
+            player.getHungerManager().getFoodLevel(),
+            player.experienceLevel
+        );
     }
     
     /**
-     * Загружает повтор из файла
+     * Загружает повтор из файла целиком; для перемотки — {@link #openReplay(String)}
      */
     public static ReplayData loadReplay(String filename) {
-        try {
-            Path filePath = REPLAY_DIR.resolve(filename);
-            if (!Files.exists(filePath)) {
-                return null;
-            }
-            
-            try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(filePath))) {
-                return (ReplayData) in.readObject();
-            }
-            
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Failed to load replay: " + e.getMessage());
+        try (ReplayReader reader = openReplay(filename)) {
+            return reader != null ? reader.readAll() : null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("[Race] Failed to load replay {}: {}", filename, e.toString());
             return null;
         }
     }
     
+    /**
+     * Открывает повтор для чтения по чанкам; null — файла нет или он в старом формате
+     */
+    public static ReplayReader openReplay(String filename) throws IOException {
+        Path filePath = REPLAY_DIR.resolve(filename);
+        if (!Files.exists(filePath)) {
+            return null;
+        }
+        ReplayReader reader = ReplayReader.open(filePath);
+        if (reader == null) {
+            // Старые повторы (ObjectOutputStream) не читаются: Vec3d не сериализуем, и целыми они не сохранялись
+            LOGGER.warn("[Race] Unsupported replay format: {}", filename);
+        }
+        return reader;
+    }
+    
     /**
      * Получает список доступных повторов
      */
@@ -139,7 +129,7 @@ public final class ReplayManager {
                     .sorted()
                     .forEach(replays::add);
             } catch (IOException e) {
-                System.err.println("Failed to list replays: " + e.getMessage());
+                LOGGER.warn("[Race] Failed to list replays: {}", e.toString());
             }
         }
         
@@ -159,38 +149,12 @@ public final class ReplayManager {
                 try {
                     Files.delete(REPLAY_DIR.resolve(replays.get(i)));
                 } catch (IOException e) {
-                    System.err.println("Failed to delete old replay: " + e.getMessage());
+                    LOGGER.warn("[Race] Failed to delete old replay {}: {}", replays.get(i), e.toString());
                 }
             }
         }
     }
     
-    /**
-     * Записыватель повторов
-     */
-    private static class ReplayRecorder {
-        private final UUID playerId;
-        private final long raceSeed;
-        private final long raceStartTime;
-        private final List<ReplayFrame> frames = new ArrayList<>();
-        
-        public ReplayRecorder(UUID playerId, long raceSeed, long raceStartTime) {
-            this.playerId = playerId;
-            this.raceSeed = raceSeed;
-            this.raceStartTime = raceStartTime;
-        }
-        
-        public void recordFrame(ReplayFrame frame) {
-            frames.add(frame);
-        }
-        
-        public ReplayData getReplayData() {
-            return new ReplayData(playerId, raceSeed, raceStartTime, new ArrayList<>(frames));
-        }
-        
-        public UUID getPlayerId() { return playerId; }
-    }
-    
     /**
      * Данные повтора
      */
@@ -222,7 +186,9 @@ public final class ReplayManager {
         private static final long serialVersionUID = 1L;
         
         private final long timestamp;
-        private final Vec3d position;
+        private final double x;
+        private final double y;
+        private final double z;
         private final float yaw;
         private final float pitch;
         private final float health;
@@ -232,7 +198,9 @@ public final class ReplayManager {
         public ReplayFrame(long timestamp, Vec3d position, float yaw, float pitch, 
                           float health, int foodLevel, int experienceLevel) {
             this.timestamp = timestamp;
-            this.position = position;
+            this.x = position.x;
+            this.y = position.y;
+            this.z = position.z;
             this.yaw = yaw;
             this.pitch = pitch;
             this.health = health;
@@ -241,10 +209,11 @@ public final class ReplayManager {
         }
         
         public long getTimestamp() { return timestamp; }
-        public Vec3d getPosition() { return position; }
+        public Vec3d getPosition() { return new Vec3d(x, y, z); }
         public float getYaw() { return yaw; }
         public float getPitch() { return pitch; }
         public float getHealth() { return health; }
         public int getFoodLevel() { return foodLevel; }
+        public int getExperienceLevel() { return experienceLevel; }
     }
 }
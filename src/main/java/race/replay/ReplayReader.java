@@ -0,0 +1,165 @@
+package race.replay;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Чтение столбцового повтора: заголовок и индекс чанков читаются при открытии, кадры — по чанкам.
+ * Если индекса нет (запись оборвалась), чанки находятся последовательным проходом и
+ * недописанный хвост отбрасывается.
+ */
+public final class ReplayReader implements Closeable {
+    private record IndexEntry(long offset, long firstTimestamp, int frames) {}
+
+    private final FileChannel channel;
+    private final UUID playerId;
+    private final long raceSeed;
+    private final long raceStartTime;
+    private final List<IndexEntry> index;
+
+    private ReplayReader(FileChannel channel, UUID playerId, long raceSeed, long raceStartTime, List<IndexEntry> index) {
+        this.channel = channel;
+        this.playerId = playerId;
+        this.raceSeed = raceSeed;
+        this.raceStartTime = raceStartTime;
+        this.index = index;
+    }
+
+    /**
+     * Открывает файл; null — это не столбцовый повтор (например, старый формат)
+     */
+    public static ReplayReader open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (ch.size() < ReplayFormat.HEADER_BYTES) {
+                ch.close();
+                return null;
+            }
+            ByteBuffer header = read(ch, 0, ReplayFormat.HEADER_BYTES);
+            if (header.getInt() != ReplayFormat.MAGIC) {
+                ch.close();
+                return null;
+            }
+            int version = header.getInt();
+            if (version > ReplayFormat.VERSION) {
+                ch.close();
+                throw new IOException("Unsupported replay version " + version);
+            }
+            UUID playerId = new UUID(header.getLong(), header.getLong());
+            long seed = header.getLong();
+            long start = header.getLong();
+            header.getInt(); // кадров в чанке — для справки
+
+            List<IndexEntry> index = readFooterIndex(ch);
+            if (index == null) index = scan(ch);
+            return new ReplayReader(ch, playerId, seed, start, index);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public UUID getPlayerId() { return playerId; }
+    public long getRaceSeed() { return raceSeed; }
+    public long getRaceStartTime() { return raceStartTime; }
+    public int getChunkCount() { return index.size(); }
+
+    public long getFrameCount() {
+        long n = 0;
+        for (IndexEntry e : index) n += e.frames();
+        return n;
+    }
+
+    /**
+     * Чанк, в котором лежит момент timestamp (последний чанк, начавшийся не позже него)
+     */
+    public int findChunk(long timestamp) {
+        int lo = 0, hi = index.size() - 1, found = 0;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (index.get(mid).firstTimestamp() <= timestamp) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    public List<ReplayManager.ReplayFrame> readChunk(int i) throws IOException {
+        IndexEntry e = index.get(i);
+        ByteBuffer head = read(channel, e.offset(), ReplayFormat.CHUNK_HEADER_BYTES);
+        if (head.getInt() != ReplayFormat.CHUNK_MAGIC) throw new IOException("Corrupt replay chunk " + i);
+        int frames = head.getInt();
+        head.getLong();
+        int len = head.getInt();
+        byte[] data = new byte[len];
+        read(channel, e.offset() + ReplayFormat.CHUNK_HEADER_BYTES, len).get(data);
+        ReplayFormat.Chunk c = ReplayFormat.decode(data, frames);
+        List<ReplayManager.ReplayFrame> out = new ArrayList<>(frames);
+        for (int k = 0; k < frames; k++) out.add(c.frame(k));
+        return out;
+    }
+
+    public ReplayManager.ReplayData readAll() throws IOException {
+        List<ReplayManager.ReplayFrame> frames = new ArrayList<>((int) Math.min(Integer.MAX_VALUE, getFrameCount()));
+        for (int i = 0; i < index.size(); i++) frames.addAll(readChunk(i));
+        return new ReplayManager.ReplayData(playerId, raceSeed, raceStartTime, frames);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static List<IndexEntry> readFooterIndex(FileChannel ch) throws IOException {
+        long size = ch.size();
+        if (size < ReplayFormat.HEADER_BYTES + 4 + ReplayFormat.FOOTER_BYTES) return null;
+        ByteBuffer footer = read(ch, size - ReplayFormat.FOOTER_BYTES, ReplayFormat.FOOTER_BYTES);
+        long indexOffset = footer.getLong();
+        if (footer.getInt() != ReplayFormat.FOOTER_MAGIC) return null;
+        if (indexOffset < ReplayFormat.HEADER_BYTES || indexOffset > size - ReplayFormat.FOOTER_BYTES - 4) return null;
+        int count = read(ch, indexOffset, 4).getInt();
+        if (count < 0 || indexOffset + 4 + (long) count * ReplayFormat.INDEX_ENTRY_BYTES != size - ReplayFormat.FOOTER_BYTES) return null;
+        ByteBuffer buf = read(ch, indexOffset + 4, count * ReplayFormat.INDEX_ENTRY_BYTES);
+        List<IndexEntry> index = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) index.add(new IndexEntry(buf.getLong(), buf.getLong(), buf.getInt()));
+        return index;
+    }
+
+    private static List<IndexEntry> scan(FileChannel ch) throws IOException {
+        List<IndexEntry> index = new ArrayList<>();
+        long size = ch.size();
+        long pos = ReplayFormat.HEADER_BYTES;
+        while (pos + ReplayFormat.CHUNK_HEADER_BYTES <= size) {
+            ByteBuffer head = read(ch, pos, ReplayFormat.CHUNK_HEADER_BYTES);
+            if (head.getInt() != ReplayFormat.CHUNK_MAGIC) break;
+            int frames = head.getInt();
+            long first = head.getLong();
+            int len = head.getInt();
+            if (frames <= 0 || frames > ReplayFormat.CHUNK_FRAMES || len < 0) break;
+            long end = pos + ReplayFormat.CHUNK_HEADER_BYTES + len;
+            if (end > size) break;
+            index.add(new IndexEntry(pos, first, frames));
+            pos = end;
+        }
+        return index;
+    }
+
+    private static ByteBuffer read(FileChannel ch, long position, int len) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(len);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, position + buf.position()) < 0) throw new EOFException();
+        }
+        return buf.flip();
+    }
+}
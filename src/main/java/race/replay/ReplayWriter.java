@@ -0,0 +1,143 @@
+package race.replay;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Потоковая запись повтора: кадры копятся в столбцах одного чанка (серверный поток), полный чанк
+ * уходит фоновому потоку "Race-Replay", который кодирует его и дописывает в файл через FileChannel.
+ * В памяти — только текущий чанк и очередь записи, сколько бы ни длилась гонка.
+ * close() дописывает остаток и индекс чанков для перемотки.
+ */
+final class ReplayWriter {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final ExecutorService IO = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Race-Replay");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private record IndexEntry(long offset, long firstTimestamp, int frames) {}
+
+    private final Path file;
+    private final UUID playerId;
+    private ReplayFormat.Chunk chunk = new ReplayFormat.Chunk();
+    private long frameCount;
+
+    // Только в потоке записи
+    private FileChannel channel;
+    private final List<IndexEntry> index = new ArrayList<>();
+    private boolean failed;
+
+    ReplayWriter(Path file, UUID playerId, long raceSeed, long raceStartTime) {
+        this.file = file;
+        this.playerId = playerId;
+        IO.execute(() -> open(raceSeed, raceStartTime));
+    }
+
+    Path getFile() { return file; }
+    UUID getPlayerId() { return playerId; }
+    long getFrameCount() { return frameCount; }
+
+    void record(long timestamp, double x, double y, double z, float yaw, float pitch, float health, int food, int xp) {
+        chunk.add(timestamp, x, y, z, yaw, pitch, health, food, xp);
+        frameCount++;
+        if (chunk.isFull()) submitChunk();
+    }
+
+    void close() {
+        if (chunk.size > 0) submitChunk();
+        IO.execute(this::finish);
+    }
+
+    /**
+     * Ждёт, пока поток записи допишет очередь (остановка сервера)
+     */
+    static void drain() {
+        try {
+            IO.submit(() -> {}).get(5, TimeUnit.SECONDS);
+        } catch (Throwable t) {
+            LOGGER.warn("[Race] Replay: pending writes not finished: {}", t.toString());
+        }
+    }
+
+    private void submitChunk() {
+        ReplayFormat.Chunk full = chunk;
+        chunk = new ReplayFormat.Chunk();
+        IO.execute(() -> append(full));
+    }
+
+    // ===== Поток записи =====
+
+    private void open(long raceSeed, long raceStartTime) {
+        try {
+            java.nio.file.Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(ReplayFormat.HEADER_BYTES);
+            header.putInt(ReplayFormat.MAGIC).putInt(ReplayFormat.VERSION)
+                    .putLong(playerId.getMostSignificantBits()).putLong(playerId.getLeastSignificantBits())
+                    .putLong(raceSeed).putLong(raceStartTime).putInt(ReplayFormat.CHUNK_FRAMES).flip();
+            writeFully(header);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void append(ReplayFormat.Chunk c) {
+        if (failed || channel == null) return;
+        try {
+            byte[] data = ReplayFormat.encode(c);
+            long offset = channel.position();
+            ByteBuffer buf = ByteBuffer.allocate(ReplayFormat.CHUNK_HEADER_BYTES + data.length);
+            buf.putInt(ReplayFormat.CHUNK_MAGIC).putInt(c.size).putLong(c.firstTimestamp()).putInt(data.length).put(data).flip();
+            writeFully(buf);
+            index.add(new IndexEntry(offset, c.firstTimestamp(), c.size));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void finish() {
+        if (channel == null) return;
+        try {
+            if (!failed) {
+                long indexOffset = channel.position();
+                ByteBuffer buf = ByteBuffer.allocate(4 + index.size() * ReplayFormat.INDEX_ENTRY_BYTES + ReplayFormat.FOOTER_BYTES);
+                buf.putInt(index.size());
+                for (IndexEntry e : index) buf.putLong(e.offset()).putLong(e.firstTimestamp()).putInt(e.frames());
+                buf.putLong(indexOffset).putInt(ReplayFormat.FOOTER_MAGIC).flip();
+                writeFully(buf);
+            }
+            channel.close();
+            LOGGER.info("[Race] Replay saved: {} ({} chunks)", file.getFileName(), index.size());
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            channel = null;
+        }
+    }
+
+    private void writeFully(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+
+    private void fail(IOException e) {
+        failed = true;
+        LOGGER.error("[Race] Failed to write replay {}: {}", file.getFileName(), e.toString());
+        try { if (channel != null) channel.close(); } catch (IOException ignored) {}
+        channel = null;
+    }
+}
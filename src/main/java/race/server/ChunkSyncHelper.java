@@ -37,7 +37,9 @@ public final class ChunkSyncHelper {
             fut.get(timeoutMs, TimeUnit.MILLISECONDS);
         } catch (Exception ignored) {
         }
-        int spent = (int) ((System.nanoTime() - start) / 1_000_000);
+        long spentNs = System.nanoTime() - start;
+        race.server.metrics.RaceMetrics.recordNanos("chunk:sync-load", spentNs);
+        int spent = (int) (spentNs / 1_000_000);
         if (!budget.consume(spent)) return null;
         return world.getChunkManager().getWorldChunk(chunkX, chunkZ);
     }
@@ -0,0 +1,123 @@
+package race.server;
+
+import net.minecraft.entity.attribute.EntityAttributeInstance;
+import net.minecraft.entity.attribute.EntityAttributeModifier;
+import net.minecraft.entity.attribute.EntityAttributes;
+import net.minecraft.network.packet.c2s.play.PlayerMoveC2SPacket;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import race.server.world.RaceWorldTraits;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * Заморозка игроков до личного старта на уровне пакетов движения. При заморозке игрок один раз
+ * телепортируется на точку привязки и получает временные модификаторы скорости и прыжка (-100%),
+ * поэтому клиент сам не двигается. Пакеты движения замороженного игрока отбрасывает
+ * MixinServerPlayNetworkHandler (поворот головы принимается); если клиент всё же ушёл от точки
+ * (гравитация, отбрасывание), ему отправляется поправка не чаще раза в секунду.
+ * Снятие — один раз при старте. Работает в серверном потоке.
+ */
+public final class RaceFreeze {
+    private static final Identifier MODIFIER_ID = Identifier.of("fabric_race", "freeze");
+    private static final EntityAttributeModifier STOP = new EntityAttributeModifier(MODIFIER_ID, -1.0, EntityAttributeModifier.Operation.ADD_MULTIPLIED_TOTAL);
+    // Отклонение от точки привязки, после которого клиенту отправляется поправка (квадрат, блоки)
+    private static final double DRIFT_SQ = 0.25 * 0.25;
+    private static final long CORRECTION_COOLDOWN_MS = 1000L;
+
+    private static final HashMap<UUID, Vec3d> ANCHORS = new HashMap<>();
+    private static final HashMap<UUID, Long> LAST_CORRECTION = new HashMap<>();
+
+    private RaceFreeze() {}
+
+    /**
+     * Фиксирует игрока на base: модификаторы и одна телепортация
+     */
+    public static void hold(ServerPlayerEntity p, BlockPos base) {
+        Vec3d anchor = new Vec3d(base.getX() + 0.5, base.getY(), base.getZ() + 0.5);
+        ANCHORS.put(p.getUuid(), anchor);
+        setStopped(p, true);
+        p.setVelocity(0, 0, 0);
+        p.velocityModified = true;
+        p.networkHandler.requestTeleport(anchor.x, anchor.y, anchor.z, p.getYaw(), p.getPitch());
+    }
+
+    /**
+     * Снимает заморозку: модификаторы и точка привязки
+     */
+    public static void release(ServerPlayerEntity p) {
+        ANCHORS.remove(p.getUuid());
+        LAST_CORRECTION.remove(p.getUuid());
+        setStopped(p, false);
+    }
+
+    public static void forget(UUID id) {
+        ANCHORS.remove(id);
+        LAST_CORRECTION.remove(id);
+    }
+
+    /**
+     * Вызывается из обработчика пакета движения (уже в серверном потоке).
+     * true — пакет поглощён и обычная обработка движения не нужна.
+     */
+    public static boolean onMovePacket(ServerPlayerEntity p, PlayerMoveC2SPacket packet) {
+        UUID id = p.getUuid();
+        if (!RaceServerInit.frozenUntilStart.contains(id)) {
+            // Заморозку сняли без игрока (например, по UUID) — модификаторы убираем при первом пакете
+            if (ANCHORS.remove(id) != null) setStopped(p, false);
+            return false;
+        }
+        if (RaceServerInit.personalStarted.contains(id) || !RaceWorldTraits.isRace(p.getServerWorld())) {
+            // Игрок уже стартовал или ушёл из гоночного мира — заморозка больше не действует
+            RaceServerInit.frozenUntilStart.remove(id);
+            release(p);
+            return false;
+        }
+
+        if (packet.changesLook()) {
+            float yaw = packet.getYaw(p.getYaw());
+            p.setYaw(yaw);
+            p.setHeadYaw(yaw);
+            p.setPitch(packet.getPitch(p.getPitch()));
+        }
+        Vec3d anchor = ANCHORS.get(id);
+        if (anchor == null) {
+            // Заморожен до перезахода: привязываем к текущей позиции
+            hold(p, p.getBlockPos());
+            return true;
+        }
+        // После респавна у нового объекта игрока модификаторов нет
+        setStopped(p, true);
+        if (packet.changesPosition()) {
+            double dx = packet.getX(anchor.x) - anchor.x;
+            double dy = packet.getY(anchor.y) - anchor.y;
+            double dz = packet.getZ(anchor.z) - anchor.z;
+            if (dx * dx + dy * dy + dz * dz > DRIFT_SQ) {
+                long now = System.currentTimeMillis();
+                Long last = LAST_CORRECTION.get(id);
+                if (last == null || now - last >= CORRECTION_COOLDOWN_MS) {
+                    LAST_CORRECTION.put(id, now);
+                    p.networkHandler.requestTeleport(anchor.x, anchor.y, anchor.z, p.getYaw(), p.getPitch());
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void setStopped(ServerPlayerEntity p, boolean stopped) {
+        apply(p.getAttributeInstance(EntityAttributes.GENERIC_MOVEMENT_SPEED), stopped);
+        apply(p.getAttributeInstance(EntityAttributes.GENERIC_JUMP_STRENGTH), stopped);
+    }
+
+    private static void apply(EntityAttributeInstance attr, boolean stopped) {
+        if (attr == null) return;
+        if (stopped) {
+            if (!attr.hasModifier(MODIFIER_ID)) attr.addTemporaryModifier(STOP);
+        } else {
+            attr.removeModifier(MODIFIER_ID);
+        }
+    }
+}
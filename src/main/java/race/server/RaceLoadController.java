@@ -0,0 +1,178 @@
+package race.server;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import org.slf4j.Logger;
+import race.server.world.RaceWorldTraits;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * Регулятор нагрузки с обратной связью. Сигнал — сглаженный MSPT (EWMA по длительности тиков
+ * из RaceScheduler). Уровень деградации 0..3 меняется на одну ступень с гистерезисом: вверх —
+ * если MSPT выше порога ступени UP_HOLD_TICKS подряд, вниз — если ниже (меньшего) порога
+ * DOWN_HOLD_TICKS подряд; после смены уровень держится не меньше MIN_DWELL_TICKS.
+ *
+ * Ручки по уровням: множитель периода adaptive‑задач планировщика, период рассылки силуэтов и табло, качество призраков, радиус и лимит
+ * ограничителя мобов, дистанция симуляции гоночных миров, бюджет синхронной догрузки чанков.
+ * Каждая смена уровня — событие в логе и в журнале последних событий (/race auto).
+ * Работает в серверном потоке.
+ */
+public final class RaceLoadController {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    public static final int MAX_LEVEL = 3;
+
+    // Пороги сглаженного MSPT: переход L -> L+1 при > UP_MS[L], L -> L-1 при < DOWN_MS[L-1]
+    private static final double[] UP_MS = { 40.0, 45.0, 49.0 };
+    private static final double[] DOWN_MS = { 30.0, 36.0, 42.0 };
+    private static final double ALPHA = 0.05;
+    private static final int UP_HOLD_TICKS = 40;
+    private static final int DOWN_HOLD_TICKS = 200;
+    private static final int MIN_DWELL_TICKS = 100;
+    private static final int MAX_EVENTS = 32;
+
+    // Ручки по уровням 0..3
+    private static final int[] PARALLEL_SHED = { 1, 2, 3, 4 };
+    private static final int[] BOARD_SHED = { 1, 1, 2, 3 };
+    // Множитель периода adaptive‑задач планировщика
+    private static final int[] PERIOD_SCALE = { 1, 1, 2, 3 };
+    private static final int[] GHOST_QUALITY = { 3, 2, 1, 0 };
+    private static final int[] MOB_RADIUS = { 48, 40, 32, 24 };
+    private static final int[] MOB_LIMIT = { 24, 20, 16, 12 };
+    private static final int[] SIM_DISTANCE_CUT = { 0, 2, 3, 4 };
+    private static final int[] SYNC_BUDGET_MS = { 20, 10, 5, 0 };
+    private static final int[] SYNC_BUDGET_CHUNKS = { 1, 1, 1, 0 };
+    private static final int MIN_SIM_DISTANCE = 5;
+
+    public record Event(long timeMs, int from, int to, double msptSmoothed, String reason) {
+        @Override
+        public String toString() {
+            return new SimpleDateFormat("HH:mm:ss").format(new Date(timeMs)) + " " + from + " -> " + to
+                    + " (MSPT " + String.format("%.1f", msptSmoothed) + ", " + reason + ")";
+        }
+    }
+
+    private static volatile boolean enabled = true;
+    private static volatile int level;
+    private static volatile double msptSmoothed;
+    private static int aboveTicks;
+    private static int belowTicks;
+    private static int dwellTicks;
+    private static final ArrayDeque<Event> EVENTS = new ArrayDeque<>();
+    // Какая дистанция симуляции уже выставлена миру (чтобы не дёргать чанк‑менеджер каждый тик)
+    private static final WeakHashMap<ServerWorld, Integer> APPLIED_SIM = new WeakHashMap<>();
+
+    private RaceLoadController() {}
+
+    public static void init() {
+        RaceScheduler.register("load-control", 1, RaceScheduler.Priority.HIGH, 100_000L, RaceLoadController::tick);
+        RaceScheduler.setPeriodScale(server -> PERIOD_SCALE[level]);
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STOPPING.register(server -> reset());
+    }
+
+    public static int getLevel() { return level; }
+    public static double getMsptSmoothed() { return msptSmoothed; }
+    public static boolean isEnabled() { return enabled; }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static synchronized List<Event> getEvents() {
+        return new ArrayList<>(EVENTS);
+    }
+
+    // ===== Ручки для подсистем =====
+
+    public static int ghostQuality() { return GHOST_QUALITY[level]; }
+    public static int mobRadius() { return MOB_RADIUS[level]; }
+    public static int mobLimit() { return MOB_LIMIT[level]; }
+    public static int syncBudgetMs() { return SYNC_BUDGET_MS[level]; }
+    public static int syncBudgetChunks() { return SYNC_BUDGET_CHUNKS[level]; }
+    public static int periodScale() { return PERIOD_SCALE[level]; }
+
+    // Следующий запуск сервера (встроенный сервер) начинает с нуля: уровень, сглаженный MSPT, счётчики, ручки задач
+    private static void reset() {
+        level = 0;
+        msptSmoothed = 0.0;
+        aboveTicks = 0;
+        belowTicks = 0;
+        dwellTicks = 0;
+        applyShedFactors(0);
+        APPLIED_SIM.clear();
+    }
+
+    private static void applyShedFactors(int l) {
+        RaceScheduler.Task parallel = RaceScheduler.find("parallel-players");
+        if (parallel != null) parallel.setShedFactor(PARALLEL_SHED[l]);
+        RaceScheduler.Task board = RaceScheduler.find("board");
+        if (board != null) board.setShedFactor(BOARD_SHED[l]);
+    }
+
+    private static void tick(MinecraftServer server) {
+        double mspt = RaceScheduler.getLastTickNs() / 1_000_000.0;
+        msptSmoothed = msptSmoothed == 0.0 ? mspt : msptSmoothed + ALPHA * (mspt - msptSmoothed);
+
+        if (!enabled) {
+            if (level != 0) setLevel(server, 0, "controller disabled");
+            return;
+        }
+
+        int l = level;
+        aboveTicks = l < MAX_LEVEL && msptSmoothed > UP_MS[l] ? aboveTicks + 1 : 0;
+        belowTicks = l > 0 && msptSmoothed < DOWN_MS[l - 1] ? belowTicks + 1 : 0;
+        if (dwellTicks < MIN_DWELL_TICKS) {
+            dwellTicks++;
+        } else if (aboveTicks >= UP_HOLD_TICKS) {
+            setLevel(server, l + 1, "MSPT above " + UP_MS[l] + " for " + aboveTicks + " ticks");
+        } else if (belowTicks >= DOWN_HOLD_TICKS) {
+            setLevel(server, l - 1, "MSPT below " + DOWN_MS[l - 1] + " for " + belowTicks + " ticks");
+        }
+
+        // Новые гоночные миры получают дистанцию текущего уровня
+        if (server.getTicks() % 100 == 0) applySimulationDistance(server);
+    }
+
+    private static void setLevel(MinecraftServer server, int to, String reason) {
+        int from = level;
+        if (from == to) return;
+        level = to;
+        aboveTicks = 0;
+        belowTicks = 0;
+        dwellTicks = 0;
+
+        applyShedFactors(to);
+        applySimulationDistance(server);
+
+        Event e = new Event(System.currentTimeMillis(), from, to, msptSmoothed, reason);
+        synchronized (RaceLoadController.class) {
+            EVENTS.addLast(e);
+            while (EVENTS.size() > MAX_EVENTS) EVENTS.removeFirst();
+        }
+        LOGGER.info("[Race] Load level {} -> {} (MSPT {}, {}): tasks x{}, parallel x{}, board x{}, ghosts {}, mob radius {}, sim distance -{}, sync budget {} ms",
+                from, to, String.format("%.1f", msptSmoothed), reason, PERIOD_SCALE[to], PARALLEL_SHED[to], BOARD_SHED[to], GHOST_QUALITY[to],
+                MOB_RADIUS[to], SIM_DISTANCE_CUT[to], SYNC_BUDGET_MS[to]);
+    }
+
+    private static void applySimulationDistance(MinecraftServer server) {
+        int base = server.getPlayerManager().getSimulationDistance();
+        int target = Math.max(Math.min(base, MIN_SIM_DISTANCE), base - SIM_DISTANCE_CUT[level]);
+        for (ServerWorld world : server.getWorlds()) {
+            if (!RaceWorldTraits.isRace(world)) continue;
+            Integer applied = APPLIED_SIM.get(world);
+            if (applied == null && target == base) continue;
+            if (applied != null && applied == target) continue;
+            try {
+                world.getChunkManager().applySimulationDistance(target);
+                APPLIED_SIM.put(world, target);
+            } catch (Throwable ignored) {}
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package race.server;
+
+import com.mojang.logging.LogUtils;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.MinecraftServer;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Единый планировщик периодической работы гонки. Задача регистрируется с периодом, фазой,
+ * бюджетом в наносекундах и приоритетом; фаза по умолчанию подбирается так, чтобы задачи с
+ * одинаковым периодом не срабатывали в один тик. Если тик уже вышел за бюджет
+ * (-Drace.scheduler.tickBudgetMs), задачи NORMAL и LOW откладываются на следующие тики:
+ * NORMAL выполняется не позже чем через период, LOW в этом случае пропускается.
+ * Работает в серверном потоке в конце тика.
+ */
+public final class RaceScheduler {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final long TICK_BUDGET_NS = Math.max(1L, Long.getLong("race.scheduler.tickBudgetMs", 40L)) * 1_000_000L;
+    // Горизонт подбора фаз: кратен всем периодам, которые используются в моде (20, 40, 80, 100...)
+    private static final int HORIZON = 1200;
+
+    public enum Priority { HIGH, NORMAL, LOW }
+
+    public static final class Task {
+        final String name;
+        final int period;
+        final int phase;
+        final Priority priority;
+        final long budgetNs;
+        final Consumer<MinecraftServer> action;
+        final race.server.metrics.LogHistogram histogram;
+        boolean adaptive;
+        // Дополнительный множитель периода от RaceLoadController
+        volatile int shedFactor = 1;
+
+        int deferredTicks = -1;
+        long runs;
+        long totalNs;
+        long maxNs;
+        long lastNs;
+        long overruns;
+        long deferrals;
+        long dropped;
+        long errors;
+
+        private Task(String name, int period, int phase, Priority priority, long budgetNs, Consumer<MinecraftServer> action) {
+            this.name = name;
+            this.period = period;
+            this.phase = phase;
+            this.priority = priority;
+            this.budgetNs = budgetNs;
+            this.action = action;
+            this.histogram = race.server.metrics.RaceMetrics.nanos("task:" + name);
+        }
+
+        /**
+         * Период задачи растягивается множителем нагрузки (см. setPeriodScale)
+         */
+        public Task adaptive() {
+            this.adaptive = true;
+            return this;
+        }
+
+        /**
+         * Множитель периода при сбросе нагрузки (1 — обычный период)
+         */
+        public void setShedFactor(int factor) {
+            this.shedFactor = Math.max(1, factor);
+        }
+
+        public int getShedFactor() { return shedFactor; }
+        public String getName() { return name; }
+        public int getPeriod() { return period; }
+        public int getPhase() { return phase; }
+        public Priority getPriority() { return priority; }
+        public long getBudgetNs() { return budgetNs; }
+        public long getRuns() { return runs; }
+        public long getAvgNs() { return runs > 0 ? totalNs / runs : 0L; }
+        public long getMaxNs() { return maxNs; }
+        public long getLastNs() { return lastNs; }
+        public long getOverruns() { return overruns; }
+        public long getDeferrals() { return deferrals; }
+        public long getDropped() { return dropped; }
+        public long getErrors() { return errors; }
+        public race.server.metrics.LogHistogram getHistogram() { return histogram; }
+    }
+
+    private static final ArrayList<Task> TASKS = new ArrayList<>();
+    // Сколько задач срабатывает в каждом тике горизонта — для подбора фаз
+    private static final int[] LOAD = new int[HORIZON];
+    private static final race.server.metrics.LogHistogram SERVER_MSPT = race.server.metrics.RaceMetrics.nanos("mspt:server");
+    private static ToIntFunction<MinecraftServer> periodScale = s -> 1;
+    private static long tickStartNs = System.nanoTime();
+    private static volatile long lastTickNs;
+    private static boolean initialized;
+
+    private RaceScheduler() {}
+
+    public static synchronized void init() {
+        if (initialized) return;
+        initialized = true;
+        ServerTickEvents.START_SERVER_TICK.register(server -> tickStartNs = System.nanoTime());
+        ServerTickEvents.END_SERVER_TICK.register(RaceScheduler::tick);
+    }
+
+    /**
+     * Регистрирует задачу с автоматически подобранной фазой
+     */
+    public static synchronized Task register(String name, int period, Priority priority, long budgetNs, Consumer<MinecraftServer> action) {
+        return register(name, period, pickPhase(Math.max(1, period)), priority, budgetNs, action);
+    }
+
+    public static synchronized Task register(String name, int period, int phase, Priority priority, long budgetNs, Consumer<MinecraftServer> action) {
+        int p = Math.max(1, period);
+        Task task = new Task(name, p, Math.floorMod(phase, p), priority, budgetNs, action);
+        for (int t = task.phase; t < HORIZON; t += p) LOAD[t]++;
+        TASKS.add(task);
+        // Порядок обхода: сначала HIGH, внутри приоритета — порядок регистрации
+        TASKS.sort(Comparator.comparing((Task x) -> x.priority));
+        return task;
+    }
+
+    /**
+     * Множитель периода для adaptive‑задач (нагрузка, число игроков)
+     */
+    public static void setPeriodScale(ToIntFunction<MinecraftServer> scale) {
+        periodScale = scale;
+    }
+
+    /** Сколько наносекунд прошло с начала текущего тика */
+    public static long tickElapsedNs() {
+        return System.nanoTime() - tickStartNs;
+    }
+
+    public static synchronized List<Task> getTasks() {
+        return new ArrayList<>(TASKS);
+    }
+
+    public static synchronized Task find(String name) {
+        for (Task task : TASKS) {
+            if (task.name.equals(name)) return task;
+        }
+        return null;
+    }
+
+    /** Длительность последнего полного тика (до конца прохода планировщика), нс */
+    public static long getLastTickNs() {
+        return lastTickNs;
+    }
+
+    private static int pickPhase(int period) {
+        int best = 0;
+        long bestLoad = Long.MAX_VALUE;
+        for (int phase = 0; phase < Math.min(period, HORIZON); phase++) {
+            long load = 0;
+            for (int t = phase; t < HORIZON; t += period) load += LOAD[t];
+            if (load < bestLoad) {
+                bestLoad = load;
+                best = phase;
+            }
+        }
+        return best;
+    }
+
+    private static void tick(MinecraftServer server) {
+        int ticks = server.getTicks();
+        int scale = 1;
+        try { scale = Math.max(1, periodScale.applyAsInt(server)); } catch (Throwable ignored) {}
+
+        for (int i = 0, n = TASKS.size(); i < n; i++) {
+            Task task = TASKS.get(i);
+            int period = (task.adaptive ? task.period * scale : task.period) * task.shedFactor;
+            boolean due = Math.floorMod(ticks - task.phase, period) == 0;
+            if (!due && task.deferredTicks < 0) continue;
+
+            if (task.priority != Priority.HIGH) {
+                long remaining = TICK_BUDGET_NS - tickElapsedNs();
+                if (remaining < task.budgetNs) {
+                    if (task.deferredTicks < 0) {
+                        task.deferredTicks = 0;
+                        task.deferrals++;
+                        continue;
+                    }
+                    if (++task.deferredTicks < period) continue;
+                    // Отложено на целый период: NORMAL выполняем принудительно, LOW пропускаем
+                    if (task.priority == Priority.LOW) {
+                        task.deferredTicks = -1;
+                        task.dropped++;
+                        continue;
+                    }
+                }
+            }
+            task.deferredTicks = -1;
+            run(task, server);
+        }
+        // MSPT сервера: от начала тика до конца работы гонки (миры уже оттикали)
+        lastTickNs = tickElapsedNs();
+        SERVER_MSPT.record(lastTickNs);
+    }
+
+    private static void run(Task task, MinecraftServer server) {
+        long start = System.nanoTime();
+        try {
+            task.action.accept(server);
+        } catch (Throwable t) {
+            if (task.errors++ < 5) LOGGER.warn("[Race] Scheduler task '{}' failed: {}", task.name, t.toString());
+        }
+        long ns = System.nanoTime() - start;
+        task.runs++;
+        task.totalNs += ns;
+        task.lastNs = ns;
+        task.histogram.record(ns);
+        if (ns > task.maxNs) task.maxNs = ns;
+        if (ns > task.budgetNs) task.overruns++;
+    }
+}
@@ -52,7 +52,6 @@ public final class RaceServerInit implements ModInitializer {
     private static volatile boolean active = false;
     private static volatile long seed = -1L;
     private static volatile long t0ms = -1L;
-    private static int tick = 0;
     // Запоминаем уже объявленные команды по конкретному миру (ключ мира)
     private static final java.util.Map<String, java.util.Set<java.util.UUID>> announcedTeams = new java.util.HashMap<>();
     
@@ -65,14 +64,12 @@ public final class RaceServerInit implements ModInitializer {
     // Персональный старт таймера и заморозка до старта
     public static final java.util.Set<java.util.UUID> personalStarted = new java.util.HashSet<>();
     public static final java.util.Set<java.util.UUID> frozenUntilStart = new java.util.HashSet<>();
-    private static final java.util.Map<java.util.UUID, net.minecraft.util.math.BlockPos> freezePos = new java.util.HashMap<>();
     // Отображать ли параллельных игроков (призраки/следы) — настраивается хостом
     private static volatile boolean displayParallelPlayers = true;
     // Стабилизатор времени суток: не позволяем шагу времени прыгать больше чем на 1 тик
-    private static final java.util.Map<String, Long> lastTimeOfDay = new java.util.concurrent.ConcurrentHashMap<>();
-    // Отложенные Join-запросы: источник -> (цель, тики)
-    private static final java.util.Map<java.util.UUID, PendingJoin> pendingJoins = new java.util.concurrent.ConcurrentHashMap<>();
-    private record PendingJoin(java.util.UUID target, int ticksLeft) {}
+    // Отложенные Join-запросы: источник -> (цель, таймер). Таймер привязан к источнику и снимается при его выходе
+    private static final java.util.Map<java.util.UUID, PendingJoin> pendingJoins = new java.util.HashMap<>();
+    private record PendingJoin(java.util.UUID target, RaceTimers.Handle timer) {}
     
     // Отслеживание оригинальных миров игроков
     private static final java.util.Map<java.util.UUID, String> playerOriginalWorlds = new java.util.concurrent.ConcurrentHashMap<>();
@@ -84,8 +81,10 @@ public final class RaceServerInit implements ModInitializer {
     // Интервал автосохранения (в тиках)
     private static final int saveInterval = 200; // 10 секунд при 20 TPS
     
-    // TPS отслеживание
-    private static final java.util.Queue<Long> tickTimes = new java.util.concurrent.ConcurrentLinkedQueue<>();
+    // TPS отслеживание: кольцо отметок System.nanoTime() концов тиков за последние ~20 секунд
+    private static final long[] tickStamps = new long[401];
+    private static int tickStampHead;
+    private static int tickStampCount;
     private static volatile double currentTPS = 20.0;
     private static volatile boolean tpsDisplayEnabled = false;
     
@@ -93,15 +92,6 @@ public final class RaceServerInit implements ModInitializer {
     private static final java.util.Map<java.util.UUID, Long> lastPlayerUpdate = new java.util.concurrent.ConcurrentHashMap<>();
     private static final java.util.Map<java.util.UUID, Long> lastMobCheck = new java.util.concurrent.ConcurrentHashMap<>();
     private static final java.util.Map<java.util.UUID, Long> lastParallelUpdate = new java.util.concurrent.ConcurrentHashMap<>();
-    private static final java.util.concurrent.atomic.AtomicInteger performanceLevel = new java.util.concurrent.atomic.AtomicInteger(0); // 0=normal, 1=medium, 2=high load
-    
-    // Система автоматической оптимизации
-    private static final java.util.concurrent.atomic.AtomicInteger autoOptimizationLevel = new java.util.concurrent.atomic.AtomicInteger(0);
-    private static final java.util.concurrent.atomic.AtomicLong lastGcTime = new java.util.concurrent.atomic.AtomicLong(0);
-    private static final java.util.concurrent.atomic.AtomicLong lastMemoryCheck = new java.util.concurrent.atomic.AtomicLong(0);
-    private static final java.util.concurrent.atomic.AtomicInteger consecutiveLowTps = new java.util.concurrent.atomic.AtomicInteger(0);
-    private static final java.util.concurrent.atomic.AtomicInteger consecutiveHighTps = new java.util.concurrent.atomic.AtomicInteger(0);
-    private static volatile boolean autoOptimizationEnabled = true;
     
     // Оптимизация призраков
     private static volatile int ghostQualityLevel = 2; // 0=отключено, 1=низкое, 2=среднее, 3=высокое
@@ -119,21 +109,24 @@ public final class RaceServerInit implements ModInitializer {
     public static void setTpsDisplayEnabled(boolean enabled) { tpsDisplayEnabled = enabled; }
     
     // Методы для мониторинга производительности
-    public static int getPerformanceLevel() { return performanceLevel.get(); }
+    // Уровень нагрузки — у RaceLoadController (сглаженный MSPT с гистерезисом)
+    public static int getPerformanceLevel() { return RaceLoadController.getLevel(); }
     public static String getPerformanceStatus() {
-        int level = performanceLevel.get();
+        int level = RaceLoadController.getLevel();
         return switch (level) {
             case 0 -> "Нормальная";
             case 1 -> "Средняя нагрузка";
             case 2 -> "Высокая нагрузка";
+            case 3 -> "Перегрузка";
             default -> "Неизвестно";
         };
     }
     
     // Методы для автоматической оптимизации
-    public static int getAutoOptimizationLevel() { return autoOptimizationLevel.get(); }
-    public static boolean isAutoOptimizationEnabled() { return autoOptimizationEnabled; }
-    public static void setAutoOptimizationEnabled(boolean enabled) { autoOptimizationEnabled = enabled; }
+    // Уровень деградации и включение — у RaceLoadController
+    public static int getAutoOptimizationLevel() { return RaceLoadController.getLevel(); }
+    public static boolean isAutoOptimizationEnabled() { return RaceLoadController.isEnabled(); }
+    public static void setAutoOptimizationEnabled(boolean enabled) { RaceLoadController.setEnabled(enabled); }
     
     // Методы для оптимизации призраков
     public static int getGhostQualityLevel() { return ghostQualityLevel; }
@@ -147,11 +140,8 @@ public final class RaceServerInit implements ModInitializer {
     public static int getAdaptiveGhostQuality() {
         if (!adaptiveGhostQuality) return ghostQualityLevel;
         
-        // Адаптивное качество на основе TPS и количества игроков
-        if (currentTPS < 15.0) return 0; // Отключаем при очень низком TPS
-        if (currentTPS < 18.0) return 1; // Низкое качество при среднем TPS
-        if (currentTPS < 19.5) return 2; // Среднее качество при хорошем TPS
-        return 3; // Высокое качество при отличном TPS
+        // Адаптивное качество задаёт регулятор нагрузки по сглаженному MSPT
+        return RaceLoadController.ghostQuality();
     }
     
     /**
@@ -182,141 +172,6 @@ public final class RaceServerInit implements ModInitializer {
         };
     }
     
-    /**
-     * Автоматическая оптимизация производительности
-     */
-    private static void performAutoOptimization(MinecraftServer server) {
-        if (!autoOptimizationEnabled) return;
-        
-        long now = System.currentTimeMillis();
-        double tps = currentTPS;
-        
-        // Анализируем тренд TPS
-        if (tps < 16.0) {
-            consecutiveLowTps.incrementAndGet();
-            consecutiveHighTps.set(0);
-        } else if (tps > 19.0) {
-            consecutiveHighTps.incrementAndGet();
-            consecutiveLowTps.set(0);
-        } else {
-            consecutiveLowTps.set(0);
-            consecutiveHighTps.set(0);
-        }
-        
-        // Применяем автоматические оптимизации
-        if (consecutiveLowTps.get() >= 3) { // 3 тика подряд с низким TPS
-            applyAutoOptimizations(server, true);
-        } else if (consecutiveHighTps.get() >= 5) { // 5 тиков подряд с высоким TPS
-            applyAutoOptimizations(server, false);
-        }
-        
-        // Периодическая проверка памяти и GC
-        if (now - lastMemoryCheck.get() > 10000) { // Каждые 10 секунд
-            checkAndOptimizeMemory(server);
-            lastMemoryCheck.set(now);
-        }
-    }
-    
-    /**
-     * Применяет автоматические оптимизации
-     */
-    private static void applyAutoOptimizations(MinecraftServer server, boolean increaseResources) {
-        if (increaseResources) {
-            int currentLevel = autoOptimizationLevel.get();
-            if (currentLevel < 3) { // Максимум 3 уровня
-                autoOptimizationLevel.incrementAndGet();
-                LOGGER.info("[Race] Автоматическая оптимизация: Уровень {} (TPS: {})", 
-                    autoOptimizationLevel.get(), String.format("%.2f", currentTPS));
-                
-                // Применяем оптимизации
-                applyResourceOptimizations(server, autoOptimizationLevel.get());
-            }
-        } else {
-            int currentLevel = autoOptimizationLevel.get();
-            if (currentLevel > 0) {
-                autoOptimizationLevel.decrementAndGet();
-                LOGGER.info("[Race] Автоматическая оптимизация: Уровень {} (TPS: {})", 
-                    autoOptimizationLevel.get(), String.format("%.2f", currentTPS));
-                
-                // Снижаем оптимизации
-                applyResourceOptimizations(server, autoOptimizationLevel.get());
-            }
-        }
-    }
-    
-    /**
-     * Применяет оптимизации ресурсов на основе уровня
-     */
-    private static void applyResourceOptimizations(MinecraftServer server, int level) {
-        try {
-            switch (level) {
-                case 1 -> {
-                    // Уровень 1: Базовая оптимизация
-                    System.gc(); // Принудительная сборка мусора
-                    LOGGER.info("[Race] Применена базовая оптимизация: GC");
-                }
-                case 2 -> {
-                    // Уровень 2: Средняя оптимизация
-                    System.gc();
-                    // Очищаем кэши
-                    playerSeedCache.clear();
-                    playerWorldCache.clear();
-                    LOGGER.info("[Race] Применена средняя оптимизация: GC + очистка кэшей");
-                }
-                case 3 -> {
-                    // Уровень 3: Агрессивная оптимизация
-                    System.gc();
-                    playerSeedCache.clear();
-                    playerWorldCache.clear();
-                    // Очищаем дополнительные кэши
-                    lastPlayerUpdate.clear();
-                    lastMobCheck.clear();
-                    lastParallelUpdate.clear();
-                    LOGGER.info("[Race] Применена агрессивная оптимизация: GC + полная очистка кэшей");
-                }
-                default -> {
-                    // Уровень 0: Нормальная работа
-                    LOGGER.info("[Race] Оптимизации отключены, нормальная работа");
-                }
-            }
-        } catch (Exception e) {
-            LOGGER.warn("[Race] Ошибка применения оптимизаций: {}", e.getMessage());
-        }
-    }
-    
-    /**
-     * Проверяет и оптимизирует использование памяти
-     */
-    private static void checkAndOptimizeMemory(MinecraftServer server) {
-        try {
-            Runtime runtime = Runtime.getRuntime();
-            long totalMemory = runtime.totalMemory();
-            long freeMemory = runtime.freeMemory();
-            long usedMemory = totalMemory - freeMemory;
-            long maxMemory = runtime.maxMemory();
-            
-            double memoryUsagePercent = (double) usedMemory / maxMemory * 100;
-            
-            // Если использование памяти > 80%, применяем агрессивную оптимизацию
-            if (memoryUsagePercent > 80.0) {
-                LOGGER.warn("[Race] Высокое использование памяти: {:.1f}%", memoryUsagePercent);
-                if (autoOptimizationLevel.get() < 3) {
-                    autoOptimizationLevel.set(3);
-                    applyResourceOptimizations(server, 3);
-                }
-            }
-            // Если использование памяти < 50%, снижаем оптимизации
-            else if (memoryUsagePercent < 50.0 && autoOptimizationLevel.get() > 0) {
-                LOGGER.info("[Race] Низкое использование памяти: {:.1f}%, снижаем оптимизации", memoryUsagePercent);
-                autoOptimizationLevel.decrementAndGet();
-                applyResourceOptimizations(server, autoOptimizationLevel.get());
-            }
-            
-        } catch (Exception e) {
-            LOGGER.warn("[Race] Ошибка проверки памяти: {}", e.getMessage());
-        }
-    }
-    
     /**
      * Обновляет кэш игроков для оптимизации производительности
      */
@@ -343,53 +198,24 @@ public final class RaceServerInit implements ModInitializer {
     /**
      * Обновляет TPS на основе времени выполнения тиков
      */
-    private static void updateTPS(long tickTimeMs) {
-        long currentTime = System.currentTimeMillis();
-        tickTimes.offer(currentTime);
-        
-        // Ограничиваем размер очереди до последних 20 секунд
-        while (!tickTimes.isEmpty() && currentTime - tickTimes.peek() > 20000) {
-            tickTimes.poll();
+    private static void updateTPS(long nowNs) {
+        tickStamps[tickStampHead] = nowNs;
+        tickStampHead = (tickStampHead + 1) % tickStamps.length;
+        if (tickStampCount < tickStamps.length) tickStampCount++;
+
+        // Вычисляем TPS по самой старой отметке в кольце (не старше 20 секунд)
+        int oldest = (tickStampHead - tickStampCount + tickStamps.length) % tickStamps.length;
+        int n = tickStampCount;
+        while (n > 2 && nowNs - tickStamps[oldest] > 20_000_000_000L) {
+            oldest = (oldest + 1) % tickStamps.length;
+            n--;
         }
-        
-        // Вычисляем TPS на основе количества тиков за последние 20 секунд
-        if (tickTimes.size() > 1) {
-            long timeSpan = currentTime - tickTimes.peek();
-            if (timeSpan > 0) {
-                currentTPS = Math.min(20.0, (tickTimes.size() - 1) * 1000.0 / timeSpan);
+        if (n > 1) {
+            long spanNs = nowNs - tickStamps[oldest];
+            if (spanNs > 0) {
+                currentTPS = Math.min(20.0, (n - 1) * 1_000_000_000.0 / spanNs);
             }
         }
-        
-        // Адаптивная оптимизация на основе TPS
-        if (currentTPS < 15.0) {
-            performanceLevel.set(2); // Высокая нагрузка
-        } else if (currentTPS < 18.0) {
-            performanceLevel.set(1); // Средняя нагрузка
-        } else {
-            performanceLevel.set(0); // Нормальная нагрузка
-        }
-    }
-    
-    /**
-     * Получает адаптивный интервал для обновлений на основе производительности
-     */
-    private static int getAdaptiveInterval(int baseInterval, int playerCount) {
-        int level = performanceLevel.get();
-        int multiplier = 1;
-        
-        // Увеличиваем интервалы при высокой нагрузке
-        if (level == 2) {
-            multiplier = 3; // В 3 раза реже
-        } else if (level == 1) {
-            multiplier = 2; // В 2 раза реже
-        }
-        
-        // Дополнительная оптимизация для большого количества игроков
-        if (playerCount > 8) {
-            multiplier *= 2;
-        }
-        
-        return baseInterval * multiplier;
     }
     
     /**
@@ -404,8 +230,8 @@ public final class RaceServerInit implements ModInitializer {
             return true;
         }
         
-        int interval = getAdaptiveInterval(baseInterval, 1); // Базовый интервал
-        return (now - lastUpdate) >= interval;
+        // Нагрузку учитывает планировщик: задача progress — adaptive
+        return (now - lastUpdate) >= baseInterval;
     }
     
     /**
@@ -439,12 +265,157 @@ public final class RaceServerInit implements ModInitializer {
     public static void grantFloatGrace(ServerPlayerEntity p, int ticks) { }
 
     public static boolean isFrozen(java.util.UUID id) { return frozenUntilStart.contains(id); }
-    
+
+    /**
+     * Ставит join-запрос source -> target через delayTicks тиков; прежний запрос источника отменяется
+     */
+    public static void requestJoin(ServerPlayerEntity source, ServerPlayerEntity target, int delayTicks) {
+        java.util.UUID srcId = source.getUuid();
+        java.util.UUID dstId = target.getUuid();
+        cancelJoin(srcId);
+        RaceTimers.Handle timer = RaceTimers.schedule(srcId, delayTicks, server -> {
+            pendingJoins.remove(srcId);
+            completeJoin(server, srcId, dstId);
+        });
+        pendingJoins.put(srcId, new PendingJoin(dstId, timer));
+        LOGGER.info("[Race] Pending join: {} -> {} in {} ticks", source.getName().getString(), target.getName().getString(), delayTicks);
+    }
+
+    /**
+     * Отменяет join-запрос игрока; возвращает UUID цели или null, если запроса не было
+     */
+    public static java.util.UUID cancelJoin(java.util.UUID source) {
+        PendingJoin pj = pendingJoins.remove(source);
+        if (pj == null) return null;
+        pj.timer().cancel();
+        return pj.target();
+    }
+
+    public static int getPendingJoinCount() { return pendingJoins.size(); }
+
+    private static void completeJoin(MinecraftServer server, java.util.UUID srcId, java.util.UUID targetId) {
+        ServerPlayerEntity src = server.getPlayerManager().getPlayer(srcId);
+        ServerPlayerEntity dst = server.getPlayerManager().getPlayer(targetId);
+        if (src != null && dst != null && dst.isAlive() && !dst.isDead()) {
+            try {
+                if (race.server.world.ReturnPointRegistry.get(src) == null) {
+                    race.server.world.ReturnPointRegistry.saveCurrent(src);
+                }
+            } catch (Throwable ignored) {}
+            src.teleport(dst.getServerWorld(), dst.getX(), dst.getY(), dst.getZ(), dst.getYaw(), dst.getPitch());
+            // ИСПРАВЛЕННАЯ логика присоединения с учетом типа мира
+            try {
+                String targetWorldKey = dst.getServerWorld().getRegistryKey().getValue().toString();
+                String sourceWorldKey = src.getServerWorld().getRegistryKey().getValue().toString();
+                
+                LOGGER.info("[Race] JOIN: {} -> {}, target world: {}, same world: {}", 
+                    src.getName().getString(), dst.getName().getString(), 
+                    targetWorldKey, targetWorldKey.equals(sourceWorldKey));
+
+                // КЛЮЧЕВОЕ ИСПРАВЛЕНИЕ: Проверяем тип мира и состояние гонки
+                boolean isPersonalWorld = targetWorldKey.startsWith("fabric_race:p_");
+                boolean isSlotWorld = targetWorldKey.contains("slot") && targetWorldKey.startsWith("fabric_race:");
+                boolean isRaceWorld = targetWorldKey.startsWith("fabric_race:");
+                boolean sameWorld = targetWorldKey.equals(sourceWorldKey);
+                
+                boolean dstFrozen = isFrozen(dst.getUuid());
+                boolean dstStarted = personalStarted.contains(dst.getUuid());
+                boolean srcStarted = personalStarted.contains(src.getUuid());
+                boolean raceActive = active;
+                
+                LOGGER.info("[Race] World analysis - personal: {}, slot: {}, race: {}, same: {}, dst frozen: {}, dst started: {}, src started: {}, race active: {}", 
+                    isPersonalWorld, isSlotWorld, isRaceWorld, sameWorld, dstFrozen, dstStarted, srcStarted, raceActive);
+
+                // ПРИОРИТЕТНАЯ ЛОГИКА: Проверяем состояние присоединяющегося игрока
+                if (srcStarted && raceActive) {
+                    // Присоединяющийся игрок уже начал гонку - НЕ ЗАМОРАЖИВАЕМ
+                    releaseFreeze(src);
+                    src.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
+                    src.sendMessage(net.minecraft.text.Text.literal("Присоединились к игроку во время активной гонки!")
+                        .formatted(net.minecraft.util.Formatting.GREEN), false);
+                    LOGGER.info("[Race] Player {} joined {} without freezing (src already started race)", 
+                        src.getName().getString(), dst.getName().getString());
+                        
+                } else if (sameWorld || isPersonalWorld || isSlotWorld) {
+                    // В персональных/слотовых мирах или том же мире - НЕ ЗАМОРАЖИВАЕМ
+                    releaseFreeze(src);
+                    src.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
+                    
+                    if (sameWorld) {
+                        src.sendMessage(net.minecraft.text.Text.literal("Присоединились к игроку в том же мире!")
+                            .formatted(net.minecraft.util.Formatting.GREEN), false);
+                    } else if (isPersonalWorld) {
+                        src.sendMessage(net.minecraft.text.Text.literal("Присоединились к персональному миру игрока!")
+                            .formatted(net.minecraft.util.Formatting.GREEN), false);
+                    } else {
+                        src.sendMessage(net.minecraft.text.Text.literal("Присоединились к групповому миру!")
+                            .formatted(net.minecraft.util.Formatting.GREEN), false);
+                    }
+                    
+                    LOGGER.info("[Race] Player {} joined {} without freezing (world-based logic)", 
+                        src.getName().getString(), dst.getName().getString());
+                        
+                } else if (isRaceWorld && (dstStarted || raceActive)) {
+                    // Присоединение к активной гонке в любом race-мире - НЕ ЗАМОРАЖИВАЕМ
+                    releaseFreeze(src);
+                    src.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
+                    src.sendMessage(net.minecraft.text.Text.literal("Присоединились к активной гонке!")
+                        .formatted(net.minecraft.util.Formatting.GREEN), false);
+                    LOGGER.info("[Race] Player {} joined active race in {} without freezing", 
+                        src.getName().getString(), targetWorldKey);
+                        
+                } else if (dstStarted && raceActive) {
+                    // Стандартная логика для активной гонки
+                    releaseFreeze(src);
+                    src.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
+                    src.sendMessage(net.minecraft.text.Text.literal("Присоединились к активному гонщику!")
+                        .formatted(net.minecraft.util.Formatting.GREEN), false);
+                    LOGGER.info("[Race] Player {} joined active racer {} without freezing", 
+                        src.getName().getString(), dst.getName().getString());
+                        
+                } else if (dstFrozen && !raceActive) {
+                    // Замораживаем только если цель заморожена и гонка не активна
+                    freezePlayerUntilStart(src);
+                    src.sendMessage(net.minecraft.text.Text.literal("Присоединились к ожидающему игроку. Ждите начала гонки.")
+                        .formatted(net.minecraft.util.Formatting.YELLOW), false);
+                    LOGGER.info("[Race] Player {} joined frozen player {} and frozen too", 
+                        src.getName().getString(), dst.getName().getString());
+                        
+                } else {
+                    // По умолчанию НЕ замораживаем
+                    releaseFreeze(src);
+                    src.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
+                    src.sendMessage(net.minecraft.text.Text.literal("Присоединились к игроку.")
+                        .formatted(net.minecraft.util.Formatting.YELLOW), false);
+                    LOGGER.info("[Race] Player {} joined player {} without freezing (default case)", 
+                        src.getName().getString(), dst.getName().getString());
+                }
+                
+            } catch (Throwable ignored) {}
+            try { src.sendMessage(net.minecraft.text.Text.literal("Присоединились к " + dst.getName().getString()).formatted(net.minecraft.util.Formatting.GREEN), false); } catch (Throwable ignored) {}
+            try { dst.sendMessage(net.minecraft.text.Text.literal(src.getName().getString() + " присоединился."), false); } catch (Throwable ignored) {}
+            
+            // Отправляем статус завершения join-запроса
+            try {
+                net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking.send(src, new race.net.JoinRequestStatusPayload(false, ""));
+            } catch (Throwable ignored) {}
+        } else if (src != null) {
+            // Цель вышла или погибла — снимаем статус запроса у клиента
+            try {
+                net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking.send(src, new race.net.JoinRequestStatusPayload(false, ""));
+            } catch (Throwable ignored) {}
+        }
+    }
+
+    // Снятие заморозки до старта: множество замороженных и модификаторы/точка привязки RaceFreeze
+    private static void releaseFreeze(ServerPlayerEntity p) {
+        frozenUntilStart.remove(p.getUuid());
+        try { RaceFreeze.release(p); } catch (Throwable ignored) {}
+    }
+
     // API: принудительное размораживание игрока (для команд администратора)
     public static void forceUnfreezePlayer(ServerPlayerEntity p) {
-        java.util.UUID id = p.getUuid();
-        frozenUntilStart.remove(id);
-        freezePos.remove(id);
+        releaseFreeze(p);
         try { p.changeGameMode(net.minecraft.world.GameMode.SURVIVAL); } catch (Throwable ignored) {}
         LOGGER.info("[Race] FORCE UNFREEZE: Player {} forcefully unfrozen", p.getName().getString());
     }
@@ -475,7 +446,7 @@ public final class RaceServerInit implements ModInitializer {
      * Проверяет, является ли мир персональным (fabric_race)
      */
     private static boolean isPersonal(ServerWorld world) {
-        return world.getRegistryKey().getValue().getNamespace().equals("fabric_race");
+        return race.server.world.RaceWorldTraits.isRace(world);
     }
     
     /**
@@ -494,11 +465,7 @@ public final class RaceServerInit implements ModInitializer {
             System.out.println("[Race] TIME SET world=" + key.getValue() + " src=initWorldIfAbsent val=" + initial);
         }
         // Если мир уже инициализирован, не трогаем время
-        
-        // Убеждаемся, что DO_DAYLIGHT_CYCLE отключён
-        if (world.getGameRules().get(net.minecraft.world.GameRules.DO_DAYLIGHT_CYCLE).get()) {
-            world.getGameRules().get(net.minecraft.world.GameRules.DO_DAYLIGHT_CYCLE).set(false, world.getServer());
-        }
+
     }
     
     /**
@@ -658,11 +625,10 @@ public final class RaceServerInit implements ModInitializer {
         personalStarted.remove(id);
         frozenUntilStart.add(id);
         net.minecraft.util.math.BlockPos base = findSafeGround(p);
-        freezePos.put(id, base);
         p.changeGameMode(net.minecraft.world.GameMode.ADVENTURE);
+        // Одна телепортация на точку; дальше пакеты движения отбрасывает MixinServerPlayNetworkHandler
         try {
-            p.setVelocity(0, 0, 0);
-            p.requestTeleport(base.getX() + 0.5, base.getY(), base.getZ() + 0.5);
+            RaceFreeze.hold(p, base);
         } catch (Throwable ignored) {}
         
         // ДИАГНОСТИКА: Логируем заморозку для отладки
@@ -670,12 +636,45 @@ public final class RaceServerInit implements ModInitializer {
             p.getName().getString(), base.getX(), base.getY(), base.getZ(), worldKey);
     }
 
-    private static long parseSeedFromWorldKey(String key) {
-        try {
-            int i = key.lastIndexOf('_');
-            String s = key.substring(i + 2).replace("s", "");
-            return Long.parseLong(s);
-        } catch (Throwable ignored) { return -1L; }
+    /**
+     * Рассылает лайв‑точки: каждый игрок видит игроков своей корзины (тот же сид и измерение)
+     * из других инстансов мира. Точки инстанса собираются один раз на корзину.
+     */
+    private static void broadcastParallelPlayers(MinecraftServer server) {
+        race.server.world.ParallelPlayerIndex.verify(server);
+        java.util.HashSet<java.util.UUID> served = new java.util.HashSet<>();
+        race.server.world.ParallelPlayerIndex.forEachBucket(worlds -> {
+            java.util.HashMap<ServerWorld, java.util.List<race.net.ParallelPlayersPayload.Point>> byWorld = new java.util.HashMap<>();
+            for (var e : worlds.entrySet()) {
+                java.util.ArrayList<race.net.ParallelPlayersPayload.Point> pts = new java.util.ArrayList<>(e.getValue().size());
+                for (ServerPlayerEntity other : e.getValue()) {
+                    pts.add(new race.net.ParallelPlayersPayload.Point(other.getGameProfile().getName(),
+                            other.getX(), other.getY(), other.getZ(), detectActivityType(other)));
+                }
+                byWorld.put(e.getKey(), pts);
+            }
+            for (var e : worlds.entrySet()) {
+                // Игроки в том же инстансе — союзники рядом, их призраки не рисуем
+                java.util.ArrayList<race.net.ParallelPlayersPayload.Point> pts = new java.util.ArrayList<>();
+                for (var o : byWorld.entrySet()) {
+                    if (o.getKey() != e.getKey()) pts.addAll(o.getValue());
+                }
+                // Кадр дельтовый, поэтому собирается для каждого зрителя отдельно
+                for (ServerPlayerEntity viewer : e.getValue()) {
+                    served.add(viewer.getUuid());
+                    race.net.ParallelPlayersPayload pp = race.net.ParallelPlayersPayload.encoderFor(viewer.getUuid()).encode(pts);
+                    if (pp != null) ServerPlayNetworking.send(viewer, pp);
+                }
+            }
+        });
+        // Зрителям, у которых силуэты пропали (ушли из корзины), отправляем кадр с удалением
+        for (ServerPlayerEntity viewer : server.getPlayerManager().getPlayerList()) {
+            if (served.contains(viewer.getUuid())) continue;
+            race.net.ParallelPlayersPayload.Encoder enc = race.net.ParallelPlayersPayload.encoderIfPresent(viewer.getUuid());
+            if (enc == null) continue;
+            race.net.ParallelPlayersPayload pp = enc.encode(java.util.List.of());
+            if (pp != null) ServerPlayNetworking.send(viewer, pp);
+        }
     }
 
     // Базовая эвристика активности для параллельных силуэтов
@@ -722,11 +721,11 @@ public final class RaceServerInit implements ModInitializer {
         if (worldKey == null) return -1;
         
         try {
-            // Формат: fabric_race:slot2_overworld_s17640951512
-            if (worldKey.contains("slot") && worldKey.contains("overworld")) {
-                String slotPart = worldKey.substring(worldKey.indexOf("slot") + 4);
-                String slotNumber = slotPart.substring(0, slotPart.indexOf("_"));
-                return Integer.parseInt(slotNumber);
+            // Формат: fabric_race:slot2_overworld_s17640951512 — разбор общий с RaceWorldTraits
+            var id = net.minecraft.util.Identifier.tryParse(worldKey);
+            if (id != null) {
+                var traits = race.server.world.RaceWorldTraits.parse(RegistryKey.of(net.minecraft.registry.RegistryKeys.WORLD, id));
+                if (traits.kind() == race.server.world.RaceWorldTraits.Kind.OVERWORLD && traits.slot() > 0) return traits.slot();
             }
         } catch (Exception e) {
             LOGGER.warn("[Race] Failed to extract slot from world key {}: {}", worldKey, e.getMessage());
@@ -745,8 +744,7 @@ public final class RaceServerInit implements ModInitializer {
                 p.getName().getString());
             
             // Если игрок уже стартовал, просто размораживаем без повторного старта
-            frozenUntilStart.remove(id);
-            freezePos.remove(id);
+            releaseFreeze(p);
             try {
                 p.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
             } catch (Throwable ignored) {}
@@ -767,8 +765,7 @@ public final class RaceServerInit implements ModInitializer {
                     p.getName().getString());
                 
                 // Размораживаем игрока для продолжения гонки
-                frozenUntilStart.remove(id);
-                freezePos.remove(id);
+                releaseFreeze(p);
                 try {
                     p.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
                 } catch (Throwable ignored) {}
@@ -781,8 +778,7 @@ public final class RaceServerInit implements ModInitializer {
                     p.getName().getString());
                 
                 // Размораживаем игрока для участия в активной гонке
-                frozenUntilStart.remove(id);
-                freezePos.remove(id);
+                releaseFreeze(p);
                 try {
                     p.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
                 } catch (Throwable ignored) {}
@@ -795,8 +791,7 @@ public final class RaceServerInit implements ModInitializer {
         
         // Стандартная логика старта новой гонки
         personalStarted.add(id);
-        frozenUntilStart.remove(id);
-        freezePos.remove(id);
+        releaseFreeze(p);
         try { p.changeGameMode(net.minecraft.world.GameMode.SURVIVAL); } catch (Throwable ignored) {}
         try { ServerPlayNetworking.send(p, new StartRacePayload(seed, System.currentTimeMillis())); } catch (Throwable ignored) {}
         
@@ -822,11 +817,17 @@ public final class RaceServerInit implements ModInitializer {
         net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STARTING.register(server -> {
             race.server.world.ReturnPointRegistry.initialize(server);
             race.server.world.PreferredWorldRegistry.initialize(server);
+            race.server.world.SpawnCache.initialize(server);
+            race.server.world.WorldTrash.initialize(server);
         });
+        // Профиль gamerule'ов гонки: один раз при старте, дальше изменения сторожит RaceGameRules
+        net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STARTED.register(race.server.world.RaceGameRules::apply);
 
         // Обработчик входа игрока - телепорт в предпочитаемый мир
         net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
             var player = handler.player;
+            // Игрок вернулся до истечения аренды — слот снова его
+            race.server.world.SlotAllocator.renew(player.getUuid());
             var preferred = race.server.world.PreferredWorldRegistry.getPreferred(player.getUuid());
             if (preferred != null) {
                 var dst = server.getWorld(preferred);
@@ -842,91 +843,28 @@ public final class RaceServerInit implements ModInitializer {
         // Страховка: регистрируем типы payload до регистрации приёмников,
         // т.к. порядок entrypoint'ов не гарантирован
         try {
-            net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry.playC2S().register(race.net.SeedHandshakeC2SPayload.ID, race.net.SeedHandshakeC2SPayload.CODEC);
+            net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry.playC2S().register(race.net.SeedHandshakeC2SPayload.ID, race.server.metrics.RaceMetrics.measured("seed_handshake", race.net.SeedHandshakeC2SPayload.CODEC));
         } catch (Throwable ignored) {}
         try {
-            net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry.playC2S().register(race.net.PlayerProgressPayload.ID, race.net.PlayerProgressPayload.CODEC);
+            net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry.playC2S().register(race.net.PlayerProgressPayload.ID, race.server.metrics.RaceMetrics.measured("progress", race.net.PlayerProgressPayload.CODEC));
         } catch (Throwable ignored) {}
         try {
-            net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry.playS2C().register(race.net.JoinRequestStatusPayload.ID, race.net.JoinRequestStatusPayload.CODEC);
+            net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry.playS2C().register(race.net.JoinRequestStatusPayload.ID, race.server.metrics.RaceMetrics.measured("join_status", race.net.JoinRequestStatusPayload.CODEC));
         } catch (Throwable ignored) {}
         try {
-            net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry.playS2C().register(race.net.TpsPayload.ID, race.net.TpsPayload.CODEC);
+            net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry.playS2C().register(race.net.TpsPayload.ID, race.server.metrics.RaceMetrics.measured("tps", race.net.TpsPayload.CODEC));
         } catch (Throwable ignored) {}
         // Сброс бюджета синхронной догрузки на каждый тик
         final ChunkSyncHelper.SyncBudget syncBudget = new ChunkSyncHelper.SyncBudget();
-        final long[] tickStartTime = new long[1];
         ServerTickEvents.START_SERVER_TICK.register(server -> {
-            tickStartTime[0] = System.currentTimeMillis();
-            // Можно вынести в конфиг
-            syncBudget.reset(20, 1); // 20 мс и 1 чанк на тик
-            // Нормализуем randomTickSpeed в персональных мирах (иногда мир создаётся с некорректным значением)
-            try {
-                boolean hasPersonal = false;
-                for (net.minecraft.server.world.ServerWorld w : server.getWorlds()) {
-                    int cur = w.getGameRules().get(net.minecraft.world.GameRules.RANDOM_TICK_SPEED).get();
-                    if (cur != 3) {
-                        w.getGameRules().get(net.minecraft.world.GameRules.RANDOM_TICK_SPEED).set(3, server);
-                    }
-                    
-                    if (isPersonal(w)) {
-                        hasPersonal = true;
-                        // Для fabric_race миров: отключаем DODAYLIGHTCYCLE
-                        if (w.getGameRules().get(net.minecraft.world.GameRules.DO_DAYLIGHT_CYCLE).get()) {
-                            w.getGameRules().get(net.minecraft.world.GameRules.DO_DAYLIGHT_CYCLE).set(false, server);
-                        }
-                    } else {
-                        // Для обычных миров - стандартная логика
-                        if (!w.getGameRules().get(net.minecraft.world.GameRules.DO_DAYLIGHT_CYCLE).get()) {
-                            w.getGameRules().get(net.minecraft.world.GameRules.DO_DAYLIGHT_CYCLE).set(true, server);
-                        }
-                        // Стабилизируем шаг времени только для обычных миров (не fabric_race)
-                        try {
-                            if (w.getGameRules().get(net.minecraft.world.GameRules.DO_DAYLIGHT_CYCLE).get()) {
-                                String k = w.getRegistryKey().getValue().toString();
-                                long prev = lastTimeOfDay.getOrDefault(k, w.getTimeOfDay());
-                                long now = w.getTimeOfDay();
-                                long step = now - prev;
-                                if (step > 1 && step < 200) {
-                                    // Ограничиваем до +1 тик для обычных миров
-                                    w.setTimeOfDay(prev + 1);
-                                    now = prev + 1;
-                                }
-                                lastTimeOfDay.put(k, now);
-                            }
-                        } catch (Throwable ignored) {}
-                    }
-                }
-                
-                // Время fabric_race миров теперь управляется SlotTimeService
-            } catch (Throwable ignored) {}
+            // 20 мс и 1 чанк на тик, под нагрузкой меньше (RaceLoadController)
+            syncBudget.reset(RaceLoadController.syncBudgetMs(), RaceLoadController.syncBudgetChunks());
+            // Gamerule'ы больше не нормализуются каждый тик: профиль применяет RaceGameRules
         });
         // JOIN: если глобальный сид уже задан, создаём персональный мир сразу;
         // иначе подсказываем игроку как выбрать сид
         ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
             var p = handler.player;
-            // На всякий случай нормализуем randomTickSpeed во всех мирах при подключении игрока
-            try {
-                for (net.minecraft.server.world.ServerWorld w : server.getWorlds()) {
-                    String worldKey = w.getRegistryKey().getValue().toString();
-                    int cur = w.getGameRules().get(net.minecraft.world.GameRules.RANDOM_TICK_SPEED).get();
-                    if (cur != 3) {
-                        w.getGameRules().get(net.minecraft.world.GameRules.RANDOM_TICK_SPEED).set(3, server);
-                    }
-                    
-                    if (worldKey.startsWith("fabric_race:")) {
-                        // Для fabric_race миров: отключаем DODAYLIGHTCYCLE
-                        if (w.getGameRules().get(net.minecraft.world.GameRules.DO_DAYLIGHT_CYCLE).get()) {
-                            w.getGameRules().get(net.minecraft.world.GameRules.DO_DAYLIGHT_CYCLE).set(false, server);
-                        }
-                    } else {
-                        // Для обычных миров: включаем DODAYLIGHTCYCLE
-                        if (!w.getGameRules().get(net.minecraft.world.GameRules.DO_DAYLIGHT_CYCLE).get()) {
-                            w.getGameRules().get(net.minecraft.world.GameRules.DO_DAYLIGHT_CYCLE).set(true, server);
-                        }
-                    }
-                }
-            } catch (Throwable ignored) {}
             // Проверяем, есть ли у игрока активный персональный мир
             try {
                 // Сначала проверяем последний использованный мир
@@ -956,9 +894,9 @@ public final class RaceServerInit implements ModInitializer {
                         p.sendMessage(net.minecraft.text.Text.literal("Или подождите 5 секунд для автоматического возврата в персональный мир").formatted(net.minecraft.util.Formatting.GRAY), false);
                         
                         // Автоматический возврат в персональный мир через 5 секунд ТОЛЬКО если игрок в ванильном мире
-                        server.execute(() -> {
+                        // Таймер привязан к игроку и снимается при его выходе, серверный поток не ждёт
+                        RaceTimers.schedule(p.getUuid(), 100, s -> {
                             try {
-                                Thread.sleep(5000); // 5 секунд задержки
                                 if (!p.isDisconnected()) { // Проверяем, что игрок все еще подключен
                                     // У игрока есть выбранный сид - пытаемся вернуть в его персональный мир
                                     try {
@@ -966,7 +904,8 @@ public final class RaceServerInit implements ModInitializer {
                                         race.server.world.ReturnPointRegistry.ReturnPoint returnPoint = race.server.world.ReturnPointRegistry.get(p);
                                         LOGGER.info("[Race] Return point for {}: {}", p.getName().getString(), returnPoint != null ? "exists" : "null");
                                     
-                                    net.minecraft.server.world.ServerWorld personalWorld = null;
+                                    net.minecraft.registry.RegistryKey<net.minecraft.world.World> targetDimension = net.minecraft.world.World.OVERWORLD;
+                                    boolean toSavedPosition = false;
                                     
                                     if (returnPoint != null) {
                                         // Проверяем, что сохранённая позиция в персональном мире
@@ -982,7 +921,6 @@ public final class RaceServerInit implements ModInitializer {
                                         } else if ("fabric_race".equals(returnWorldNamespace)) {
                                             // Определяем тип мира из сохраненной позиции
                                             String worldPath = returnPoint.worldKey.getValue().getPath();
-                                            net.minecraft.registry.RegistryKey<net.minecraft.world.World> targetDimension;
                                             
                                             if (worldPath.contains("nether")) {
                                                 targetDimension = net.minecraft.world.World.NETHER;
@@ -991,95 +929,57 @@ public final class RaceServerInit implements ModInitializer {
                                                 targetDimension = net.minecraft.world.World.END;
                                                 LOGGER.info("[Race] Player was in End, returning to End");
                                             } else {
-                                                targetDimension = net.minecraft.world.World.OVERWORLD;
                                                 LOGGER.info("[Race] Player was in Overworld, returning to Overworld");
                                             }
-                                            
-                                            // Создаем правильный мир
-                                            personalWorld = race.server.world.EnhancedWorldManager.getOrCreateWorld(server, p.getUuid(), playerSeed, targetDimension);
+                                            toSavedPosition = true;
                                         }
                                     }
                                     
-                                    // Если не удалось определить мир из сохраненной позиции, создаем Overworld
-                                    if (personalWorld == null) {
-                                        personalWorld = race.server.world.EnhancedWorldManager.getOrCreateWorld(server, p.getUuid(), playerSeed, net.minecraft.world.World.OVERWORLD);
-                                    }
-                                    
-                                    if (personalWorld != null) {
-                                        // Создаем финальную копию для использования в лямбда-выражении
-                                        final net.minecraft.server.world.ServerWorld finalPersonalWorld = personalWorld;
-                                        
-                                        if (returnPoint != null) {
-                                            String returnWorldNamespace = returnPoint.worldKey.getValue().getNamespace();
-                                            if ("fabric_race".equals(returnWorldNamespace)) {
-                                                // Возвращаем игрока в сохранённую позицию с безопасной телепортацией
-                                                try {
-                                                    LOGGER.info("[Race] Teleporting {} to saved position ({}, {}, {})", p.getName().getString(), returnPoint.x, returnPoint.y, returnPoint.z);
-                                                    
-                                                    // Безопасная телепортация с задержкой для инициализации мира
-                                                    server.execute(() -> {
-                                                        try {
-                                                            // Убеждаемся, что мир полностью загружен
-                                                            if (finalPersonalWorld.getChunkManager() != null) {
-                                                                p.teleport(finalPersonalWorld, returnPoint.x, returnPoint.y, returnPoint.z, returnPoint.yaw, returnPoint.pitch);
-                                                                p.changeGameMode(returnPoint.gameMode);
-                                                                p.sendMessage(net.minecraft.text.Text.literal("Возвращение в ваш персональный мир (сид: " + playerSeed + ") в сохранённую позицию").formatted(net.minecraft.util.Formatting.GREEN), false);
-                                                            } else {
-                                                                throw new RuntimeException("World not ready");
-                                                            }
-                                                        } catch (Throwable t2) {
-                                                            // Если не удалось вернуться в сохранённую позицию - идём на спавн
-                                                            p.teleport(finalPersonalWorld, finalPersonalWorld.getSpawnPos().getX() + 0.5, finalPersonalWorld.getSpawnPos().getY(), finalPersonalWorld.getSpawnPos().getZ() + 0.5, 0, 0);
-                                                            p.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-                                                            p.sendMessage(net.minecraft.text.Text.literal("Возвращение в ваш персональный мир (сид: " + playerSeed + ") на спавн").formatted(net.minecraft.util.Formatting.YELLOW), false);
-                                                        }
-                                                    });
-                                                } catch (Throwable t) {
-                                                    // Если не удалось вернуться в сохранённую позицию - идём на спавн
-                                                    p.teleport(finalPersonalWorld, finalPersonalWorld.getSpawnPos().getX() + 0.5, finalPersonalWorld.getSpawnPos().getY(), finalPersonalWorld.getSpawnPos().getZ() + 0.5, 0, 0);
-                                                    p.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-                                                    p.sendMessage(net.minecraft.text.Text.literal("Возвращение в ваш персональный мир (сид: " + playerSeed + ") на спавн").formatted(net.minecraft.util.Formatting.YELLOW), false);
+                                    // Мир готовится асинхронно, телепорт — когда он готов
+                                    final boolean finalToSavedPosition = toSavedPosition;
+                                    race.server.world.EnhancedWorldManager.getOrCreateWorldAsync(server, p.getUuid(), playerSeed, targetDimension)
+                                            .whenCompleteAsync((finalPersonalWorld, err) -> {
+                                                if (err != null || finalPersonalWorld == null) {
+                                                    LOGGER.warn("[Race] Failed to prepare personal world for {}: {}", p.getName().getString(), err != null ? err.toString() : "null");
+                                                    return;
                                                 }
-                                            } else {
-                                                // Сохранённая позиция не в персональном мире - идём на спавн
-                                                server.execute(() -> {
+                                                if (p.isDisconnected()) return;
+                                                if (finalToSavedPosition) {
+                                                    // Возвращаем игрока в сохранённую позицию
                                                     try {
-                                                        if (finalPersonalWorld.getChunkManager() != null) {
-                                                            p.teleport(finalPersonalWorld, finalPersonalWorld.getSpawnPos().getX() + 0.5, finalPersonalWorld.getSpawnPos().getY(), finalPersonalWorld.getSpawnPos().getZ() + 0.5, 0, 0);
-                                                            p.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-                                                            p.sendMessage(net.minecraft.text.Text.literal("Возвращение в ваш персональный мир (сид: " + playerSeed + ") на спавн").formatted(net.minecraft.util.Formatting.YELLOW), false);
-                                                        }
+                                                        LOGGER.info("[Race] Teleporting {} to saved position ({}, {}, {})", p.getName().getString(), returnPoint.x, returnPoint.y, returnPoint.z);
+                                                        p.teleport(finalPersonalWorld, returnPoint.x, returnPoint.y, returnPoint.z, returnPoint.yaw, returnPoint.pitch);
+                                                        p.changeGameMode(returnPoint.gameMode);
+                                                        p.sendMessage(net.minecraft.text.Text.literal("Возвращение в ваш персональный мир (сид: " + playerSeed + ") в сохранённую позицию").formatted(net.minecraft.util.Formatting.GREEN), false);
                                                     } catch (Throwable t2) {
-                                                        LOGGER.warn("[Race] Failed to teleport to spawn: {}", t2.getMessage());
-                                                    }
-                                                });
-                                            }
-                                        } else {
-                                            // Нет сохранённой позиции - возвращаем игрока на спавн персонального мира
-                                            server.execute(() -> {
-                                                try {
-                                                    if (finalPersonalWorld.getChunkManager() != null) {
+                                                        // Если не удалось вернуться в сохранённую позицию - идём на спавн
                                                         p.teleport(finalPersonalWorld, finalPersonalWorld.getSpawnPos().getX() + 0.5, finalPersonalWorld.getSpawnPos().getY(), finalPersonalWorld.getSpawnPos().getZ() + 0.5, 0, 0);
                                                         p.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
+                                                        p.sendMessage(net.minecraft.text.Text.literal("Возвращение в ваш персональный мир (сид: " + playerSeed + ") на спавн").formatted(net.minecraft.util.Formatting.YELLOW), false);
                                                     }
+                                                    return;
+                                                }
+                                                // Сохранённой позиции в персональном мире нет - возвращаем игрока на спавн персонального мира
+                                                try {
+                                                    p.teleport(finalPersonalWorld, finalPersonalWorld.getSpawnPos().getX() + 0.5, finalPersonalWorld.getSpawnPos().getY(), finalPersonalWorld.getSpawnPos().getZ() + 0.5, 0, 0);
+                                                    p.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
                                                 } catch (Throwable t2) {
                                                     LOGGER.warn("[Race] Failed to teleport to spawn: {}", t2.getMessage());
+                                                    return;
                                                 }
-                                            });
-                                            
-                                            // Стабилизируем состояние игрока после телепортации
-                                            p.setHealth(p.getMaxHealth());
-                                            p.getHungerManager().setFoodLevel(20);
-                                            p.getHungerManager().setSaturationLevel(20.0f);
-                                            p.setAir(p.getMaxAir());
-                                            p.setVelocity(0, 0, 0);
-                                            p.fallDistance = 0;
-                                            p.sendAbilitiesUpdate();
-                                            
-                                            p.sendMessage(net.minecraft.text.Text.literal("Возвращение в ваш персональный мир (сид: " + playerSeed + ")").formatted(net.minecraft.util.Formatting.GREEN), false);
-                                        }
-                                        return; // Не идём в хаб
-                                    }
+                                                
+                                                // Стабилизируем состояние игрока после телепортации
+                                                p.setHealth(p.getMaxHealth());
+                                                p.getHungerManager().setFoodLevel(20);
+                                                p.getHungerManager().setSaturationLevel(20.0f);
+                                                p.setAir(p.getMaxAir());
+                                                p.setVelocity(0, 0, 0);
+                                                p.fallDistance = 0;
+                                                p.sendAbilitiesUpdate();
+                                                
+                                                p.sendMessage(net.minecraft.text.Text.literal("Возвращение в ваш персональный мир (сид: " + playerSeed + ")").formatted(net.minecraft.util.Formatting.GREEN), false);
+                                            }, server);
+                                    return; // Не идём в хаб
                                 } catch (Throwable t) {
                                     LOGGER.warn("[Race] Error during personal world teleportation: {}", t.getMessage());
                                 }
@@ -1114,33 +1014,33 @@ public final class RaceServerInit implements ModInitializer {
                 HubManager.setPlayerSeedChoice(p.getUuid(), requested);
                 // Подтверждаем именно запрошенный сид
                 ServerPlayNetworking.send(p, new SeedAckS2CPayload(true, "", requested));
-                // Создаём/получаем персональный мир с этим сидом
-                var dst = EnhancedWorldManager.getOrCreateWorld(p.getServer(), p.getUuid(), requested, net.minecraft.world.World.OVERWORLD);
-                EnhancedWorldManager.teleportToWorld(p, dst);
-                
-                // Обновляем последний использованный мир игрока
-                race.hub.HubManager.setLastWorldSeed(p.getUuid(), requested);
+                // Создаём/получаем персональный мир с этим сидом; телепорт — когда мир готов
+                var future = EnhancedWorldManager.getOrCreateWorldAsync(p.getServer(), p.getUuid(), requested, net.minecraft.world.World.OVERWORLD);
+                EnhancedWorldManager.teleportWhenReady(p, future, dst -> {
+                    // Обновляем последний использованный мир игрока
+                    race.hub.HubManager.setLastWorldSeed(p.getUuid(), requested);
                 
-                // Сохраняем точку возврата в персональном мире сразу после телепортации
-                try {
-                    race.server.world.ReturnPointRegistry.saveCurrent(p);
-                    LOGGER.info("[Race] Saved return point for player {} in world {}", p.getName().getString(), dst.getRegistryKey().getValue());
-                } catch (Throwable t) {
-                    LOGGER.warn("[Race] Failed to save return point for player {}: {}", p.getName().getString(), t.getMessage());
-                }
-                // Коррекция против спавна в блоках
-                try {
-                    var bp = p.getBlockPos();
-                    if (!p.getServerWorld().isAir(bp) || !p.getServerWorld().isAir(bp.up())) {
-                        for (int i = 0; i < 6; i++) {
-                            bp = bp.up();
-                            if (p.getServerWorld().isAir(bp) && p.getServerWorld().isAir(bp.up())) break;
-                        }
-                        p.requestTeleport(bp.getX() + 0.5, bp.getY(), bp.getZ() + 0.5);
+                    // Сохраняем точку возврата в персональном мире сразу после телепортации
+                    try {
+                        race.server.world.ReturnPointRegistry.saveCurrent(p);
+                        LOGGER.info("[Race] Saved return point for player {} in world {}", p.getName().getString(), dst.getRegistryKey().getValue());
+                    } catch (Throwable t) {
+                        LOGGER.warn("[Race] Failed to save return point for player {}: {}", p.getName().getString(), t.getMessage());
                     }
-                } catch (Throwable ignored) {}
-                // Отправляем сигнал клиенту для старта таймера
-                ServerPlayNetworking.send(p, new StartRacePayload(requested, System.currentTimeMillis()));
+                    // Коррекция против спавна в блоках
+                    try {
+                        var bp = p.getBlockPos();
+                        if (!p.getServerWorld().isAir(bp) || !p.getServerWorld().isAir(bp.up())) {
+                            for (int i = 0; i < 6; i++) {
+                                bp = bp.up();
+                                if (p.getServerWorld().isAir(bp) && p.getServerWorld().isAir(bp.up())) break;
+                            }
+                            p.requestTeleport(bp.getX() + 0.5, bp.getY(), bp.getZ() + 0.5);
+                        }
+                    } catch (Throwable ignored) {}
+                    // Отправляем сигнал клиенту для старта таймера
+                    ServerPlayNetworking.send(p, new StartRacePayload(requested, System.currentTimeMillis()));
+                });
             });
         }); // [1]
 
@@ -1148,400 +1048,80 @@ public final class RaceServerInit implements ModInitializer {
         RaceCommands.register();
         // Регистрируем правила фазы (например, запрет ломать блоки в хабе)
         try { race.server.phase.PhaseEvents.register(); } catch (Throwable ignored) {}
+        // Оверлей фазы: кэш секций для загрузки чанков и дельты изменений раз в тик
+        race.server.phase.OverlayPacketCache.init();
+        race.server.phase.OverlaySync.init();
+        RaceScheduler.register("overlay-sync", 1, RaceScheduler.Priority.NORMAL, 500_000L, race.server.phase.OverlaySync::flush);
 
         // Обновление времени гоночных миров теперь происходит в START_SERVER_TICK
         
-        // Периодический борд и обновление прогресса
-        ServerTickEvents.END_SERVER_TICK.register(server -> {
-            // Обновляем TPS каждый тик
-            long tickTime = System.currentTimeMillis() - tickStartTime[0];
-            updateTPS(tickTime);
-            
-            // Автоматическая оптимизация производительности
-            performAutoOptimization(server);
-            
-            if (!active) return;
-            
-            int playerCount = server.getPlayerManager().getPlayerList().size();
-            int adaptiveInterval = getAdaptiveInterval(10, playerCount);
-            
-            // Адаптивное обновление прогресса игроков
-            if (++tick % adaptiveInterval == 0) {
-                // Обновляем прогресс всех игроков
-                for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-                    if (shouldUpdatePlayer(player.getUuid(), 1000)) { // 1 секунда базовый интервал
-                        RacePhaseManager.updatePlayerProgress(player);
-                        try { race.server.death.DeathEchoManager.recordTick(player); } catch (Throwable ignored) {}
-                        lastPlayerUpdate.put(player.getUuid(), System.currentTimeMillis());
-                    }
-                }
-            }
-            
-            // Убрано: периодический авто-сейв позиций
-            // Теперь позиции сохраняются только при явных событиях (spectate/join/return)
-            
-            // Удаляем временные призрачные фигуры (armor stand) со сроком жизни - реже при высокой нагрузке
-            int ghostCleanupInterval = getAdaptiveInterval(100, playerCount);
-            if (server.getTicks() % ghostCleanupInterval == 0) {
-                try {
-                    for (var w : server.getWorlds()) {
-                        java.util.List<net.minecraft.entity.decoration.ArmorStandEntity> list = w.getEntitiesByClass(net.minecraft.entity.decoration.ArmorStandEntity.class, new net.minecraft.util.math.Box(-3.0E7, -3.0E7, -3.0E7, 3.0E7, 3.0E7, 3.0E7), as -> as.getCommandTags().contains("race_ghost_fig"));
-                        for (var e : list) {
-                            if (e.age > 100) e.discard();
-                        }
-                    }
-                } catch (Throwable ignored) {}
-            }
+        // Периодическая работа гонки — через единый планировщик: фазы задач разнесены по тикам,
+        // при перегруженном тике задачи NORMAL/LOW откладываются. тайминги — в /race perf
+        RaceScheduler.init();
+        // Отложенные задачи (возврат в личный мир после входа, /race join) — на колесе таймеров
+        RaceTimers.init();
+        // Зависания тика ловит отдельный поток: стеки серверного потока пишутся в race/profiles
+        RaceWatchdog.init();
+        // Сброс нагрузки по сглаженному MSPT: интервалы рассылок, качество призраков, мобы, дистанция симуляции
+        RaceLoadController.init();
 
-            // Отправляем обновленный борд - реже при высокой нагрузке
-            int boardInterval = getAdaptiveInterval(20, playerCount);
-            if (server.getTicks() % boardInterval == 0) {
-                var rows = RacePhaseManager.getRaceBoardData(server);
-                var payload = new RaceBoardPayload(rows);
-                for (ServerPlayerEntity p : server.getPlayerManager().getPlayerList()) {
-                    ServerPlayNetworking.send(p, payload);
-                }
-            }
-            
-            // Отправляем TPS информацию если включено - реже при высокой нагрузке
-            if (tpsDisplayEnabled) {
-                int tpsInterval = getAdaptiveInterval(20, playerCount);
-                if (server.getTicks() % tpsInterval == 0) {
-                    var tpsPayload = new race.net.TpsPayload(currentTPS, true);
-                    for (ServerPlayerEntity p : server.getPlayerManager().getPlayerList()) {
-                        ServerPlayNetworking.send(p, tpsPayload);
-                    }
-                }
-            }
-            
-            // Периодические призрачные фигуры после смерти - реже при высокой нагрузке
-            int deathEchoInterval = getAdaptiveInterval(20, playerCount);
-            if (server.getTicks() % deathEchoInterval == 0) {
-                try { race.server.death.DeathEchoManager.tickGhosts(server); } catch (Throwable ignored) {}
-            }
-
-            // Лайв‑точки параллельных игроков - значительно реже при высокой нагрузке
-            int parallelInterval = getAdaptiveInterval(40, playerCount);
-            if (server.getTicks() % parallelInterval == 0 && race.server.RaceServerInit.isDisplayParallelPlayers()) {
-                for (ServerPlayerEntity viewer : server.getPlayerManager().getPlayerList()) {
-                    String viewerKey = viewer.getServerWorld().getRegistryKey().getValue().toString();
-                    if (!viewerKey.startsWith("fabric_race:")) continue;
-                    long viewerSeed = parseSeedFromWorldKey(viewerKey);
-                    boolean viewerNether = viewer.getServerWorld().getDimensionEntry().matchesKey(net.minecraft.world.dimension.DimensionTypes.THE_NETHER);
-                    boolean viewerEnd = viewer.getServerWorld().getDimensionEntry().matchesKey(net.minecraft.world.dimension.DimensionTypes.THE_END);
-                    java.util.ArrayList<race.net.ParallelPlayersPayload.Point> pts = new java.util.ArrayList<>();
-                    for (ServerPlayerEntity other : server.getPlayerManager().getPlayerList()) {
-                        if (other == viewer) continue;
-                        String otherKey = other.getServerWorld().getRegistryKey().getValue().toString();
-                        if (!otherKey.startsWith("fabric_race:")) continue;
-                        long otherSeed = parseSeedFromWorldKey(otherKey);
-                        if (otherSeed != viewerSeed) continue;
-                        boolean otherNether = other.getServerWorld().getDimensionEntry().matchesKey(net.minecraft.world.dimension.DimensionTypes.THE_NETHER);
-                        boolean otherEnd = other.getServerWorld().getDimensionEntry().matchesKey(net.minecraft.world.dimension.DimensionTypes.THE_END);
-                        if (viewerNether != otherNether || viewerEnd != otherEnd) continue; // разное измерение
-                        // Если мы уже в одном и том же инстансе мира — это союзник рядом, призрак не рисуем
-                        if (other.getServerWorld().getRegistryKey().equals(viewer.getServerWorld().getRegistryKey())) continue;
-                        byte type = detectActivityType(other);
-                        String name = other.getGameProfile().getName();
-                        pts.add(new race.net.ParallelPlayersPayload.Point(name, other.getX(), other.getY(), other.getZ(), type));
-                    }
-                    if (!pts.isEmpty()) {
-                        race.net.ParallelPlayersPayload pp = new race.net.ParallelPlayersPayload(pts);
-                        ServerPlayNetworking.send(viewer, pp);
-                    }
-                }
-            }
-        }); // [1]
+        // Метрики тика — каждый тик
+        RaceScheduler.register("perf", 1, RaceScheduler.Priority.HIGH, 200_000L, server -> {
+            updateTPS(System.nanoTime());
+        });
 
-        // Обработка отложенных join-запросов (каждый тик)
-        ServerTickEvents.END_SERVER_TICK.register(server -> {
-            if (pendingJoins.isEmpty()) return;
-            
-            // ДОПОЛНИТЕЛЬНАЯ ДИАГНОСТИКА: Логируем все pending joins
-            LOGGER.info("[Race] Processing pending joins, count: {}", pendingJoins.size());
-            for (var entry : pendingJoins.entrySet()) {
-                java.util.UUID srcId = entry.getKey();
-                PendingJoin pj = entry.getValue();
-                ServerPlayerEntity src = server.getPlayerManager().getPlayer(srcId);
-                ServerPlayerEntity dst = server.getPlayerManager().getPlayer(pj.target());
-                
-                if (src != null && dst != null) {
-                    String srcWorld = src.getServerWorld().getRegistryKey().getValue().toString();
-                    String dstWorld = dst.getServerWorld().getRegistryKey().getValue().toString();
-                    LOGGER.info("[Race] Pending join: {} (in {}) -> {} (in {}), ticks left: {}", 
-                        src.getName().getString(), srcWorld, 
-                        dst.getName().getString(), dstWorld, 
-                        pj.ticksLeft());
+        // Адаптивное обновление прогресса игроков
+        RaceScheduler.register("progress", 10, RaceScheduler.Priority.NORMAL, 2_000_000L, server -> {
+            if (!active) return;
+            // Обновляем прогресс всех игроков
+            for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+                if (shouldUpdatePlayer(player.getUuid(), 1000)) { // 1 секунда базовый интервал
+                    RacePhaseManager.updatePlayerProgress(player);
+                    try { race.server.death.DeathEchoManager.recordTick(player); } catch (Throwable ignored) {}
+                    lastPlayerUpdate.put(player.getUuid(), System.currentTimeMillis());
                 }
             }
-            
-            java.util.ArrayList<java.util.UUID> done = new java.util.ArrayList<>();
-            for (var e : pendingJoins.entrySet()) {
-                java.util.UUID srcId = e.getKey();
-                PendingJoin pj = e.getValue();
-                int left = pj.ticksLeft - 1;
-                if (left <= 0) {
-                    ServerPlayerEntity src = server.getPlayerManager().getPlayer(srcId);
-                    ServerPlayerEntity dst = server.getPlayerManager().getPlayer(pj.target());
-                    if (src != null && dst != null && dst.isAlive() && !dst.isDead()) {
-                        try {
-                            if (race.server.world.ReturnPointRegistry.get(src) == null) {
-                                race.server.world.ReturnPointRegistry.saveCurrent(src);
-                            }
-                        } catch (Throwable ignored) {}
-                        src.teleport(dst.getServerWorld(), dst.getX(), dst.getY(), dst.getZ(), dst.getYaw(), dst.getPitch());
-                        // ИСПРАВЛЕННАЯ логика присоединения с учетом типа мира
-                        try {
-                            String targetWorldKey = dst.getServerWorld().getRegistryKey().getValue().toString();
-                            String sourceWorldKey = src.getServerWorld().getRegistryKey().getValue().toString();
-                            
-                            LOGGER.info("[Race] JOIN: {} -> {}, target world: {}, same world: {}", 
-                                src.getName().getString(), dst.getName().getString(), 
-                                targetWorldKey, targetWorldKey.equals(sourceWorldKey));
-
-                            // КЛЮЧЕВОЕ ИСПРАВЛЕНИЕ: Проверяем тип мира и состояние гонки
-                            boolean isPersonalWorld = targetWorldKey.startsWith("fabric_race:p_");
-                            boolean isSlotWorld = targetWorldKey.contains("slot") && targetWorldKey.startsWith("fabric_race:");
-                            boolean isRaceWorld = targetWorldKey.startsWith("fabric_race:");
-                            boolean sameWorld = targetWorldKey.equals(sourceWorldKey);
-                            
-                            boolean dstFrozen = isFrozen(dst.getUuid());
-                            boolean dstStarted = personalStarted.contains(dst.getUuid());
-                            boolean srcStarted = personalStarted.contains(src.getUuid());
-                            boolean raceActive = active;
-                            
-                            LOGGER.info("[Race] World analysis - personal: {}, slot: {}, race: {}, same: {}, dst frozen: {}, dst started: {}, src started: {}, race active: {}", 
-                                isPersonalWorld, isSlotWorld, isRaceWorld, sameWorld, dstFrozen, dstStarted, srcStarted, raceActive);
+        }).adaptive();
 
-                            // ПРИОРИТЕТНАЯ ЛОГИКА: Проверяем состояние присоединяющегося игрока
-                            if (srcStarted && raceActive) {
-                                // Присоединяющийся игрок уже начал гонку - НЕ ЗАМОРАЖИВАЕМ
-                                frozenUntilStart.remove(src.getUuid());
-                                freezePos.remove(src.getUuid());
-                                src.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-                                src.sendMessage(net.minecraft.text.Text.literal("Присоединились к игроку во время активной гонки!")
-                                    .formatted(net.minecraft.util.Formatting.GREEN), false);
-                                LOGGER.info("[Race] Player {} joined {} without freezing (src already started race)", 
-                                    src.getName().getString(), dst.getName().getString());
-                                    
-                            } else if (sameWorld || isPersonalWorld || isSlotWorld) {
-                                // В персональных/слотовых мирах или том же мире - НЕ ЗАМОРАЖИВАЕМ
-                                frozenUntilStart.remove(src.getUuid());
-                                freezePos.remove(src.getUuid());
-                                src.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-                                
-                                if (sameWorld) {
-                                    src.sendMessage(net.minecraft.text.Text.literal("Присоединились к игроку в том же мире!")
-                                        .formatted(net.minecraft.util.Formatting.GREEN), false);
-                                } else if (isPersonalWorld) {
-                                    src.sendMessage(net.minecraft.text.Text.literal("Присоединились к персональному миру игрока!")
-                                        .formatted(net.minecraft.util.Formatting.GREEN), false);
-                                } else {
-                                    src.sendMessage(net.minecraft.text.Text.literal("Присоединились к групповому миру!")
-                                        .formatted(net.minecraft.util.Formatting.GREEN), false);
-                                }
-                                
-                                LOGGER.info("[Race] Player {} joined {} without freezing (world-based logic)", 
-                                    src.getName().getString(), dst.getName().getString());
-                                    
-                            } else if (isRaceWorld && (dstStarted || raceActive)) {
-                                // Присоединение к активной гонке в любом race-мире - НЕ ЗАМОРАЖИВАЕМ
-                                frozenUntilStart.remove(src.getUuid());
-                                freezePos.remove(src.getUuid());
-                                src.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-                                src.sendMessage(net.minecraft.text.Text.literal("Присоединились к активной гонке!")
-                                    .formatted(net.minecraft.util.Formatting.GREEN), false);
-                                LOGGER.info("[Race] Player {} joined active race in {} without freezing", 
-                                    src.getName().getString(), targetWorldKey);
-                                    
-                            } else if (dstStarted && raceActive) {
-                                // Стандартная логика для активной гонки
-                                frozenUntilStart.remove(src.getUuid());
-                                freezePos.remove(src.getUuid());
-                                src.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-                                src.sendMessage(net.minecraft.text.Text.literal("Присоединились к активному гонщику!")
-                                    .formatted(net.minecraft.util.Formatting.GREEN), false);
-                                LOGGER.info("[Race] Player {} joined active racer {} without freezing", 
-                                    src.getName().getString(), dst.getName().getString());
-                                    
-                            } else if (dstFrozen && !raceActive) {
-                                // Замораживаем только если цель заморожена и гонка не активна
-                                freezePlayerUntilStart(src);
-                                src.sendMessage(net.minecraft.text.Text.literal("Присоединились к ожидающему игроку. Ждите начала гонки.")
-                                    .formatted(net.minecraft.util.Formatting.YELLOW), false);
-                                LOGGER.info("[Race] Player {} joined frozen player {} and frozen too", 
-                                    src.getName().getString(), dst.getName().getString());
-                                    
-                            } else {
-                                // По умолчанию НЕ замораживаем
-                                frozenUntilStart.remove(src.getUuid());
-                                freezePos.remove(src.getUuid());
-                                src.changeGameMode(net.minecraft.world.GameMode.SURVIVAL);
-                                src.sendMessage(net.minecraft.text.Text.literal("Присоединились к игроку.")
-                                    .formatted(net.minecraft.util.Formatting.YELLOW), false);
-                                LOGGER.info("[Race] Player {} joined player {} without freezing (default case)", 
-                                    src.getName().getString(), dst.getName().getString());
-                            }
-                            
-                        } catch (Throwable ignored) {}
-                        try { src.sendMessage(net.minecraft.text.Text.literal("Присоединились к " + dst.getName().getString()).formatted(net.minecraft.util.Formatting.GREEN), false); } catch (Throwable ignored) {}
-                        try { dst.sendMessage(net.minecraft.text.Text.literal(src.getName().getString() + " присоединился."), false); } catch (Throwable ignored) {}
-                        
-                        // Отправляем статус завершения join-запроса
-                        try {
-                            net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking.send(src, new race.net.JoinRequestStatusPayload(false, ""));
-                        } catch (Throwable ignored) {}
-                    }
-                    done.add(srcId);
-                } else {
-                    pendingJoins.put(srcId, new PendingJoin(pj.target(), left));
-                }
-            }
-            for (var id : done) pendingJoins.remove(id);
-        });
+        // Временные сущности гонки (призрачные фигуры): снимаются с вершины кучи по тику истечения
+        race.server.world.TransientEntities.init();
+        RaceScheduler.register("transient-expiry", 1, RaceScheduler.Priority.NORMAL, 200_000L, race.server.world.TransientEntities::tick);
 
-        // Ограничитель кол-ва агрессивных мобов вокруг игроков в персональных мирах
-        ServerTickEvents.END_SERVER_TICK.register(server -> {
-            int playerCount = server.getPlayerManager().getPlayerList().size();
-            int mobCheckInterval = getAdaptiveInterval(100, playerCount); // Адаптивный интервал
-            
-            if (server.getTicks() % mobCheckInterval != 0) return;
-            
-            for (ServerPlayerEntity viewer : server.getPlayerManager().getPlayerList()) {
-                String key = viewer.getServerWorld().getRegistryKey().getValue().toString();
-                if (!key.startsWith("fabric_race:")) continue;
-                
-                // Адаптивный радиус в зависимости от нагрузки
-                int radius = performanceLevel.get() == 2 ? 32 : 48; // Меньший радиус при высокой нагрузке
-                var world = viewer.getServerWorld();
-                net.minecraft.util.math.Box box = new net.minecraft.util.math.Box(
-                        viewer.getX() - radius, viewer.getY() - 32, viewer.getZ() - radius,
-                        viewer.getX() + radius, viewer.getY() + 32, viewer.getZ() + radius
-                );
-                
-                // Ограничиваем поиск мобов при высокой нагрузке
-                if (performanceLevel.get() == 2 && playerCount > 8) {
-                    continue; // Пропускаем проверку мобов при высокой нагрузке
-                }
-                
-                java.util.List<net.minecraft.entity.mob.MobEntity> mobs = world.getEntitiesByClass(net.minecraft.entity.mob.MobEntity.class, box, m -> m.isAlive() && m.getType().getSpawnGroup() == net.minecraft.entity.SpawnGroup.MONSTER);
-                int limit = performanceLevel.get() == 2 ? 16 : 24; // Меньший лимит при высокой нагрузке
-                if (mobs.size() > limit) {
-                    int toCull = mobs.size() - limit;
-                    // Удаляем самых дальних и взрослых, сохраняем боссов и рейдовых
-                    mobs.sort(java.util.Comparator.comparingDouble(m -> m.squaredDistanceTo(viewer)));
-                    for (int i = mobs.size() - 1; i >= 0 && toCull > 0; i--) {
-                        var m = mobs.get(i);
-                        if (m instanceof net.minecraft.entity.boss.WitherEntity || m instanceof net.minecraft.entity.boss.dragon.EnderDragonEntity) continue;
-                        if (m.hasVehicle() || m.hasPassengers()) continue;
-                        if (m.getCommandTags().contains("race_protect")) continue;
-                        m.discard();
-                        toCull--;
-                    }
-                }
+        // Борд: каждому зрителю — только изменения с его прошлого патча
+        RaceScheduler.register("board", 20, RaceScheduler.Priority.NORMAL, 1_000_000L, server -> {
+            if (!active) return;
+            race.server.phase.RaceBoardModel.refresh(server);
+            for (ServerPlayerEntity p : server.getPlayerManager().getPlayerList()) {
+                RaceBoardPayload payload = race.server.phase.RaceBoardModel.patchFor(p);
+                if (payload != null) ServerPlayNetworking.send(p, payload);
             }
         });
 
-        // Лайв‑силуэты параллельных игроков — всегда (в персональных мирах), не только во время гонки
-        ServerTickEvents.END_SERVER_TICK.register(server -> {
-            int playerCount = server.getPlayerManager().getPlayerList().size();
-            int parallelInterval = getAdaptiveInterval(40, playerCount); // Адаптивный интервал
-            
-            // Дополнительная оптимизация: пропускаем если слишком много игроков
-            if (playerCount > 10 && performanceLevel.get() == 2) {
-                return; // Полностью отключаем при высокой нагрузке и большом количестве игроков
-            }
-            
-            if (server.getTicks() % parallelInterval != 0) return;
-            if (!race.server.RaceServerInit.isDisplayParallelPlayers()) return;
-            
-            for (ServerPlayerEntity viewer : server.getPlayerManager().getPlayerList()) {
-                String viewerKey = viewer.getServerWorld().getRegistryKey().getValue().toString();
-                if (!viewerKey.startsWith("fabric_race:")) continue;
-                long viewerSeed = parseSeedFromWorldKey(viewerKey);
-                boolean viewerNether = viewer.getServerWorld().getDimensionEntry().matchesKey(net.minecraft.world.dimension.DimensionTypes.THE_NETHER);
-                boolean viewerEnd = viewer.getServerWorld().getDimensionEntry().matchesKey(net.minecraft.world.dimension.DimensionTypes.THE_END);
-                java.util.ArrayList<race.net.ParallelPlayersPayload.Point> pts = new java.util.ArrayList<>();
-                
-                // Ограничиваем количество проверяемых игроков при высокой нагрузке
-                int maxChecks = performanceLevel.get() == 2 ? 5 : Integer.MAX_VALUE;
-                int checks = 0;
-                
-                for (ServerPlayerEntity other : server.getPlayerManager().getPlayerList()) {
-                    if (other == viewer) continue;
-                    if (checks >= maxChecks) break; // Ограничиваем количество проверок
-                    checks++;
-                    
-                    String otherKey = other.getServerWorld().getRegistryKey().getValue().toString();
-                    if (!otherKey.startsWith("fabric_race:")) continue;
-                    long otherSeed = parseSeedFromWorldKey(otherKey);
-                    if (otherSeed != viewerSeed) continue;
-                    boolean otherNether = other.getServerWorld().getDimensionEntry().matchesKey(net.minecraft.world.dimension.DimensionTypes.THE_NETHER);
-                    boolean otherEnd = other.getServerWorld().getDimensionEntry().matchesKey(net.minecraft.world.dimension.DimensionTypes.THE_END);
-                    if (viewerNether != otherNether || viewerEnd != otherEnd) continue; // разное измерение
-                    // Уже в одном инстансе мира → союзник, дымку не рисуем
-                    if (other.getServerWorld().getRegistryKey().equals(viewer.getServerWorld().getRegistryKey())) continue;
-                    byte type = detectActivityType(other);
-                    String name = other.getGameProfile().getName();
-                    pts.add(new race.net.ParallelPlayersPayload.Point(name, other.getX(), other.getY(), other.getZ(), type));
-                }
-                if (!pts.isEmpty()) {
-                    race.net.ParallelPlayersPayload pp = new race.net.ParallelPlayersPayload(pts);
-                    ServerPlayNetworking.send(viewer, pp);
-                }
+        // TPS для HUD, если включено
+        RaceScheduler.register("tps", 20, RaceScheduler.Priority.LOW, 200_000L, server -> {
+            if (!active || !tpsDisplayEnabled) return;
+            var tpsPayload = new race.net.TpsPayload(currentTPS, true);
+            for (ServerPlayerEntity p : server.getPlayerManager().getPlayerList()) {
+                ServerPlayNetworking.send(p, tpsPayload);
             }
-        });
+        }).adaptive();
 
-        // Вспомогательная: парсим сид из ключа мира fabric_race:slotX_overworld_s<seed>
-        
+        // Периодические призрачные фигуры после смерти
+        RaceScheduler.register("death-echo", 20, RaceScheduler.Priority.NORMAL, 2_000_000L, server -> {
+            if (!active) return;
+            race.server.death.DeathEchoManager.tickGhosts(server);
+        }).adaptive();
 
-        // Принудительная заморозка игроков в персональных мирах до личного старта таймера
-        ServerTickEvents.END_SERVER_TICK.register(server -> {
-            for (ServerPlayerEntity p : server.getPlayerManager().getPlayerList()) {
-                String key = p.getServerWorld().getRegistryKey().getValue().toString();
-                if (!key.startsWith("fabric_race:")) continue;
-                java.util.UUID id = p.getUuid();
-                if (!frozenUntilStart.contains(id)) continue;
-                
-                // ДОПОЛНИТЕЛЬНАЯ ПРОВЕРКА: Убеждаемся, что игрок действительно должен быть заморожен
-                // Проверяем, что игрок не начал свою гонку
-                if (personalStarted.contains(id)) {
-                    // Игрок уже начал гонку, но почему-то все еще в frozenUntilStart - исправляем
-                    frozenUntilStart.remove(id);
-                    freezePos.remove(id);
-                    LOGGER.warn("[Race] FIXED: Player {} was frozen but already started race - removing from freeze list", p.getName().getString());
-                    continue;
-                }
-                
-                net.minecraft.util.math.BlockPos base = freezePos.getOrDefault(id, p.getBlockPos());
-                p.setVelocity(0, 0, 0);
-                p.requestTeleport(base.getX() + 0.5, Math.max(base.getY(), p.getServerWorld().getBottomY() + 1), base.getZ() + 0.5);
-            }
-        });
+        // Бюджет враждебных мобов вокруг игроков в персональных мирах: счётчики ведутся по событиям
+        // загрузки/выгрузки, здесь — только пересборка по текущим позициям; спавн режет SpawnHelperMixin
+        race.server.world.HostileMobBudget.init();
+        RaceScheduler.register("mob-budget", 20, RaceScheduler.Priority.LOW, 1_000_000L, race.server.world.HostileMobBudget::refresh);
 
-        // Быстрый детектор зависаний: печатаем стеки без ожидания watchdog
-        final long[] lastTickStart = new long[]{System.currentTimeMillis()};
-        ServerTickEvents.START_SERVER_TICK.register(server -> {
-            lastTickStart[0] = System.currentTimeMillis();
-        });
-        ServerTickEvents.END_SERVER_TICK.register(server -> {
-            long dt = System.currentTimeMillis() - lastTickStart[0];
-            // Порог 3000 мс: печатаем стеки один раз в 10 секунд максимум
-            if (dt >= 3000 && server.getTicks() % 200 == 0) {
-                System.err.println("[Race][HangDetector] Tick took " + dt + " ms — dumping stacks:");
-                // Снимаем дамп всех потоков
-                for (java.util.Map.Entry<Thread, StackTraceElement[]> e : Thread.getAllStackTraces().entrySet()) {
-                    Thread t = e.getKey();
-                    if (t == null) continue;
-                    // Интересны: Server thread, Server Watchdog, Netty IO, Worker-Main
-                    String name = t.getName();
-                    if (!(name.equals("Server thread") || name.contains("Watchdog") || name.contains("Netty Server IO") || name.contains("Worker-Main"))) continue;
-                    System.err.println("-- Thread: " + name + " (" + t.getState() + ")");
-                    for (StackTraceElement el : e.getValue()) {
-                        System.err.println("    at " + el);
-                    }
-                }
-            }
+        // Лайв‑силуэты параллельных игроков — всегда (в персональных мирах), не только во время гонки.
+        // Единственная рассылка: игроки берутся из ParallelPlayerIndex по корзинам (сид, измерение)
+        RaceScheduler.register("parallel-players", 40, RaceScheduler.Priority.LOW, 2_000_000L, server -> {
+            if (!race.server.RaceServerInit.isDisplayParallelPlayers()) return;
+            broadcastParallelPlayers(server);
         });
 
         // Приём активности и прогресса от клиента (обновляем activity в менеджере)
@@ -1602,24 +1182,30 @@ public final class RaceServerInit implements ModInitializer {
                         LOGGER.info("[Race] Player {} died in {} world, original slot: {}", 
                             newPlayer.getName().getString(), oldWorldKey, originalSlot);
                         
-                        net.minecraft.server.world.ServerWorld mainPersonalWorld = null;
+                        java.util.concurrent.CompletableFuture<net.minecraft.server.world.ServerWorld> mainPersonalWorld;
                         
                         if (originalSlot > 0) {
                             // Возвращаем в ОРИГИНАЛЬНЫЙ слот
                             mainPersonalWorld = race.server.world.EnhancedWorldManager
-                                .getOrCreateWorldForGroup(newPlayer.getServer(), originalSlot, playerSeed, net.minecraft.world.World.OVERWORLD);
+                                .getOrCreateWorldForGroupAsync(newPlayer.getServer(), originalSlot, playerSeed, net.minecraft.world.World.OVERWORLD);
                         } else {
                             // Фолбэк - используем стандартный метод
-                            mainPersonalWorld = race.server.world.EnhancedWorldManager.getOrCreateWorld(
+                            mainPersonalWorld = race.server.world.EnhancedWorldManager.getOrCreateWorldAsync(
                                 newPlayer.getServer(), newPlayer.getUuid(), playerSeed, net.minecraft.world.World.OVERWORLD);
                         }
                         
-                        if (mainPersonalWorld != null) {
+                        // Устанавливаем spawn point в основной персональный мир (сразу, если мир уже готов)
+                        java.util.function.Consumer<net.minecraft.server.world.ServerWorld> setRespawn = w -> {
+                            if (w == null) return;
                             LOGGER.info("[Race] Player {} died in {} world, setting respawn to slot {} world: {}", 
-                                newPlayer.getName().getString(), oldWorldKey, originalSlot, mainPersonalWorld.getRegistryKey().getValue());
-                            
-                            // Устанавливаем spawn point в основной персональный мир
-                            newPlayer.setSpawnPoint(mainPersonalWorld.getRegistryKey(), mainPersonalWorld.getSpawnPos(), 0.0f, false, true);
+                                newPlayer.getName().getString(), oldWorldKey, originalSlot, w.getRegistryKey().getValue());
+                            newPlayer.setSpawnPoint(w.getRegistryKey(), w.getSpawnPos(), 0.0f, false, true);
+                        };
+                        net.minecraft.server.world.ServerWorld ready = mainPersonalWorld.getNow(null);
+                        if (ready != null) {
+                            setRespawn.accept(ready);
+                        } else {
+                            mainPersonalWorld.thenAcceptAsync(setRespawn, newPlayer.getServer());
                         }
                     }
                 }
@@ -1627,11 +1213,8 @@ public final class RaceServerInit implements ModInitializer {
                 LOGGER.warn("[Race] Error during respawn setup: {}", t.getMessage());
             }
         });
-        ServerTickEvents.START_SERVER_TICK.register(server -> {
-            for (net.minecraft.server.world.ServerWorld w : server.getWorlds()) {
-                try { DeathEchoManager.populateWorld(w); } catch (Throwable ignored) {}
-            }
-        });
+        // Эхо смерти показываются только в загруженных чанках в зоне видимости игроков гоночных миров
+        RaceScheduler.register("death-echo-emit", 20, RaceScheduler.Priority.LOW, 1_000_000L, DeathEchoManager::emitNearPlayers).adaptive();
 
         // После респавна гарантируем корректный режим игры и возврат в персональный мир
         ServerPlayerEvents.AFTER_RESPAWN.register((oldPlayer, newPlayer, alive) -> {
@@ -1661,25 +1244,24 @@ public final class RaceServerInit implements ModInitializer {
                         LOGGER.info("[Race] Player {} died in {} world, original slot: {}", 
                             newPlayer.getName().getString(), worldKey, originalSlot);
                         
-                        net.minecraft.server.world.ServerWorld mainPersonalWorld = null;
+                        java.util.concurrent.CompletableFuture<net.minecraft.server.world.ServerWorld> mainPersonalWorld;
                         
                         if (originalSlot > 0) {
                             // Возвращаем в ОРИГИНАЛЬНЫЙ слот
                             mainPersonalWorld = race.server.world.EnhancedWorldManager
-                                .getOrCreateWorldForGroup(newPlayer.getServer(), originalSlot, playerSeed, net.minecraft.world.World.OVERWORLD);
+                                .getOrCreateWorldForGroupAsync(newPlayer.getServer(), originalSlot, playerSeed, net.minecraft.world.World.OVERWORLD);
                         } else {
                             // Фолбэк - используем стандартный метод
-                            mainPersonalWorld = race.server.world.EnhancedWorldManager.getOrCreateWorld(
+                            mainPersonalWorld = race.server.world.EnhancedWorldManager.getOrCreateWorldAsync(
                                 newPlayer.getServer(), newPlayer.getUuid(), playerSeed, net.minecraft.world.World.OVERWORLD);
                         }
                         
-                        if (mainPersonalWorld != null) {
-                            race.server.world.EnhancedWorldManager.teleportToWorld(newPlayer, mainPersonalWorld);
+                        race.server.world.EnhancedWorldManager.teleportWhenReady(newPlayer, mainPersonalWorld, w -> {
                             newPlayer.sendMessage(net.minecraft.text.Text.literal("Возвращение в основной персональный мир после смерти в " + 
                                 (worldKey.contains("end") ? "End" : "Nether")).formatted(net.minecraft.util.Formatting.GREEN), false);
                             LOGGER.info("[Race] Player {} returned to main personal world from {} to slot {}", 
                                 newPlayer.getName().getString(), worldKey, originalSlot);
-                        }
+                        });
                     }
                 } catch (Throwable t) {
                     LOGGER.warn("[Race] Error returning player to main world: {}", t.getMessage());
@@ -1699,15 +1281,15 @@ public final class RaceServerInit implements ModInitializer {
                         LOGGER.info("[Race] Player {} original world: {}, slot: {}", 
                             newPlayer.getName().getString(), originalWorldKey, originalSlot);
                         
-                        net.minecraft.server.world.ServerWorld personalWorld = null;
-                        
                         if (originalSlot > 0) {
-                            // Возвращаем в ОРИГИНАЛЬНЫЙ слот
-                            personalWorld = race.server.world.EnhancedWorldManager
-                                .getOrCreateWorldForGroup(newPlayer.getServer(), originalSlot, playerSeed, net.minecraft.world.World.OVERWORLD);
-                            
-                            LOGGER.info("[Race] Player {} returned to original slot {} world {}", 
-                                newPlayer.getName().getString(), originalSlot, personalWorld.getRegistryKey().getValue());
+                            // Возвращаем в ОРИГИНАЛЬНЫЙ слот; телепорт — когда мир готов
+                            var personalWorld = race.server.world.EnhancedWorldManager
+                                .getOrCreateWorldForGroupAsync(newPlayer.getServer(), originalSlot, playerSeed, net.minecraft.world.World.OVERWORLD);
+                            race.server.world.EnhancedWorldManager.teleportWhenReady(newPlayer, personalWorld, w -> {
+                                newPlayer.sendMessage(net.minecraft.text.Text.literal("Возвращение в ваш персональный мир после смерти").formatted(net.minecraft.util.Formatting.GREEN), false);
+                                LOGGER.info("[Race] Teleported player {} to personal world: {} (slot {})", 
+                                    newPlayer.getName().getString(), w.getRegistryKey().getValue(), originalSlot);
+                            });
                         } else {
                             // КРИТИЧЕСКОЕ ИСПРАВЛЕНИЕ: НЕ ищем по seed без проверки слота!
                             // Это может привести к попаданию игрока в чужой слот
@@ -1715,15 +1297,6 @@ public final class RaceServerInit implements ModInitializer {
                                 newPlayer.getName().getString());
                             LOGGER.warn("[Race] Will create new world with correct slot assignment for player {}", 
                                 newPlayer.getName().getString());
-                        }
-                        
-                        if (personalWorld != null) {
-                            // Телепортируем игрока в правильный персональный мир
-                            race.server.world.EnhancedWorldManager.teleportToWorld(newPlayer, personalWorld);
-                            newPlayer.sendMessage(net.minecraft.text.Text.literal("Возвращение в ваш персональный мир после смерти").formatted(net.minecraft.util.Formatting.GREEN), false);
-                            LOGGER.info("[Race] Teleported player {} to personal world: {}", 
-                                newPlayer.getName().getString(), personalWorld.getRegistryKey().getValue());
-                        } else {
                             LOGGER.warn("[Race] No existing personal world found for player {} with seed {}", 
                                 newPlayer.getName().getString(), playerSeed);
                         }
@@ -1735,11 +1308,7 @@ public final class RaceServerInit implements ModInitializer {
         });
 
         // Периодическая рассылка списка сидов и миров игрокам
-        ServerTickEvents.END_SERVER_TICK.register(server -> {
-            // Адаптивный интервал для рассылки списка
-            int playerCount = server.getPlayerManager().getPlayerList().size();
-            int listInterval = playerCount > 4 ? 80 : 40; // Реже обновляем при большем количестве игроков
-            if (server.getTicks() % listInterval != 0) return;
+        RaceScheduler.register("seed-lobby", 40, RaceScheduler.Priority.LOW, 2_000_000L, server -> {
             java.util.ArrayList<SeedLobbyEntry> list = new java.util.ArrayList<>();
             // Собираем инфо и формируем группы игроков по ключу мира
             java.util.Map<String, java.util.List<ServerPlayerEntity>> groups = new java.util.HashMap<>();
@@ -1775,11 +1344,16 @@ public final class RaceServerInit implements ModInitializer {
             }
             // Очистка записей для миров, где больше нет игроков
             announcedTeams.entrySet().removeIf(en -> !groups.containsKey(en.getKey()));
-        });
+        }).adaptive();
 
         // Перед остановкой сервера выгружаем личные миры, чтобы избежать падения в тикет-менеджере
         net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
             // Останавливаем фоновые выгрузки и синхронно очищаем все личные миры
+            race.server.world.WorldPool.clear();
+            race.server.phase.RaceBoardModel.clear();
+            pendingJoins.clear();
+            race.server.world.RaceGameRules.disarm();
+            race.replay.ReplayManager.shutdown();
             EnhancedWorldManager.beginShutdownAndFlush(server);
             
             // Сохраняем данные хаба перед остановкой
@@ -1834,9 +1408,11 @@ public final class RaceServerInit implements ModInitializer {
                     }
                 }
 
-                // ИСПРАВЛЕНИЕ: НЕ освобождаем слоты для персональных миров
-                // Слоты должны оставаться за игроками даже после отключения
-                // EnhancedWorldManager.releasePlayerSlot(server, handler.player.getUuid());
+                // Слот остаётся за игроком на время аренды SlotAllocator и освобождается, если он не вернётся
+                EnhancedWorldManager.releasePlayerSlot(server, handler.player.getUuid());
+                race.server.phase.RaceBoardModel.forget(handler.player.getUuid());
+                cancelJoin(handler.player.getUuid());
+                RaceFreeze.forget(handler.player.getUuid());
                 LOGGER.info("[Race] Player {} disconnected, keeping slot for personal world", handler.player.getName().getString());
 
             } catch (Throwable ignored) {
@@ -1929,6 +1505,12 @@ public final class RaceServerInit implements ModInitializer {
         // Инициализируем службу виртуального времени
         race.server.SlotTimeService.init();
         
+        // Фоновый прогрев миров под выбранные в хабе сиды
+        RaceScheduler.register("world-pool", 1, RaceScheduler.Priority.LOW, 500_000L, race.server.world.WorldPool::tick);
+
+        // Индекс игроков для лайв‑силуэтов (обновляется по событиям смены мира)
+        race.server.world.ParallelPlayerIndex.init();
+        
         // Регистрируем команды времени
         race.server.commands.RaceTimeCommands.register();
     }
@@ -0,0 +1,167 @@
+package race.server;
+
+import com.mojang.logging.LogUtils;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.server.MinecraftServer;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Отложенные задачи гонки на хешированном колесе таймеров, время — серверные тики.
+ * Задача ставится в ячейку (тик срабатывания mod WHEEL_SIZE) и хранит число полных оборотов,
+ * поэтому тик колеса обходит только одну ячейку. Задачу можно привязать к игроку — тогда она
+ * отменяется при его выходе. Вместо Thread.sleep в серверном потоке.
+ * Все вызовы — только из серверного потока.
+ */
+public final class RaceTimers {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    public static final class Handle {
+        private final UUID owner;
+        private final Consumer<MinecraftServer> action;
+        private final long dueTick;
+        private int rounds;
+        private boolean done;
+
+        private Handle(UUID owner, Consumer<MinecraftServer> action, long dueTick, int rounds) {
+            this.owner = owner;
+            this.action = action;
+            this.dueTick = dueTick;
+            this.rounds = rounds;
+        }
+
+        /**
+         * Отменяет задачу; false, если она уже выполнена или отменена
+         */
+        public boolean cancel() {
+            if (done) return false;
+            done = true;
+            pending--;
+            if (owner != null) {
+                ArrayList<Handle> list = BY_OWNER.get(owner);
+                if (list != null) {
+                    list.remove(this);
+                    if (list.isEmpty()) BY_OWNER.remove(owner);
+                }
+            }
+            return true;
+        }
+
+        public boolean isPending() { return !done; }
+
+        /** Сколько тиков осталось до срабатывания */
+        public int ticksLeft() { return done ? 0 : (int) Math.max(0L, dueTick - currentTick); }
+
+        public UUID getOwner() { return owner; }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static final ArrayList<Handle>[] WHEEL = new ArrayList[WHEEL_SIZE];
+    static {
+        for (int i = 0; i < WHEEL_SIZE; i++) WHEEL[i] = new ArrayList<>();
+    }
+    private static final HashMap<UUID, ArrayList<Handle>> BY_OWNER = new HashMap<>();
+    private static long currentTick;
+    private static int pending;
+    private static boolean initialized;
+
+    private RaceTimers() {}
+
+    public static synchronized void init() {
+        if (initialized) return;
+        initialized = true;
+        RaceScheduler.register("timers", 1, RaceScheduler.Priority.HIGH, 1_000_000L, RaceTimers::tick);
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+            if (handler.player != null) cancelAll(handler.player.getUuid());
+        });
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> clear());
+    }
+
+    /**
+     * Выполнить action через delayTicks тиков (не раньше следующего тика)
+     */
+    public static Handle schedule(int delayTicks, Consumer<MinecraftServer> action) {
+        return schedule(null, delayTicks, action);
+    }
+
+    /**
+     * То же, но задача принадлежит игроку owner и отменяется при его выходе
+     */
+    public static Handle schedule(UUID owner, int delayTicks, Consumer<MinecraftServer> action) {
+        int delay = Math.max(1, delayTicks);
+        long due = currentTick + delay;
+        // Тик колеса выполняется до прохода по ячейке, поэтому оборот считаем от следующего тика
+        Handle h = new Handle(owner, action, due, (delay - 1) / WHEEL_SIZE);
+        WHEEL[(int) (due & WHEEL_MASK)].add(h);
+        pending++;
+        if (owner != null) BY_OWNER.computeIfAbsent(owner, k -> new ArrayList<>(2)).add(h);
+        return h;
+    }
+
+    /**
+     * Отменяет все задачи игрока; возвращает их число
+     */
+    public static int cancelAll(UUID owner) {
+        ArrayList<Handle> list = BY_OWNER.remove(owner);
+        if (list == null) return 0;
+        int n = 0;
+        for (Handle h : list) {
+            if (!h.done) {
+                h.done = true;
+                pending--;
+                n++;
+            }
+        }
+        return n;
+    }
+
+    public static int getPendingCount() { return pending; }
+
+    public static void clear() {
+        for (ArrayList<Handle> slot : WHEEL) {
+            for (Handle h : slot) h.done = true;
+            slot.clear();
+        }
+        BY_OWNER.clear();
+        pending = 0;
+    }
+
+    private static void tick(MinecraftServer server) {
+        currentTick++;
+        ArrayList<Handle> slot = WHEEL[(int) (currentTick & WHEEL_MASK)];
+        if (slot.isEmpty()) return;
+
+        ArrayList<Handle> fire = null;
+        int kept = 0;
+        for (int i = 0, n = slot.size(); i < n; i++) {
+            Handle h = slot.get(i);
+            if (h.done) continue;
+            if (h.rounds > 0) {
+                h.rounds--;
+                slot.set(kept++, h);
+                continue;
+            }
+            if (fire == null) fire = new ArrayList<>();
+            fire.add(h);
+        }
+        slot.subList(kept, slot.size()).clear();
+        if (fire == null) return;
+        // Выполняем в порядке постановки; задача может ставить новые и отменять ещё не выполненные
+        for (Handle h : fire) {
+            if (!h.cancel()) continue;
+            try {
+                h.action.accept(server);
+            } catch (Throwable t) {
+                LOGGER.warn("[Race] Timer task failed: {}", t.toString());
+            }
+        }
+    }
+}
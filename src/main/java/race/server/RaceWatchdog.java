@@ -0,0 +1,223 @@
+package race.server;
+
+import com.mojang.logging.LogUtils;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.WorldSavePath;
+import org.slf4j.Logger;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сторож зависаний в отдельном потоке-демоне. Серверный поток отмечает начало и конец тика
+ * (heartbeat); если тик идёт дольше порога, сторож каждые sampleMs снимает стек серверного потока
+ * и складывает стеки в формате folded ("кадр;кадр;кадр число"), пригодном для flame graph.
+ * Профиль пишется в race/profiles мира по окончании долгого тика, а при затянувшемся
+ * зависании — ещё и каждые 10 секунд, пока тик не закончится.
+ *
+ * Настройки: -Drace.watchdog.enabled (true), -Drace.watchdog.thresholdMs (500),
+ * -Drace.watchdog.sampleMs (10), -Drace.watchdog.keepProfiles (20).
+ */
+public final class RaceWatchdog {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("race.watchdog.enabled", "true"));
+    private static final long THRESHOLD_NS = Math.max(50L, Long.getLong("race.watchdog.thresholdMs", 500L)) * 1_000_000L;
+    private static final long SAMPLE_MS = Math.max(1L, Long.getLong("race.watchdog.sampleMs", 10L));
+    private static final int KEEP_PROFILES = Math.max(1, Integer.getInteger("race.watchdog.keepProfiles", 20));
+    private static final long FLUSH_EVERY_NS = 10_000_000_000L;
+    private static final int MAX_DEPTH = 256;
+    // Миллисекунды и номер тика: два эпизода в одну секунду не затирают друг друга
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneId.systemDefault());
+
+    // Heartbeat серверного потока: номер текущего тика и время его начала; 0 — тик не идёт
+    private static volatile long tickSeq;
+    private static volatile long tickStartNs;
+
+    private static volatile Thread serverThread;
+    private static volatile Path profileDir;
+    private static volatile boolean running;
+    private static Thread worker;
+
+    private static volatile int hangCount;
+    private static volatile String lastProfile = "";
+    private static boolean initialized;
+
+    private RaceWatchdog() {}
+
+    public static synchronized void init() {
+        if (initialized || !ENABLED) return;
+        initialized = true;
+        ServerTickEvents.START_SERVER_TICK.register(server -> {
+            tickSeq++;
+            tickStartNs = System.nanoTime();
+        });
+        ServerTickEvents.END_SERVER_TICK.register(server -> tickStartNs = 0L);
+        ServerLifecycleEvents.SERVER_STARTED.register(RaceWatchdog::start);
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> stop());
+    }
+
+    public static int getHangCount() { return hangCount; }
+    public static String getLastProfile() { return lastProfile; }
+
+    private static synchronized void start(MinecraftServer server) {
+        serverThread = server.getThread();
+        try {
+            Path dir = server.getSavePath(WorldSavePath.ROOT).resolve("race").resolve("profiles");
+            Files.createDirectories(dir);
+            profileDir = dir;
+        } catch (Throwable t) {
+            LOGGER.warn("[Race] Watchdog: profile directory unavailable: {}", t.toString());
+            profileDir = null;
+        }
+        if (worker != null && worker.isAlive()) return;
+        running = true;
+        worker = new Thread(RaceWatchdog::run, "Race-Watchdog");
+        worker.setDaemon(true);
+        worker.start();
+        LOGGER.info("[Race] Watchdog started: threshold {} ms, sample every {} ms", THRESHOLD_NS / 1_000_000L, SAMPLE_MS);
+    }
+
+    private static synchronized void stop() {
+        running = false;
+        tickStartNs = 0L;
+        if (worker != null) worker.interrupt();
+        worker = null;
+        serverThread = null;
+    }
+
+    private static void run() {
+        // Текущий эпизод зависания: тик, на котором он начался, и свёрнутые стеки
+        long episodeSeq = -1L;
+        long episodeStartNs = 0L;
+        long lastFlushNs = 0L;
+        String episodeFile = null;
+        int samples = 0;
+        HashMap<String, Integer> folded = new HashMap<>();
+
+        while (running) {
+            long start = tickStartNs;
+            long seq = tickSeq;
+            long now = System.nanoTime();
+            boolean hanging = start != 0L && now - start >= THRESHOLD_NS;
+
+            // Эпизод закончился: тик завершился или начался следующий
+            if (episodeSeq >= 0 && (!hanging || seq != episodeSeq)) {
+                long durationNs = now - episodeStartNs;
+                hangCount++;
+                flush(episodeFile, folded, samples, durationNs, true);
+                folded.clear();
+                samples = 0;
+                episodeSeq = -1L;
+            }
+
+            if (hanging) {
+                Thread t = serverThread;
+                if (t == null) break;
+                if (episodeSeq < 0) {
+                    episodeSeq = seq;
+                    episodeStartNs = start;
+                    lastFlushNs = now;
+                    long startedMs = System.currentTimeMillis() - (now - start) / 1_000_000L;
+                    episodeFile = "hang-" + FILE_TIME.format(Instant.ofEpochMilli(startedMs)) + "-t" + seq + ".folded";
+                }
+                StackTraceElement[] stack = t.getStackTrace();
+                // Тик мог закончиться, пока снимали стек — такой сэмпл уже не про зависание
+                if (tickSeq == seq && tickStartNs == start && stack.length > 0) {
+                    folded.merge(fold(stack), 1, Integer::sum);
+                    samples++;
+                }
+                if (now - lastFlushNs >= FLUSH_EVERY_NS) {
+                    flush(episodeFile, folded, samples, now - episodeStartNs, false);
+                    lastFlushNs = now;
+                }
+            }
+
+            try {
+                long sleepMs = SAMPLE_MS;
+                if (!hanging && start != 0L) {
+                    // До порога стеки не нужны: спим до момента, когда текущий тик станет долгим
+                    sleepMs = Math.max(SAMPLE_MS, (THRESHOLD_NS - (now - start)) / 1_000_000L);
+                }
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /** Стек от корня к вершине: "Class.method;Class.method;..." */
+    private static String fold(StackTraceElement[] stack) {
+        StringBuilder sb = new StringBuilder(stack.length * 48);
+        int from = Math.min(stack.length, MAX_DEPTH) - 1;
+        for (int i = from; i >= 0; i--) {
+            StackTraceElement el = stack[i];
+            if (sb.length() > 0) sb.append(';');
+            sb.append(el.getClassName()).append('.').append(el.getMethodName());
+        }
+        return sb.toString();
+    }
+
+    private static void flush(String name, Map<String, Integer> folded, int samples, long durationNs, boolean finished) {
+        if (samples == 0) return;
+        long ms = durationNs / 1_000_000L;
+        String top = topFrame(folded);
+        if (finished) {
+            LOGGER.warn("[Race] Watchdog: tick took {} ms ({} samples), hottest frame: {}", ms, samples, top);
+        } else {
+            LOGGER.warn("[Race] Watchdog: server thread stuck for {} ms, hottest frame: {}", ms, top);
+        }
+        Path dir = profileDir;
+        if (dir == null) return;
+        try {
+            Path file = dir.resolve(name);
+            List<Map.Entry<String, Integer>> lines = new ArrayList<>(folded.entrySet());
+            lines.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Integer> e : lines) {
+                    w.write(e.getKey());
+                    w.write(' ');
+                    w.write(Integer.toString(e.getValue()));
+                    w.newLine();
+                }
+            }
+            lastProfile = name + " (" + ms + " ms)";
+            if (finished) prune(dir);
+        } catch (Throwable t) {
+            LOGGER.warn("[Race] Watchdog: failed to write profile: {}", t.toString());
+        }
+    }
+
+    // Самый частый верхний кадр — в лог, чтобы причина была видна без открытия файла
+    private static String topFrame(Map<String, Integer> folded) {
+        HashMap<String, Integer> leaves = new HashMap<>();
+        for (Map.Entry<String, Integer> e : folded.entrySet()) {
+            String s = e.getKey();
+            leaves.merge(s.substring(s.lastIndexOf(';') + 1), e.getValue(), Integer::sum);
+        }
+        return leaves.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse("?");
+    }
+
+    private static void prune(Path dir) {
+        try (var stream = Files.list(dir)) {
+            List<Path> files = stream.filter(p -> p.getFileName().toString().endsWith(".folded"))
+                    .sorted(Comparator.comparing(p -> p.getFileName().toString()))
+                    .toList();
+            for (int i = 0; i < files.size() - KEEP_PROFILES; i++) {
+                Files.deleteIfExists(files.get(i));
+            }
+        } catch (Throwable ignored) {}
+    }
+}
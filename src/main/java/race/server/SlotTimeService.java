@@ -8,7 +8,6 @@ import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.registry.RegistryKey;
 import net.minecraft.world.World;
-import net.minecraft.world.GameRules;
 import net.minecraft.util.ActionResult;
 
 import java.util.Map;
@@ -28,15 +27,9 @@ public final class SlotTimeService {
     private static final long MORNING_TICKS = 1000L; // ванильное "раннее утро"
 
     public static void init() {
-        // Тик: удерживаем DO_DAYLIGHT_CYCLE=false и тикаем виртуальное время
-        ServerTickEvents.START_SERVER_TICK.register(server -> {
-            for (ServerWorld w : server.getWorlds()) {
-                if (isRaceWorld(w) && w.getGameRules().get(GameRules.DO_DAYLIGHT_CYCLE).get()) {
-                    w.getGameRules().get(GameRules.DO_DAYLIGHT_CYCLE).set(false, server);
-                }
-            }
-            tickAndSync(server);
-        });
+        // Тик виртуального времени. Личные миры созданы с shouldTickTime=false и общее время не двигают,
+        // поэтому DO_DAYLIGHT_CYCLE для них держать не нужно
+        ServerTickEvents.START_SERVER_TICK.register(SlotTimeService::tickAndSync);
 
         // Сон только по SLOT_TIME и только в текущем мире
         EntitySleepEvents.ALLOW_SLEEP_TIME.register((player, pos, vanilla) -> {
@@ -83,11 +76,7 @@ public final class SlotTimeService {
         
         SLOT_TIME.putIfAbsent(w.getRegistryKey(), initial);
         SLOT_SPEED.putIfAbsent(w.getRegistryKey(), 1L);
-        
-        // Гарантируем отключение DO_DAYLIGHT_CYCLE
-        if (w.getGameRules().get(GameRules.DO_DAYLIGHT_CYCLE).get()) {
-            w.getGameRules().get(GameRules.DO_DAYLIGHT_CYCLE).set(false, w.getServer());
-        }
+
         
         System.out.println("[SlotTime] Инициализация виртуального времени: " + 
             w.getRegistryKey().getValue() + " = " + initial);
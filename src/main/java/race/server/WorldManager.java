@@ -7,28 +7,25 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.TeleportTarget;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 public final class WorldManager {
-    private static final ConcurrentHashMap<UUID, Integer> PLAYER_SLOTS = new ConcurrentHashMap<>();
-    
     private WorldManager() {}
     
-    // НОВЫЕ МЕТОДЫ ДЛЯ СИНХРОНИЗАЦИИ СЛОТОВ
+    // Слоты хранит race.server.world.SlotAllocator, здесь только делегирование
     public static int getPlayerSlot(UUID playerUuid) {
-        return PLAYER_SLOTS.getOrDefault(playerUuid, 0);
+        return race.server.world.SlotAllocator.get(playerUuid);
     }
     
     public static void setPlayerSlot(UUID playerUuid, int slot) {
         if (slot > 0) {
-            PLAYER_SLOTS.put(playerUuid, slot);
+            race.server.world.SlotAllocator.bind(playerUuid, slot);
         } else {
-            PLAYER_SLOTS.remove(playerUuid);
+            race.server.world.SlotAllocator.forget(playerUuid);
         }
     }
     
     public static void clearPlayerSlot(UUID playerUuid) {
-        PLAYER_SLOTS.remove(playerUuid);
+        race.server.world.SlotAllocator.forget(playerUuid);
     }
     
     // НОВОЕ: Метод для очистки всех слотов игрока по имени
@@ -39,7 +36,7 @@ public final class WorldManager {
     
     // НОВОЕ: Метод для диагностики всех слотов
     public static void debugAllSlots() {
-        System.out.println("[Race] WorldManager slots: " + PLAYER_SLOTS);
+        System.out.println("[Race] WorldManager slots: " + race.server.world.SlotAllocator.snapshot());
     }
 
     public static ServerWorld getLobby(MinecraftServer server) {
@@ -85,7 +85,11 @@ public final class RaceCommands {
                 .then(literal("hub").executes(RaceCommands::goToHub))
                 .then(literal("hubinfo").executes(RaceCommands::showHubInfo))
                 .then(literal("hubsave").executes(RaceCommands::saveHubData))
-                .then(literal("perf").executes(RaceCommands::showPerformance))
+                .then(literal("perf").executes(RaceCommands::showPerformance)
+                    .then(literal("metrics").executes(ctx -> showMetrics(ctx, ""))
+                        .then(argument("group", StringArgumentType.word())
+                            .executes(ctx -> showMetrics(ctx, StringArgumentType.getString(ctx, "group")))))
+                    .then(literal("reset").executes(RaceCommands::resetMetrics)))
                 .then(literal("seed")
                     .then(argument("seed", LongArgumentType.longArg())
                         .executes(ctx -> setSeed(ctx, LongArgumentType.getLong(ctx, "seed"))))
@@ -464,25 +468,12 @@ public final class RaceCommands {
             target.sendMessage(Text.literal("Используйте /race cancel, чтобы отменить").formatted(net.minecraft.util.Formatting.GRAY), false);
         } catch (Throwable ignored) {}
         
-        // 5 сек = ~100 тиков
+        // 5 сек = ~100 тиков; запрос отменяется при выходе игрока
+        race.server.RaceServerInit.requestJoin(player, target, 100);
+        // Отправляем статус join-запроса клиенту
         try {
-            java.lang.reflect.Field f = race.server.RaceServerInit.class.getDeclaredField("pendingJoins");
-            f.setAccessible(true);
-            @SuppressWarnings("unchecked")
-            java.util.Map<java.util.UUID, Object> map = (java.util.Map<java.util.UUID, Object>) f.get(null);
-            Class<?> pjClass = Class.forName("race.server.RaceServerInit$PendingJoin");
-            Object pj = pjClass.getDeclaredConstructor(java.util.UUID.class, int.class).newInstance(target.getUuid(), 100);
-            map.put(player.getUuid(), pj);
-            
-            // Отправляем статус join-запроса клиенту
-            try {
-                net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking.send(player, new race.net.JoinRequestStatusPayload(true, playerName));
-            } catch (Throwable ignored) {}
-        } catch (Throwable t) {
-            // Фолбэк — мгновенный join
-            teleportToPlayer(ctx, playerName);
-            return 1;
-        }
+            net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking.send(player, new race.net.JoinRequestStatusPayload(true, playerName));
+        } catch (Throwable ignored) {}
         source.sendFeedback(() -> Text.literal("Ожидаем 5 сек перед присоединением к " + playerName).formatted(net.minecraft.util.Formatting.GRAY), false);
         return 1;
     }
@@ -494,40 +485,24 @@ public final class RaceCommands {
             return 0;
         }
         
-        try {
-            java.lang.reflect.Field f = race.server.RaceServerInit.class.getDeclaredField("pendingJoins");
-            f.setAccessible(true);
-            @SuppressWarnings("unchecked")
-            java.util.Map<java.util.UUID, Object> map = (java.util.Map<java.util.UUID, Object>) f.get(null);
-            Object removed = map.remove(player.getUuid());
-            if (removed != null) {
-                // Уведомляем цель о том, что запрос отменён
-                try {
-                    Class<?> pjClass = Class.forName("race.server.RaceServerInit$PendingJoin");
-                    java.lang.reflect.Field targetField = pjClass.getDeclaredField("target");
-                    targetField.setAccessible(true);
-                    java.util.UUID targetId = (java.util.UUID) targetField.get(removed);
-                    ServerPlayerEntity target = source.getServer().getPlayerManager().getPlayer(targetId);
-                    if (target != null) {
-                        target.sendMessage(Text.literal("❌ " + player.getName().getString() + " отменил запрос на присоединение").formatted(net.minecraft.util.Formatting.RED), false);
-                    }
-                } catch (Throwable ignored) {}
-                
-                // Отправляем статус отмены join-запроса клиенту
-                try {
-                    net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking.send(player, new race.net.JoinRequestStatusPayload(false, ""));
-                } catch (Throwable ignored) {}
-                
-                source.sendFeedback(() -> Text.literal("Запрос на присоединение отменён").formatted(net.minecraft.util.Formatting.GREEN), false);
-                return 1;
-            } else {
-                source.sendFeedback(() -> Text.literal("Нет активных запросов на присоединение").formatted(net.minecraft.util.Formatting.YELLOW), false);
-                return 0;
-            }
-        } catch (Throwable t) {
-            source.sendFeedback(() -> Text.literal("Ошибка при отмене запроса").formatted(net.minecraft.util.Formatting.RED), false);
+        java.util.UUID targetId = race.server.RaceServerInit.cancelJoin(player.getUuid());
+        if (targetId == null) {
+            source.sendFeedback(() -> Text.literal("Нет активных запросов на присоединение").formatted(net.minecraft.util.Formatting.YELLOW), false);
             return 0;
         }
+        // Уведомляем цель о том, что запрос отменён
+        ServerPlayerEntity target = source.getServer().getPlayerManager().getPlayer(targetId);
+        if (target != null) {
+            target.sendMessage(Text.literal("❌ " + player.getName().getString() + " отменил запрос на присоединение").formatted(net.minecraft.util.Formatting.RED), false);
+        }
+
+        // Отправляем статус отмены join-запроса клиенту
+        try {
+            net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking.send(player, new race.net.JoinRequestStatusPayload(false, ""));
+        } catch (Throwable ignored) {}
+
+        source.sendFeedback(() -> Text.literal("Запрос на присоединение отменён").formatted(net.minecraft.util.Formatting.GREEN), false);
+        return 1;
     }
     
     private static int showLeaderboard(CommandContext<ServerCommandSource> ctx) {
@@ -1056,7 +1031,38 @@ public final class RaceCommands {
             source.sendFeedback(() -> Text.literal("Игроков онлайн: " + playerCount).formatted(net.minecraft.util.Formatting.WHITE), false);
             source.sendFeedback(() -> Text.literal("Память: " + (memoryUsed / 1024 / 1024) + "MB / " + (memoryMax / 1024 / 1024) + "MB (" + String.format("%.1f", memoryUsagePercent) + "%)").formatted(net.minecraft.util.Formatting.WHITE), false);
             source.sendFeedback(() -> Text.literal("Свободно: " + (memoryFree / 1024 / 1024) + "MB").formatted(net.minecraft.util.Formatting.WHITE), false);
-            
+
+            // Пул прогретых миров
+            source.sendFeedback(() -> Text.literal("Пул миров: " + race.server.world.WorldPool.getPooledCount() + "/" + race.server.world.WorldPool.getMaxWorlds()
+                    + ", в очереди: " + race.server.world.WorldPool.getQueuedCount()).formatted(net.minecraft.util.Formatting.WHITE), false);
+            source.sendFeedback(() -> Text.literal("Пул: попаданий " + race.server.world.WorldPool.getHits() + ", промахов " + race.server.world.WorldPool.getMisses()
+                    + ", прогрето " + race.server.world.WorldPool.getWarmed() + ", вытеснено " + race.server.world.WorldPool.getEvictions()).formatted(net.minecraft.util.Formatting.WHITE), false);
+            source.sendFeedback(() -> Text.literal("Слоты: занято " + race.server.world.SlotAllocator.inUse() + "/" + race.server.world.SlotAllocator.getMaxSlots()
+                    + ", в аренде " + race.server.world.SlotAllocator.leased()).formatted(net.minecraft.util.Formatting.WHITE), false);
+            source.sendFeedback(() -> Text.literal("Силуэты: игроков " + race.server.world.ParallelPlayerIndex.getTrackedCount()
+                    + ", корзин " + race.server.world.ParallelPlayerIndex.getBucketCount()).formatted(net.minecraft.util.Formatting.WHITE), false);
+            source.sendFeedback(() -> Text.literal("Кэш спавнов: " + race.server.world.SpawnCache.size()).formatted(net.minecraft.util.Formatting.WHITE), false);
+            source.sendFeedback(() -> Text.literal("Удаление миров: в очереди " + race.server.world.WorldTrash.getPendingCount()
+                    + ", удалено " + race.server.world.WorldTrash.getDeletedDirs() + " (" + (race.server.world.WorldTrash.getDeletedBytes() / 1024 / 1024) + "MB)").formatted(net.minecraft.util.Formatting.WHITE), false);
+            source.sendFeedback(() -> Text.literal("Таймеры: ожидает " + race.server.RaceTimers.getPendingCount()
+                    + ", join-запросов " + race.server.RaceServerInit.getPendingJoinCount()
+                    + ", временных сущностей " + race.server.world.TransientEntities.getTrackedCount()).formatted(net.minecraft.util.Formatting.WHITE), false);
+            source.sendFeedback(() -> Text.literal("Зависания: " + race.server.RaceWatchdog.getHangCount()
+                    + (race.server.RaceWatchdog.getLastProfile().isEmpty() ? "" : ", последний профиль " + race.server.RaceWatchdog.getLastProfile())).formatted(net.minecraft.util.Formatting.WHITE), false);
+            source.sendFeedback(() -> Text.literal("Враждебные мобы: " + race.server.world.HostileMobBudget.getTrackedCount()
+                    + " в гоночных мирах, у игрока до " + race.server.world.HostileMobBudget.getMaxNeighborhood()
+                    + " / " + race.server.RaceLoadController.mobLimit()).formatted(net.minecraft.util.Formatting.WHITE), false);
+
+            // Задачи планировщика: среднее/макс. время, превышения бюджета, отложенные и пропущенные запуски
+            source.sendFeedback(() -> Text.literal("Задачи планировщика (среднее / макс, мкс):").formatted(net.minecraft.util.Formatting.GOLD), false);
+            for (race.server.RaceScheduler.Task task : race.server.RaceScheduler.getTasks()) {
+                String line = String.format("  %s [%s, %d/%d]: %d / %d, бюджет %d, превышений %d, отложено %d, пропущено %d",
+                        task.getName(), task.getPriority(), task.getPeriod(), task.getPhase(),
+                        task.getAvgNs() / 1000, task.getMaxNs() / 1000, task.getBudgetNs() / 1000,
+                        task.getOverruns(), task.getDeferrals(), task.getDropped());
+                source.sendFeedback(() -> Text.literal(line).formatted(task.getOverruns() > 0 ? net.minecraft.util.Formatting.YELLOW : net.minecraft.util.Formatting.WHITE), false);
+            }
+
             // Рекомендации по оптимизации
             if (memoryUsagePercent > 80) {
                 source.sendFeedback(() -> Text.literal("⚠️ Высокое использование памяти! Рекомендуется перезапуск сервера").formatted(net.minecraft.util.Formatting.RED), false);
@@ -1073,6 +1079,40 @@ public final class RaceCommands {
         }
     }
     
+    /**
+     * Гистограммы RaceMetrics (p50/p99/max) за текущее окно; group — префикс имени (mspt, task, chunk, world, net)
+     */
+    private static int showMetrics(CommandContext<ServerCommandSource> ctx, String group) {
+        ServerCommandSource source = ctx.getSource();
+        long windowSec = race.server.metrics.RaceMetrics.getWindowMs() / 1000;
+        source.sendFeedback(() -> Text.literal("=== Метрики за " + windowSec + " с (мс или байты: p50 / p99 / max) ===").formatted(net.minecraft.util.Formatting.GOLD), false);
+        int shown = 0;
+        for (var e : race.server.metrics.RaceMetrics.all().entrySet()) {
+            if (!group.isEmpty() && !e.getKey().startsWith(group)) continue;
+            var h = e.getValue();
+            var snap = h.snapshot();
+            if (snap.count() == 0) continue;
+            String line;
+            if (h.getUnit() == race.server.metrics.LogHistogram.Unit.BYTES) {
+                line = String.format("  %s: n=%d, %d / %d / %d, всего %dKB", e.getKey(), snap.count(), snap.p50(), snap.p99(), snap.max(), snap.mean() * snap.count() / 1024);
+            } else {
+                line = String.format("  %s: n=%d, %.2f / %.2f / %.2f", e.getKey(), snap.count(), snap.p50() / 1e6, snap.p99() / 1e6, snap.max() / 1e6);
+            }
+            source.sendFeedback(() -> Text.literal(line).formatted(net.minecraft.util.Formatting.WHITE), false);
+            shown++;
+        }
+        if (shown == 0) {
+            source.sendFeedback(() -> Text.literal("Нет данных").formatted(net.minecraft.util.Formatting.GRAY), false);
+        }
+        return 1;
+    }
+
+    private static int resetMetrics(CommandContext<ServerCommandSource> ctx) {
+        race.server.metrics.RaceMetrics.reset();
+        ctx.getSource().sendFeedback(() -> Text.literal("Метрики сброшены, новое окно начато").formatted(net.minecraft.util.Formatting.GREEN), false);
+        return 1;
+    }
+
     /**
      * Переключает отображение TPS
      */
@@ -1128,7 +1168,7 @@ public final class RaceCommands {
             }
             
             // Дополнительная информация о оптимизации
-            if (performanceLevel == 2) {
+            if (performanceLevel >= 2) {
                 source.sendFeedback(() -> Text.literal("⚠️ Включены агрессивные оптимизации для высокой нагрузки").formatted(net.minecraft.util.Formatting.RED), false);
             } else if (performanceLevel == 1) {
                 source.sendFeedback(() -> Text.literal("⚠️ Включены умеренные оптимизации").formatted(net.minecraft.util.Formatting.YELLOW), false);
@@ -1180,15 +1220,26 @@ public final class RaceCommands {
             source.sendFeedback(() -> Text.literal("=== Автоматическая оптимизация ===").formatted(net.minecraft.util.Formatting.GOLD), false);
             source.sendFeedback(() -> Text.literal("Статус: " + (autoEnabled ? "ВКЛЮЧЕНА" : "ВЫКЛЮЧЕНА")).formatted(net.minecraft.util.Formatting.WHITE), false);
             source.sendFeedback(() -> Text.literal("Текущий уровень: " + autoLevel).formatted(net.minecraft.util.Formatting.WHITE), false);
+            source.sendFeedback(() -> Text.literal("Сглаженный MSPT: " + String.format("%.1f", race.server.RaceLoadController.getMsptSmoothed())).formatted(net.minecraft.util.Formatting.WHITE), false);
             source.sendFeedback(() -> Text.literal("Текущий TPS: " + String.format("%.2f", currentTPS)).formatted(net.minecraft.util.Formatting.WHITE), false);
             source.sendFeedback(() -> Text.literal("Статус производительности: " + performanceStatus).formatted(net.minecraft.util.Formatting.WHITE), false);
             
             // Описание уровней оптимизации
             source.sendFeedback(() -> Text.literal("=== Уровни оптимизации ===").formatted(net.minecraft.util.Formatting.YELLOW), false);
             source.sendFeedback(() -> Text.literal("Уровень 0: Нормальная работа").formatted(net.minecraft.util.Formatting.GREEN), false);
-            source.sendFeedback(() -> Text.literal("Уровень 1: Базовая оптимизация (GC)").formatted(net.minecraft.util.Formatting.YELLOW), false);
-            source.sendFeedback(() -> Text.literal("Уровень 2: Средняя оптимизация (GC + очистка кэшей)").formatted(net.minecraft.util.Formatting.LIGHT_PURPLE), false);
-            source.sendFeedback(() -> Text.literal("Уровень 3: Агрессивная оптимизация (полная очистка)").formatted(net.minecraft.util.Formatting.RED), false);
+            source.sendFeedback(() -> Text.literal("Уровень 1: Силуэты реже, призраки проще, радиус мобов 40, симуляция -2").formatted(net.minecraft.util.Formatting.YELLOW), false);
+            source.sendFeedback(() -> Text.literal("Уровень 2: + табло реже, радиус мобов 32, симуляция -3, догрузка чанков 5 мс").formatted(net.minecraft.util.Formatting.LIGHT_PURPLE), false);
+            source.sendFeedback(() -> Text.literal("Уровень 3: Призраки выключены, радиус мобов 24, симуляция -4, без синхронной догрузки").formatted(net.minecraft.util.Formatting.RED), false);
+
+            // Журнал смен уровня
+            var events = race.server.RaceLoadController.getEvents();
+            if (!events.isEmpty()) {
+                source.sendFeedback(() -> Text.literal("=== Смены уровня ===").formatted(net.minecraft.util.Formatting.YELLOW), false);
+                for (int i = Math.max(0, events.size() - 8); i < events.size(); i++) {
+                    String line = events.get(i).toString();
+                    source.sendFeedback(() -> Text.literal(line).formatted(net.minecraft.util.Formatting.GRAY), false);
+                }
+            }
             
             // Рекомендации
             if (currentTPS < 16.0) {
@@ -29,19 +29,28 @@ import net.minecraft.entity.EquipmentSlot;
  */
 public final class DeathEchoManager {
     private DeathEchoManager() {}
-    // Троттлинг спавна эффектов: ключ (world|pos|title|player) -> последний показ (ms)
-    private static final java.util.Map<String, Long> LAST_SHOW = new java.util.concurrent.ConcurrentHashMap<>();
-    // Уже созданные надгробия: ключ (world|signPos) -> timestamp
-    private static final java.util.Set<String> PLACED_GRAVES = java.util.Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>());
-    // Дедупликация по факту смерти: ключ (world|deathPos|player) — чтобы не ставить много табличек рядом
-    private static final java.util.Set<String> PLACED_ECHOS = java.util.Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>());
+    // Показ эхо не чаще раза в SHOW_COOLDOWN_MS; кэши «уже показано/поставлено» ограничены CACHE_MAX
+    private static final long SHOW_COOLDOWN_MS = 3000L;
+    private static final int CACHE_MAX = 4096;
+
+    /**
+     * Кэши одного мира с примитивными ключами: эхо (позиция+игрок) -> последний показ (ms),
+     * эхо с уже поставленной табличкой, позиции табличек. При переполнении вытесняются старейшие.
+     */
+    private static final class WorldCache {
+        final it.unimi.dsi.fastutil.longs.Long2LongLinkedOpenHashMap lastShow = new it.unimi.dsi.fastutil.longs.Long2LongLinkedOpenHashMap();
+        final it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet placedEchoes = new it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet();
+        final it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet placedGraves = new it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet();
+    }
+
+    // Кэши по мирам; выгруженный мир уходит вместе со своими кэшами
+    private static final java.util.WeakHashMap<ServerWorld, WorldCache> CACHES = new java.util.WeakHashMap<>();
 
     // Буфер последних позиций игроков для «призрачного пробега» (около 30 сек)
     private static final Map<UUID, Deque<TrailPoint>> TRAILS = new java.util.concurrent.ConcurrentHashMap<>();
     private static final int TRAIL_MAX_POINTS = 180; // ~30с при записи каждые ~3-4 тика
     private static final int TRAIL_SAMPLE_TICKS = 3; // писать раз в 3 тика
     private static int tickCounter = 0;
-    private static final Map<UUID, Integer> GHOST_TTL = new java.util.concurrent.ConcurrentHashMap<>();
     // Периодическое появление фигур после смерти (8с)
     private static final java.util.Map<UUID, Long> ACTIVE_GHOSTS = new java.util.concurrent.ConcurrentHashMap<>();
 
@@ -65,7 +74,6 @@ public final class DeathEchoManager {
         String msg = source.getDeathMessage(player).getString();
         DeathEchoState state = DeathEchoState.get(server);
         state.addEcho(seed, dim, bp, msg, player.getGameProfile().getName());
-        state.markDirty();
         // Спавним маркер во всех мирах с тем же сидом и типом измерения
         for (ServerWorld w : server.getWorlds()) {
             if (!isPersonalWorld(w)) continue;
@@ -104,23 +112,73 @@ public final class DeathEchoManager {
         }
     }
 
-    public static void populateWorld(ServerWorld world) {
-        if (!isPersonalWorld(world)) return;
-        long seed = tryParseSeed(world.getRegistryKey());
-        if (seed < 0) return;
-        String dim = getDimKey(world);
-        DeathEchoState st = DeathEchoState.get(world.getServer());
+    /**
+     * Показ эхо рядом с игроками (по расписанию, серверный поток). Для каждого игрока в гоночном мире
+     * берутся только чанки индекса (seed, dim), попадающие в его зону видимости и загруженные, —
+     * без игроков и без эхо работа не делается вовсе.
+     */
+    public static void emitNearPlayers(MinecraftServer server) {
+        DeathEchoState st = null;
         long now = System.currentTimeMillis();
-        for (DeathEchoState.Echo e : st.getEchoes(seed, dim)) {
-            String key = world.getRegistryKey().getValue() + "|" + e.pos.getX()+","+e.pos.getY()+","+e.pos.getZ() + "|" + e.title + "|" + e.playerName;
-            long last = LAST_SHOW.getOrDefault(key, 0L);
-            if (now - last >= 3000L) { // не чаще раза в 3 сек
-                spawnGhost(world, e.pos, e.title, e.playerName);
-                LAST_SHOW.put(key, now);
+        int viewDistance = server.getPlayerManager().getViewDistance();
+        int area = (2 * viewDistance + 1) * (2 * viewDistance + 1);
+        for (ServerPlayerEntity p : server.getPlayerManager().getPlayerList()) {
+            ServerWorld world = p.getServerWorld();
+            race.server.world.RaceWorldTraits traits = race.server.world.RaceWorldTraits.of(world);
+            if (!traits.raceWorld() || !traits.hasSeed()) continue;
+            if (st == null) st = DeathEchoState.get(server);
+            it.unimi.dsi.fastutil.longs.Long2ObjectMap<java.util.List<DeathEchoState.Echo>> chunks = st.getChunkIndex(traits.seed(), getDimKey(world));
+            if (chunks == null) continue;
+
+            net.minecraft.server.network.ChunkFilter filter = p.getChunkFilter();
+            net.minecraft.util.math.ChunkPos center = p.getChunkPos();
+            if (chunks.size() <= area) {
+                // Эхо меньше, чем чанков в зоне видимости — идём по индексу
+                for (var entry : chunks.long2ObjectEntrySet()) {
+                    long c = entry.getLongKey();
+                    emitChunk(world, filter, net.minecraft.util.math.ChunkPos.getPackedX(c), net.minecraft.util.math.ChunkPos.getPackedZ(c), entry.getValue(), now);
+                }
+            } else {
+                for (int x = center.x - viewDistance; x <= center.x + viewDistance; x++) {
+                    for (int z = center.z - viewDistance; z <= center.z + viewDistance; z++) {
+                        java.util.List<DeathEchoState.Echo> list = chunks.get(net.minecraft.util.math.ChunkPos.toLong(x, z));
+                        if (list != null) emitChunk(world, filter, x, z, list, now);
+                    }
+                }
             }
         }
     }
 
+    private static void emitChunk(ServerWorld world, net.minecraft.server.network.ChunkFilter filter, int cx, int cz, java.util.List<DeathEchoState.Echo> echoes, long now) {
+        if (!filter.isWithinDistance(cx, cz)) return;
+        if (!world.getChunkManager().isChunkLoaded(cx, cz)) return;
+        WorldCache cache = cacheOf(world);
+        for (DeathEchoState.Echo e : echoes) {
+            long key = echoKey(e.pos, e.playerName);
+            long last = cache.lastShow.getOrDefault(key, 0L);
+            if (now - last < SHOW_COOLDOWN_MS) continue;
+            cache.lastShow.putAndMoveToLast(key, now);
+            if (cache.lastShow.size() > CACHE_MAX) cache.lastShow.removeFirstLong();
+            spawnGhost(world, e.pos, e.title, e.playerName);
+        }
+    }
+
+    private static WorldCache cacheOf(ServerWorld world) {
+        return CACHES.computeIfAbsent(world, w -> new WorldCache());
+    }
+
+    // Ключ эхо в мире: позиция смерти + имя игрока
+    private static long echoKey(BlockPos pos, String playerName) {
+        return pos.asLong() * 31L + playerName.hashCode();
+    }
+
+    // Добавляет ключ в ограниченное множество; false — уже был
+    private static boolean addBounded(it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet set, long key) {
+        if (!set.add(key)) return false;
+        if (set.size() > CACHE_MAX) set.removeFirstLong();
+        return true;
+    }
+
     // Спавнит несколько полупризрачных фигур вдоль пути
     private static void spawnGhostFigures(ServerWorld world, UUID playerId, String playerName) {
         Deque<TrailPoint> dq = TRAILS.get(playerId);
@@ -144,9 +202,8 @@ public final class DeathEchoManager {
             try { as.equipStack(EquipmentSlot.FEET, new ItemStack(Items.CHAINMAIL_BOOTS)); } catch (Throwable ignored) {}
             // Имя бледным текстом (не показываем постоянно)
             try { as.setCustomName(Text.literal(playerName)); as.setCustomNameVisible(false); } catch (Throwable ignored) {}
-            as.addCommandTag("race_ghost_fig");
             world.spawnEntity(as);
-            GHOST_TTL.put(as.getUuid(), 80); // 4 секунды при 20 т/с
+            race.server.world.TransientEntities.track(world, as, 80); // 4 секунды при 20 т/с
         }
     }
 
@@ -163,8 +220,7 @@ public final class DeathEchoManager {
         world.spawnParticles(red, x, y, z, particleCount, 0.6, 0.05, 0.6, 0.015);
         // Рядом создаём простое «надгробие»: камень + стоящая табличка с именем
         try {
-            String echoKey = world.getRegistryKey().getValue() + "|" + pos.getX()+","+pos.getY()+","+pos.getZ() + "|" + playerName;
-            if (!PLACED_ECHOS.add(echoKey)) return; // уже ставили табличку к этой смерти в этом мире
+            if (!addBounded(cacheOf(world).placedEchoes, echoKey(pos, playerName))) return; // уже ставили табличку к этой смерти в этом мире
             placeGravestone(world, pos, playerName, title);
         } catch (Throwable ignored) {}
     }
@@ -209,13 +265,14 @@ public final class DeathEchoManager {
         // Если не нашли — используем саму точку смерти (принудительно подготовим место)
         if (base == null) base = deathPos;
         BlockPos signPos = base.up();
-        String key = world.getRegistryKey().getValue() + "|" + signPos.getX()+","+signPos.getY()+","+signPos.getZ();
-        if (PLACED_GRAVES.contains(key)) return; // уже ставили
+        WorldCache cache = cacheOf(world);
+        long key = signPos.asLong();
+        if (cache.placedGraves.contains(key)) return; // уже ставили
         // Если уже стоит табличка с нашим заголовком — считаем установленной
         if (world.getBlockEntity(signPos) instanceof SignBlockEntity existing) {
             try {
                 if (existing.getFrontText().getMessage(0, false).getString().startsWith("✝ ")) {
-                    PLACED_GRAVES.add(key);
+                    addBounded(cache.placedGraves, key);
                     return;
                 }
             } catch (Throwable ignored) {}
@@ -242,7 +299,7 @@ public final class DeathEchoManager {
             sign.markDirty();
             BlockState st = world.getBlockState(signPos);
             world.updateListeners(signPos, st, st, Block.NOTIFY_ALL);
-            PLACED_GRAVES.add(key);
+            addBounded(cache.placedGraves, key);
         }
     }
 
@@ -1,115 +1,323 @@
 package race.server.death;
 
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtList;
-import net.minecraft.nbt.NbtOps;
 import net.minecraft.nbt.NbtSizeTracker;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.WorldSavePath;
+import org.slf4j.Logger;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Персистентное хранилище "эхо смерти" по (seed, dimensionType).
+ * На каждый сид — свой журнал race/death_echoes/&lt;seed&gt;.log: заголовок и записи
+ * [длина][dim, x, y, z, title, player], новые смерти только дописываются в конец.
+ * Журнал сида читается целиком при первом обращении к этому сиду (создание мира, смерть),
+ * а не при старте. Повторы (та же точка и игрок) отбрасываются, на измерение хранится не больше
+ * -Drace.deathEcho.maxPerDim (1024) последних эхо; когда журнал вдвое длиннее живых записей,
+ * он переписывается (компактация) во временный файл с атомарной заменой.
+ * Запись на диск идёт в фоновом потоке "Race-DeathEcho"; индекс в памяти — под монитором объекта.
+ * Внутри измерения эхо дополнительно разложены по чанкам — для показа только рядом с игроками.
  */
 public final class DeathEchoState {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int MAGIC = 0x52444531; // "RDE1"
+    private static final int VERSION = 1;
+    private static final int MAX_PER_DIM = Math.max(16, Integer.getInteger("race.deathEcho.maxPerDim", 1024));
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final int COMPACT_MIN_RECORDS = 64;
+
+    private static final ExecutorService IO = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Race-DeathEcho");
+        t.setDaemon(true);
+        return t;
+    });
+
     public static final class Echo {
         public final long seed; public final String dim; public final net.minecraft.util.math.BlockPos pos;
         public final String title; public final String playerName;
         Echo(long seed, String dim, net.minecraft.util.math.BlockPos pos, String title, String playerName) {
             this.seed = seed; this.dim = dim; this.pos = pos; this.title = title; this.playerName = playerName; }
+
+        String key() {
+            return dim + "|" + pos.getX() + "," + pos.getY() + "," + pos.getZ() + "|" + playerName;
+        }
+
+        long chunk() {
+            return net.minecraft.util.math.ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+        }
     }
 
-    private final Map<Long, Map<String, List<Echo>>> map = new HashMap<>();
-    private final MinecraftServer server;
-    private boolean dirty = false;
+    // Индекс одного сида: эхо по измерениям и учёт длины журнала для компактации
+    private static final class SeedLog {
+        final Map<String, ArrayDeque<Echo>> byDim = new HashMap<>();
+        final Map<String, Long2ObjectOpenHashMap<List<Echo>>> byChunk = new HashMap<>();
+        final Set<String> keys = new HashSet<>();
+        int live;
+        int records;
+    }
 
-    private DeathEchoState(MinecraftServer server) { this.server = server; load(); }
+    private final Map<Long, SeedLog> seeds = new HashMap<>();
+    private final Path dir;
+
+    private DeathEchoState(MinecraftServer server) {
+        Path root = server.getSavePath(WorldSavePath.ROOT).resolve("race");
+        this.dir = root.resolve("death_echoes");
+        migrateLegacy(root.resolve("death_echoes.dat"));
+    }
 
     private static final java.util.WeakHashMap<MinecraftServer, DeathEchoState> INSTANCES = new java.util.WeakHashMap<>();
+    private static boolean hooked;
 
     public static synchronized DeathEchoState get(MinecraftServer server) {
+        if (!hooked) {
+            hooked = true;
+            // Дописать всё, что стоит в очереди, до остановки сервера
+            ServerLifecycleEvents.SERVER_STOPPING.register(s -> drain());
+        }
         return INSTANCES.computeIfAbsent(server, s -> new DeathEchoState(s));
     }
 
-    public void addEcho(long seed, String dim, net.minecraft.util.math.BlockPos pos, String title, String playerName) {
-        map.computeIfAbsent(seed, k -> new HashMap<>())
-                .computeIfAbsent(dim, k -> new ArrayList<>())
-                .add(new Echo(seed, dim, pos, title, playerName));
-        dirty = true;
+    public synchronized void addEcho(long seed, String dim, net.minecraft.util.math.BlockPos pos, String title, String playerName) {
+        SeedLog log = seed(seed);
+        Echo e = new Echo(seed, dim, pos.toImmutable(), title, playerName);
+        if (!index(log, e)) return;
+        log.records++;
+        byte[] record = encode(e);
+        Path file = fileOf(seed);
+        IO.execute(() -> append(file, record));
+        if (log.records >= COMPACT_MIN_RECORDS && log.records > 2 * log.live) compact(seed, log);
     }
 
-    public List<Echo> getEchoes(long seed, String dim) {
-        return map.getOrDefault(seed, Collections.emptyMap()).getOrDefault(dim, Collections.emptyList());
+    public synchronized List<Echo> getEchoes(long seed, String dim) {
+        ArrayDeque<Echo> list = seed(seed).byDim.get(dim);
+        return list == null ? Collections.emptyList() : new ArrayList<>(list);
     }
 
-    public void markDirty() { dirty = true; save(); }
+    /**
+     * Эхо измерения по чанкам (ключ ChunkPos.toLong); null — эхо нет.
+     * Карта живая: читать только в серверном потоке, где идёт и addEcho
+     */
+    public synchronized Long2ObjectMap<List<Echo>> getChunkIndex(long seed, String dim) {
+        Long2ObjectOpenHashMap<List<Echo>> chunks = seed(seed).byChunk.get(dim);
+        return chunks == null || chunks.isEmpty() ? null : chunks;
+    }
 
-    private void save() {
-        if (!dirty) return;
+    private SeedLog seed(long seed) {
+        SeedLog log = seeds.get(seed);
+        if (log == null) {
+            log = load(seed);
+            seeds.put(seed, log);
+        }
+        return log;
+    }
+
+    // true — эхо новое и попало в индекс; старейшее сверх лимита вытесняется
+    private static boolean index(SeedLog log, Echo e) {
+        if (!log.keys.add(e.key())) return false;
+        ArrayDeque<Echo> list = log.byDim.computeIfAbsent(e.dim, k -> new ArrayDeque<>());
+        list.addLast(e);
+        Long2ObjectOpenHashMap<List<Echo>> chunks = log.byChunk.computeIfAbsent(e.dim, k -> new Long2ObjectOpenHashMap<>());
+        chunks.computeIfAbsent(e.chunk(), c -> new ArrayList<>(2)).add(e);
+        log.live++;
+        if (list.size() > MAX_PER_DIM) {
+            Echo old = list.removeFirst();
+            log.keys.remove(old.key());
+            List<Echo> inChunk = chunks.get(old.chunk());
+            if (inChunk != null) {
+                inChunk.remove(old);
+                if (inChunk.isEmpty()) chunks.remove(old.chunk());
+            }
+            log.live--;
+        }
+        return true;
+    }
+
+    private Path fileOf(long seed) {
+        return dir.resolve(seed + ".log");
+    }
+
+    private SeedLog load(long seed) {
+        SeedLog log = new SeedLog();
+        Path file = fileOf(seed);
+        if (!Files.exists(file)) return log;
+        boolean torn = false;
+        boolean unsupported = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            unsupported = in.readInt() != MAGIC || in.readInt() > VERSION;
+            while (!unsupported) {
+                int len;
+                try { len = in.readInt(); } catch (EOFException eof) { break; }
+                if (len <= 0 || len > MAX_RECORD_BYTES) { torn = true; break; }
+                byte[] buf = new byte[len];
+                try { in.readFully(buf); } catch (EOFException eof) { torn = true; break; }
+                log.records++;
+                index(log, decode(seed, buf));
+            }
+        } catch (IOException e) {
+            LOGGER.warn("[Race] Death echoes: failed to read {}: {}", file, e.toString());
+            torn = true;
+        }
+        if (unsupported) {
+            // Дозапись приклеила бы записи к чужому заголовку: журнал уходит в .bad,
+            // новый начнётся с первой же записи (та же очередь IO, так что после переноса)
+            LOGGER.warn("[Race] Death echoes: unsupported journal {}, moving it to {}.bad", file, file.getFileName());
+            IO.execute(() -> quarantine(file));
+            return log;
+        }
+        // Оборванный хвост (падение посреди записи) или лишние записи — переписываем журнал
+        if (torn || log.records > log.live) compact(seed, log);
+        return log;
+    }
+
+    private void compact(long seed, SeedLog log) {
+        List<byte[]> snapshot = new ArrayList<>(log.live);
+        for (ArrayDeque<Echo> list : log.byDim.values()) {
+            for (Echo e : list) snapshot.add(encode(e));
+        }
+        log.records = snapshot.size();
+        Path file = fileOf(seed);
+        IO.execute(() -> rewrite(file, snapshot));
+    }
+
+    private static byte[] encode(Echo e) {
         try {
-            Path dir = server.getSavePath(WorldSavePath.ROOT).resolve("race");
-            Files.createDirectories(dir);
-            Path file = dir.resolve("death_echoes.dat");
-            NbtCompound root = new NbtCompound();
-            NbtList seeds = new NbtList();
-            for (var eSeed : map.entrySet()) {
-                NbtCompound s = new NbtCompound();
-                s.putLong("seed", eSeed.getKey());
-                NbtList dims = new NbtList();
-                for (var eDim : eSeed.getValue().entrySet()) {
-                    NbtCompound d = new NbtCompound();
-                    d.putString("dim", eDim.getKey());
-                    NbtList list = new NbtList();
-                    for (Echo e : eDim.getValue()) {
-                        NbtCompound n = new NbtCompound();
-                        n.putInt("x", e.pos.getX()); n.putInt("y", e.pos.getY()); n.putInt("z", e.pos.getZ());
-                        n.putString("title", e.title); n.putString("player", e.playerName);
-                        list.add(n);
-                    }
-                    d.put("list", list);
-                    dims.add(d);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(e.dim);
+            out.writeInt(e.pos.getX());
+            out.writeInt(e.pos.getY());
+            out.writeInt(e.pos.getZ());
+            out.writeUTF(e.title);
+            out.writeUTF(e.playerName);
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Echo decode(long seed, byte[] buf) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buf));
+        String dim = in.readUTF();
+        net.minecraft.util.math.BlockPos pos = new net.minecraft.util.math.BlockPos(in.readInt(), in.readInt(), in.readInt());
+        return new Echo(seed, dim, pos, in.readUTF(), in.readUTF());
+    }
+
+    // ===== Фоновый поток =====
+
+    private static void append(Path file, byte[] record) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buf = ByteBuffer.allocate((ch.size() == 0 ? 8 : 0) + 4 + record.length);
+                if (ch.size() == 0) buf.putInt(MAGIC).putInt(VERSION);
+                buf.putInt(record.length).put(record).flip();
+                while (buf.hasRemaining()) ch.write(buf);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("[Race] Death echoes: failed to append to {}: {}", file, e.toString());
+        }
+    }
+
+    private static void quarantine(Path file) {
+        try {
+            Files.move(file, file.resolveSibling(file.getFileName() + ".bad"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("[Race] Death echoes: failed to move aside {}: {}", file, e.toString());
+        }
+    }
+
+    private static void rewrite(Path file, List<byte[]> records) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                for (byte[] r : records) {
+                    out.writeInt(r.length);
+                    out.write(r);
                 }
-                s.put("dims", dims);
-                seeds.add(s);
             }
-            root.put("seeds", seeds);
-            try (var out = Files.newOutputStream(file)) {
-                net.minecraft.nbt.NbtIo.writeCompressed(root, out);
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
             }
-            dirty = false;
-        } catch (IOException ignored) {}
+        } catch (IOException e) {
+            LOGGER.warn("[Race] Death echoes: failed to compact {}: {}", file, e.toString());
+        }
+    }
+
+    private static void drain() {
+        try {
+            IO.submit(() -> {}).get(5, TimeUnit.SECONDS);
+        } catch (Throwable t) {
+            LOGGER.warn("[Race] Death echoes: pending writes not finished: {}", t.toString());
+        }
     }
 
-    private void load() {
+    // ===== Миграция старого death_echoes.dat (NBT целиком) в журналы по сидам =====
+
+    private void migrateLegacy(Path legacy) {
+        if (!Files.exists(legacy)) return;
         try {
-            Path file = server.getSavePath(WorldSavePath.ROOT).resolve("race").resolve("death_echoes.dat");
-            if (!Files.exists(file)) return;
             NbtCompound root;
-            try (var in = Files.newInputStream(file)) { root = net.minecraft.nbt.NbtIo.readCompressed(in, NbtSizeTracker.ofUnlimitedBytes()); }
-            if (root == null) return;
-            NbtList seeds = root.getList("seeds", 10);
-            for (int i = 0; i < seeds.size(); i++) {
-                NbtCompound s = seeds.getCompound(i);
-                long seed = s.getLong("seed");
-                NbtList dims = s.getList("dims", 10);
-                for (int j = 0; j < dims.size(); j++) {
-                    NbtCompound d = dims.getCompound(j);
-                    String dim = d.getString("dim");
-                    NbtList list = d.getList("list", 10);
-                    List<Echo> es = new ArrayList<>();
-                    for (int k = 0; k < list.size(); k++) {
-                        NbtCompound n = list.getCompound(k);
-                        es.add(new Echo(seed, dim, new net.minecraft.util.math.BlockPos(n.getInt("x"), n.getInt("y"), n.getInt("z")), n.getString("title"), n.getString("player")));
+            try (var in = Files.newInputStream(legacy)) { root = net.minecraft.nbt.NbtIo.readCompressed(in, NbtSizeTracker.ofUnlimitedBytes()); }
+            int migrated = 0;
+            if (root != null) {
+                NbtList seedList = root.getList("seeds", 10);
+                for (int i = 0; i < seedList.size(); i++) {
+                    NbtCompound s = seedList.getCompound(i);
+                    long seed = s.getLong("seed");
+                    // Журнал уже есть — сид мигрирован раньше
+                    if (Files.exists(fileOf(seed))) continue;
+                    SeedLog log = new SeedLog();
+                    NbtList dims = s.getList("dims", 10);
+                    for (int j = 0; j < dims.size(); j++) {
+                        NbtCompound d = dims.getCompound(j);
+                        String dim = d.getString("dim");
+                        NbtList list = d.getList("list", 10);
+                        for (int k = 0; k < list.size(); k++) {
+                            NbtCompound n = list.getCompound(k);
+                            index(log, new Echo(seed, dim, new net.minecraft.util.math.BlockPos(n.getInt("x"), n.getInt("y"), n.getInt("z")), n.getString("title"), n.getString("player")));
+                        }
+                    }
+                    List<byte[]> records = new ArrayList<>(log.live);
+                    for (ArrayDeque<Echo> list : log.byDim.values()) {
+                        for (Echo e : list) records.add(encode(e));
                     }
-                    map.computeIfAbsent(seed, kk -> new HashMap<>()).put(dim, es);
+                    rewrite(fileOf(seed), records);
+                    migrated += records.size();
                 }
             }
-        } catch (IOException ignored) {}
+            Files.move(legacy, legacy.resolveSibling("death_echoes.dat.migrated"), StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.info("[Race] Death echoes: migrated {} echoes to per-seed journals", migrated);
+        } catch (IOException e) {
+            LOGGER.warn("[Race] Death echoes: legacy migration failed: {}", e.toString());
+        }
     }
 }
-
-
@@ -0,0 +1,92 @@
+package race.server.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма в духе HDR: каждая степень двойки делится на 16 поддиапазонов, поэтому
+ * относительная погрешность перцентилей не больше 1/16, а память постоянна (~700 счётчиков).
+ * Запись без блокировок (атомарные счётчики) — можно писать из сетевых и рабочих потоков.
+ * reset() не атомарен относительно параллельной записи: пара значений может попасть в старое окно.
+ */
+public final class LogHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    // Значения больше 2^48 (≈ 3 суток в наносекундах) складываются в последний диапазон
+    private static final int MAX_EXP = 48;
+    private static final long MAX_VALUE = (1L << MAX_EXP) - 1;
+    private static final int BUCKETS = (MAX_EXP - SUB_BITS + 1) * SUB;
+
+    public enum Unit { NANOS, BYTES }
+
+    public record Snapshot(long count, long mean, long p50, long p90, long p99, long max) {}
+
+    private final Unit unit;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public LogHistogram(Unit unit) {
+        this.unit = unit;
+    }
+
+    public Unit getUnit() { return unit; }
+
+    public void record(long value) {
+        long v = value < 0 ? 0 : Math.min(value, MAX_VALUE);
+        counts.incrementAndGet(index(v));
+        count.incrementAndGet();
+        sum.addAndGet(v);
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v)) m = max.get();
+    }
+
+    public long getCount() { return count.get(); }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long mx = max.get();
+        if (total == 0) return new Snapshot(0, 0, 0, 0, 0, mx);
+        long n = count.get();
+        long mean = n > 0 ? sum.get() / n : 0;
+        return new Snapshot(total, mean, percentile(copy, total, 0.50, mx), percentile(copy, total, 0.90, mx), percentile(copy, total, 0.99, mx), mx);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    private static long percentile(long[] counts, long total, double q, long max) {
+        long rank = Math.max(1L, (long) Math.ceil(total * q));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    private static int index(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+        return (exp - SUB_BITS + 1) * SUB + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB) return index;
+        int exp = index / SUB - 1 + SUB_BITS;
+        int sub = index % SUB;
+        long width = 1L << (exp - SUB_BITS);
+        return ((long) (SUB + sub) << (exp - SUB_BITS)) + width - 1;
+    }
+}
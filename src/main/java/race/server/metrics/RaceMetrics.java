@@ -0,0 +1,79 @@
+package race.server.metrics;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Метрики гонки на System.nanoTime(): гистограммы по именам вида "группа:имя".
+ * Группы: mspt (сервер и каждый ServerWorld, включая слотовые миры), task (задачи RaceScheduler),
+ * chunk (синхронная догрузка), world (создание/выгрузка миров), net (байты по типам payload).
+ * Окно статистики — с момента последнего reset() (/race perf reset).
+ */
+public final class RaceMetrics {
+    private static final ConcurrentHashMap<String, LogHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static volatile long windowStartMs = System.currentTimeMillis();
+
+    private RaceMetrics() {}
+
+    /** Гистограмма длительностей (нс) */
+    public static LogHistogram nanos(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, k -> new LogHistogram(LogHistogram.Unit.NANOS));
+    }
+
+    /** Гистограмма размеров (байты) */
+    public static LogHistogram bytes(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, k -> new LogHistogram(LogHistogram.Unit.BYTES));
+    }
+
+    public static void recordNanos(String name, long ns) {
+        nanos(name).record(ns);
+    }
+
+    /**
+     * Оборачивает кодек payload: размер каждого закодированного/декодированного пакета пишется в net:name.
+     * Кодирование идёт в сетевом потоке, поэтому запись гистограммы без блокировок.
+     */
+    public static <B extends ByteBuf, T> PacketCodec<B, T> measured(String name, PacketCodec<B, T> codec) {
+        LogHistogram h = bytes("net:" + name);
+        return new PacketCodec<>() {
+            @Override
+            public T decode(B buf) {
+                int start = buf.readerIndex();
+                T value = codec.decode(buf);
+                h.record(buf.readerIndex() - start);
+                return value;
+            }
+
+            @Override
+            public void encode(B buf, T value) {
+                int start = buf.writerIndex();
+                codec.encode(buf, value);
+                h.record(buf.writerIndex() - start);
+            }
+        };
+    }
+
+    /** Убирает гистограмму (например, MSPT выгруженного мира) */
+    public static void remove(String name) {
+        HISTOGRAMS.remove(name);
+    }
+
+    /** Все гистограммы, отсортированные по имени */
+    public static Map<String, LogHistogram> all() {
+        return new TreeMap<>(HISTOGRAMS);
+    }
+
+    /** Начинает новое окно: обнуляет все гистограммы */
+    public static void reset() {
+        for (LogHistogram h : HISTOGRAMS.values()) h.reset();
+        windowStartMs = System.currentTimeMillis();
+    }
+
+    public static long getWindowMs() {
+        return System.currentTimeMillis() - windowStartMs;
+    }
+}
@@ -0,0 +1,118 @@
+package race.server.phase;
+
+import com.mojang.logging.LogUtils;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.block.Block;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.packet.s2c.play.ChunkDataS2CPacket;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import org.slf4j.Logger;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * Готовые секции чанка с наложенным оверлеем игрока — байты в формате ChunkData.sectionsData.
+ * Копируются только секции, где есть блоки оверлея, остальные берутся по ссылке; живой чанк не
+ * меняется. Кэш по (игрок, чанк) сбрасывается при изменении оверлея (объект + версия) или блоков
+ * чанка (ревизия из MixinWorldChunk). На игрока хранится не больше MAX_PER_PLAYER чанков.
+ * Пакет собирается из готовых байтов: на время new ChunkDataS2CPacket(...) они выставляются через
+ * {@link #buildPacket}, и MixinChunkData не сериализует секции живого чанка.
+ * Работает в серверном потоке.
+ */
+public final class OverlayPacketCache {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int MAX_PER_PLAYER = 64;
+
+    private record Entry(PhaseState.Overlay overlay, int overlayVersion, long chunkRevision, byte[] sections) {}
+
+    private static final HashMap<UUID, Long2ObjectLinkedOpenHashMap<Entry>> CACHE = new HashMap<>();
+    // Секции для ChunkData, которую сейчас собирает этот поток (см. MixinChunkData)
+    private static final ThreadLocal<byte[]> PENDING = new ThreadLocal<>();
+    private static final java.util.concurrent.atomic.AtomicBoolean FAILURE_LOGGED = new java.util.concurrent.atomic.AtomicBoolean();
+
+    private OverlayPacketCache() {}
+
+    public static void init() {
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+            if (handler.player != null) CACHE.remove(handler.player.getUuid());
+        });
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> CACHE.clear());
+    }
+
+    /**
+     * Пакет чанка с секциями из кэша; null — собрать не удалось (отправлять ванильный)
+     */
+    public static ChunkDataS2CPacket buildPacket(UUID player, ServerWorld world, WorldChunk chunk, PhaseState.Overlay overlay) {
+        try {
+            byte[] sections = sectionsFor(player, chunk, world.getBottomSectionCoord(), overlay);
+            PENDING.set(sections);
+            try {
+                return new ChunkDataS2CPacket(chunk, world.getLightingProvider(), null, null);
+            } finally {
+                PENDING.remove();
+            }
+        } catch (Throwable t) {
+            if (FAILURE_LOGGED.compareAndSet(false, true)) {
+                LOGGER.error("[Race] Failed to build overlay chunk packet, sending vanilla chunk data instead", t);
+            }
+            return null;
+        }
+    }
+
+    /** Секции, подставляемые в собираемую сейчас ChunkData, или null */
+    public static byte[] pendingSections() {
+        return PENDING.get();
+    }
+
+    public static byte[] sectionsFor(UUID player, WorldChunk chunk, int bottomSectionCoord, PhaseState.Overlay overlay) {
+        long revision = ((RevisionedChunk) chunk).getBlockRevision_FAB();
+        ChunkPos cpos = chunk.getPos();
+        long key = ChunkPos.toLong(cpos.x, cpos.z);
+        Long2ObjectLinkedOpenHashMap<Entry> perPlayer = CACHE.computeIfAbsent(player, k -> new Long2ObjectLinkedOpenHashMap<>());
+        Entry e = perPlayer.getAndMoveToLast(key);
+        if (e != null && e.overlay() == overlay && e.overlayVersion() == overlay.getVersion() && e.chunkRevision() == revision) {
+            return e.sections();
+        }
+        byte[] sections = build(chunk, bottomSectionCoord, overlay);
+        perPlayer.putAndMoveToLast(key, new Entry(overlay, overlay.getVersion(), revision, sections));
+        if (perPlayer.size() > MAX_PER_PLAYER) perPlayer.removeFirst();
+        return sections;
+    }
+
+    private static byte[] build(WorldChunk chunk, int bottomSectionCoord, PhaseState.Overlay overlay) {
+        ChunkSection[] live = chunk.getSectionArray();
+        ChunkSection[] detached = live.clone();
+        for (int i = 0; i < live.length; i++) {
+            if (live[i] == null || !overlay.hasSection(bottomSectionCoord + i)) continue;
+            detached[i] = new ChunkSection(live[i].getBlockStateContainer().copy(), live[i].getBiomeContainer());
+        }
+
+        overlay.forEach((x, y, z, raw) -> {
+            int idx = (y >> 4) - bottomSectionCoord;
+            if (idx < 0 || idx >= detached.length) return;
+            ChunkSection sec = detached[idx];
+            if (sec == null || sec == live[idx]) return;
+            // Через секцию, а не контейнер: счётчик непустых блоков тоже уходит клиенту
+            sec.setBlockState(x, y & 15, z, Block.getStateFromRawId(raw), false);
+        });
+
+        // Как ChunkData(WorldChunk): точный размер, затем секции подряд
+        int size = 0;
+        for (ChunkSection sec : detached) {
+            if (sec != null) size += sec.getPacketSize();
+        }
+        byte[] data = new byte[size];
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.wrappedBuffer(data).writerIndex(0));
+        for (ChunkSection sec : detached) {
+            if (sec != null) sec.toPacket(buf);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,101 @@
+package race.server.phase;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.shorts.ShortIterator;
+import it.unimi.dsi.fastutil.shorts.ShortOpenHashSet;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.network.packet.s2c.play.BlockUpdateS2CPacket;
+import net.minecraft.network.packet.s2c.play.ChunkDeltaUpdateS2CPacket;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Инкрементальная синхронизация оверлея с клиентом: изменённые блоки копятся по секциям и раз в тик
+ * уходят только этому игроку — BlockUpdate для одиночного блока, ChunkDeltaUpdate для нескольких
+ * блоков секции. Полная пересылка чанка (MixinChunkDataSender) остаётся только для загрузки чанка.
+ * Чанки вне зоны видимости игрока пропускаются — они придут целиком при загрузке.
+ * Работает в серверном потоке.
+ */
+public final class OverlaySync {
+    // Игрок -> ChunkSectionPos.asLong() -> локальные позиции (ChunkSectionPos.packLocal)
+    private static final HashMap<UUID, Long2ObjectOpenHashMap<ShortOpenHashSet>> PENDING = new HashMap<>();
+
+    private OverlaySync() {}
+
+    public static void init() {
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+            if (handler.player != null) PENDING.remove(handler.player.getUuid());
+        });
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> PENDING.clear());
+    }
+
+    public static void markChanged(UUID player, BlockPos pos) {
+        PENDING.computeIfAbsent(player, k -> new Long2ObjectOpenHashMap<>())
+                .computeIfAbsent(ChunkSectionPos.toLong(pos), k -> new ShortOpenHashSet())
+                .add(ChunkSectionPos.packLocal(pos));
+    }
+
+    public static void flush(MinecraftServer server) {
+        if (PENDING.isEmpty()) return;
+        PhaseState st = PhaseState.get(server);
+        Iterator<Map.Entry<UUID, Long2ObjectOpenHashMap<ShortOpenHashSet>>> it = PENDING.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, Long2ObjectOpenHashMap<ShortOpenHashSet>> e = it.next();
+            it.remove();
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(e.getKey());
+            if (player == null) continue;
+            PhaseState.PhaseData pd = st.peek(e.getKey());
+            ServerWorld world = player.getServerWorld();
+            for (var section : e.getValue().long2ObjectEntrySet()) {
+                ChunkSectionPos sectionPos = ChunkSectionPos.from(section.getLongKey());
+                if (!player.getChunkFilter().isWithinDistance(sectionPos.getSectionX(), sectionPos.getSectionZ())) continue;
+                if (!world.getChunkManager().isChunkLoaded(sectionPos.getSectionX(), sectionPos.getSectionZ())) continue;
+                sendSection(player, world, pd, sectionPos, section.getValue());
+            }
+        }
+    }
+
+    private static void sendSection(ServerPlayerEntity player, ServerWorld world, PhaseState.PhaseData pd, ChunkSectionPos sectionPos, ShortOpenHashSet positions) {
+        PhaseState.Overlay overlay = pd == null ? null : PhaseState.overlayOrNull(pd, sectionPos.getSectionX(), sectionPos.getSectionZ());
+        if (positions.size() == 1) {
+            BlockPos pos = sectionPos.unpackBlockPos(positions.iterator().nextShort());
+            player.networkHandler.sendPacket(new BlockUpdateS2CPacket(pos, stateAt(world, overlay, pos)));
+            return;
+        }
+        // Отвязанная копия живой секции с блоками оверлея: пакет сам читает из неё состояния позиций
+        int index = world.sectionCoordToIndex(sectionPos.getSectionY());
+        ChunkSection[] sections = world.getChunk(sectionPos.getSectionX(), sectionPos.getSectionZ()).getSectionArray();
+        if (index < 0 || index >= sections.length) return;
+        ChunkSection live = sections[index];
+        ChunkSection detached = new ChunkSection(live.getBlockStateContainer().copy(), live.getBiomeContainer());
+        if (overlay != null) {
+            for (ShortIterator i = positions.iterator(); i.hasNext(); ) {
+                short local = i.nextShort();
+                int raw = overlay.get(sectionPos.unpackBlockPos(local));
+                if (raw >= 0) {
+                    detached.setBlockState(ChunkSectionPos.unpackLocalX(local), ChunkSectionPos.unpackLocalY(local),
+                            ChunkSectionPos.unpackLocalZ(local), Block.getStateFromRawId(raw), false);
+                }
+            }
+        }
+        player.networkHandler.sendPacket(new ChunkDeltaUpdateS2CPacket(sectionPos, positions, detached));
+    }
+
+    // Блок оверлея, а если его убрали — настоящий блок мира
+    private static BlockState stateAt(ServerWorld world, PhaseState.Overlay overlay, BlockPos pos) {
+        int raw = overlay == null ? -1 : overlay.get(pos);
+        return raw >= 0 ? Block.getStateFromRawId(raw) : world.getBlockState(pos);
+    }
+}
@@ -29,8 +29,8 @@ public final class PhaseEvents {
         });
     }
 
+    // Клиент получит воздух дельтой OverlaySync в конце тика — только этот игрок, без пересылки чанка
     private static void onBreakOverlay(ServerPlayerEntity player, BlockPos pos, BlockState prev) {
         PhaseService.setOverlayBlock(player.getServer(), player.getUuid(), pos, Blocks.AIR.getDefaultState());
-        player.getServerWorld().updateListeners(pos, prev, Blocks.AIR.getDefaultState(), 3);
     }
 }
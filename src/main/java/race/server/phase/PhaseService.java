@@ -2,9 +2,9 @@ package race.server.phase;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
-import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 
 import java.util.UUID;
 
@@ -14,39 +14,30 @@ public final class PhaseService {
     public static void setOverlayBlock(MinecraftServer server, UUID player, BlockPos pos, BlockState state) {
         PhaseState st = PhaseState.get(server);
         PhaseState.PhaseData pd = st.of(player);
-        PhaseState.Overlay ov = st.overlayOf(pd, pos);
-        ov.blocks.put(pos.asLong(), stateToNbt(state));
+        st.overlayOf(pd, pos).put(pos, Block.getRawIdFromState(state));
         st.markDirty();
+        OverlaySync.markChanged(player, pos);
     }
 
+    // Путь чтения ничего не создаёт: ни данных игрока, ни пустого оверлея
     public static BlockState getOverlayBlockOrNull(MinecraftServer server, UUID player, BlockPos pos) {
-        PhaseState st = PhaseState.get(server);
-        PhaseState.PhaseData pd = st.of(player);
-        PhaseState.Overlay ov = st.overlayOf(pd, pos);
-        NbtCompound tag = ov.blocks.get(pos.asLong());
-        return tag == null ? null : nbtToState(tag);
+        PhaseState.PhaseData pd = PhaseState.get(server).peek(player);
+        if (pd == null) return null;
+        PhaseState.Overlay ov = PhaseState.overlayOrNull(pd, pos.getX() >> 4, pos.getZ() >> 4);
+        if (ov == null) return null;
+        int raw = ov.get(pos);
+        return raw < 0 ? null : Block.getStateFromRawId(raw);
     }
 
     public static void removeOverlayBlock(MinecraftServer server, UUID player, BlockPos pos) {
         PhaseState st = PhaseState.get(server);
-        PhaseState.PhaseData pd = st.of(player);
-        PhaseState.Overlay ov = st.overlayOf(pd, pos);
-        ov.blocks.remove(pos.asLong());
+        PhaseState.PhaseData pd = st.peek(player);
+        if (pd == null) return;
+        long chunkKey = ChunkPos.toLong(pos);
+        PhaseState.Overlay ov = pd.chunkOverlays.get(chunkKey);
+        if (ov == null || !ov.remove(pos)) return;
+        if (ov.isEmpty()) pd.chunkOverlays.remove(chunkKey);
         st.markDirty();
-    }
-
-    private static NbtCompound stateToNbt(BlockState state) {
-        NbtCompound nbt = new NbtCompound();
-        nbt.putInt("raw", Block.getRawIdFromState(state));
-        return nbt;
-    }
-
-    private static BlockState nbtToState(NbtCompound nbt) {
-        return Block.getStateFromRawId(nbt.getInt("raw"));
-    }
-
-    // Публичный helper для миксинов
-    public static BlockState nbtToStatePublic(NbtCompound nbt) {
-        return nbtToState(nbt);
+        OverlaySync.markChanged(player, pos);
     }
 }
@@ -1,5 +1,6 @@
 package race.server.phase;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.registry.RegistryWrapper;
@@ -21,9 +22,118 @@ public final class PhaseState extends PersistentState {
     private static volatile long raceStartTime = -1L;
     private static volatile long raceSeed = -1L;
 
+    /** Обход блоков оверлея: локальные x/z в чанке, мировой y, raw id состояния блока */
+    @FunctionalInterface
+    public interface BlockVisitor {
+        void visit(int localX, int y, int localZ, int rawId);
+    }
+
+    /**
+     * Блоки оверлея одного чанка, упакованные по секциям 16×16×16: в секции — отсортированный
+     * short[] локальных индексов (y<<8 | z<<4 | x) и параллельный int[] raw id состояний.
+     * Чтение — бинарный поиск без аллокаций; ~6 байт на блок вместо NbtCompound на блок.
+     */
     public static final class Overlay {
-        // pos.asLong() -> Block NBT
-        public final Long2ObjectOpenHashMap<NbtCompound> blocks = new Long2ObjectOpenHashMap<>();
+        private static final class Section {
+            short[] keys = new short[4];
+            int[] raws = new int[4];
+            int size;
+
+            int find(short key) {
+                int lo = 0, hi = size - 1;
+                while (lo <= hi) {
+                    int mid = (lo + hi) >>> 1;
+                    int k = keys[mid];
+                    if (k < key) lo = mid + 1;
+                    else if (k > key) hi = mid - 1;
+                    else return mid;
+                }
+                return -(lo + 1);
+            }
+
+            void put(short key, int raw) {
+                int i = find(key);
+                if (i >= 0) {
+                    raws[i] = raw;
+                    return;
+                }
+                i = -(i + 1);
+                if (size == keys.length) {
+                    keys = java.util.Arrays.copyOf(keys, size * 2);
+                    raws = java.util.Arrays.copyOf(raws, size * 2);
+                }
+                System.arraycopy(keys, i, keys, i + 1, size - i);
+                System.arraycopy(raws, i, raws, i + 1, size - i);
+                keys[i] = key;
+                raws[i] = raw;
+                size++;
+            }
+
+            boolean remove(short key) {
+                int i = find(key);
+                if (i < 0) return false;
+                System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+                System.arraycopy(raws, i + 1, raws, i, size - i - 1);
+                size--;
+                return true;
+            }
+        }
+
+        // Y секции -> секция
+        private final Int2ObjectOpenHashMap<Section> sections = new Int2ObjectOpenHashMap<>();
+        private int size;
+        // Растёт при каждом изменении — ключ кэша готовых секций для пакета чанка
+        private int version;
+
+        private static short localKey(int x, int y, int z) {
+            return (short) (((y & 15) << 8) | ((z & 15) << 4) | (x & 15));
+        }
+
+        /** raw id состояния блока или -1, если блока в оверлее нет */
+        public int get(BlockPos pos) {
+            Section sec = sections.get(pos.getY() >> 4);
+            if (sec == null) return -1;
+            int i = sec.find(localKey(pos.getX(), pos.getY(), pos.getZ()));
+            return i >= 0 ? sec.raws[i] : -1;
+        }
+
+        public void put(BlockPos pos, int rawId) {
+            Section sec = sections.computeIfAbsent(pos.getY() >> 4, k -> new Section());
+            int before = sec.size;
+            sec.put(localKey(pos.getX(), pos.getY(), pos.getZ()), rawId);
+            size += sec.size - before;
+            version++;
+        }
+
+        public boolean remove(BlockPos pos) {
+            int secY = pos.getY() >> 4;
+            Section sec = sections.get(secY);
+            if (sec == null || !sec.remove(localKey(pos.getX(), pos.getY(), pos.getZ()))) return false;
+            size--;
+            version++;
+            if (sec.size == 0) sections.remove(secY);
+            return true;
+        }
+
+        public int size() { return size; }
+        public int getVersion() { return version; }
+
+        /** Есть ли в оверлее блоки секции с данным Y (в координатах секций) */
+        public boolean hasSection(int sectionY) {
+            return sections.containsKey(sectionY);
+        }
+        public boolean isEmpty() { return size == 0; }
+
+        public void forEach(BlockVisitor visitor) {
+            for (var e : sections.int2ObjectEntrySet()) {
+                int baseY = e.getIntKey() << 4;
+                Section sec = e.getValue();
+                for (int i = 0; i < sec.size; i++) {
+                    int k = sec.keys[i];
+                    visitor.visit(k & 15, baseY + ((k >> 8) & 15), (k >> 4) & 15, sec.raws[i]);
+                }
+            }
+        }
     }
 
     public static final class PhaseData {
@@ -59,11 +169,23 @@ public final class PhaseState extends PersistentState {
         return players.computeIfAbsent(id, k -> new PhaseData());
     }
 
+    /** Данные игрока без создания; null — у игрока ничего нет */
+    public PhaseData peek(UUID id) {
+        return players.get(id);
+    }
+
+    /** Оверлей чанка для записи (создаётся при необходимости) */
     public Overlay overlayOf(PhaseData pd, BlockPos pos) {
         long key = ChunkPos.toLong(pos);
         return pd.chunkOverlays.computeIfAbsent(key, k -> new Overlay());
     }
 
+    /** Оверлей чанка для чтения; null — в чанке ничего нет */
+    public static Overlay overlayOrNull(PhaseData pd, int chunkX, int chunkZ) {
+        Overlay ov = pd.chunkOverlays.get(ChunkPos.toLong(chunkX, chunkZ));
+        return ov == null || ov.isEmpty() ? null : ov;
+    }
+
     @Override
     public NbtCompound writeNbt(NbtCompound nbt, RegistryWrapper.WrapperLookup lookup) {
         NbtCompound playersTag = new NbtCompound();
@@ -78,14 +200,22 @@ public final class PhaseState extends PersistentState {
             pd.containers.long2ObjectEntrySet().forEach(en -> containers.put(Long.toString(en.getLongKey()), en.getValue()));
             pdTag.put("containers", containers);
 
-            // overlays
-            NbtCompound overlays = new NbtCompound();
+            // overlays: два параллельных массива на игрока — BlockPos.asLong() и raw id состояния
+            int total = 0;
+            for (Overlay ov : pd.chunkOverlays.values()) total += ov.size();
+            long[] positions = new long[total];
+            int[] raws = new int[total];
+            int[] n = {0};
             pd.chunkOverlays.long2ObjectEntrySet().forEach(en -> {
-                NbtCompound ovTag = new NbtCompound();
-                en.getValue().blocks.long2ObjectEntrySet().forEach(be -> ovTag.put(Long.toString(be.getLongKey()), be.getValue()));
-                overlays.put(Long.toString(en.getLongKey()), ovTag);
+                int baseX = ChunkPos.getPackedX(en.getLongKey()) << 4;
+                int baseZ = ChunkPos.getPackedZ(en.getLongKey()) << 4;
+                en.getValue().forEach((x, y, z, raw) -> {
+                    positions[n[0]] = BlockPos.asLong(baseX + x, y, baseZ + z);
+                    raws[n[0]++] = raw;
+                });
             });
-            pdTag.put("overlays", overlays);
+            pdTag.putLongArray("overlayPos", positions);
+            pdTag.putIntArray("overlayRaw", raws);
 
             playersTag.put(uuid.toString(), pdTag);
         }
@@ -93,7 +223,7 @@ public final class PhaseState extends PersistentState {
         return nbt;
     }
 
-    private static PhaseState readNbt(NbtCompound nbt) {
+    static PhaseState readNbt(NbtCompound nbt) {
         PhaseState s = new PhaseState();
         NbtCompound playersTag = nbt.getCompound("players");
         for (String uuidStr : playersTag.getKeys()) {
@@ -107,15 +237,22 @@ public final class PhaseState extends PersistentState {
                 pd.containers.put(Long.parseLong(k), containers.getCompound(k));
             }
 
+            long[] positions = pdTag.getLongArray("overlayPos");
+            int[] raws = pdTag.getIntArray("overlayRaw");
+            BlockPos.Mutable pos = new BlockPos.Mutable();
+            for (int i = 0; i < Math.min(positions.length, raws.length); i++) {
+                pos.set(positions[i]);
+                s.overlayOf(pd, pos).put(pos, raws[i]);
+            }
+
+            // Старый формат: компаунд на чанк, в нём компаунд {raw} на блок
             NbtCompound overlays = pdTag.getCompound("overlays");
             for (String ck : overlays.getKeys()) {
-                long chunkKey = Long.parseLong(ck);
-                Overlay ov = new Overlay();
                 NbtCompound ovTag = overlays.getCompound(ck);
                 for (String pk : ovTag.getKeys()) {
-                    ov.blocks.put(Long.parseLong(pk), ovTag.getCompound(pk));
+                    pos.set(Long.parseLong(pk));
+                    s.overlayOf(pd, pos).put(pos, ovTag.getCompound(pk).getInt("raw"));
                 }
-                pd.chunkOverlays.put(chunkKey, ov);
             }
             s.players.put(uuid, pd);
         }
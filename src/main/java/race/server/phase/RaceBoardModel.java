@@ -0,0 +1,153 @@
+package race.server.phase;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import race.net.RaceBoardPayload;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Серверная модель табло гонки. У каждой строки и каждого её поля есть версия (глобальный счётчик
+ * изменений); для каждого зрителя хранится последняя отправленная версия, набор известных ему строк
+ * и таблица строк соединения. Патч зрителю содержит только поля, изменённые после его версии.
+ * Работает в серверном потоке.
+ */
+public final class RaceBoardModel {
+    private static final int MAX_STRINGS = 1024;
+
+    private static final class RowState {
+        final int rowId;
+        String name;
+        long rtaMs;
+        String stage;
+        String activity;
+        ServerWorld world;
+        String worldKey;
+        // Версии полей в порядке name, rta, stage, activity, world
+        final long[] fieldVersions = new long[5];
+        long version;
+
+        RowState(int rowId) { this.rowId = rowId; }
+    }
+
+    private static final class Viewer {
+        long seenVersion = -1L;
+        final HashSet<Integer> known = new HashSet<>();
+        final HashMap<String, Integer> strings = new HashMap<>();
+    }
+
+    private static final LinkedHashMap<UUID, RowState> ROWS = new LinkedHashMap<>();
+    private static final HashMap<UUID, Viewer> VIEWERS = new HashMap<>();
+    private static int nextRowId;
+    private static long version;
+
+    private RaceBoardModel() {}
+
+    /**
+     * Сверяет строки с текущим состоянием игроков и поднимает версии изменившихся полей
+     */
+    public static void refresh(MinecraftServer server) {
+        HashSet<UUID> online = new HashSet<>();
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            UUID id = player.getUuid();
+            online.add(id);
+            RowState row = ROWS.computeIfAbsent(id, k -> new RowState(nextRowId++));
+
+            String name = player.getGameProfile().getName();
+            if (!Objects.equals(row.name, name)) { row.name = name; touch(row, 0); }
+            long rta = RacePhaseManager.boardRtaMs(id);
+            if (row.rtaMs != rta) { row.rtaMs = rta; touch(row, 1); }
+            String stage = RacePhaseManager.boardStage(id);
+            if (!Objects.equals(row.stage, stage)) { row.stage = stage; touch(row, 2); }
+            var prog = race.hub.ProgressSyncManager.getPlayerProgress(id);
+            String activity = prog != null ? prog.getActivity() : "";
+            if (!Objects.equals(row.activity, activity)) { row.activity = activity; touch(row, 3); }
+            // Ключ мира переводим в строку только при смене мира
+            ServerWorld world = player.getServerWorld();
+            if (row.world != world) {
+                row.world = world;
+                String key = world.getRegistryKey().getValue().toString();
+                if (!key.equals(row.worldKey)) { row.worldKey = key; touch(row, 4); }
+            }
+        }
+        if (ROWS.size() > online.size()) {
+            ROWS.keySet().removeIf(id -> !online.contains(id));
+        }
+    }
+
+    /**
+     * Патч для зрителя или null, если у него всё актуально
+     */
+    public static RaceBoardPayload patchFor(ServerPlayerEntity viewer) {
+        Viewer v = VIEWERS.computeIfAbsent(viewer.getUuid(), k -> new Viewer());
+        byte flags = 0;
+        if (v.seenVersion < 0L || v.strings.size() > MAX_STRINGS) {
+            flags = RaceBoardPayload.FLAG_SNAPSHOT | RaceBoardPayload.FLAG_RESET_STRINGS;
+            v.seenVersion = -1L;
+            v.known.clear();
+            v.strings.clear();
+        }
+
+        ArrayList<RaceBoardPayload.Str> strings = new ArrayList<>();
+        ArrayList<RaceBoardPayload.Patch> patches = new ArrayList<>();
+        HashSet<Integer> present = new HashSet<>(ROWS.size() * 2);
+        for (RowState row : ROWS.values()) {
+            present.add(row.rowId);
+            boolean fresh = v.known.add(row.rowId);
+            if (!fresh && row.version <= v.seenVersion) continue;
+            long since = fresh ? -1L : v.seenVersion;
+            byte mask = 0;
+            int name = 0, stage = 0, activity = 0, world = 0;
+            if (row.fieldVersions[0] > since) { mask |= RaceBoardPayload.MASK_NAME; name = intern(v, row.name, strings); }
+            if (row.fieldVersions[1] > since) { mask |= RaceBoardPayload.MASK_RTA; }
+            if (row.fieldVersions[2] > since) { mask |= RaceBoardPayload.MASK_STAGE; stage = intern(v, row.stage, strings); }
+            if (row.fieldVersions[3] > since) { mask |= RaceBoardPayload.MASK_ACTIVITY; activity = intern(v, row.activity, strings); }
+            if (row.fieldVersions[4] > since) { mask |= RaceBoardPayload.MASK_WORLD; world = intern(v, row.worldKey, strings); }
+            if (mask != 0) patches.add(new RaceBoardPayload.Patch(row.rowId, mask, name, row.rtaMs, stage, activity, world));
+        }
+        ArrayList<Integer> removed = new ArrayList<>();
+        for (Iterator<Integer> it = v.known.iterator(); it.hasNext(); ) {
+            Integer id = it.next();
+            if (!present.contains(id)) {
+                removed.add(id);
+                it.remove();
+            }
+        }
+        v.seenVersion = version;
+
+        if (flags == 0 && patches.isEmpty() && removed.isEmpty()) return null;
+        return new RaceBoardPayload(flags, strings, removed, patches);
+    }
+
+    public static void forget(UUID viewer) {
+        VIEWERS.remove(viewer);
+    }
+
+    public static void clear() {
+        ROWS.clear();
+        VIEWERS.clear();
+    }
+
+    private static void touch(RowState row, int field) {
+        row.version = ++version;
+        row.fieldVersions[field] = row.version;
+    }
+
+    private static int intern(Viewer v, String value, ArrayList<RaceBoardPayload.Str> out) {
+        String s = value == null ? "" : value;
+        Integer id = v.strings.get(s);
+        if (id == null) {
+            id = v.strings.size();
+            v.strings.put(s, id);
+            out.add(new RaceBoardPayload.Str(id, s));
+        }
+        return id;
+    }
+}
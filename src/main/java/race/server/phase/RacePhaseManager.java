@@ -194,6 +194,17 @@ public final class RacePhaseManager {
                 .toList();
     }
     
+    // Поля строки табло для RaceBoardModel (без сборки Row)
+    static long boardRtaMs(UUID id) {
+        PlayerRaceData data = playerData.get(id);
+        return data != null ? data.getRtaMs() : 0L;
+    }
+
+    static String boardStage(UUID id) {
+        PlayerRaceData data = playerData.get(id);
+        return data != null ? data.getCurrentStage() : "Overworld";
+    }
+
     /**
      * Получает детальный прогресс игрока
      */
@@ -0,0 +1,9 @@
+package race.server.phase;
+
+/**
+ * Реализуется WorldChunk через MixinWorldChunk: ревизия блоков чанка. Значение уникально
+ * между всеми объектами чанков и меняется при каждом изменении блока
+ */
+public interface RevisionedChunk {
+    long getBlockRevision_FAB();
+}
@@ -72,6 +72,23 @@ public class CustomWorldManager {
         return getOrCreateCustomWorld(server, worldName, seed);
     }
     
+    /**
+     * Асинхронный вариант getOrCreatePersonalWorld: мир готовится через EnhancedWorldManager.getOrCreateWorldAsync
+     */
+    public static java.util.concurrent.CompletableFuture<ServerWorld> getOrCreatePersonalWorldAsync(MinecraftServer server, UUID playerId, long seed) {
+        String worldName = "player_" + playerId.toString().replace("-", "") + "_s" + seed;
+        ServerWorld existingWorld = customWorlds.get(worldName);
+        if (existingWorld != null) {
+            return java.util.concurrent.CompletableFuture.completedFuture(existingWorld);
+        }
+        // Слот самого игрока: мир мог быть заранее прогрет WorldPool, пока игрок выбирал сид
+        return EnhancedWorldManager.getOrCreateWorldAsync(server, playerId, seed, World.OVERWORLD)
+                .thenApply(world -> {
+                    customWorlds.put(worldName, world);
+                    return world;
+                });
+    }
+    
     public static void cleanupWorld(String worldName) {
         customWorlds.remove(worldName);
     }
@@ -15,7 +15,6 @@ import net.minecraft.world.chunk.ChunkStatus;
 import net.minecraft.world.dimension.DimensionOptions;
 import net.minecraft.world.dimension.DimensionType;
 import net.minecraft.world.dimension.DimensionTypes;
-import net.minecraft.world.GameRules;
 import net.minecraft.world.GameMode;
 import net.minecraft.world.biome.source.BiomeSource;
 import net.minecraft.world.biome.source.MultiNoiseBiomeSource;
@@ -45,9 +44,7 @@ import org.slf4j.Logger;
 public final class EnhancedWorldManager {
     private static final Logger LOGGER = LogUtils.getLogger();
     private static final ConcurrentHashMap<String, RegistryKey<World>> WORLD_KEYS = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<java.util.UUID, Integer> PLAYER_SLOT = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<java.util.UUID, Long> PLAYER_SEEDS = new ConcurrentHashMap<>();
-    private static final int MAX_SLOTS = 8;
     private static final java.util.concurrent.ConcurrentHashMap<RegistryKey<World>, java.util.concurrent.ExecutorService> WORLD_EXECUTORS = new java.util.concurrent.ConcurrentHashMap<>();
     private static final java.util.concurrent.ConcurrentHashMap<RegistryKey<World>, Boolean> WORLD_CREATING = new java.util.concurrent.ConcurrentHashMap<>();
     // Единая очередь последовательной выгрузки миров (не блокирует главный поток)
@@ -60,11 +57,97 @@ public final class EnhancedWorldManager {
     private static volatile boolean SHUTTING_DOWN = false;
     // Чтобы не планировать выгрузку одного и того же мира дважды
     private static final java.util.concurrent.ConcurrentHashMap<RegistryKey<World>, Boolean> PENDING_UNLOAD = new java.util.concurrent.ConcurrentHashMap<>();
+    // Асинхронные сборки миров: один future на ключ, пока мир не готов
+    private static final ConcurrentHashMap<RegistryKey<World>, CompletableFuture<ServerWorld>> WORLD_FUTURES = new ConcurrentHashMap<>();
+    // Точки спавна, найденные при подготовке мира (телепорт не ищет их заново)
+    private static final ConcurrentHashMap<RegistryKey<World>, BlockPos> READY_SPAWNS = new ConcurrentHashMap<>();
+    // Тикет прогрева чанков спавна: держит чанки загруженными, пока мир готовится, и истекает сам
+    private static final net.minecraft.server.world.ChunkTicketType<net.minecraft.util.math.ChunkPos> SPAWN_PREP_TICKET =
+            net.minecraft.server.world.ChunkTicketType.create("race_spawn_prep", java.util.Comparator.comparingLong(net.minecraft.util.math.ChunkPos::toLong), 600);
+    private static final long CHUNK_PREP_TIMEOUT_MS = 20_000L;
+    private static final BlockPos END_SPAWN = new BlockPos(100, 50, 0);
+    // Кандидаты спавна в Overworld (общие для синхронного и асинхронного поиска)
+    private static final int[][] OVERWORLD_SPAWN_CANDIDATES = new int[][]{
+            {0,0}, {192,0}, {-192,0}, {0,192}, {0,-192},
+            {256,256}, {-256,256}, {256,-256}, {-256,-256},
+            {384,0}, {-384,0}, {0,384}, {0,-384}
+    };
     
     /**
-     * Создает или получает мир для игрока с указанным сидом
+     * Создает или получает мир для игрока с указанным сидом; null — свободных слотов нет
      */
     public static ServerWorld getOrCreateWorld(MinecraftServer server, UUID playerUuid, long seed, RegistryKey<World> worldKey) {
+        RegistryKey<World> key = resolvePlayerWorldKey(server, playerUuid, seed, worldKey);
+        if (key == null) return null;
+        
+        // Проверяем, существует ли уже мир
+        ServerWorld existing = server.getWorld(key);
+        WorldPool.claim(key, existing != null);
+        if (existing != null) {
+            // Проверяем, что мир не помечен для выгрузки
+            if (PENDING_UNLOAD.containsKey(key)) {
+                LOGGER.info("[Race] World {} is pending unload, removing from pending list", key.getValue());
+                PENDING_UNLOAD.remove(key);
+            }
+            LOGGER.info("[Race] Found existing world {} for player {}", key.getValue(), playerUuid);
+            return existing;
+        }
+        
+        LOGGER.info("[Race] World {} not found, creating new one for player {}", key.getValue(), playerUuid);
+        
+        try {
+            // Для соло гонок создаем мир с уникальным сидом
+            ServerWorld created = createNewWorldWithSeed(server, key, seed, worldKey);
+            LOGGER.info("[Race] Created world {} for player {} with seed {}", key.getValue(), playerUuid, seed);
+            return created;
+        } catch (Throwable t) {
+            LOGGER.error("[Race] Failed to create world {} for player {} (seed {})", key.getValue(), playerUuid, seed, t);
+            throw t;
+        }
+    }
+
+    /**
+     * Асинхронный вариант getOrCreateWorld: ключ мира регистрируется сразу, проверка диска и поиск спавна
+     * идут на рабочих потоках, чанки спавна грузятся без блокировки тика. Вызывать из главного потока.
+     */
+    public static CompletableFuture<ServerWorld> getOrCreateWorldAsync(MinecraftServer server, UUID playerUuid, long seed, RegistryKey<World> worldKey) {
+        RegistryKey<World> key;
+        try {
+            key = resolvePlayerWorldKey(server, playerUuid, seed, worldKey);
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+        if (key == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No free slot for player " + playerUuid));
+        }
+        WorldPool.claim(key, server.getWorld(key) != null);
+        return createWorldAsync(server, key, seed, worldKey);
+    }
+
+    /**
+     * Асинхронный вариант getOrCreateWorldForGroup
+     */
+    public static CompletableFuture<ServerWorld> getOrCreateWorldForGroupAsync(MinecraftServer server, int slot, long seed, RegistryKey<World> worldKey) {
+        RegistryKey<World> key = slotWorldKey(slot, seed, worldKey);
+        WorldPool.claim(key, server.getWorld(key) != null);
+        return warmWorldAsync(server, slot, seed, worldKey);
+    }
+
+    /**
+     * Сборка мира слота без учёта в пуле (используется самим WorldPool для прогрева)
+     */
+    static CompletableFuture<ServerWorld> warmWorldAsync(MinecraftServer server, int slot, long seed, RegistryKey<World> worldKey) {
+        setCurrentServer(server);
+        RegistryKey<World> key = slotWorldKey(slot, seed, worldKey);
+        WORLD_KEYS.putIfAbsent(key.getValue().getPath(), key);
+        return createWorldAsync(server, key, seed, worldKey);
+    }
+
+    /**
+     * Находит слот игрока и возвращает ключ его личного мира (ключ сразу попадает в WORLD_KEYS).
+     * null — свободных слотов нет
+     */
+    private static RegistryKey<World> resolvePlayerWorldKey(MinecraftServer server, UUID playerUuid, long seed, RegistryKey<World> worldKey) {
         // Инициализируем сервер для доступа к игрокам
         setCurrentServer(server);
         
@@ -76,16 +159,10 @@ public final class EnhancedWorldManager {
                 if (isVanillaWorld(currentWorldName)) {
                     LOGGER.warn("[Race] PORTAL-TRANSITION: Player {} currently in vanilla world {}, preserving existing slot", playerUuid, currentWorldName);
                     
-                    // Принудительно сохраняем существующий слот
-                    Integer existingSlot = PLAYER_SLOT.get(playerUuid);
-                    int worldManagerSlot = race.server.WorldManager.getPlayerSlot(playerUuid);
-                    
-                    if (existingSlot != null) {
-                        LOGGER.info("[Race] PORTAL-PRESERVE: Using existing slot {} from Enhanced cache", existingSlot);
-                    } else if (worldManagerSlot > 0) {
-                        PLAYER_SLOT.put(playerUuid, worldManagerSlot);
-                        existingSlot = worldManagerSlot;
-                        LOGGER.info("[Race] PORTAL-PRESERVE: Using existing slot {} from WorldManager", worldManagerSlot);
+                    // Слот сохраняется в SlotAllocator, новый не назначаем
+                    int existingSlot = SlotAllocator.get(playerUuid);
+                    if (existingSlot > 0) {
+                        LOGGER.info("[Race] PORTAL-PRESERVE: Using existing slot {}", existingSlot);
                     } else {
                         LOGGER.error("[Race] PORTAL-EMERGENCY: No existing slot found for player {} in vanilla world {} — using fallback slot assignment", playerUuid, currentWorldName);
                         // Не принудительно назначаем slot1, а используем обычную логику назначения слота
@@ -99,83 +176,52 @@ public final class EnhancedWorldManager {
         setPlayerSeed(playerUuid, seed);
         
         int slot = getOrAssignSlot(playerUuid);
+        if (slot < 0) {
+            // Свободных слотов нет: не отправляем игрока в чужой мир, сообщаем ему
+            try {
+                ServerPlayerEntity player = server.getPlayerManager().getPlayer(playerUuid);
+                if (player != null) {
+                    player.sendMessage(net.minecraft.text.Text.literal("Сервер заполнен: нет свободного слота для личного мира, попробуйте позже")
+                            .formatted(net.minecraft.util.Formatting.RED), false);
+                }
+            } catch (Throwable ignored) {}
+            return null;
+        }
         Identifier slotId = getSlotId(worldKey, slot, seed);
         RegistryKey<World> key = RegistryKey.of(RegistryKeys.WORLD, slotId);
         String worldId = slotId.getPath();
         LOGGER.info("[Race] getOrCreateWorld: player={}, dim={}, seed={}, id={}", playerUuid, worldKey.getValue(), seed, worldId);
         
-        // ИСПРАВЛЕНИЕ: Кешируем слот игрока в WorldManager
-        if (slot > 0) {
-                    race.server.WorldManager.setPlayerSlot(playerUuid, slot);
-        }
-        
         // Отладочная информация
         debugSlotState(playerUuid, "getOrCreateWorld");
         WORLD_KEYS.putIfAbsent(worldId, key);
 
         // Очистим старые миры этого слота c другим сидом
         cleanupOldSlotWorlds(server, slot, worldKey, worldId);
-        
-        // Проверяем, существует ли уже мир
-        ServerWorld existing = server.getWorld(key);
-        if (existing != null) {
-            // Проверяем, что мир не помечен для выгрузки
-            if (PENDING_UNLOAD.containsKey(key)) {
-                LOGGER.info("[Race] World {} is pending unload, removing from pending list", key.getValue());
-                PENDING_UNLOAD.remove(key);
-            }
-            LOGGER.info("[Race] Found existing world {} for player {}", key.getValue(), playerUuid);
-            return existing;
-        }
-        
-        // Попробуем загрузить существующий мир из файловой системы
-        // Пока что пропускаем проверку файловой системы, так как основная функциональность работает
-        // TODO: В будущем можно добавить проверку файловой системы для загрузки существующих миров
-        
-        LOGGER.info("[Race] World {} not found, creating new one for player {}", key.getValue(), playerUuid);
-        
-        try {
-            // Для соло гонок создаем мир с уникальным сидом
-            ServerWorld created = createNewWorldWithSeed(server, key, seed, worldKey);
-            LOGGER.info("[Race] Created world {} for player {} with seed {}", key.getValue(), playerUuid, seed);
-            return created;
-        } catch (Throwable t) {
-            LOGGER.error("[Race] Failed to create world {} for player {} (seed {})", key.getValue(), playerUuid, seed, t);
-            throw t;
-        }
+        return key;
     }
 
-    private static synchronized int getOrAssignSlot(UUID playerUuid) {
+    private static int getOrAssignSlot(UUID playerUuid) {
         debugSlotState(playerUuid, "getOrAssignSlot-start");
         
-        // ПРИОРИТЕТ 1: Локальный кеш (САМЫЙ НАДЕЖНЫЙ)
-        Integer cachedSlot = PLAYER_SLOT.get(playerUuid);
-        if (cachedSlot != null && cachedSlot > 0) {
-            syncPlayerSlotWithWorldManager(playerUuid, cachedSlot);
-            LOGGER.info("[Race] [CACHE-HIT] Using Enhanced cached slot {} for player {}", cachedSlot, playerUuid);
+        // ПРИОРИТЕТ 1: SlotAllocator
+        int cachedSlot = SlotAllocator.get(playerUuid);
+        if (cachedSlot > 0) {
+            LOGGER.info("[Race] [CACHE-HIT] Using slot {} for player {}", cachedSlot, playerUuid);
             return cachedSlot;
         }
         
-        // ПРИОРИТЕТ 2: WorldManager кеш
-        int worldManagerSlot = race.server.WorldManager.getPlayerSlot(playerUuid);
-        if (worldManagerSlot > 0) {
-            PLAYER_SLOT.put(playerUuid, worldManagerSlot);
-            LOGGER.info("[Race] [WM-HIT] Using WorldManager slot {} for player {}", worldManagerSlot, playerUuid);
-            return worldManagerSlot;
-        }
-        
-        // ПРИОРИТЕТ 3: Текущий мир (НО НЕ ДЛЯ ВАНИЛЬНЫХ!)
+        // ПРИОРИТЕТ 2: Текущий мир (НО НЕ ДЛЯ ВАНИЛЬНЫХ!)
         int currentSlot = getCurrentPlayerSlot(playerUuid);
         if (currentSlot > 0) {
-            PLAYER_SLOT.put(playerUuid, currentSlot);
-            syncPlayerSlotWithWorldManager(playerUuid, currentSlot);
+            SlotAllocator.bind(playerUuid, currentSlot);
             LOGGER.info("[Race] [WORLD-HIT] Using current world slot {} for player {}", currentSlot, playerUuid);
             return currentSlot;
         }
         
         // КРИТИЧЕСКОЕ: НЕ НАЗНАЧАЕМ НОВЫЙ СЛОТ ДЛЯ ВАНИЛЬНЫХ МИРОВ!
+        MinecraftServer server = getCurrentServer();
         try {
-            MinecraftServer server = getCurrentServer();
             if (server != null) {
                 ServerPlayerEntity player = server.getPlayerManager().getPlayer(playerUuid);
                 if (player != null) {
@@ -189,22 +235,53 @@ public final class EnhancedWorldManager {
             }
         } catch (Throwable ignored) {}
         
-        // ТОЛЬКО ДЛЯ НОВЫХ ИГРОКОВ: назначаем новый слот
-        java.util.HashSet<Integer> usedSlots = new java.util.HashSet<>(PLAYER_SLOT.values());
-        for (int i = 1; i <= MAX_SLOTS; i++) {
-            if (!usedSlots.contains(i)) {
-                PLAYER_SLOT.put(playerUuid, i);
-                syncPlayerSlotWithWorldManager(playerUuid, i);
-                LOGGER.info("[Race] [NEW] Assigned slot {} to player {} (used: {})", i, playerUuid, usedSlots);
-                return i;
+        // ТОЛЬКО ДЛЯ НОВЫХ ИГРОКОВ: сначала забираем слоты с истёкшей арендой, затем берём наименьший свободный
+        if (server != null) reclaimExpiredSlots(server);
+        int slot = SlotAllocator.acquire(playerUuid);
+        if (slot < 0 && server != null) {
+            // Свободных нет — досрочно забираем аренду, чьи миры пусты, и выгружаем их до выдачи слота
+            int revoked = SlotAllocator.revokeOldestLease(s -> isSlotIdle(server, s));
+            if (revoked > 0) {
+                unloadSlotWorlds(server, revoked, "lease revoked");
+                slot = SlotAllocator.acquire(playerUuid);
             }
         }
-        
-        // Fallback
-        PLAYER_SLOT.put(playerUuid, 1);
-        syncPlayerSlotWithWorldManager(playerUuid, 1);
-        LOGGER.warn("[Race] [FALLBACK] Using slot1 for player {}", playerUuid);
-        return 1;
+        if (slot < 0) {
+            LOGGER.error("[Race] All {} slots are taken, cannot assign slot to {}", SlotAllocator.getMaxSlots(), playerUuid);
+        }
+        return slot;
+    }
+
+    // Слоты, аренда которых истекла, переходят новым игрокам — их старые миры выгружаем
+    private static void reclaimExpiredSlots(MinecraftServer server) {
+        for (int slot : SlotAllocator.reclaimExpired()) {
+            unloadSlotWorlds(server, slot, "lease expired");
+        }
+    }
+
+    private static void unloadSlotWorlds(MinecraftServer server, int slot, String reason) {
+        String prefix = "slot" + slot + "_";
+        for (String id : new java.util.ArrayList<>(WORLD_KEYS.keySet())) {
+            if (!id.startsWith(prefix)) continue;
+            RegistryKey<World> key = WORLD_KEYS.remove(id);
+            if (key == null || Boolean.TRUE.equals(WORLD_CREATING.get(key))) continue;
+            ServerWorld w = server.getWorld(key);
+            if (w != null && !w.getPlayers().isEmpty()) continue;
+            LOGGER.info("[Race] Unloading {}: slot{} {}", key.getValue(), slot, reason);
+            enqueueUnload(server, key, 0L, true);
+        }
+    }
+
+    // В мирах слота нет игроков и ни один не создаётся прямо сейчас
+    private static boolean isSlotIdle(MinecraftServer server, int slot) {
+        String prefix = "slot" + slot + "_";
+        for (java.util.Map.Entry<String, RegistryKey<World>> e : WORLD_KEYS.entrySet()) {
+            if (!e.getKey().startsWith(prefix)) continue;
+            if (Boolean.TRUE.equals(WORLD_CREATING.get(e.getValue()))) return false;
+            ServerWorld w = server.getWorld(e.getValue());
+            if (w != null && !w.getPlayers().isEmpty()) return false;
+        }
+        return true;
     }
 
     // Публичный доступ к слоту игрока (создаёт при отсутствии)
@@ -220,16 +297,6 @@ public final class EnhancedWorldManager {
         LOGGER.info("[Race] Cached seed {} for player {}", seed, playerUuid);
     }
     
-    // Синхронизация слота с WorldManager
-    private static void syncPlayerSlotWithWorldManager(UUID playerUuid, int slot) {
-        try {
-            race.server.WorldManager.setPlayerSlot(playerUuid, slot);
-            LOGGER.info("[Race] Synced slot {} for player {} with WorldManager", slot, playerUuid);
-        } catch (Throwable t) {
-            LOGGER.warn("[Race] Failed to sync slot for player {}: {}", playerUuid, t.getMessage());
-        }
-    }
-    
     // Получение игрока по UUID
     private static ServerPlayerEntity getPlayerByUuid(UUID playerUuid) {
         try {
@@ -261,34 +328,23 @@ public final class EnhancedWorldManager {
                     String worldName = player.getServerWorld().getRegistryKey().getValue().toString();
                     LOGGER.info("[Race] Checking current world for player {}: {}", playerUuid, worldName);
                     
-                    // КРИТИЧЕСКОЕ ИСПРАВЛЕНИЕ: правильный regex для всех форматов
-                    if (worldName.startsWith("fabric_race:slot")) {
-                        // Ищем: fabric_race:slot2_overworld_s123, fabric_race:slot2_nether_s123, fabric_race:slot2_end_s123
-                        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("fabric_race:slot(\\d+)_");
-                        java.util.regex.Matcher matcher = pattern.matcher(worldName);
-                        if (matcher.find()) {
-                            int slot = Integer.parseInt(matcher.group(1));
-                            LOGGER.info("[Race] Found slot {} from world: {}", slot, worldName);
-                            return slot;
-                        }
+                    // Слот мира: fabric_race:slot2_overworld_s123, fabric_race:slot2_nether_s123, fabric_race:slot2_end_s123
+                    int worldSlot = RaceWorldTraits.of(player.getServerWorld()).slot();
+                    if (worldSlot > 0) {
+                        LOGGER.info("[Race] Found slot {} from world: {}", worldSlot, worldName);
+                        return worldSlot;
                     }
                     
                     // ДОПОЛНИТЕЛЬНО: проверяем ванильные миры - НЕ ДОЛЖНЫ сбрасывать слот!
                     if (isVanillaWorld(worldName)) {
                         LOGGER.warn("[Race] Player {} in vanilla world {}, checking caches instead of assigning new slot", playerUuid, worldName);
                         
-                        // НЕ возвращаем -1, а проверяем кеши!
-                        Integer cachedSlot = PLAYER_SLOT.get(playerUuid);
-                        if (cachedSlot != null) {
+                        // НЕ возвращаем -1, а проверяем аллокатор!
+                        int cachedSlot = SlotAllocator.get(playerUuid);
+                        if (cachedSlot > 0) {
                             LOGGER.info("[Race] Using cached slot {} for player in vanilla world", cachedSlot);
                             return cachedSlot;
                         }
-                        
-                        int worldManagerSlot = race.server.WorldManager.getPlayerSlot(playerUuid);
-                        if (worldManagerSlot > 0) {
-                            LOGGER.info("[Race] Using WorldManager slot {} for player in vanilla world", worldManagerSlot);
-                            return worldManagerSlot;
-                        }
                     }
                 }
             }
@@ -307,13 +363,11 @@ public final class EnhancedWorldManager {
     
     // Отладочная информация о слотах
     public static void debugSlotState(UUID playerUuid, String context) {
-        Integer enhancedSlot = PLAYER_SLOT.get(playerUuid);
-        int worldManagerSlot = race.server.WorldManager.getPlayerSlot(playerUuid);
+        int allocatedSlot = SlotAllocator.get(playerUuid);
         int currentWorldSlot = getCurrentPlayerSlot(playerUuid);
         
-        // ДОПОЛНИТЕЛЬНАЯ ДИАГНОСТИКА: Проверяем все UUID в кешах
-        LOGGER.info("[Race] SLOT DEBUG [{}]: player={}, Enhanced={}, WorldManager={}, CurrentWorld={}", 
-                   context, playerUuid, enhancedSlot, worldManagerSlot, currentWorldSlot);
+        LOGGER.info("[Race] SLOT DEBUG [{}]: player={}, Allocated={}, CurrentWorld={}", 
+                   context, playerUuid, allocatedSlot, currentWorldSlot);
         
         // НОВОЕ: Диагностика UUID конфликтов
         try {
@@ -325,16 +379,15 @@ public final class EnhancedWorldManager {
                     String currentWorldName = player.getServerWorld().getRegistryKey().getValue().toString();
                     LOGGER.info("[Race] UUID DIAGNOSTIC: name={}, world={}", playerName, currentWorldName);
                     
-                    // Проверяем, есть ли другие UUID для этого игрока в кешах
-                    for (java.util.Map.Entry<UUID, Integer> entry : PLAYER_SLOT.entrySet()) {
+                    // Проверяем, есть ли другие UUID для этого игрока в аллокаторе
+                    for (java.util.Map.Entry<UUID, Integer> entry : SlotAllocator.snapshot().entrySet()) {
                         if (!entry.getKey().equals(playerUuid)) {
                             ServerPlayerEntity otherPlayer = server.getPlayerManager().getPlayer(entry.getKey());
                             if (otherPlayer != null && otherPlayer.getName().getString().equals(playerName)) {
                                 LOGGER.warn("[Race] UUID CONFLICT DETECTED: Player {} has multiple UUIDs: {} and {}", 
                                            playerName, playerUuid, entry.getKey());
                                 LOGGER.warn("[Race] Cleaning up old UUID {} with slot {}", entry.getKey(), entry.getValue());
-                                PLAYER_SLOT.remove(entry.getKey());
-                                race.server.WorldManager.clearPlayerSlot(entry.getKey());
+                                SlotAllocator.forget(entry.getKey());
                             }
                         }
                     }
@@ -345,30 +398,20 @@ public final class EnhancedWorldManager {
         }
         
         // Автокоррекция если есть текущий мир со слотом
-        if (currentWorldSlot > 0 && (enhancedSlot == null || !enhancedSlot.equals(currentWorldSlot))) {
+        if (currentWorldSlot > 0 && allocatedSlot != currentWorldSlot) {
             LOGGER.warn("[Race] AUTO-CORRECTING slot mismatch: using current world slot {}", currentWorldSlot);
-            PLAYER_SLOT.put(playerUuid, currentWorldSlot);
-            race.server.WorldManager.setPlayerSlot(playerUuid, currentWorldSlot);
-        }
-        
-        if (enhancedSlot != null && worldManagerSlot > 0 && !enhancedSlot.equals(worldManagerSlot)) {
-            LOGGER.warn("[Race] SLOT MISMATCH detected in context: {}", context);
-            // АВТОИСПРАВЛЕНИЕ: Принудительно синхронизируем
-            race.server.WorldManager.setPlayerSlot(playerUuid, enhancedSlot);
-            LOGGER.info("[Race] Auto-fixed slot mismatch: forced WorldManager to use slot{}", enhancedSlot);
+            SlotAllocator.bind(playerUuid, currentWorldSlot);
         }
     }
 
     // Извлекаем номер слота из ключа мира вида fabric_race:slotX_overworld_s<seed>
     public static int slotFromWorld(ServerWorld world) {
-        try {
-            String path = world.getRegistryKey().getValue().getPath();
-            int i = path.indexOf("slot");
-            if (i < 0) return -1;
-            int u = path.indexOf('_', i);
-            String num = path.substring(i + 4, u);
-            return Integer.parseInt(num);
-        } catch (Throwable ignored) { return -1; }
+        return RaceWorldTraits.of(world).slot();
+    }
+
+    // Ключ мира слота: fabric_race:slotN_<dim>_s<seed>
+    static RegistryKey<World> slotWorldKey(int slot, long seed, RegistryKey<World> worldKey) {
+        return RegistryKey.of(RegistryKeys.WORLD, getSlotId(worldKey, slot, seed));
     }
 
     private static Identifier getSlotId(RegistryKey<World> worldKey, int slot, long seed) {
@@ -398,7 +441,11 @@ public final class EnhancedWorldManager {
         }
         
         ServerWorld existing = server.getWorld(key);
-        if (existing != null) return existing;
+        WorldPool.claim(key, existing != null);
+        if (existing != null) {
+            PENDING_UNLOAD.remove(key);
+            return existing;
+        }
         return createNewWorld(server, key, seed, worldKey);
     }
 
@@ -479,7 +526,17 @@ public final class EnhancedWorldManager {
             LOGGER.info("[Race] Using portal location for Nether: {}", spawnPos);
         } else if (targetWorld.getDimensionEntry().matchesKey(DimensionTypes.OVERWORLD)) {
             LOGGER.info("[Race] Using Overworld spawn logic");
-            spawnPos = chooseOverworldSpawn(targetWorld);
+            // Спавн, найденный при подготовке мира, не ищем заново
+            BlockPos prepared = READY_SPAWNS.get(targetWorld.getRegistryKey());
+            if (prepared == null) {
+                // Тот же сид уже искали в другом слоте — берём точку из кэша без перебора кандидатов
+                BlockPos cached = SpawnCache.get(targetWorld);
+                if (cached != null) {
+                    ensureSpawnChunkLoaded(targetWorld, cached);
+                    prepared = reuseCachedSpawn(targetWorld, cached);
+                }
+            }
+            spawnPos = prepared != null ? prepared : chooseOverworldSpawn(targetWorld);
         } else if (targetWorld.getDimensionEntry().matchesKey(DimensionTypes.THE_NETHER)) {
             LOGGER.info("[Race] Using standard Nether portal logic");
             spawnPos = findNetherPortalLocation(player, targetWorld);
@@ -500,25 +557,6 @@ public final class EnhancedWorldManager {
             spawnPos = new BlockPos(0, 200, 0);
         }
         
-        // Нормализуем правила времени/тиков перед телепортом (на случай старых миров)
-        try {
-            // Для fabric_race миров: отключаем DODAYLIGHTCYCLE, для остальных - включаем
-            if (targetWorld.getRegistryKey().getValue().getNamespace().equals("fabric_race")) {
-                targetWorld.getGameRules().get(GameRules.DO_DAYLIGHT_CYCLE).set(false, player.getServer());
-            } else {
-                targetWorld.getGameRules().get(GameRules.DO_DAYLIGHT_CYCLE).set(true, player.getServer());
-            }
-            targetWorld.getGameRules().get(GameRules.RANDOM_TICK_SPEED).set(1, player.getServer());
-            // Отключаем защиту спавна, чтобы можно было ломать блоки в личном мире
-            try { targetWorld.getGameRules().get(GameRules.SPAWN_RADIUS).set(0, player.getServer()); } catch (Throwable ignored) {}
-            // Уменьшаем давление от агрессивных мобов в персональных мирах
-            try { targetWorld.getGameRules().get(GameRules.DO_INSOMNIA).set(false, player.getServer()); } catch (Throwable ignored) {}
-            try { targetWorld.getGameRules().get(GameRules.DO_PATROL_SPAWNING).set(false, player.getServer()); } catch (Throwable ignored) {}
-            try { targetWorld.getGameRules().get(GameRules.DISABLE_RAIDS).set(true, player.getServer()); } catch (Throwable ignored) {}
-            // Время для fabric_race миров управляется через initWorldIfAbsent
-            // Не устанавливаем setTimeOfDay напрямую для fabric_race миров
-        } catch (Throwable ignored) {}
-
         // Быстрый расчёт высоты без принудительной загрузки чанков
         try {
             LOGGER.info("[Race] Before computeHeightNoLoad check: spawnPos={}", spawnPos);
@@ -1099,6 +1137,22 @@ public final class EnhancedWorldManager {
         return true;
     }
 
+    // Точка из кэша найдена в другом экземпляре мира с тем же сидом: если там строили платформу,
+    // здесь её ещё нет — достраиваем на том же месте вместо нового поиска
+    private static BlockPos reuseCachedSpawn(ServerWorld world, BlockPos cached) {
+        try {
+            BlockPos below = cached.down();
+            if (world.getBlockState(below).isSolidBlock(world, below) &&
+                world.isAir(cached) && world.isAir(cached.up()) &&
+                world.getFluidState(below).isEmpty() &&
+                world.getFluidState(cached).isEmpty() &&
+                world.getFluidState(cached.up()).isEmpty()) {
+                return cached;
+            }
+        } catch (Throwable ignored) {}
+        return buildDryPlatform(world, cached);
+    }
+
     private static BlockPos buildDryPlatform(ServerWorld world, BlockPos near) {
         int y = near.getY();
         for (int dx = -2; dx <= 2; dx++) {
@@ -1137,42 +1191,274 @@ public final class EnhancedWorldManager {
     }
 
     private static ServerWorld createNewWorld(MinecraftServer server, RegistryKey<World> key, long seed, RegistryKey<World> baseWorldKey, boolean warmSpawn) {
-        // Получаем базовый мир для клонирования настроек
-        ServerWorld baseWorld = server.getWorld(baseWorldKey);
-        if (baseWorld == null) {
-            throw new IllegalStateException("Base world not found: " + baseWorldKey);
+        // Проверка/очистка директории мира
+        probeWorldDirectory(server, key);
+        
+        // Проверяем, существует ли уже мир в сервере
+        ServerWorld existingWorld = server.getWorld(key);
+        if (existingWorld != null) {
+            LOGGER.info("[Race] World {} already exists in server, returning existing world", key.getValue());
+            return existingWorld;
         }
         
-        // Создаем генератор чанков
-        ChunkGenerator chunkGenerator = createChunkGenerator(baseWorld, seed);
+        long startNs = System.nanoTime();
+        ServerWorld world = constructWorld(server, key, seed, baseWorldKey);
         
-        // Создаем тип измерения - определяем на основе ключа мира
-        RegistryEntry<DimensionType> dimensionType;
+        // Настраиваем спавн: Overworld — поиск суши; Nether — используем наши методы; End — специальная платформа
+        LOGGER.info("[Race] Setting spawn for world: {}", world.getRegistryKey().getValue());
+        BlockPos spawnPos;
+        BlockPos cached = SpawnCache.get(world);
+        if (cached != null) {
+            ensureSpawnChunkLoaded(world, cached);
+            spawnPos = reuseCachedSpawn(world, cached);
+            LOGGER.info("[Race] Spawn for {} taken from cache: {}", world.getRegistryKey().getValue(), spawnPos);
+        } else if (world.getDimensionEntry().matchesKey(DimensionTypes.OVERWORLD)) {
+            spawnPos = chooseOverworldSpawn(world);
+            ensureSpawnChunkLoaded(world, spawnPos);
+            spawnPos = findLocalSafeSpot(world, spawnPos);
+        } else if (world.getDimensionEntry().matchesKey(DimensionTypes.THE_NETHER)) {
+            // ИСПРАВЛЕНИЕ: Используем наши специальные методы для Nether
+            spawnPos = findNetherSafeSpawn(world);
+            LOGGER.info("[Race] Nether spawn set in createNewWorld: {}", spawnPos);
+        } else if (baseWorldKey == World.END || world.getDimensionEntry().matchesKey(net.minecraft.world.dimension.DimensionTypes.THE_END)) {
+            // Создаем платформу для игрока на острове End (вне главного острова)
+            spawnPos = END_SPAWN;
+            createEndIslandPlatform(world, spawnPos);
+            LOGGER.info("[Race] End island platform created at: {}", spawnPos);
+        } else {
+            spawnPos = new BlockPos(0, 200, 0);
+            ensureSpawnChunkLoaded(world, spawnPos);
+            spawnPos = findLocalSafeSpot(world, spawnPos);
+        }
+        applySpawn(world, spawnPos);
+        race.server.metrics.RaceMetrics.recordNanos("world:create", System.nanoTime() - startNs);
+        return world;
+    }
+
+    // ===== Асинхронный конвейер создания миров =====
+
+    /**
+     * Запускает (или переиспользует) сборку мира по ключу. Стадии: проверка диска (IO-поток) →
+     * ServerWorld (главный поток) → кандидаты спавна (рабочий поток) → чанки спавна по тикету → спавн.
+     */
+    private static CompletableFuture<ServerWorld> createWorldAsync(MinecraftServer server, RegistryKey<World> key, long seed, RegistryKey<World> baseWorldKey) {
+        CompletableFuture<ServerWorld> inFlight = WORLD_FUTURES.get(key);
+        if (inFlight != null) return inFlight;
+
+        ServerWorld existing = server.getWorld(key);
+        if (existing != null) {
+            if (PENDING_UNLOAD.remove(key) != null) {
+                LOGGER.info("[Race] World {} is pending unload, removing from pending list", key.getValue());
+            }
+            return CompletableFuture.completedFuture(existing);
+        }
+
+        CompletableFuture<ServerWorld> result = new CompletableFuture<>();
+        WORLD_FUTURES.put(key, result);
+        WORLD_CREATING.put(key, Boolean.TRUE);
+        long startNs = System.nanoTime();
+        LOGGER.info("[Race] Async world pipeline started for {}", key.getValue());
+
+        CompletableFuture
+                .runAsync(() -> probeWorldDirectory(server, key), Util.getIoWorkerExecutor())
+                .thenApplyAsync(v -> {
+                    ServerWorld w = server.getWorld(key);
+                    if (w != null) return w;
+                    // Единственная стадия конвейера, которая занимает главный поток целиком
+                    long constructNs = System.nanoTime();
+                    w = constructWorld(server, key, seed, baseWorldKey);
+                    race.server.metrics.RaceMetrics.recordNanos("world:construct", System.nanoTime() - constructNs);
+                    return w;
+                }, server)
+                .thenCompose(world -> prepareSpawnAsync(server, world, baseWorldKey).thenApply(pos -> world))
+                .whenComplete((world, t) -> {
+                    WORLD_CREATING.remove(key);
+                    WORLD_FUTURES.remove(key, result);
+                    if (t != null) {
+                        LOGGER.error("[Race] Async world pipeline failed for {}", key.getValue(), t);
+                        result.completeExceptionally(t);
+                    } else {
+                        long readyNs = System.nanoTime() - startNs;
+                        race.server.metrics.RaceMetrics.recordNanos("world:create-async", readyNs);
+                        LOGGER.info("[Race] World {} ready in {} ms", key.getValue(), readyNs / 1_000_000L);
+                        result.complete(world);
+                    }
+                });
+        return result;
+    }
+
+    // Поиск спавна без блокировки тика. Вызывается в главном потоке сразу после constructWorld
+    private static CompletableFuture<BlockPos> prepareSpawnAsync(MinecraftServer server, ServerWorld world, RegistryKey<World> baseWorldKey) {
+        BlockPos ready = READY_SPAWNS.get(world.getRegistryKey());
+        if (ready != null) return CompletableFuture.completedFuture(ready);
+
+        BlockPos cached = SpawnCache.get(world);
+        if (cached != null) {
+            return loadChunksAsync(world, cached, 1).thenApplyAsync(v -> {
+                BlockPos pos = reuseCachedSpawn(world, cached);
+                applySpawn(world, pos);
+                return pos;
+            }, server);
+        }
+
+        if (world.getDimensionEntry().matchesKey(DimensionTypes.OVERWORLD)) {
+            return CompletableFuture
+                    .supplyAsync(() -> sampleOverworldCandidates(world), Util.getMainWorkerExecutor())
+                    .thenComposeAsync(candidates -> tryOverworldCandidates(server, world, candidates, 0), server);
+        }
+        if (world.getDimensionEntry().matchesKey(DimensionTypes.THE_NETHER)) {
+            // Кандидаты findNetherSafeSpawn лежат в пределах ±32 блоков от (0,0)
+            return loadChunksAsync(world, BlockPos.ORIGIN, 2).thenApplyAsync(v -> {
+                BlockPos pos = findNetherSafeSpawn(world);
+                applySpawn(world, pos);
+                return pos;
+            }, server);
+        }
+        if (baseWorldKey == World.END || world.getDimensionEntry().matchesKey(DimensionTypes.THE_END)) {
+            return loadChunksAsync(world, END_SPAWN, 1).thenApplyAsync(v -> {
+                createEndIslandPlatform(world, END_SPAWN);
+                applySpawn(world, END_SPAWN);
+                return END_SPAWN;
+            }, server);
+        }
+        BlockPos guess = new BlockPos(0, 200, 0);
+        return loadChunksAsync(world, guess, 1).thenApplyAsync(v -> {
+            BlockPos pos = findLocalSafeSpot(world, guess);
+            applySpawn(world, pos);
+            return pos;
+        }, server);
+    }
+
+    // Рабочий поток: высоты и биомы кандидатов считаем генератором, не трогая чанки мира
+    private static List<BlockPos> sampleOverworldCandidates(ServerWorld world) {
+        var gen = world.getChunkManager().getChunkGenerator();
+        var noiseCfg = world.getChunkManager().getNoiseConfig();
+        int bottom = world.getBottomY() + 1;
+        java.util.ArrayList<BlockPos> out = new java.util.ArrayList<>();
+        for (int[] c : OVERWORLD_SPAWN_CANDIDATES) {
+            int x = c[0]; int z = c[1];
+            try {
+                int y = gen.getHeight(x, z, Heightmap.Type.MOTION_BLOCKING, world, noiseCfg);
+                if (y <= bottom) continue;
+                // не океан/река
+                var biome = gen.getBiomeSource().getBiome(
+                        net.minecraft.world.biome.source.BiomeCoords.fromBlock(x),
+                        net.minecraft.world.biome.source.BiomeCoords.fromBlock(y),
+                        net.minecraft.world.biome.source.BiomeCoords.fromBlock(z),
+                        noiseCfg.getMultiNoiseSampler());
+                if (biome.isIn(net.minecraft.registry.tag.BiomeTags.IS_OCEAN) ||
+                    biome.isIn(net.minecraft.registry.tag.BiomeTags.IS_DEEP_OCEAN) ||
+                    biome.isIn(net.minecraft.registry.tag.BiomeTags.IS_RIVER)) continue;
+                out.add(new BlockPos(x, y, z));
+            } catch (Throwable ignored) {}
+        }
+        return out;
+    }
+
+    // Главный поток: грузим чанки очередного кандидата по тикету и проверяем точку, когда они готовы
+    private static CompletableFuture<BlockPos> tryOverworldCandidates(MinecraftServer server, ServerWorld world, List<BlockPos> candidates, int index) {
+        if (index >= candidates.size()) {
+            // Жёсткий фолбэк, как в chooseOverworldSpawn: сухая платформа у (0,0)
+            int y = 0;
+            try {
+                y = world.getChunkManager().getChunkGenerator().getHeight(0, 0, Heightmap.Type.MOTION_BLOCKING, world, world.getChunkManager().getNoiseConfig());
+            } catch (Throwable ignored) {}
+            BlockPos near = new BlockPos(0, Math.max(y, world.getSeaLevel() + 1), 0);
+            return loadChunksAsync(world, near, 1).thenApplyAsync(v -> {
+                BlockPos pos = buildDryPlatform(world, near);
+                applySpawn(world, pos);
+                return pos;
+            }, server);
+        }
+        BlockPos guess = candidates.get(index);
+        return loadChunksAsync(world, guess, 1).thenComposeAsync(v -> {
+            BlockPos spot = findLocalSafeSpot(world, guess);
+            if (isDrySpot(world, spot)) {
+                applySpawn(world, spot);
+                return CompletableFuture.completedFuture(spot);
+            }
+            return tryOverworldCandidates(server, world, candidates, index + 1);
+        }, server);
+    }
+
+    /**
+     * Ставит тикет прогрева и возвращает future, который завершится, когда чанки вокруг center дойдут до FULL.
+     * Не блокирует главный поток; по таймауту future завершается всё равно (дальше сработают синхронные фолбэки).
+     */
+    private static CompletableFuture<Void> loadChunksAsync(ServerWorld world, BlockPos center, int radius) {
+        net.minecraft.util.math.ChunkPos cp = new net.minecraft.util.math.ChunkPos(center);
+        var cm = world.getChunkManager();
+        java.util.ArrayList<CompletableFuture<?>> futures = new java.util.ArrayList<>();
         try {
-            var registryManager = server.getRegistryManager();
-            var dimensionTypeRegistry = registryManager.get(RegistryKeys.DIMENSION_TYPE);
-            
-            // Определяем тип измерения на основе ключа мира
-            if (key.getValue().getPath().contains("nether")) {
-                dimensionType = dimensionTypeRegistry.entryOf(DimensionTypes.THE_NETHER);
-                System.out.println("✓ Using dimension type: " + dimensionType.getKey() + " for Nether world");
-            } else if (key.getValue().getPath().contains("end")) {
-                dimensionType = dimensionTypeRegistry.entryOf(DimensionTypes.THE_END);
-                System.out.println("✓ Using dimension type: " + dimensionType.getKey() + " for End world");
-            } else {
-                dimensionType = dimensionTypeRegistry.entryOf(DimensionTypes.OVERWORLD);
-                System.out.println("✓ Using dimension type: " + dimensionType.getKey() + " for Overworld");
+            cm.addTicket(SPAWN_PREP_TICKET, cp, radius, cp);
+            for (int dx = -radius; dx <= radius; dx++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    if (cm.getWorldChunk(cp.x + dx, cp.z + dz) != null) continue;
+                    futures.add(cm.getChunkFutureSyncOnMainThread(cp.x + dx, cp.z + dz, ChunkStatus.FULL, true));
+                }
             }
-            
-            System.out.println("✓ Dimension type value: " + dimensionType.value());
-        } catch (Exception e) {
-            System.err.println("Failed to get dimension type, falling back to base world: " + e.getMessage());
-            dimensionType = baseWorld.getDimensionEntry();
+        } catch (Throwable t) {
+            LOGGER.warn("[Race] Spawn chunk prefetch failed for {}: {}", world.getRegistryKey().getValue(), t.toString());
         }
-        
-        // Создаем опции измерения для нашего мира
-        DimensionOptions dimensionOptions = new DimensionOptions(dimensionType, chunkGenerator);
-        
+        if (futures.isEmpty()) return CompletableFuture.completedFuture(null);
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .handle((v, t) -> (Void) null)
+                .completeOnTimeout(null, CHUNK_PREP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Телепортирует игрока, когда мир будет готов; пока мир готовится, клиент видит статус подготовки.
+     * after (если задан) выполняется в главном потоке сразу после телепорта.
+     */
+    public static CompletableFuture<ServerWorld> teleportWhenReady(ServerPlayerEntity player, CompletableFuture<ServerWorld> worldFuture, java.util.function.Consumer<ServerWorld> after) {
+        MinecraftServer server = player.getServer();
+        UUID playerUuid = player.getUuid();
+        BlockPos sourcePos = player.getBlockPos();
+        boolean announced = !worldFuture.isDone();
+        if (announced) sendPrepStatus(player, "", race.net.WorldPrepStatusPayload.PREPARING);
+        return worldFuture
+                .thenComposeAsync(world -> preloadArrivalAsync(world, sourcePos).thenApply(v -> world), server)
+                .whenCompleteAsync((world, t) -> {
+                    ServerPlayerEntity p = server.getPlayerManager().getPlayer(playerUuid);
+                    if (p == null) return; // игрок вышел, пока мир готовился
+                    if (t != null || world == null) {
+                        LOGGER.error("[Race] World for {} failed to prepare", p.getGameProfile().getName(), t);
+                        sendPrepStatus(p, "", race.net.WorldPrepStatusPayload.FAILED);
+                        return;
+                    }
+                    teleportToWorld(p, world);
+                    if (announced) sendPrepStatus(p, world.getRegistryKey().getValue().toString(), race.net.WorldPrepStatusPayload.READY);
+                    if (after != null) {
+                        try { after.accept(world); } catch (Throwable e) {
+                            LOGGER.warn("[Race] Post-teleport action failed for {}: {}", p.getGameProfile().getName(), e.toString());
+                        }
+                    }
+                }, server);
+    }
+
+    // Прогрев чанков точки прибытия (то, что teleportToWorld иначе загрузит синхронно)
+    private static CompletableFuture<Void> preloadArrivalAsync(ServerWorld world, BlockPos sourcePos) {
+        if (world.getRegistryKey().getValue().getPath().contains("nether") || world.getDimensionEntry().matchesKey(DimensionTypes.THE_NETHER)) {
+            // findSafePortalSpot ищет в радиусе 16 блоков от координат /8
+            return loadChunksAsync(world, new BlockPos(sourcePos.getX() / 8, 64, sourcePos.getZ() / 8), 2);
+        }
+        if (world.getDimensionEntry().matchesKey(DimensionTypes.THE_END)) {
+            return loadChunksAsync(world, END_SPAWN, 1);
+        }
+        return loadChunksAsync(world, READY_SPAWNS.getOrDefault(world.getRegistryKey(), world.getSpawnPos()), 1);
+    }
+
+    private static void sendPrepStatus(ServerPlayerEntity player, String worldId, byte stage) {
+        try {
+            net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking.send(player, new race.net.WorldPrepStatusPayload(worldId, stage));
+        } catch (Throwable ignored) {}
+    }
+
+    /**
+     * Проверяет директорию мира на диске: неполные директории удаляются, существующие данные сохраняются.
+     * Только файловые операции — можно вызывать вне главного потока.
+     */
+    private static void probeWorldDirectory(MinecraftServer server, RegistryKey<World> key) {
         // Получаем сессию хранения
         LevelStorage.Session session = ((race.mixin.MinecraftServerSessionAccessor) server).getSession_FAB();
         
@@ -1211,15 +1497,55 @@ public final class EnhancedWorldManager {
                 } else {
                     // Если нет region файлов, то это действительно неполная директория
                     LOGGER.info("[Race] Found incomplete world directory for {} at {}, cleaning up", key.getValue(), worldDir);
-                    java.nio.file.Files.walk(worldDir)
-                            .sorted(java.util.Comparator.reverseOrder())
-                            .forEach(p -> {
-                                try { java.nio.file.Files.deleteIfExists(p); } catch (Exception ignored) {}
-                            });
+                    WorldTrash.discard(worldDir);
                 }
             }
             Files.createDirectories(worldDir);
         } catch (Exception ignored) {}
+    }
+
+    /**
+     * Собирает и регистрирует ServerWorld без поиска спавна. Только главный поток.
+     */
+    private static ServerWorld constructWorld(MinecraftServer server, RegistryKey<World> key, long seed, RegistryKey<World> baseWorldKey) {
+        // Получаем базовый мир для клонирования настроек
+        ServerWorld baseWorld = server.getWorld(baseWorldKey);
+        if (baseWorld == null) {
+            throw new IllegalStateException("Base world not found: " + baseWorldKey);
+        }
+        
+        // Создаем генератор чанков
+        ChunkGenerator chunkGenerator = createChunkGenerator(baseWorld, seed);
+        
+        // Создаем тип измерения - определяем на основе ключа мира
+        RegistryEntry<DimensionType> dimensionType;
+        try {
+            var registryManager = server.getRegistryManager();
+            var dimensionTypeRegistry = registryManager.get(RegistryKeys.DIMENSION_TYPE);
+            
+            // Определяем тип измерения на основе ключа мира
+            if (key.getValue().getPath().contains("nether")) {
+                dimensionType = dimensionTypeRegistry.entryOf(DimensionTypes.THE_NETHER);
+                System.out.println("✓ Using dimension type: " + dimensionType.getKey() + " for Nether world");
+            } else if (key.getValue().getPath().contains("end")) {
+                dimensionType = dimensionTypeRegistry.entryOf(DimensionTypes.THE_END);
+                System.out.println("✓ Using dimension type: " + dimensionType.getKey() + " for End world");
+            } else {
+                dimensionType = dimensionTypeRegistry.entryOf(DimensionTypes.OVERWORLD);
+                System.out.println("✓ Using dimension type: " + dimensionType.getKey() + " for Overworld");
+            }
+            
+            System.out.println("✓ Dimension type value: " + dimensionType.value());
+        } catch (Exception e) {
+            System.err.println("Failed to get dimension type, falling back to base world: " + e.getMessage());
+            dimensionType = baseWorld.getDimensionEntry();
+        }
+        
+        // Создаем опции измерения для нашего мира
+        DimensionOptions dimensionOptions = new DimensionOptions(dimensionType, chunkGenerator);
+        
+        // Сессия хранения уже проверена в probeWorldDirectory
+        LevelStorage.Session session = ((race.mixin.MinecraftServerSessionAccessor) server).getSession_FAB();
         
         // Создаем свойства мира
         ServerWorldProperties properties = server.getSaveProperties().getMainWorldProperties();
@@ -1231,13 +1557,6 @@ public final class EnhancedWorldManager {
         // Передаём сид через WorldSeedRegistry
         WorldSeedRegistry.put(key, seed);
         
-        // Проверяем, существует ли уже мир в сервере
-        ServerWorld existingWorld = server.getWorld(key);
-        if (existingWorld != null) {
-            LOGGER.info("[Race] World {} already exists in server, returning existing world", key.getValue());
-            return existingWorld;
-        }
-        
         // Синхронное создание мира (главный поток)
         Executor executor = net.minecraft.util.Util.getMainWorkerExecutor();
         ServerWorld world;
@@ -1254,7 +1573,7 @@ public final class EnhancedWorldManager {
                     baseWorld.isDebugWorld(),
                     seed,
                     List.of(),
-                    true,
+                    false, // Общее время тикает только основной мир, у личных миров время виртуальное
                     null
             );
             
@@ -1274,27 +1593,8 @@ public final class EnhancedWorldManager {
             int h00 = gen.getHeight(0, 0, Heightmap.Type.MOTION_BLOCKING, world, noiseCfg);
             LOGGER.info("[Race] World created: key={}, seed={}, gen={}, sampleHeight(0,0)={}",
                     key.getValue(), seed, gen.getClass().getSimpleName(), h00);
-            // Базовые gamerule'ы для нормального выживания в персональном мире
-            try {
-                world.getGameRules().get(GameRules.DO_TILE_DROPS).set(true, server);
-                world.getGameRules().get(GameRules.SPECTATORS_GENERATE_CHUNKS).set(false, server);
-                world.getGameRules().get(GameRules.DO_FIRE_TICK).set(true, server);
-                // Для fabric_race миров: отключаем DODAYLIGHTCYCLE
-                if (world.getRegistryKey().getValue().getNamespace().equals("fabric_race")) {
-                    world.getGameRules().get(GameRules.DO_DAYLIGHT_CYCLE).set(false, server);
-                } else {
-                    world.getGameRules().get(GameRules.DO_DAYLIGHT_CYCLE).set(true, server);
-                }
-                world.getGameRules().get(GameRules.RANDOM_TICK_SPEED).set(3, server);
-                world.getGameRules().get(GameRules.SPAWN_RADIUS).set(0, server);
-                // Включаем спавн монстров для персональных миров
-                world.getGameRules().get(GameRules.DO_MOB_SPAWNING).set(true, server);
-                try { world.getGameRules().get(GameRules.DO_INSOMNIA).set(false, server); } catch (Throwable ignored) {}
-                try { world.getGameRules().get(GameRules.DO_PATROL_SPAWNING).set(false, server); } catch (Throwable ignored) {}
-                try { world.getGameRules().get(GameRules.DISABLE_RAIDS).set(true, server); } catch (Throwable ignored) {}
-                // Время для fabric_race миров управляется через initWorldIfAbsent
-                // Не устанавливаем setTimeOfDay напрямую для fabric_race миров
-            } catch (Throwable ignored) {}
+            // Gamerule'ы общие для всех миров: профиль гонки (идемпотентно, на случай если мир создаётся до SERVER_STARTED)
+            RaceGameRules.apply(server);
         } catch (Throwable t) {
             LOGGER.warn("[Race] Post-create diagnostics failed for {}: {}", key.getValue(), t.toString());
         }
@@ -1303,23 +1603,8 @@ public final class EnhancedWorldManager {
         WorldBorder.Properties borderProps = baseWorld.getWorldBorder().write();
         world.getWorldBorder().load(borderProps);
 
-        // Портальные связи будут использованы ванильными правилами на основе ключей миров
-        
-        // Мир уже зарегистрирован выше
-        
-        // Настраиваем спавн: Overworld — поиск суши; Nether — используем наши методы; End — специальная платформа
-        LOGGER.info("[Race] Setting spawn for world: {}", world.getRegistryKey().getValue());
-        BlockPos spawnPos;
-        if (world.getDimensionEntry().matchesKey(DimensionTypes.OVERWORLD)) {
-            spawnPos = chooseOverworldSpawn(world);
-            ensureSpawnChunkLoaded(world, spawnPos);
-            spawnPos = findLocalSafeSpot(world, spawnPos);
-        } else if (world.getDimensionEntry().matchesKey(DimensionTypes.THE_NETHER)) {
-            // ИСПРАВЛЕНИЕ: Используем наши специальные методы для Nether
-            spawnPos = findNetherSafeSpawn(world);
-            LOGGER.info("[Race] Nether spawn set in createNewWorld: {}", spawnPos);
-        } else if (baseWorldKey == World.END || world.getDimensionEntry().matchesKey(net.minecraft.world.dimension.DimensionTypes.THE_END)) {
-            // НОВОЕ: Специальная обработка для End миров (включая кастомные)
+        // Для End миров (включая кастомные) сразу создаём битву с драконом
+        if (baseWorldKey == World.END || world.getDimensionEntry().matchesKey(net.minecraft.world.dimension.DimensionTypes.THE_END)) {
             BlockPos fightOrigin = new BlockPos(0, 64, 0);
             var dragonFightData = net.minecraft.entity.boss.dragon.EnderDragonFight.Data.DEFAULT;
             var dragonFight = new net.minecraft.entity.boss.dragon.EnderDragonFight(world, seed, dragonFightData, fightOrigin);
@@ -1327,22 +1612,21 @@ public final class EnhancedWorldManager {
             setEnderDragonFightInWorld(world, dragonFight);
             LOGGER.info("✓ Created EnderDragonFight for End world: {}", key.getValue());
             
-            // ИСПРАВЛЕНИЕ: Разрешаем спавн эндерменов и других End существ, но отключаем только Overworld мобов
-            world.getGameRules().get(GameRules.DO_PATROL_SPAWNING).set(false, server);
-            world.getGameRules().get(GameRules.DO_TRADER_SPAWNING).set(false, server);
-            // НЕ отключаем DO_MOB_SPAWNING - это позволит спавниться эндерменам и другим End существам
+            // Патрули и торговцы отключены профилем RaceGameRules; DO_MOB_SPAWNING остаётся включённым для эндерменов
             LOGGER.info("✓ Configured End world mob spawning (Endermen allowed): {}", key.getValue());
-            
-            // Создаем платформу для игрока на острове End (вне главного острова)
-            spawnPos = new BlockPos(100, 50, 0);
-            createEndIslandPlatform(world, spawnPos);
-            LOGGER.info("[Race] End island platform created at: {}", spawnPos);
-        } else {
-            spawnPos = new BlockPos(0, 200, 0);
-            ensureSpawnChunkLoaded(world, spawnPos);
-            spawnPos = findLocalSafeSpot(world, spawnPos);
         }
+        
+        return world;
+    }
+
+    /**
+     * Применяет найденную точку спавна к миру
+     */
+    private static void applySpawn(ServerWorld world, BlockPos spawnPos) {
+        RegistryKey<World> key = world.getRegistryKey();
         world.setSpawnPos(spawnPos, 0.0F);
+        READY_SPAWNS.put(key, spawnPos);
+        SpawnCache.put(world, spawnPos);
         try {
             world.getWorldBorder().setCenter(spawnPos.getX(), spawnPos.getZ());
         } catch (Throwable ignored) {}
@@ -1368,8 +1652,6 @@ public final class EnhancedWorldManager {
         } catch (Throwable t) {
             LOGGER.warn("[Race] Failed to initialize virtual time for world {}: {}", key.getValue(), t.getMessage());
         }
-        
-        return world;
     }
     
     
@@ -1613,11 +1895,7 @@ public final class EnhancedWorldManager {
     // Поиск безопасной суши поблизости от (0,0), избегая океанов/рек и воды под ногами
     private static BlockPos chooseOverworldSpawn(ServerWorld world) {
         // Быстрый сухой выбор по фиксированным кандидатам
-        int[][] candidates = new int[][]{
-                {0,0}, {192,0}, {-192,0}, {0,192}, {0,-192},
-                {256,256}, {-256,256}, {256,-256}, {-256,-256},
-                {384,0}, {-384,0}, {0,384}, {0,-384}
-        };
+        int[][] candidates = OVERWORLD_SPAWN_CANDIDATES;
         var gen = world.getChunkManager().getChunkGenerator();
         var noiseCfg = world.getChunkManager().getNoiseConfig();
         int bottom = world.getBottomY() + 1;
@@ -1821,37 +2099,18 @@ public final class EnhancedWorldManager {
             }
         }
         WORLD_KEYS.clear();
-        PLAYER_SLOT.clear();
+        SlotAllocator.clear();
     }
 
+    /**
+     * Игрок вышел: слот и миры остаются за ним на время аренды SlotAllocator,
+     * по истечении слот освобождается и его миры выгружаются (см. reclaimExpiredSlots)
+     */
     public static void releasePlayerSlot(MinecraftServer server, UUID playerUuid) {
-        Integer slot = PLAYER_SLOT.remove(playerUuid);
-        if (slot == null) return;
-        String[] suffixes = {"overworld", "nether", "end"};
-        java.util.ArrayList<String> ids = new java.util.ArrayList<>();
-        for (var e : WORLD_KEYS.entrySet()) {
-            String id = e.getKey();
-            for (String sfx : suffixes) {
-                String prefix = "slot" + slot + "_" + sfx + "_s";
-                if (id.startsWith(prefix)) {
-                    ids.add(id);
-                    break;
-                }
-            }
-        }
-        for (String id : ids) {
-            RegistryKey<World> key = WORLD_KEYS.remove(id);
-            if (key != null) {
-                // Не уничтожаем миры, которые ещё находятся в фазе создания/прогрева
-                if (Boolean.TRUE.equals(WORLD_CREATING.get(key))) {
-                    LOGGER.info("[Race] Skip destroying {} for player {}: world still creating", key.getValue(), playerUuid);
-                    continue;
-                }
-                LOGGER.info("[Race] Keeping slot{} world {} for reuse (player {})", slot, key.getValue(), playerUuid);
-                // НЕ выгружаем мир автоматически - оставляем его для повторного использования
-                // Мир будет выгружен только при очистке старых слотов или принудительно
-            }
-        }
+        int slot = SlotAllocator.get(playerUuid);
+        if (slot <= 0) return;
+        SlotAllocator.release(playerUuid);
+        LOGGER.info("[Race] Slot{} of player {} leased until reconnect", slot, playerUuid);
     }
 
     private static void destroyWorld(MinecraftServer server, RegistryKey<World> key) {
@@ -1864,11 +2123,15 @@ public final class EnhancedWorldManager {
      * Все операции выполняются в главном треде, но планируются через однопоточную очередь, чтобы
      * не конкурировать между собой и не блокировать тики долгими IO-операциями.
      */
-    private static void enqueueUnload(MinecraftServer server, RegistryKey<World> key, long delayMs, boolean skipSave) {
+    static void enqueueUnload(MinecraftServer server, RegistryKey<World> key, long delayMs, boolean skipSave) {
+        // При остановке сервера миры закрывает сам сервер
+        if (SHUTTING_DOWN) return;
         if (PENDING_UNLOAD.putIfAbsent(key, Boolean.TRUE) != null) return; // уже запланировано
         Runnable task = () -> server.execute(() -> {
+            // Выгрузку отменили: мир снова запросили до срабатывания задачи
+            if (!PENDING_UNLOAD.containsKey(key)) return;
 
-
+            long unloadStartNs = System.nanoTime();
             try {
                     ServerWorld w = server.getWorld(key);
                     if (w == null) { 
@@ -1907,22 +2170,25 @@ public final class EnhancedWorldManager {
                     // Закрываем и убираем из реестра
                     try { w.close(); } catch (Throwable t) { LOGGER.warn("[Race] close failed for {}: {}", key.getValue(), t.toString()); }
                     WorldRegistrar.remove(server, key);
-                    // Удаляем папку мира (безопасно)
+                    READY_SPAWNS.remove(key);
+                    // Папку мира переносим в корзину, удаление — в фоновом потоке
                     try {
                         LevelStorage.Session session = ((race.mixin.MinecraftServerSessionAccessor) server).getSession_FAB();
-                        Path worldDir = session.getWorldDirectory(key);
-                        if (java.nio.file.Files.exists(worldDir)) {
-                            java.nio.file.Files.walk(worldDir)
-                                    .sorted(java.util.Comparator.reverseOrder())
-                                    .forEach(p -> { try { java.nio.file.Files.deleteIfExists(p); } catch (Exception ignored) {} });
-                        }
+                        WorldTrash.discard(session.getWorldDirectory(key));
                     } catch (Exception ignored) {}
+                    race.server.metrics.RaceMetrics.recordNanos("world:unload", System.nanoTime() - unloadStartNs);
+                    race.server.metrics.RaceMetrics.remove("mspt:" + key.getValue());
                 } finally {
                     PENDING_UNLOAD.remove(key);
 
                 }
             });
-        };
+        try {
+            UNLOAD_EXECUTOR.schedule(task, Math.max(0L, delayMs), TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            PENDING_UNLOAD.remove(key);
+        }
+    }
 
     public static void beginShutdownAndFlush(MinecraftServer server) {
         SHUTTING_DOWN = true;
@@ -0,0 +1,178 @@
+package race.server.world;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.SpawnGroup;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import race.server.RaceLoadController;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Бюджет враждебных мобов в гоночных мирах. Счётчики ведутся инкрементально по событиям
+ * загрузки/выгрузки сущностей: на мир — число мобов по колонкам чанков, на игрока — сумма по
+ * квадрату чанков вокруг него (радиус и лимит задаёт RaceLoadController). Высота не учитывается.
+ * Мобы ходят, поэтому раз в секунду refresh() пересобирает счётчики по текущим позициям — это
+ * O(мобов мира), без обхода сущностей в боксе. SpawnHelperMixin спрашивает canSpawn() до создания
+ * моба, так что лишние мобы не появляются вовсе. Всё происходит в серверном потоке.
+ */
+public final class HostileMobBudget {
+    private static final class Neighborhood {
+        int chunkX;
+        int chunkZ;
+        int radius;
+        int count;
+
+        boolean contains(long chunk) {
+            return Math.abs(ChunkPos.getPackedX(chunk) - chunkX) <= radius
+                    && Math.abs(ChunkPos.getPackedZ(chunk) - chunkZ) <= radius;
+        }
+    }
+
+    private static final class WorldBudget {
+        // Моб -> чанк, в котором он учтён
+        final HashMap<MobEntity, Long> mobs = new HashMap<>();
+        final Long2IntOpenHashMap perChunk = new Long2IntOpenHashMap();
+        final HashMap<UUID, Neighborhood> players = new HashMap<>();
+
+        void add(long chunk, int delta) {
+            int n = perChunk.addTo(chunk, delta) + delta;
+            if (n <= 0) perChunk.remove(chunk);
+            for (Neighborhood nb : players.values()) {
+                if (nb.contains(chunk)) nb.count += delta;
+            }
+        }
+
+        int sum(int cx, int cz, int radius) {
+            int total = 0;
+            for (int x = cx - radius; x <= cx + radius; x++) {
+                for (int z = cz - radius; z <= cz + radius; z++) {
+                    total += perChunk.get(ChunkPos.toLong(x, z));
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final HashMap<ServerWorld, WorldBudget> WORLDS = new HashMap<>();
+
+    private HostileMobBudget() {}
+
+    public static void init() {
+        ServerEntityEvents.ENTITY_LOAD.register(HostileMobBudget::onLoad);
+        ServerEntityEvents.ENTITY_UNLOAD.register(HostileMobBudget::onUnload);
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> WORLDS.clear());
+    }
+
+    private static boolean isHostile(Entity e) {
+        return e instanceof MobEntity && e.getType().getSpawnGroup() == SpawnGroup.MONSTER;
+    }
+
+    private static long chunkOf(Entity e) {
+        return ChunkPos.toLong(e.getBlockX() >> 4, e.getBlockZ() >> 4);
+    }
+
+    private static void onLoad(Entity e, ServerWorld world) {
+        if (!isHostile(e) || !RaceWorldTraits.isRace(world)) return;
+        WorldBudget b = WORLDS.computeIfAbsent(world, w -> new WorldBudget());
+        long chunk = chunkOf(e);
+        if (b.mobs.put((MobEntity) e, chunk) == null) b.add(chunk, 1);
+    }
+
+    private static void onUnload(Entity e, ServerWorld world) {
+        if (!isHostile(e)) return;
+        WorldBudget b = WORLDS.get(world);
+        if (b == null) return;
+        Long chunk = b.mobs.remove(e);
+        if (chunk != null) b.add(chunk, -1);
+    }
+
+    /**
+     * Можно ли спавнить враждебного моба в pos: false, если pos попадает в окрестность игрока,
+     * у которого бюджет уже исчерпан
+     */
+    public static boolean canSpawn(ServerWorld world, BlockPos pos) {
+        WorldBudget b = WORLDS.get(world);
+        if (b == null || b.players.isEmpty()) return true;
+        long chunk = ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4);
+        int limit = RaceLoadController.mobLimit();
+        for (Neighborhood nb : b.players.values()) {
+            if (nb.count >= limit && nb.contains(chunk)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Пересборка счётчиков по текущим позициям мобов и игроков; миры, которых уже нет, забываются
+     */
+    public static void refresh(MinecraftServer server) {
+        if (WORLDS.isEmpty()) return;
+        Set<ServerWorld> live = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+        for (ServerWorld w : server.getWorlds()) live.add(w);
+        int radius = (RaceLoadController.mobRadius() + 15) >> 4;
+
+        Iterator<Map.Entry<ServerWorld, WorldBudget>> it = WORLDS.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<ServerWorld, WorldBudget> entry = it.next();
+            ServerWorld world = entry.getKey();
+            WorldBudget b = entry.getValue();
+            if (!live.contains(world)) {
+                it.remove();
+                continue;
+            }
+
+            b.perChunk.clear();
+            Iterator<Map.Entry<MobEntity, Long>> mobs = b.mobs.entrySet().iterator();
+            while (mobs.hasNext()) {
+                Map.Entry<MobEntity, Long> m = mobs.next();
+                if (m.getKey().isRemoved()) {
+                    mobs.remove();
+                    continue;
+                }
+                long chunk = chunkOf(m.getKey());
+                m.setValue(chunk);
+                b.perChunk.addTo(chunk, 1);
+            }
+
+            b.players.clear();
+            for (ServerPlayerEntity p : world.getPlayers()) {
+                if (p.isSpectator()) continue;
+                Neighborhood nb = new Neighborhood();
+                nb.chunkX = p.getBlockX() >> 4;
+                nb.chunkZ = p.getBlockZ() >> 4;
+                nb.radius = radius;
+                nb.count = b.sum(nb.chunkX, nb.chunkZ, radius);
+                b.players.put(p.getUuid(), nb);
+            }
+
+            if (b.mobs.isEmpty() && b.players.isEmpty()) it.remove();
+        }
+    }
+
+    /** Всего учтённых враждебных мобов в гоночных мирах */
+    public static int getTrackedCount() {
+        int n = 0;
+        for (WorldBudget b : WORLDS.values()) n += b.mobs.size();
+        return n;
+    }
+
+    /** Самая заполненная окрестность игрока */
+    public static int getMaxNeighborhood() {
+        int max = 0;
+        for (WorldBudget b : WORLDS.values()) {
+            for (Neighborhood nb : b.players.values()) max = Math.max(max, nb.count);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,121 @@
+package race.server.world;
+
+import net.fabricmc.fabric.api.entity.event.v1.ServerEntityWorldChangeEvents;
+import net.fabricmc.fabric.api.entity.event.v1.ServerPlayerEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Индекс игроков в гоночных мирах для лайв‑силуэтов параллельных игроков.
+ * Игроки разложены по корзинам (сид, тип измерения), внутри корзины — по инстансам миров.
+ * Силуэты видят только игроки одной корзины из разных инстансов, поэтому рассылка проходит
+ * по корзинам, а не по всем парам игроков. Индекс обновляется по событиям входа, выхода,
+ * смены мира и респавна; всё происходит в серверном потоке.
+ */
+public final class ParallelPlayerIndex {
+    private record BucketKey(long seed, RaceWorldTraits.Kind kind) {}
+    private record Entry(ServerPlayerEntity player, ServerWorld world, BucketKey bucket) {}
+
+    private static final HashMap<UUID, Entry> BY_PLAYER = new HashMap<>();
+    private static final HashMap<BucketKey, LinkedHashMap<ServerWorld, ArrayList<ServerPlayerEntity>>> BUCKETS = new HashMap<>();
+
+    private ParallelPlayerIndex() {}
+
+    public static void init() {
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> track(handler.player));
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+            if (handler.player != null) {
+                untrack(handler.player.getUuid());
+                race.net.ParallelPlayersPayload.forgetEncoder(handler.player.getUuid());
+            }
+        });
+        ServerEntityWorldChangeEvents.AFTER_PLAYER_CHANGE_WORLD.register((player, origin, destination) -> track(player));
+        // После респавна сервер создаёт новый объект игрока
+        ServerPlayerEvents.AFTER_RESPAWN.register((oldPlayer, newPlayer, alive) -> track(newPlayer));
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> clear());
+    }
+
+    /**
+     * Ставит игрока в корзину его текущего мира (или убирает, если мир не гоночный)
+     */
+    public static void track(ServerPlayerEntity player) {
+        if (player == null) return;
+        ServerWorld world = player.getServerWorld();
+        Entry old = BY_PLAYER.get(player.getUuid());
+        if (old != null && old.player() == player && old.world() == world) return;
+        if (old != null) remove(old);
+
+        RaceWorldTraits traits = RaceWorldTraits.of(world);
+        if (!traits.raceWorld()) {
+            BY_PLAYER.remove(player.getUuid());
+            return;
+        }
+        BucketKey bucket = new BucketKey(traits.seed(), traits.kind());
+        BY_PLAYER.put(player.getUuid(), new Entry(player, world, bucket));
+        BUCKETS.computeIfAbsent(bucket, k -> new LinkedHashMap<>())
+                .computeIfAbsent(world, w -> new ArrayList<>())
+                .add(player);
+    }
+
+    public static void untrack(UUID id) {
+        Entry old = BY_PLAYER.remove(id);
+        if (old != null) remove(old);
+    }
+
+    /**
+     * Дешёвая сверка с фактическим миром игроков (сравнение ссылок) на случай перемещений
+     * в обход событий. Вызывается перед рассылкой.
+     */
+    public static void verify(MinecraftServer server) {
+        for (ServerPlayerEntity p : server.getPlayerManager().getPlayerList()) {
+            Entry e = BY_PLAYER.get(p.getUuid());
+            if (e == null ? RaceWorldTraits.isRace(p.getServerWorld()) : (e.player() != p || e.world() != p.getServerWorld())) {
+                track(p);
+            }
+        }
+        if (BY_PLAYER.size() > server.getPlayerManager().getPlayerList().size()) {
+            for (UUID id : new ArrayList<>(BY_PLAYER.keySet())) {
+                if (server.getPlayerManager().getPlayer(id) == null) untrack(id);
+            }
+        }
+    }
+
+    /**
+     * Обходит корзины, в которых есть хотя бы два инстанса мира (иначе силуэтов не видно)
+     */
+    public static void forEachBucket(Consumer<Map<ServerWorld, ? extends List<ServerPlayerEntity>>> action) {
+        for (LinkedHashMap<ServerWorld, ArrayList<ServerPlayerEntity>> worlds : BUCKETS.values()) {
+            if (worlds.size() >= 2) action.accept(worlds);
+        }
+    }
+
+    public static int getTrackedCount() { return BY_PLAYER.size(); }
+    public static int getBucketCount() { return BUCKETS.size(); }
+
+    public static void clear() {
+        BY_PLAYER.clear();
+        BUCKETS.clear();
+    }
+
+    private static void remove(Entry e) {
+        LinkedHashMap<ServerWorld, ArrayList<ServerPlayerEntity>> worlds = BUCKETS.get(e.bucket());
+        if (worlds == null) return;
+        ArrayList<ServerPlayerEntity> players = worlds.get(e.world());
+        if (players != null) {
+            players.remove(e.player());
+            if (players.isEmpty()) worlds.remove(e.world());
+        }
+        if (worlds.isEmpty()) BUCKETS.remove(e.bucket());
+    }
+}
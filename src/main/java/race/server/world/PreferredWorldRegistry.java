@@ -10,41 +10,61 @@ import net.minecraft.world.World;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Хранит предпочитаемые миры для игроков (где появляться при входе).
  * Отдельно от ReturnPoint - это не временная точка возврата.
+ * Хранится в race_preferred_worlds.dat (WriteBehindStore); старый JSON читается для миграции.
  */
 public final class PreferredWorldRegistry {
     private static final Logger LOGGER = LoggerFactory.getLogger(PreferredWorldRegistry.class);
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-    private static Path dataFile;
+    private static final int MAGIC = 0x52505731; // "RPW1"
+    private static final int VERSION = 1;
+    private static volatile WriteBehindStore store;
     
     private static final ConcurrentHashMap<UUID, RegistryKey<World>> PREF = new ConcurrentHashMap<>();
 
+    static {
+        // Один обработчик на процесс; сохраняет текущее хранилище, а не созданное при первом запуске
+        ServerLifecycleEvents.SERVER_STOPPING.register(srv -> {
+            WriteBehindStore s = store;
+            store = null;
+            if (s != null) s.flush();
+        });
+    }
+
     // Инициализация при запуске сервера
     public static void initialize(MinecraftServer server) {
         // Используем путь к папке мира через session
+        Path dir;
         try {
             var session = ((race.mixin.MinecraftServerSessionAccessor) server).getSession_FAB();
-            dataFile = session.getWorldDirectory(net.minecraft.registry.RegistryKey.of(net.minecraft.registry.RegistryKeys.WORLD, net.minecraft.util.Identifier.of("minecraft", "overworld"))).resolve("race_preferred_worlds.json");
+            dir = session.getWorldDirectory(net.minecraft.registry.RegistryKey.of(net.minecraft.registry.RegistryKeys.WORLD, net.minecraft.util.Identifier.of("minecraft", "overworld")));
         } catch (Exception e) {
             // Fallback: используем папку run/saves
-            dataFile = java.nio.file.Paths.get("run", "saves", "race_preferred_worlds.json");
+            dir = java.nio.file.Paths.get("run", "saves");
         }
-        loadFromFile();
-        
-        // Сохранение при остановке сервера
-        ServerLifecycleEvents.SERVER_STOPPING.register(s -> saveToFile());
-        
-        LOGGER.info("[Race] PreferredWorldRegistry initialized with data file: {}", dataFile);
+        WriteBehindStore s = new WriteBehindStore("PreferredWorldRegistry", dir.resolve("race_preferred_worlds.dat"), MAGIC, VERSION, PreferredWorldRegistry::write);
+        store = s;
+        if (s.load(PreferredWorldRegistry::read)) {
+            LOGGER.info("[Race] Loaded {} preferred worlds from file", PREF.size());
+        } else if (loadLegacyJson(dir.resolve("race_preferred_worlds.json"))) {
+            s.markDirty();
+        }
+
+        LOGGER.info("[Race] PreferredWorldRegistry initialized with data file: {}", s.getFile());
     }
 
     /**
@@ -79,41 +99,48 @@ public final class PreferredWorldRegistry {
         LOGGER.info("[Race] Cleared preferred world for {}", id);
     }
 
-    // Сохранение данных в JSON файл
-    private static void saveToFile() {
-        if (dataFile == null) return;
-        
-        try {
-            JsonObject root = new JsonObject();
-            for (var entry : PREF.entrySet()) {
-                root.addProperty(entry.getKey().toString(), entry.getValue().getValue().toString());
-            }
-            
-            Files.createDirectories(dataFile.getParent());
-            try (FileWriter writer = new FileWriter(dataFile.toFile())) {
-                GSON.toJson(root, writer);
-            }
-            
-            LOGGER.debug("[Race] Saved {} preferred worlds to file", PREF.size());
-        } catch (IOException e) {
-            LOGGER.error("[Race] Failed to save preferred worlds: {}", e.getMessage());
+    // Бинарный формат: таблица ключей миров, затем пары (UUID, индекс мира)
+    private static void write(DataOutputStream out) throws IOException {
+        List<Map.Entry<UUID, RegistryKey<World>>> entries = new ArrayList<>(PREF.entrySet());
+        HashMap<RegistryKey<World>, Integer> worlds = new HashMap<>();
+        List<RegistryKey<World>> worldList = new ArrayList<>();
+        for (var e : entries) {
+            if (worlds.putIfAbsent(e.getValue(), worldList.size()) == null) worldList.add(e.getValue());
+        }
+        out.writeInt(worldList.size());
+        for (RegistryKey<World> key : worldList) out.writeUTF(key.getValue().toString());
+        out.writeInt(entries.size());
+        for (var e : entries) {
+            out.writeLong(e.getKey().getMostSignificantBits());
+            out.writeLong(e.getKey().getLeastSignificantBits());
+            out.writeInt(worlds.get(e.getValue()));
         }
     }
-    
-    // Асинхронное сохранение
+
+    private static void read(DataInputStream in, int version) throws IOException {
+        int worldCount = in.readInt();
+        List<RegistryKey<World>> worlds = new ArrayList<>(worldCount);
+        for (int i = 0; i < worldCount; i++) {
+            Identifier id = Identifier.tryParse(in.readUTF());
+            worlds.add(id != null ? RegistryKey.of(RegistryKeys.WORLD, id) : null);
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            UUID playerId = new UUID(in.readLong(), in.readLong());
+            RegistryKey<World> worldKey = worlds.get(in.readInt());
+            if (worldKey != null) PREF.put(playerId, worldKey);
+        }
+    }
+
+    // Отложенное сохранение: изменения склеиваются, запись — в потоке WriteBehindStore
     private static void saveToFileAsync() {
-        Thread.startVirtualThread(() -> {
-            try {
-                saveToFile();
-            } catch (Throwable t) {
-                LOGGER.warn("[Race] Async save failed: {}", t.getMessage());
-            }
-        });
+        WriteBehindStore s = store;
+        if (s != null) s.markDirty();
     }
 
-    // Загрузка данных из JSON файла
-    private static void loadFromFile() {
-        if (dataFile == null || !Files.exists(dataFile)) return;
+    // Миграция: загрузка из старого JSON файла
+    private static boolean loadLegacyJson(Path dataFile) {
+        if (!Files.exists(dataFile)) return false;
         
         try (FileReader reader = new FileReader(dataFile.toFile())) {
             JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
@@ -134,9 +161,11 @@ public final class PreferredWorldRegistry {
                 }
             }
             
-            LOGGER.info("[Race] Loaded {} preferred worlds from file", loaded);
+            LOGGER.info("[Race] Loaded {} preferred worlds from legacy JSON file", loaded);
+            return true;
         } catch (Exception e) {
             LOGGER.error("[Race] Failed to load preferred worlds: {}", e.getMessage());
+            return false;
         }
     }
 
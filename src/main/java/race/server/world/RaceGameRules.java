@@ -0,0 +1,101 @@
+package race.server.world;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.GameRules;
+import org.slf4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Профиль gamerule'ов гонки. Личные миры создаются на свойствах основного мира, поэтому объект
+ * GameRules у сервера один на все миры: профиль применяется один раз при старте сервера и при
+ * создании/загрузке личного мира, а MixinGameRulesBooleanRule/IntRule не дают коду (в том числе старым нормализациям)
+ * вернуть защищённые правила к другим значениям. Команда /gamerule идёт в обход set() и остаётся
+ * доступна операторам. Отключение защиты: -Drace.gamerules.guard=false.
+ *
+ * DO_DAYLIGHT_CYCLE остаётся включённым для хаба: личные миры не тикают общее время
+ * (shouldTickTime=false), их время виртуальное (SlotTimeService).
+ */
+public final class RaceGameRules {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final boolean GUARD = Boolean.parseBoolean(System.getProperty("race.gamerules.guard", "true"));
+
+    private static final Map<GameRules.Key<GameRules.BooleanRule>, Boolean> BOOLEANS = new LinkedHashMap<>();
+    private static final Map<GameRules.Key<GameRules.IntRule>, Integer> INTS = new LinkedHashMap<>();
+    static {
+        BOOLEANS.put(GameRules.DO_DAYLIGHT_CYCLE, true);
+        BOOLEANS.put(GameRules.DO_TILE_DROPS, true);
+        BOOLEANS.put(GameRules.DO_FIRE_TICK, true);
+        BOOLEANS.put(GameRules.DO_MOB_SPAWNING, true);
+        BOOLEANS.put(GameRules.SPECTATORS_GENERATE_CHUNKS, false);
+        BOOLEANS.put(GameRules.DO_INSOMNIA, false);
+        BOOLEANS.put(GameRules.DO_PATROL_SPAWNING, false);
+        BOOLEANS.put(GameRules.DO_TRADER_SPAWNING, false);
+        BOOLEANS.put(GameRules.DISABLE_RAIDS, true);
+        INTS.put(GameRules.RANDOM_TICK_SPEED, 3);
+        INTS.put(GameRules.SPAWN_RADIUS, 0);
+    }
+
+    private static volatile boolean armed;
+
+    private RaceGameRules() {}
+
+    /**
+     * Выставляет правила профиля (идемпотентно) и включает защиту
+     */
+    public static void apply(MinecraftServer server) {
+        GameRules rules = server.getGameRules();
+        int changed = 0;
+        for (var e : BOOLEANS.entrySet()) {
+            GameRules.BooleanRule rule = rules.get(e.getKey());
+            if (rule.get() != e.getValue()) {
+                rule.set(e.getValue(), server);
+                changed++;
+            }
+        }
+        for (var e : INTS.entrySet()) {
+            GameRules.IntRule rule = rules.get(e.getKey());
+            if (rule.get() != e.getValue()) {
+                rule.set(e.getValue(), server);
+                changed++;
+            }
+        }
+        armed = GUARD;
+        if (changed > 0) LOGGER.info("[Race] RaceGameRules: applied race profile ({} rules changed)", changed);
+    }
+
+    /**
+     * Проверка из MixinGameRulesBooleanRule: можно ли выставить булево правило в value
+     */
+    public static boolean allow(GameRules.BooleanRule rule, boolean value, MinecraftServer server) {
+        if (!armed || server == null) return true;
+        GameRules rules = server.getGameRules();
+        for (var e : BOOLEANS.entrySet()) {
+            if (rules.get(e.getKey()) == rule) {
+                if (e.getValue() == value) return true;
+                LOGGER.debug("[Race] RaceGameRules: blocked {}={}", e.getKey().getName(), value);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean allow(GameRules.IntRule rule, int value, MinecraftServer server) {
+        if (!armed || server == null) return true;
+        GameRules rules = server.getGameRules();
+        for (var e : INTS.entrySet()) {
+            if (rules.get(e.getKey()) == rule) {
+                if (e.getValue() == value) return true;
+                LOGGER.debug("[Race] RaceGameRules: blocked {}={}", e.getKey().getName(), value);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void disarm() {
+        armed = false;
+    }
+}
@@ -0,0 +1,8 @@
+package race.server.world;
+
+/**
+ * Реализуется ServerWorld через MixinServerWorld: доступ к закэшированным RaceWorldTraits
+ */
+public interface RaceWorld {
+    RaceWorldTraits getRaceTraits_FAB();
+}
@@ -0,0 +1,61 @@
+package race.server.world;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.world.World;
+
+/**
+ * Метаданные гоночного мира, разобранные из ключа fabric_race:slotN_&lt;dim&gt;_s&lt;seed&gt; один раз
+ * и закреплённые за ServerWorld (см. RaceWorld). Заменяет разбор строки ключа в горячих путях.
+ * Группа определяется слотом: все участники группы играют в мирах слота лидера.
+ */
+public record RaceWorldTraits(boolean raceWorld, int slot, long seed, boolean hasSeed, Kind kind) {
+
+    public enum Kind { OVERWORLD, NETHER, END, OTHER }
+
+    public static final RaceWorldTraits NONE = new RaceWorldTraits(false, -1, 0L, false, Kind.OTHER);
+
+    /**
+     * Черты мира: для ServerWorld берутся из кэша в самом мире, для остальных (клиент) — NONE
+     */
+    public static RaceWorldTraits of(World world) {
+        return world instanceof RaceWorld rw ? rw.getRaceTraits_FAB() : NONE;
+    }
+
+    public static boolean isRace(World world) {
+        return world instanceof RaceWorld rw && rw.getRaceTraits_FAB().raceWorld();
+    }
+
+    /**
+     * Разбор ключа мира. Вызывается один раз на мир.
+     */
+    public static RaceWorldTraits parse(RegistryKey<World> key) {
+        if (key == null || !"fabric_race".equals(key.getValue().getNamespace())) return NONE;
+        String path = key.getValue().getPath();
+
+        int slot = -1;
+        if (path.startsWith("slot")) {
+            int end = path.indexOf('_', 4);
+            if (end > 4) {
+                try { slot = Integer.parseInt(path.substring(4, end)); } catch (NumberFormatException ignored) {}
+            }
+        }
+
+        long seed = 0L;
+        boolean hasSeed = false;
+        int idx = path.lastIndexOf("_s");
+        if (idx >= 0) {
+            try {
+                seed = Long.parseUnsignedLong(path.substring(idx + 2));
+                hasSeed = true;
+            } catch (NumberFormatException ignored) {}
+        }
+
+        Kind kind;
+        if (path.contains("nether")) kind = Kind.NETHER;
+        else if (path.contains("_end")) kind = Kind.END;
+        else if (path.contains("overworld")) kind = Kind.OVERWORLD;
+        else kind = Kind.OTHER;
+
+        return new RaceWorldTraits(true, slot, seed, hasSeed, kind);
+    }
+}
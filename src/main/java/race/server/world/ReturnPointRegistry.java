@@ -13,22 +13,29 @@ import net.minecraft.world.World;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Хранит точки возврата игроков перед наблюдением/телепортом.
- * Теперь с персистентным хранением в JSON файлах.
+ * Хранится в race_return_points.dat (WriteBehindStore); старый race_return_points.json
+ * читается один раз для миграции.
  */
 public final class ReturnPointRegistry {
     private static final Logger LOGGER = LoggerFactory.getLogger(ReturnPointRegistry.class);
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-    private static Path dataFile;
+    private static final int MAGIC = 0x52525031; // "RRP1"
+    private static final int VERSION = 1;
+    private static volatile WriteBehindStore store;
     
     public static final class ReturnPoint {
         public final RegistryKey<World> worldKey;
@@ -83,22 +90,35 @@ public final class ReturnPointRegistry {
     private static final ConcurrentHashMap<UUID, ReturnPoint> MAP = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<UUID, Boolean> LOCK = new ConcurrentHashMap<>();
 
+    static {
+        // Регистрируется один раз: initialize повторяется при каждом запуске интегрированного сервера
+        ServerLifecycleEvents.SERVER_STOPPING.register(srv -> {
+            WriteBehindStore s = store;
+            store = null;
+            if (s != null) s.flush();
+        });
+    }
+
     // Инициализация при запуске сервера
     public static void initialize(MinecraftServer server) {
         // Используем путь к папке мира через session
+        Path dir;
         try {
             var session = ((race.mixin.MinecraftServerSessionAccessor) server).getSession_FAB();
-            dataFile = session.getWorldDirectory(net.minecraft.registry.RegistryKey.of(net.minecraft.registry.RegistryKeys.WORLD, net.minecraft.util.Identifier.of("minecraft", "overworld"))).resolve("race_return_points.json");
+            dir = session.getWorldDirectory(net.minecraft.registry.RegistryKey.of(net.minecraft.registry.RegistryKeys.WORLD, net.minecraft.util.Identifier.of("minecraft", "overworld")));
         } catch (Exception e) {
             // Fallback: используем папку run/saves
-            dataFile = java.nio.file.Paths.get("run", "saves", "race_return_points.json");
+            dir = java.nio.file.Paths.get("run", "saves");
         }
-        loadFromFile();
-        
-        // Сохранение при остановке сервера
-        ServerLifecycleEvents.SERVER_STOPPING.register(s -> saveToFile());
-        
-        LOGGER.info("[Race] ReturnPointRegistry initialized with data file: {}", dataFile);
+        WriteBehindStore s = new WriteBehindStore("ReturnPointRegistry", dir.resolve("race_return_points.dat"), MAGIC, VERSION, ReturnPointRegistry::write);
+        store = s;
+        if (s.load(ReturnPointRegistry::read)) {
+            LOGGER.info("[Race] Loaded {} return points from file", MAP.size());
+        } else if (loadLegacyJson(dir.resolve("race_return_points.json"))) {
+            s.markDirty();
+        }
+
+        LOGGER.info("[Race] ReturnPointRegistry initialized with data file: {}", s.getFile());
     }
 
     /**
@@ -313,42 +333,61 @@ public final class ReturnPointRegistry {
         return true;
     }
 
-    // Сохранение данных в JSON файл
-    private static void saveToFile() {
-        if (dataFile == null) return;
-        
-        try {
-            JsonObject root = new JsonObject();
-            for (var entry : MAP.entrySet()) {
-                root.add(entry.getKey().toString(), entry.getValue().toJson());
-            }
-            
-            Files.createDirectories(dataFile.getParent());
-            try (FileWriter writer = new FileWriter(dataFile.toFile())) {
-                GSON.toJson(root, writer);
-            }
-            
-            LOGGER.debug("[Race] Saved {} return points to file", MAP.size());
-        } catch (IOException e) {
-            LOGGER.error("[Race] Failed to save return points: {}", e.getMessage());
+    // Бинарный формат: таблица ключей миров, затем записи (UUID, индекс мира, позиция, поворот, режим)
+    private static void write(DataOutputStream out) throws IOException {
+        List<Map.Entry<UUID, ReturnPoint>> entries = new ArrayList<>(MAP.entrySet());
+        HashMap<RegistryKey<World>, Integer> worlds = new HashMap<>();
+        List<RegistryKey<World>> worldList = new ArrayList<>();
+        for (var e : entries) {
+            if (worlds.putIfAbsent(e.getValue().worldKey, worldList.size()) == null) worldList.add(e.getValue().worldKey);
+        }
+        out.writeInt(worldList.size());
+        for (RegistryKey<World> key : worldList) out.writeUTF(key.getValue().toString());
+        out.writeInt(entries.size());
+        for (var e : entries) {
+            ReturnPoint rp = e.getValue();
+            out.writeLong(e.getKey().getMostSignificantBits());
+            out.writeLong(e.getKey().getLeastSignificantBits());
+            out.writeInt(worlds.get(rp.worldKey));
+            out.writeDouble(rp.x);
+            out.writeDouble(rp.y);
+            out.writeDouble(rp.z);
+            out.writeFloat(rp.yaw);
+            out.writeFloat(rp.pitch);
+            out.writeByte(rp.gameMode.getId());
         }
     }
-    
-    // Асинхронное сохранение
+
+    private static void read(DataInputStream in, int version) throws IOException {
+        int worldCount = in.readInt();
+        List<RegistryKey<World>> worlds = new ArrayList<>(worldCount);
+        for (int i = 0; i < worldCount; i++) {
+            Identifier id = Identifier.tryParse(in.readUTF());
+            worlds.add(id != null ? RegistryKey.of(RegistryKeys.WORLD, id) : null);
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            UUID playerId = new UUID(in.readLong(), in.readLong());
+            RegistryKey<World> worldKey = worlds.get(in.readInt());
+            double x = in.readDouble();
+            double y = in.readDouble();
+            double z = in.readDouble();
+            float yaw = in.readFloat();
+            float pitch = in.readFloat();
+            GameMode gameMode = GameMode.byId(in.readByte());
+            if (worldKey != null) MAP.put(playerId, new ReturnPoint(worldKey, x, y, z, yaw, pitch, gameMode));
+        }
+    }
+
+    // Отложенное сохранение: изменения склеиваются, запись — в потоке WriteBehindStore
     private static void saveToFileAsync() {
-        // Сохраняем в отдельном потоке чтобы не блокировать игру
-        Thread.startVirtualThread(() -> {
-            try {
-                saveToFile();
-            } catch (Throwable t) {
-                LOGGER.warn("[Race] Async save failed: {}", t.getMessage());
-            }
-        });
+        WriteBehindStore s = store;
+        if (s != null) s.markDirty();
     }
 
-    // Загрузка данных из JSON файла
-    private static void loadFromFile() {
-        if (dataFile == null || !Files.exists(dataFile)) return;
+    // Миграция: загрузка из старого JSON файла
+    private static boolean loadLegacyJson(Path dataFile) {
+        if (!Files.exists(dataFile)) return false;
         
         try (FileReader reader = new FileReader(dataFile.toFile())) {
             JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
@@ -367,9 +406,11 @@ public final class ReturnPointRegistry {
                 }
             }
             
-            LOGGER.info("[Race] Loaded {} return points from file", loaded);
+            LOGGER.info("[Race] Loaded {} return points from legacy JSON file", loaded);
+            return true;
         } catch (Exception e) {
             LOGGER.error("[Race] Failed to load return points: {}", e.getMessage());
+            return false;
         }
     }
 
@@ -387,7 +428,7 @@ public final class ReturnPointRegistry {
             );
             
             MAP.put(player.getUuid(), hubPoint);
-            saveToFile();
+            saveToFileAsync();
             
             LOGGER.info("[Race] Saved hub return point for {}", player.getName().getString());
         } catch (Exception e) {
@@ -0,0 +1,160 @@
+package race.server.world;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Единственный источник правды о слотах игроков (slotN в ключах личных миров).
+ * Свободные номера хранятся в BitSet, новый слот — наименьший свободный, верхняя граница задаётся
+ * -Drace.slots.max. После выхода игрока слот остаётся за ним на время аренды (-Drace.slots.leaseMinutes)
+ * и освобождается, только когда аренда истекла.
+ */
+public final class SlotAllocator {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final int MAX_SLOTS = Math.max(1, Integer.getInteger("race.slots.max", 256));
+    private static final long LEASE_MS = Math.max(0L, Long.getLong("race.slots.leaseMinutes", 60L)) * 60_000L;
+
+    private static final BitSet USED = new BitSet();
+    private static final HashMap<UUID, Integer> BY_PLAYER = new HashMap<>();
+    // Сколько игроков сидит в слоте (участники группы могут делить слот лидера)
+    private static final HashMap<Integer, Integer> REFS = new HashMap<>();
+    // Игроки не в сети: время, до которого слот за ними сохраняется
+    private static final HashMap<UUID, Long> LEASES = new HashMap<>();
+
+    private SlotAllocator() {}
+
+    /** Слот игрока или 0, если слота нет */
+    public static synchronized int get(UUID player) {
+        Integer slot = BY_PLAYER.get(player);
+        return slot != null ? slot : 0;
+    }
+
+    /**
+     * Возвращает слот игрока, при отсутствии выделяет наименьший свободный. -1 — все слоты заняты
+     * (тогда вызывающий может освободить слот через {@link #revokeOldestLease}).
+     */
+    public static synchronized int acquire(UUID player) {
+        Integer existing = BY_PLAYER.get(player);
+        if (existing != null) return existing;
+        int slot = USED.nextClearBit(1);
+        if (slot > MAX_SLOTS) return -1;
+        take(player, slot);
+        LOGGER.info("[Race] SlotAllocator: assigned slot {} to {} ({} in use)", slot, player, BY_PLAYER.size());
+        return slot;
+    }
+
+    /**
+     * Досрочно снимает самую старую аренду, слот которой можно забрать (idle — в мирах слота никого нет).
+     * Возвращает освободившийся слот (его миры нужно выгрузить до выдачи новому игроку) или -1.
+     */
+    public static synchronized int revokeOldestLease(java.util.function.IntPredicate idle) {
+        ArrayList<Map.Entry<UUID, Long>> byExpiry = new ArrayList<>(LEASES.entrySet());
+        byExpiry.sort(Map.Entry.comparingByValue());
+        for (Map.Entry<UUID, Long> e : byExpiry) {
+            Integer slot = BY_PLAYER.get(e.getKey());
+            // Слот делят несколько игроков — одной аренды мало, чтобы его освободить
+            if (slot == null || REFS.getOrDefault(slot, 0) > 1 || !idle.test(slot)) continue;
+            LOGGER.warn("[Race] SlotAllocator: out of slots, revoking lease of slot {} from {}", slot, e.getKey());
+            if (free(e.getKey())) return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Закрепляет за игроком известный слот (например, слот мира, в котором он стоит; слот может быть общим с группой)
+     */
+    public static synchronized void bind(UUID player, int slot) {
+        if (slot <= 0) return;
+        Integer current = BY_PLAYER.get(player);
+        if (current != null && current == slot) return;
+        if (current != null) free(player);
+        take(player, slot);
+    }
+
+    /**
+     * Игрок вышел: слот остаётся за ним до истечения аренды
+     */
+    public static synchronized void release(UUID player) {
+        if (!BY_PLAYER.containsKey(player)) return;
+        LEASES.put(player, System.currentTimeMillis() + LEASE_MS);
+    }
+
+    /**
+     * Игрок вернулся: аренда отменяется
+     */
+    public static synchronized void renew(UUID player) {
+        LEASES.remove(player);
+    }
+
+    /**
+     * Освобождает слот сразу, без аренды
+     */
+    public static synchronized void forget(UUID player) {
+        free(player);
+    }
+
+    /**
+     * Снимает истёкшие аренды и возвращает слоты, ставшие свободными (их миры нужно выгрузить)
+     */
+    public static synchronized List<Integer> reclaimExpired() {
+        if (LEASES.isEmpty()) return List.of();
+        long now = System.currentTimeMillis();
+        ArrayList<UUID> expired = new ArrayList<>();
+        for (Iterator<Map.Entry<UUID, Long>> it = LEASES.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<UUID, Long> e = it.next();
+            if (e.getValue() <= now) expired.add(e.getKey());
+        }
+        ArrayList<Integer> freed = new ArrayList<>(expired.size());
+        for (UUID id : expired) {
+            Integer slot = BY_PLAYER.get(id);
+            LOGGER.info("[Race] SlotAllocator: lease of slot {} for {} expired", slot, id);
+            if (free(id)) freed.add(slot);
+        }
+        return freed;
+    }
+
+    public static synchronized Map<UUID, Integer> snapshot() {
+        return new HashMap<>(BY_PLAYER);
+    }
+
+    public static synchronized int inUse() { return BY_PLAYER.size(); }
+    public static synchronized int leased() { return LEASES.size(); }
+    public static int getMaxSlots() { return MAX_SLOTS; }
+
+    public static synchronized void clear() {
+        USED.clear();
+        BY_PLAYER.clear();
+        REFS.clear();
+        LEASES.clear();
+    }
+
+    private static void take(UUID player, int slot) {
+        USED.set(slot);
+        BY_PLAYER.put(player, slot);
+        REFS.merge(slot, 1, Integer::sum);
+        LEASES.remove(player);
+    }
+
+    // Слот становится свободным, когда в нём не осталось ни одного игрока
+    private static boolean free(UUID player) {
+        Integer slot = BY_PLAYER.remove(player);
+        LEASES.remove(player);
+        if (slot == null) return false;
+        Integer left = REFS.merge(slot, -1, Integer::sum);
+        if (left == null || left <= 0) {
+            REFS.remove(slot);
+            USED.clear(slot);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,161 @@
+package race.server.world;
+
+import com.mojang.logging.LogUtils;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtSizeTracker;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Util;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.dimension.DimensionTypes;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Кэш точек спавна по (seed, тип измерения). Результат поиска спавна зависит только от сида,
+ * поэтому найденная точка переиспользуется всеми слотами с тем же сидом и переживает рестарт
+ * (race/spawn_cache.dat в папке сохранения).
+ */
+public final class SpawnCache {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    public static final String OVERWORLD = "overworld";
+    public static final String NETHER = "nether";
+
+    // seed -> (тип измерения -> точка спавна)
+    private static final ConcurrentHashMap<Long, ConcurrentHashMap<String, BlockPos>> SPAWNS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean SAVE_SCHEDULED = new AtomicBoolean(false);
+    private static volatile Path dataFile;
+
+    static {
+        // Один обработчик на процесс: события Fabric глобальны, а initialize вызывается при каждом запуске сервера
+        ServerLifecycleEvents.SERVER_STOPPING.register(s -> {
+            save();
+            dataFile = null;
+        });
+    }
+
+    private SpawnCache() {}
+
+    public static void initialize(MinecraftServer server) {
+        SPAWNS.clear();
+        try {
+            dataFile = server.getSavePath(WorldSavePath.ROOT).resolve("race").resolve("spawn_cache.dat");
+        } catch (Throwable t) {
+            dataFile = null;
+            return;
+        }
+        load();
+        LOGGER.info("[Race] SpawnCache loaded: {} seeds from {}", SPAWNS.size(), dataFile);
+    }
+
+    /**
+     * Тип измерения мира для ключа кэша; null — не кэшируем (End спавнится в фиксированной точке)
+     */
+    public static String dimensionOf(ServerWorld world) {
+        if (world.getDimensionEntry().matchesKey(DimensionTypes.THE_NETHER)) return NETHER;
+        if (world.getDimensionEntry().matchesKey(DimensionTypes.OVERWORLD)) return OVERWORLD;
+        return null;
+    }
+
+    public static BlockPos get(long seed, String dimension) {
+        if (dimension == null) return null;
+        Map<String, BlockPos> byDim = SPAWNS.get(seed);
+        return byDim != null ? byDim.get(dimension) : null;
+    }
+
+    public static BlockPos get(ServerWorld world) {
+        if (!"fabric_race".equals(world.getRegistryKey().getValue().getNamespace())) return null;
+        return get(world.getSeed(), dimensionOf(world));
+    }
+
+    /**
+     * Запоминает найденную точку спавна личного мира и планирует запись индекса на диск
+     */
+    public static void put(ServerWorld world, BlockPos pos) {
+        if (!"fabric_race".equals(world.getRegistryKey().getValue().getNamespace())) return;
+        String dimension = dimensionOf(world);
+        if (dimension == null) return;
+        BlockPos prev = SPAWNS.computeIfAbsent(world.getSeed(), k -> new ConcurrentHashMap<>()).put(dimension, pos.toImmutable());
+        if (!pos.equals(prev)) scheduleSave();
+    }
+
+    public static int size() {
+        int n = 0;
+        for (var byDim : SPAWNS.values()) n += byDim.size();
+        return n;
+    }
+
+    // Запись схлопывается: пока задача в очереди IO, новые put её не дублируют
+    private static void scheduleSave() {
+        if (dataFile == null || !SAVE_SCHEDULED.compareAndSet(false, true)) return;
+        try {
+            Util.getIoWorkerExecutor().execute(() -> {
+                SAVE_SCHEDULED.set(false);
+                save();
+            });
+        } catch (Throwable t) {
+            SAVE_SCHEDULED.set(false);
+        }
+    }
+
+    private static synchronized void save() {
+        Path file = dataFile;
+        if (file == null) return;
+        try {
+            NbtCompound root = new NbtCompound();
+            NbtList seeds = new NbtList();
+            for (var eSeed : SPAWNS.entrySet()) {
+                NbtCompound s = new NbtCompound();
+                s.putLong("seed", eSeed.getKey());
+                for (var eDim : eSeed.getValue().entrySet()) {
+                    BlockPos p = eDim.getValue();
+                    s.putIntArray(eDim.getKey(), new int[]{p.getX(), p.getY(), p.getZ()});
+                }
+                seeds.add(s);
+            }
+            root.put("seeds", seeds);
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (var out = Files.newOutputStream(tmp)) {
+                net.minecraft.nbt.NbtIo.writeCompressed(root, out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("[Race] Failed to save spawn cache: {}", e.getMessage());
+        }
+    }
+
+    private static void load() {
+        Path file = dataFile;
+        if (file == null || !Files.exists(file)) return;
+        try {
+            NbtCompound root;
+            try (var in = Files.newInputStream(file)) { root = net.minecraft.nbt.NbtIo.readCompressed(in, NbtSizeTracker.ofUnlimitedBytes()); }
+            if (root == null) return;
+            NbtList seeds = root.getList("seeds", 10);
+            for (int i = 0; i < seeds.size(); i++) {
+                NbtCompound s = seeds.getCompound(i);
+                Map<String, BlockPos> byDim = new HashMap<>();
+                for (String dim : new String[]{OVERWORLD, NETHER}) {
+                    int[] xyz = s.getIntArray(dim);
+                    if (xyz.length == 3) byDim.put(dim, new BlockPos(xyz[0], xyz[1], xyz[2]));
+                }
+                if (!byDim.isEmpty()) SPAWNS.put(s.getLong("seed"), new ConcurrentHashMap<>(byDim));
+            }
+        } catch (IOException e) {
+            LOGGER.warn("[Race] Failed to load spawn cache: {}", e.getMessage());
+        }
+    }
+}
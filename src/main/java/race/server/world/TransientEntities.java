@@ -0,0 +1,77 @@
+package race.server.world;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Реестр временных сущностей, созданных гонкой (призрачные фигуры и т.п.): мир, UUID и тик
+ * истечения в min-куче. Каждый тик снимаются только истёкшие записи — без обхода сущностей миров.
+ * Сущность помечается тегом TAG: если к моменту истечения её чанк выгружен, она удаляется при
+ * следующей загрузке (записи в реестре уже нет — например, после перезапуска сервера).
+ * Работает в серверном потоке.
+ */
+public final class TransientEntities {
+    public static final String TAG = "race_transient";
+    // Тег призрачных фигур из старых версий — такие стойки тоже удаляются при загрузке
+    private static final String LEGACY_TAG = "race_ghost_fig";
+
+    private record Entry(RegistryKey<World> world, UUID id, long expiryTick) {}
+
+    private static final PriorityQueue<Entry> HEAP = new PriorityQueue<>(java.util.Comparator.comparingLong(Entry::expiryTick));
+    // Актуальная запись по UUID; записи кучи, которых здесь нет, — устаревшие и пропускаются
+    private static final HashMap<UUID, Entry> LIVE = new HashMap<>();
+
+    private TransientEntities() {}
+
+    public static void init() {
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            var tags = entity.getCommandTags();
+            if (tags.isEmpty()) return;
+            if ((tags.contains(TAG) && !LIVE.containsKey(entity.getUuid())) || tags.contains(LEGACY_TAG)) {
+                entity.discard();
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            HEAP.clear();
+            LIVE.clear();
+        });
+    }
+
+    /**
+     * Регистрирует уже заспавненную сущность: через ttlTicks тиков она будет удалена
+     */
+    public static void track(ServerWorld world, Entity entity, int ttlTicks) {
+        entity.addCommandTag(TAG);
+        Entry e = new Entry(world.getRegistryKey(), entity.getUuid(), world.getServer().getTicks() + Math.max(1, ttlTicks));
+        LIVE.put(e.id(), e);
+        HEAP.add(e);
+    }
+
+    public static int getTrackedCount() {
+        return LIVE.size();
+    }
+
+    public static void tick(MinecraftServer server) {
+        long now = server.getTicks();
+        Entry head;
+        while ((head = HEAP.peek()) != null && head.expiryTick() <= now) {
+            HEAP.poll();
+            if (LIVE.get(head.id()) != head) continue;
+            LIVE.remove(head.id());
+            ServerWorld world = server.getWorld(head.world());
+            if (world == null) continue;
+            // null — чанк выгружен: сущность удалится по тегу при загрузке
+            Entity entity = world.getEntity(head.id());
+            if (entity != null) entity.discard();
+        }
+    }
+}
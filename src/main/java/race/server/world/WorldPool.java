@@ -0,0 +1,176 @@
+package race.server.world;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+import org.slf4j.Logger;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пул заранее прогретых миров slotN_&lt;dim&gt;_s&lt;seed&gt; для сидов, выбранных в хабе.
+ * Миры строятся по одному через асинхронный конвейер EnhancedWorldManager, когда тик не перегружен,
+ * и выдаются из getOrCreateWorldForGroup без ожидания. Лишние миры выгружаются по LRU через enqueueUnload.
+ * Все методы вызываются из главного потока.
+ */
+public final class WorldPool {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    // Бюджет пула: -Drace.pool.maxWorlds=<миров>, -Drace.pool.minFreeMb=<свободной памяти, МБ>
+    private static final int MAX_WORLDS = Math.max(0, Integer.getInteger("race.pool.maxWorlds", 6));
+    private static final long MIN_FREE_MB = Math.max(0L, Long.getLong("race.pool.minFreeMb", 1024L));
+    // Прогреваем только когда сервер держит почти полный TPS
+    private static final double MIN_TPS = 19.5;
+
+    private record Target(int slot, long seed, RegistryKey<World> dimension) {}
+
+    // Очередь на прогрев (в порядке запросов, без дублей)
+    private static final LinkedHashMap<RegistryKey<World>, Target> QUEUE = new LinkedHashMap<>();
+    // Прогретые и ещё не выданные миры в порядке доступа (LRU)
+    private static final LinkedHashMap<RegistryKey<World>, Target> POOLED = new LinkedHashMap<>(16, 0.75f, true);
+    private static RegistryKey<World> buildingKey = null;
+    private static CompletableFuture<ServerWorld> building = null;
+    private static boolean buildingClaimed = false;
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+    private static final AtomicLong WARMED = new AtomicLong();
+
+    private WorldPool() {}
+
+    /**
+     * Игрок выбрал сид в хабе: ставим в очередь прогрева миры его слота для всех трёх измерений.
+     */
+    public static synchronized void requestWarm(MinecraftServer server, UUID playerUuid, long seed) {
+        if (MAX_WORLDS <= 0 || seed < 0) return;
+        int slot;
+        try {
+            slot = EnhancedWorldManager.getOrAssignSlotForPlayer(playerUuid);
+        } catch (Throwable t) {
+            return;
+        }
+        if (slot <= 0) return;
+
+        // Сид слота сменился — старые заготовки этого слота больше не нужны
+        QUEUE.values().removeIf(t -> t.slot() == slot && t.seed() != seed);
+        for (Iterator<Map.Entry<RegistryKey<World>, Target>> it = POOLED.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<RegistryKey<World>, Target> e = it.next();
+            if (e.getValue().slot() == slot && e.getValue().seed() != seed) {
+                it.remove();
+                evict(server, e.getKey());
+            }
+        }
+
+        for (RegistryKey<World> dim : List.of(World.OVERWORLD, World.NETHER, World.END)) {
+            RegistryKey<World> key = EnhancedWorldManager.slotWorldKey(slot, seed, dim);
+            if (POOLED.containsKey(key) || key.equals(buildingKey)) continue;
+            QUEUE.putIfAbsent(key, new Target(slot, seed, dim));
+        }
+        LOGGER.info("[Race] World pool: queued slot{} seed {} for warm-up (queue={}, pooled={})", slot, seed, QUEUE.size(), POOLED.size());
+    }
+
+    /**
+     * Мир запрошен для игры. Возвращает true, если он был взят из пула (или уже прогревался для него).
+     * existsNow — мир уже загружен на сервере; если он не из пула, это не промах (например, респавн).
+     */
+    static synchronized boolean claim(RegistryKey<World> key, boolean existsNow) {
+        QUEUE.remove(key);
+        if (POOLED.remove(key) != null) {
+            HITS.incrementAndGet();
+            return true;
+        }
+        if (key.equals(buildingKey)) {
+            buildingClaimed = true;
+            HITS.incrementAndGet();
+            return true;
+        }
+        if (!existsNow) MISSES.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Тик пула: не больше одной сборки одновременно и только когда сервер не отстаёт.
+     */
+    public static synchronized void tick(MinecraftServer server) {
+        if (MAX_WORLDS <= 0) return;
+        if (building != null && !building.isDone()) return;
+        if (QUEUE.isEmpty()) return;
+        if (race.server.RaceServerInit.getCurrentTPS() < MIN_TPS) return;
+
+        Runtime rt = Runtime.getRuntime();
+        long freeMb = (rt.maxMemory() - (rt.totalMemory() - rt.freeMemory())) / 1024 / 1024;
+        if (freeMb < MIN_FREE_MB) return;
+
+        // Освобождаем место под новый мир, выгружая самый давно не использованный
+        while (POOLED.size() >= MAX_WORLDS) {
+            Iterator<Map.Entry<RegistryKey<World>, Target>> it = POOLED.entrySet().iterator();
+            if (!it.hasNext()) break;
+            RegistryKey<World> eldest = it.next().getKey();
+            it.remove();
+            evict(server, eldest);
+        }
+
+        Iterator<Map.Entry<RegistryKey<World>, Target>> it = QUEUE.entrySet().iterator();
+        Map.Entry<RegistryKey<World>, Target> next = it.next();
+        it.remove();
+        RegistryKey<World> key = next.getKey();
+        Target target = next.getValue();
+
+        if (server.getWorld(key) != null) {
+            POOLED.put(key, target);
+            return;
+        }
+
+        buildingKey = key;
+        buildingClaimed = false;
+        building = EnhancedWorldManager.warmWorldAsync(server, target.slot(), target.seed(), target.dimension());
+        building.whenComplete((world, t) -> onBuilt(key, target, world, t));
+    }
+
+    private static synchronized void onBuilt(RegistryKey<World> key, Target target, ServerWorld world, Throwable t) {
+        if (!key.equals(buildingKey)) return;
+        boolean claimed = buildingClaimed;
+        buildingKey = null;
+        buildingClaimed = false;
+        if (t != null || world == null) {
+            LOGGER.warn("[Race] World pool: warm-up of {} failed: {}", key.getValue(), t != null ? t.toString() : "null");
+            return;
+        }
+        WARMED.incrementAndGet();
+        if (!claimed) POOLED.put(key, target);
+        LOGGER.info("[Race] World pool: {} warmed (claimed={}, pooled={})", key.getValue(), claimed, POOLED.size());
+    }
+
+    private static void evict(MinecraftServer server, RegistryKey<World> key) {
+        ServerWorld w = server.getWorld(key);
+        if (w != null && !w.getPlayers().isEmpty()) return; // в мире уже играют — не трогаем
+        EVICTIONS.incrementAndGet();
+        LOGGER.info("[Race] World pool: evicting {}", key.getValue());
+        EnhancedWorldManager.enqueueUnload(server, key, 0L, true);
+    }
+
+    public static long getHits() { return HITS.get(); }
+    public static long getMisses() { return MISSES.get(); }
+    public static long getEvictions() { return EVICTIONS.get(); }
+    public static long getWarmed() { return WARMED.get(); }
+    public static synchronized int getPooledCount() { return POOLED.size(); }
+    public static synchronized int getQueuedCount() { return QUEUE.size() + (buildingKey != null ? 1 : 0); }
+    public static int getMaxWorlds() { return MAX_WORLDS; }
+
+    public static synchronized void clear() {
+        QUEUE.clear();
+        POOLED.clear();
+        buildingKey = null;
+        building = null;
+        buildingClaimed = false;
+    }
+}
@@ -0,0 +1,137 @@
+package race.server.world;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.WorldSavePath;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновое удаление папок личных миров. Главный поток только переименовывает папку в race/trash
+ * (атомарно, в пределах одного диска), а рекурсивное удаление идёт в отдельном низкоприоритетном
+ * потоке с ограничением скорости. Всё, что лежит в race/trash, считается незавершённым удалением
+ * и дочищается при следующем запуске сервера.
+ */
+public final class WorldTrash {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    // Ограничение скорости удаления: -Drace.trash.maxMbPerSec=<МБ/с>
+    private static final long MAX_BYTES_PER_SEC = Math.max(1L, Long.getLong("race.trash.maxMbPerSec", 32L)) * 1024L * 1024L;
+
+    private static final LinkedBlockingQueue<Path> QUEUE = new LinkedBlockingQueue<>();
+    private static final AtomicLong DELETED_DIRS = new AtomicLong();
+    private static final AtomicLong DELETED_BYTES = new AtomicLong();
+    private static volatile Path trashDir;
+    private static Thread worker;
+
+    private WorldTrash() {}
+
+    public static synchronized void initialize(MinecraftServer server) {
+        try {
+            trashDir = server.getSavePath(WorldSavePath.ROOT).resolve("race").resolve("trash");
+            Files.createDirectories(trashDir);
+        } catch (Throwable t) {
+            LOGGER.warn("[Race] WorldTrash: trash directory unavailable, deleting in place: {}", t.toString());
+            trashDir = null;
+        }
+        startWorker();
+
+        // Остатки после падения сервера посреди удаления
+        if (trashDir != null) {
+            try (var stream = Files.list(trashDir)) {
+                List<Path> leftovers = stream.toList();
+                if (!leftovers.isEmpty()) {
+                    LOGGER.info("[Race] WorldTrash: {} leftover directories from previous run, deleting", leftovers.size());
+                    QUEUE.addAll(leftovers);
+                }
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Убирает папку мира из сохранения. Обычно возвращает сразу: папка переименовывается в корзину,
+     * удаление выполняется фоновым потоком. Мир к этому моменту должен быть закрыт.
+     */
+    public static void discard(Path worldDir) {
+        if (worldDir == null || !Files.exists(worldDir)) return;
+        Path trash = trashDir;
+        if (trash != null) {
+            try {
+                Path dst = trash.resolve(worldDir.getFileName() + "-" + System.nanoTime());
+                Files.move(worldDir, dst, StandardCopyOption.ATOMIC_MOVE);
+                startWorker();
+                QUEUE.add(dst);
+                return;
+            } catch (Exception e) {
+                LOGGER.warn("[Race] WorldTrash: rename of {} failed ({}), deleting in place", worldDir, e.toString());
+            }
+        }
+        // Переименовать не вышло (например, файлы ещё заняты на Windows): удаляем сразу, иначе
+        // фоновое удаление могло бы задеть новую папку мира с тем же именем
+        try (var stream = Files.walk(worldDir)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> { try { Files.deleteIfExists(p); } catch (Exception ignored) {} });
+        } catch (Exception ignored) {}
+    }
+
+    public static int getPendingCount() { return QUEUE.size(); }
+    public static long getDeletedDirs() { return DELETED_DIRS.get(); }
+    public static long getDeletedBytes() { return DELETED_BYTES.get(); }
+
+    private static synchronized void startWorker() {
+        if (worker != null && worker.isAlive()) return;
+        worker = new Thread(WorldTrash::runWorker, "Race-WorldTrash");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    private static void runWorker() {
+        while (true) {
+            Path dir;
+            try {
+                dir = QUEUE.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                deleteThrottled(dir);
+                DELETED_DIRS.incrementAndGet();
+            } catch (InterruptedException e) {
+                return;
+            } catch (Throwable t) {
+                LOGGER.warn("[Race] WorldTrash: failed to delete {}: {}", dir, t.toString());
+            }
+        }
+    }
+
+    private static void deleteThrottled(Path dir) throws IOException, InterruptedException {
+        if (!Files.exists(dir)) return;
+        List<Path> paths;
+        try (var stream = Files.walk(dir)) {
+            paths = stream.sorted(Comparator.reverseOrder()).toList();
+        }
+        long startNs = System.nanoTime();
+        long bytes = 0L;
+        for (Path p : paths) {
+            long size = 0L;
+            try {
+                if (Files.isRegularFile(p)) size = Files.size(p);
+                Files.deleteIfExists(p);
+            } catch (IOException ignored) {}
+            bytes += size;
+            // Не быстрее MAX_BYTES_PER_SEC, чтобы не забивать диск во время гонки
+            long minNs = bytes * 1_000_000_000L / MAX_BYTES_PER_SEC;
+            long aheadNs = minNs - (System.nanoTime() - startNs);
+            if (aheadNs > 1_000_000L) Thread.sleep(aheadNs / 1_000_000L);
+        }
+        DELETED_BYTES.addAndGet(bytes);
+    }
+}
@@ -0,0 +1,134 @@
+package race.server.world;
+
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Отложенная запись небольших реестров на диск. markDirty() только ставит флаг: изменения
+ * склеиваются, и файл пишется не чаще раза в интервал одним общим потоком "Race-Persist".
+ * Запись идёт во временный файл рядом с целевым и атомарно переименовывается, так что на диске
+ * всегда целый файл. Формат — бинарный: magic, версия, дальше данные реестра.
+ * При остановке сервера реестр вызывает flush() синхронно.
+ *
+ * Интервал: -Drace.persist.flushMs (2000).
+ */
+public final class WriteBehindStore {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final long FLUSH_INTERVAL_MS = Math.max(100L, Long.getLong("race.persist.flushMs", 2000L));
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Race-Persist");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    public interface Reader {
+        void read(DataInputStream in, int version) throws IOException;
+    }
+
+    private final String name;
+    private final Path file;
+    private final int magic;
+    private final int version;
+    private final Writer writer;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile long lastFlushMs;
+
+    public WriteBehindStore(String name, Path file, int magic, int version, Writer writer) {
+        this.name = name;
+        this.file = file;
+        this.magic = magic;
+        this.version = version;
+        this.writer = writer;
+    }
+
+    public Path getFile() { return file; }
+
+    /**
+     * Читает файл, если он есть. false — файла нет или он не в этом формате
+     */
+    public boolean load(Reader reader) {
+        if (!Files.exists(file)) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != magic) {
+                LOGGER.warn("[Race] {}: unexpected file format in {}", name, file);
+                return false;
+            }
+            int v = in.readInt();
+            if (v > version) {
+                LOGGER.warn("[Race] {}: file version {} is newer than supported {}", name, v, version);
+                return false;
+            }
+            reader.read(in, v);
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("[Race] {}: failed to read {}: {}", name, file, e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Отмечает данные изменёнными; запись — не раньше чем через интервал после прошлой
+     */
+    public void markDirty() {
+        dirty.set(true);
+        if (!scheduled.compareAndSet(false, true)) return;
+        long delay = Math.max(0L, lastFlushMs + FLUSH_INTERVAL_MS - System.currentTimeMillis());
+        try {
+            EXECUTOR.schedule(() -> {
+                scheduled.set(false);
+                flush();
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (Throwable t) {
+            scheduled.set(false);
+            LOGGER.warn("[Race] {}: failed to schedule flush: {}", name, t.toString());
+        }
+    }
+
+    /**
+     * Пишет данные, если есть несохранённые изменения. Можно вызывать из любого потока
+     */
+    public synchronized void flush() {
+        if (!dirty.getAndSet(false)) return;
+        lastFlushMs = System.currentTimeMillis();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(magic);
+                out.writeInt(version);
+                writer.write(out);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            LOGGER.debug("[Race] {}: saved to {}", name, file);
+        } catch (Exception e) {
+            // Изменения не потеряны: следующая отметка (или остановка сервера) повторит запись.
+            // Не только IOException — сбой сериализации реестра тоже не должен сбросить флаг
+            dirty.set(true);
+            LOGGER.error("[Race] {}: failed to save {}: {}", name, file, e.toString());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package race.net;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.RegistryByteBuf;
+import net.minecraft.registry.DynamicRegistryManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Поток кадров силуэтов на 40 игроков и шлейфы: байт на кадр против прежнего формата и скорость
+ * кодирования/декодирования. Запуск: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class CompactPayloadsBenchmark {
+    private static final int PLAYERS = 40;
+    private static final int FRAMES = 2_000;
+
+    @Test
+    void parallelPlayersStream() {
+        List<List<ParallelPlayersPayload.Point>> frames = walk(PLAYERS, FRAMES, 1L);
+
+        // Прежний формат: имя строкой, три double и тип на каждую точку в каждом кадре
+        long legacyBytes = 0;
+        for (List<ParallelPlayersPayload.Point> f : frames) {
+            RegistryByteBuf buf = newBuf();
+            buf.writeVarInt(f.size());
+            for (ParallelPlayersPayload.Point p : f) {
+                buf.writeString(p.name());
+                buf.writeDouble(p.x());
+                buf.writeDouble(p.y());
+                buf.writeDouble(p.z());
+                buf.writeByte(p.type());
+            }
+            legacyBytes += buf.readableBytes();
+        }
+
+        long bytes = 0, encNs = 0, decNs = 0;
+        ParallelPlayersPayload.Encoder enc = new ParallelPlayersPayload.Encoder();
+        ParallelPlayersPayload.Decoder dec = new ParallelPlayersPayload.Decoder();
+        for (int i = 0; i < frames.size(); i++) {
+            long t0 = System.nanoTime();
+            RegistryByteBuf buf = newBuf();
+            ParallelPlayersPayload.CODEC.encode(buf, enc.encode(frames.get(i)));
+            long t1 = System.nanoTime();
+            int size = buf.readableBytes();
+            List<ParallelPlayersPayload.Point> got = dec.apply(ParallelPlayersPayload.CODEC.decode(buf));
+            long t2 = System.nanoTime();
+            assertEquals(PLAYERS, got.size());
+            // Первые кадры — прогрев
+            if (i < FRAMES / 4) continue;
+            bytes += size;
+            encNs += t1 - t0;
+            decNs += t2 - t1;
+        }
+        int measured = FRAMES - FRAMES / 4;
+        long legacyMeasured = legacyBytes * measured / FRAMES;
+        System.out.printf("parallel_players, %d players x %d frames: legacy %.0f B/frame, compact %.0f B/frame (x%.1f), encode %.1f us/frame, decode %.1f us/frame%n",
+                PLAYERS, measured, legacyMeasured / (double) measured, bytes / (double) measured,
+                legacyMeasured / (double) bytes, encNs / 1e3 / measured, decNs / 1e3 / measured);
+        assertTrue(bytes * 3 < legacyMeasured, "поток кадров как минимум втрое меньше прежнего");
+    }
+
+    @Test
+    void ghostTrail() {
+        Random rnd = new Random(2L);
+        List<GhostTrailPayload.Point> pts = new ArrayList<>();
+        double x = 500, y = 64, z = -200;
+        for (int i = 0; i < 120; i++) {
+            x += rnd.nextDouble() * 0.6 - 0.3;
+            y += rnd.nextDouble() * 0.4 - 0.2;
+            z += rnd.nextDouble() * 0.6 - 0.3;
+            pts.add(new GhostTrailPayload.Point(x, y, z));
+        }
+        GhostTrailPayload trail = new GhostTrailPayload("Alice", "lava", pts);
+
+        int rounds = 20_000;
+        long bytes = 0;
+        long t0 = 0;
+        for (int i = 0; i < rounds * 2; i++) {
+            if (i == rounds) t0 = System.nanoTime(); // первая половина — прогрев
+            RegistryByteBuf buf = newBuf();
+            GhostTrailPayload.CODEC.encode(buf, trail);
+            bytes = buf.readableBytes();
+            assertEquals(pts.size(), GhostTrailPayload.CODEC.decode(buf).points().size());
+        }
+        long ns = System.nanoTime() - t0;
+        System.out.printf("ghost_trail, 120 points: legacy points %d B, compact %d B, encode+decode %.1f us/trail%n",
+                pts.size() * 3 * Double.BYTES, bytes, ns / 1e3 / rounds);
+    }
+
+    private static RegistryByteBuf newBuf() {
+        return new RegistryByteBuf(Unpooled.buffer(), DynamicRegistryManager.EMPTY);
+    }
+
+    // Игроки бродят, четверть кадров каждый стоит на месте
+    private static List<List<ParallelPlayersPayload.Point>> walk(int players, int frames, long seed) {
+        Random rnd = new Random(seed);
+        double[][] pos = new double[players][3];
+        for (double[] p : pos) {
+            p[0] = rnd.nextInt(20_000) - 10_000;
+            p[1] = 64;
+            p[2] = rnd.nextInt(20_000) - 10_000;
+        }
+        List<List<ParallelPlayersPayload.Point>> out = new ArrayList<>(frames);
+        for (int f = 0; f < frames; f++) {
+            List<ParallelPlayersPayload.Point> frame = new ArrayList<>(players);
+            for (int i = 0; i < players; i++) {
+                double[] p = pos[i];
+                if (rnd.nextInt(4) != 0) {
+                    p[0] += rnd.nextDouble() * 1.4 - 0.7;
+                    p[1] += rnd.nextDouble() * 0.4 - 0.2;
+                    p[2] += rnd.nextDouble() * 1.4 - 0.7;
+                }
+                frame.add(new ParallelPlayersPayload.Point("Speedrunner_" + i, p[0], p[1], p[2], (byte) 4));
+            }
+            out.add(frame);
+        }
+        return out;
+    }
+}
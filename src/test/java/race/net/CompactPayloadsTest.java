@@ -0,0 +1,211 @@
+package race.net;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.network.RegistryByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.registry.DynamicRegistryManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Кодеки силуэтов и шлейфов: круговой прогон (пусто, максимум, испорченный ввод) и размер на точку.
+ * Скорость кодирования — в CompactPayloadsBenchmark.
+ */
+class CompactPayloadsTest {
+    // Ошибка квантования 1/32 блока — не больше половины шага
+    private static final double EPS = 1.0 / 64 + 1e-9;
+
+    private static RegistryByteBuf newBuf() {
+        return new RegistryByteBuf(Unpooled.buffer(), DynamicRegistryManager.EMPTY);
+    }
+
+    private static <T> RegistryByteBuf encode(PacketCodec<RegistryByteBuf, T> codec, T value) {
+        RegistryByteBuf buf = newBuf();
+        codec.encode(buf, value);
+        return buf;
+    }
+
+    private static <T> T roundTrip(PacketCodec<RegistryByteBuf, T> codec, T value) {
+        RegistryByteBuf buf = encode(codec, value);
+        T decoded = codec.decode(buf);
+        assertEquals(0, buf.readableBytes(), "лишние байты после декодирования");
+        return decoded;
+    }
+
+    private static void assertClose(ParallelPlayersPayload.Point expected, ParallelPlayersPayload.Point actual) {
+        assertEquals(expected.name(), actual.name());
+        assertEquals(expected.type(), actual.type());
+        assertEquals(expected.x(), actual.x(), EPS);
+        assertEquals(expected.y(), actual.y(), EPS);
+        assertEquals(expected.z(), actual.z(), EPS);
+    }
+
+    // ===== ParallelPlayersPayload =====
+
+    @Test
+    void parallelEmptyFrame() {
+        ParallelPlayersPayload.Encoder enc = new ParallelPlayersPayload.Encoder();
+        assertNull(enc.encode(List.of()), "без точек нечего отправлять");
+
+        ParallelPlayersPayload empty = new ParallelPlayersPayload(ParallelPlayersPayload.FLAG_KEYFRAME, List.of(), List.of(), List.of());
+        ParallelPlayersPayload decoded = roundTrip(ParallelPlayersPayload.CODEC, empty);
+        assertEquals(empty, decoded);
+        assertTrue(new ParallelPlayersPayload.Decoder().apply(decoded).isEmpty());
+    }
+
+    @Test
+    void parallelStreamRoundTrip() {
+        ParallelPlayersPayload.Encoder enc = new ParallelPlayersPayload.Encoder();
+        ParallelPlayersPayload.Decoder dec = new ParallelPlayersPayload.Decoder();
+
+        List<ParallelPlayersPayload.Point> first = List.of(
+                new ParallelPlayersPayload.Point("Alice", 10.3, 64.0, -5.7, (byte) 1),
+                new ParallelPlayersPayload.Point("Bob", -1000.01, -63.5, 2047.99, (byte) 4));
+        List<ParallelPlayersPayload.Point> got = dec.apply(roundTrip(ParallelPlayersPayload.CODEC, enc.encode(first)));
+        assertEquals(2, got.size());
+        assertClose(first.get(0), got.get(0));
+        assertClose(first.get(1), got.get(1));
+
+        // Alice стоит, Bob сдвинулся: в дельте только Bob, имена не повторяются
+        List<ParallelPlayersPayload.Point> second = List.of(
+                first.get(0),
+                new ParallelPlayersPayload.Point("Bob", -999.0, -63.5, 2047.99, (byte) 4));
+        ParallelPlayersPayload delta = roundTrip(ParallelPlayersPayload.CODEC, enc.encode(second));
+        assertEquals(0, delta.flags() & ParallelPlayersPayload.FLAG_KEYFRAME);
+        assertTrue(delta.names().isEmpty());
+        assertEquals(1, delta.entries().size());
+        got = dec.apply(delta);
+        assertEquals(2, got.size());
+        assertClose(second.get(1), got.get(1));
+
+        // Alice ушла
+        ParallelPlayersPayload gone = roundTrip(ParallelPlayersPayload.CODEC, enc.encode(List.of(second.get(1))));
+        assertEquals(1, gone.removed().size());
+        got = dec.apply(gone);
+        assertEquals(1, got.size());
+        assertEquals("Bob", got.get(0).name());
+    }
+
+    @Test
+    void parallelMaxSizeFrame() {
+        ParallelPlayersPayload.Encoder enc = new ParallelPlayersPayload.Encoder();
+        ParallelPlayersPayload.Decoder dec = new ParallelPlayersPayload.Decoder();
+        // Имён больше MAX_NAMES и координаты у границы мира
+        List<ParallelPlayersPayload.Point> pts = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            double edge = (i % 2 == 0 ? 1 : -1) * (29_999_984.0 - i);
+            pts.add(new ParallelPlayersPayload.Point("player_" + i + "_with_a_long_name", edge, 319.97, -edge, (byte) (i % 8)));
+        }
+        List<ParallelPlayersPayload.Point> got = dec.apply(roundTrip(ParallelPlayersPayload.CODEC, enc.encode(pts)));
+        assertEquals(pts.size(), got.size());
+        for (int i = 0; i < pts.size(); i++) assertClose(pts.get(i), got.get(i));
+    }
+
+    @Test
+    void parallelRejectsMalformedInput() {
+        ParallelPlayersPayload frame = new ParallelPlayersPayload.Encoder().encode(
+                List.of(new ParallelPlayersPayload.Point("Alice", 1, 2, 3, (byte) 0)));
+
+        RegistryByteBuf wrongVersion = encode(ParallelPlayersPayload.CODEC, frame);
+        wrongVersion.setByte(0, ParallelPlayersPayload.VERSION + 1);
+        assertThrows(DecoderException.class, () -> ParallelPlayersPayload.CODEC.decode(wrongVersion));
+
+        RegistryByteBuf full = encode(ParallelPlayersPayload.CODEC, frame);
+        RegistryByteBuf truncated = new RegistryByteBuf(full.copy(0, full.readableBytes() - 3), DynamicRegistryManager.EMPTY);
+        assertThrows(RuntimeException.class, () -> ParallelPlayersPayload.CODEC.decode(truncated));
+
+        RegistryByteBuf empty = newBuf();
+        assertThrows(RuntimeException.class, () -> ParallelPlayersPayload.CODEC.decode(empty));
+    }
+
+    @Test
+    void parallelSizePerPoint() {
+        List<ParallelPlayersPayload.Point> pts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            pts.add(new ParallelPlayersPayload.Point("Speedrunner" + i, 1234.5 + i * 7, 70.25, -4321.75 - i * 3, (byte) 4));
+        }
+        // Прежний формат: имя строкой, три double и тип на каждую точку в каждом кадре
+        RegistryByteBuf legacy = newBuf();
+        for (ParallelPlayersPayload.Point p : pts) {
+            legacy.writeString(p.name());
+            legacy.writeDouble(p.x());
+            legacy.writeDouble(p.y());
+            legacy.writeDouble(p.z());
+            legacy.writeByte(p.type());
+        }
+        int legacyBytes = legacy.readableBytes() + 1;
+
+        ParallelPlayersPayload.Encoder enc = new ParallelPlayersPayload.Encoder();
+        int keyframeBytes = encode(ParallelPlayersPayload.CODEC, enc.encode(pts)).readableBytes();
+        // Следующий кадр: сдвинулась четверть игроков, имена уже в таблице
+        List<ParallelPlayersPayload.Point> moved = new ArrayList<>(pts);
+        for (int i = 0; i < moved.size(); i += 4) {
+            ParallelPlayersPayload.Point p = moved.get(i);
+            moved.set(i, new ParallelPlayersPayload.Point(p.name(), p.x() + 0.5, p.y(), p.z() - 0.25, p.type()));
+        }
+        int deltaBytes = encode(ParallelPlayersPayload.CODEC, enc.encode(moved)).readableBytes();
+
+        assertTrue(keyframeBytes < legacyBytes, "ключевой кадр с таблицей имён меньше прежнего формата");
+        assertTrue(deltaBytes * 5 < legacyBytes, "дельта как минимум в 5 раз меньше прежнего кадра");
+    }
+
+    // ===== GhostTrailPayload =====
+
+    @Test
+    void trailEmpty() {
+        GhostTrailPayload empty = new GhostTrailPayload("", "", List.of());
+        assertEquals(empty, roundTrip(GhostTrailPayload.CODEC, empty));
+    }
+
+    @Test
+    void trailMaxSizeRoundTrip() {
+        List<GhostTrailPayload.Point> pts = new ArrayList<>();
+        double x = 29_999_000.0, y = -64.0, z = -29_999_000.0;
+        for (int i = 0; i < 120; i++) {
+            // Длинные скачки (телепорт) вперемешку с мелкими шагами
+            x += i % 10 == 0 ? -1_000_000.123 : 0.37;
+            y += i % 2 == 0 ? 3.1 : -1.9;
+            z += i % 10 == 0 ? 999_999.877 : -0.41;
+            pts.add(new GhostTrailPayload.Point(x, y, z));
+        }
+        GhostTrailPayload trail = new GhostTrailPayload("Alice", "fell from a high place", pts);
+        GhostTrailPayload got = roundTrip(GhostTrailPayload.CODEC, trail);
+        assertEquals(trail.playerName(), got.playerName());
+        assertEquals(trail.cause(), got.cause());
+        assertEquals(pts.size(), got.points().size());
+        // Разности считаются от квантованных значений, поэтому ошибка не копится по цепочке
+        for (int i = 0; i < pts.size(); i++) {
+            assertEquals(pts.get(i).x(), got.points().get(i).x(), EPS);
+            assertEquals(pts.get(i).y(), got.points().get(i).y(), EPS);
+            assertEquals(pts.get(i).z(), got.points().get(i).z(), EPS);
+        }
+    }
+
+    @Test
+    void trailRejectsMalformedInput() {
+        GhostTrailPayload trail = new GhostTrailPayload("Alice", "lava",
+                List.of(new GhostTrailPayload.Point(1, 2, 3), new GhostTrailPayload.Point(1.5, 2, 3)));
+
+        RegistryByteBuf wrongVersion = encode(GhostTrailPayload.CODEC, trail);
+        wrongVersion.setByte(0, GhostTrailPayload.VERSION + 1);
+        assertThrows(DecoderException.class, () -> GhostTrailPayload.CODEC.decode(wrongVersion));
+
+        RegistryByteBuf full = encode(GhostTrailPayload.CODEC, trail);
+        RegistryByteBuf truncated = new RegistryByteBuf(full.copy(0, full.readableBytes() - 1), DynamicRegistryManager.EMPTY);
+        assertThrows(RuntimeException.class, () -> GhostTrailPayload.CODEC.decode(truncated));
+    }
+
+    @Test
+    void trailSizePerPoint() {
+        List<GhostTrailPayload.Point> pts = new ArrayList<>();
+        for (int i = 0; i < 120; i++) pts.add(new GhostTrailPayload.Point(500 + i * 0.3, 64 + Math.sin(i) * 2, -200 - i * 0.2));
+        int bytes = encode(GhostTrailPayload.CODEC, new GhostTrailPayload("Alice", "lava", pts)).readableBytes();
+        int legacyPoints = pts.size() * 3 * Double.BYTES;
+        assertTrue(bytes * 4 < legacyPoints, "шлейф как минимум в 4 раза меньше трёх double на точку");
+    }
+}
@@ -0,0 +1,51 @@
+package race.replay;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Скорость кодирования и декодирования чанков повтора и байт на кадр. Запуск: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class ReplayFormatBenchmark {
+    private static final int CHUNKS = 400;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void encodeDecodeThroughput() {
+        ReplayFormatTest.Sample[] s = ReplayFormatTest.run(CHUNKS * ReplayFormat.CHUNK_FRAMES, 5L);
+        ReplayFormat.Chunk[] input = new ReplayFormat.Chunk[CHUNKS];
+        for (int i = 0; i < CHUNKS; i++) input[i] = ReplayFormatTest.chunkOf(s, i * ReplayFormat.CHUNK_FRAMES, ReplayFormat.CHUNK_FRAMES);
+
+        byte[][] encoded = new byte[CHUNKS][];
+        long bytes = 0;
+        for (int i = 0; i < CHUNKS; i++) {
+            encoded[i] = ReplayFormat.encode(input[i]);
+            bytes += encoded[i].length;
+        }
+
+        // Прогрев, затем лучший из нескольких прогонов
+        long encNs = Long.MAX_VALUE, decNs = Long.MAX_VALUE;
+        long sink = 0;
+        for (int r = 0; r <= ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < CHUNKS; i++) sink += ReplayFormat.encode(input[i]).length;
+            long enc = System.nanoTime() - t0;
+            t0 = System.nanoTime();
+            for (int i = 0; i < CHUNKS; i++) sink += ReplayFormat.decode(encoded[i], ReplayFormat.CHUNK_FRAMES).size;
+            long dec = System.nanoTime() - t0;
+            if (r == 0) continue;
+            encNs = Math.min(encNs, enc);
+            decNs = Math.min(decNs, dec);
+        }
+
+        long frames = (long) CHUNKS * ReplayFormat.CHUNK_FRAMES;
+        System.out.printf("replay, %d frames: %.1f B/frame (raw 52 B), encode %.1f Mframes/s, decode %.1f Mframes/s (sink %d)%n",
+                frames, bytes / (double) frames, frames * 1e3 / encNs, frames * 1e3 / decNs, sink);
+        // Запись идёт 20 кадров в секунду на игрока: миллион кадров в секунду — запас на тысячи игроков
+        assertTrue(frames * 1e9 / encNs > 1_000_000, "кодирование не медленнее миллиона кадров в секунду");
+        assertTrue(frames * 1e9 / decNs > 1_000_000, "декодирование не медленнее миллиона кадров в секунду");
+    }
+}
@@ -0,0 +1,182 @@
+package race.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Столбцовый формат повторов: кодирование чанка, ошибка квантования, файл с индексом и без него
+ * (оборванная запись), размер кадра. Скорость кодирования — в ReplayFormatBenchmark.
+ */
+class ReplayFormatTest {
+    private static final double POS_EPS = 0.5 / ReplayFormat.POS_SCALE + 1e-9;
+    private static final double ANGLE_EPS = 0.5 / ReplayFormat.ANGLE_SCALE + 1e-6;
+    private static final double HEALTH_EPS = 0.5 / ReplayFormat.HEALTH_SCALE + 1e-6;
+
+    record Sample(long t, double x, double y, double z, float yaw, float pitch, float health, int food, int xp) {}
+
+    // Правдоподобный забег: шаги по 50 мс, плавное движение, иногда телепорт
+    static Sample[] run(int frames, long seed) {
+        Random rnd = new Random(seed);
+        Sample[] out = new Sample[frames];
+        double x = 1234.5, y = 64.0, z = -987.25;
+        float yaw = 0f;
+        for (int i = 0; i < frames; i++) {
+            if (i % 500 == 499) {
+                x += 100_000 * (rnd.nextDouble() - 0.5);
+                z -= 100_000 * (rnd.nextDouble() - 0.5);
+            }
+            x += rnd.nextDouble() * 0.6 - 0.3;
+            y += rnd.nextDouble() * 0.2 - 0.1;
+            z += rnd.nextDouble() * 0.6 - 0.3;
+            yaw += rnd.nextFloat() * 10 - 5;
+            out[i] = new Sample(1_700_000_000_000L + i * 50L, x, y, z, yaw, rnd.nextFloat() * 180 - 90,
+                    rnd.nextFloat() * 20, rnd.nextInt(21), i / 100);
+        }
+        return out;
+    }
+
+    static ReplayFormat.Chunk chunkOf(Sample[] s, int from, int count) {
+        ReplayFormat.Chunk c = new ReplayFormat.Chunk();
+        for (int i = from; i < from + count; i++) {
+            c.add(s[i].t(), s[i].x(), s[i].y(), s[i].z(), s[i].yaw(), s[i].pitch(), s[i].health(), s[i].food(), s[i].xp());
+        }
+        return c;
+    }
+
+    private static void assertFrame(Sample s, ReplayManager.ReplayFrame f) {
+        assertEquals(s.t(), f.getTimestamp());
+        assertEquals(s.x(), f.getPosition().x, POS_EPS);
+        assertEquals(s.y(), f.getPosition().y, POS_EPS);
+        assertEquals(s.z(), f.getPosition().z, POS_EPS);
+        assertEquals(s.yaw(), f.getYaw(), ANGLE_EPS);
+        assertEquals(s.pitch(), f.getPitch(), ANGLE_EPS);
+        assertEquals(s.health(), f.getHealth(), HEALTH_EPS);
+        assertEquals(s.food(), f.getFoodLevel());
+        assertEquals(s.xp(), f.getExperienceLevel());
+    }
+
+    private static Path write(Path file, UUID player, Sample[] frames) {
+        ReplayWriter w = new ReplayWriter(file, player, 42L, 1_700_000_000_000L);
+        for (Sample s : frames) w.record(s.t(), s.x(), s.y(), s.z(), s.yaw(), s.pitch(), s.health(), s.food(), s.xp());
+        w.close();
+        ReplayWriter.drain();
+        return file;
+    }
+
+    @Test
+    void chunkRoundTripWithinQuantisation() {
+        Sample[] s = run(ReplayFormat.CHUNK_FRAMES, 1L);
+        ReplayFormat.Chunk c = chunkOf(s, 0, s.length);
+        assertTrue(c.isFull());
+        ReplayFormat.Chunk back = ReplayFormat.decode(ReplayFormat.encode(c), c.size);
+        assertEquals(c.size, back.size);
+        for (int col = 0; col < ReplayFormat.COLUMNS; col++) {
+            assertArrayEquals(Arrays.copyOf(c.cols[col], c.size), Arrays.copyOf(back.cols[col], back.size), "столбец " + col);
+        }
+        for (int i = 0; i < s.length; i++) assertFrame(s[i], back.frame(i));
+    }
+
+    @Test
+    void emptyAndExtremeChunks() {
+        ReplayFormat.Chunk empty = new ReplayFormat.Chunk();
+        byte[] none = ReplayFormat.encode(empty);
+        assertEquals(0, none.length);
+        assertEquals(0, ReplayFormat.decode(none, 0).size);
+
+        // Граница мира и максимальные разности между соседними кадрами
+        ReplayFormat.Chunk c = new ReplayFormat.Chunk();
+        c.add(Long.MAX_VALUE / 2, 30_000_000, 320, -30_000_000, Float.MAX_VALUE / 1e30f, 90, 1024, Integer.MAX_VALUE, Integer.MIN_VALUE);
+        c.add(0L, -30_000_000, -64, 30_000_000, -Float.MAX_VALUE / 1e30f, -90, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        ReplayFormat.Chunk back = ReplayFormat.decode(ReplayFormat.encode(c), c.size);
+        for (int col = 0; col < ReplayFormat.COLUMNS; col++) {
+            assertArrayEquals(Arrays.copyOf(c.cols[col], 2), Arrays.copyOf(back.cols[col], 2), "столбец " + col);
+        }
+    }
+
+    @Test
+    void decodeRejectsMalformedInput() {
+        byte[] data = ReplayFormat.encode(chunkOf(run(10, 2L), 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> ReplayFormat.decode(Arrays.copyOf(data, data.length - 1), 10));
+        assertThrows(IllegalArgumentException.class, () -> ReplayFormat.decode(data, ReplayFormat.CHUNK_FRAMES + 1));
+        assertThrows(IllegalArgumentException.class, () -> ReplayFormat.decode(data, -1));
+        byte[] endless = new byte[16];
+        Arrays.fill(endless, (byte) 0x80);
+        assertThrows(IllegalArgumentException.class, () -> ReplayFormat.decode(endless, 1));
+    }
+
+    @Test
+    void fileRoundTripAndSeek(@TempDir Path dir) throws IOException {
+        UUID player = UUID.randomUUID();
+        Sample[] s = run(1000, 3L);
+        Path file = write(dir.resolve("run.replay"), player, s);
+
+        try (ReplayReader r = ReplayReader.open(file)) {
+            assertNotNull(r);
+            assertEquals(player, r.getPlayerId());
+            assertEquals(42L, r.getRaceSeed());
+            assertEquals((1000 + ReplayFormat.CHUNK_FRAMES - 1) / ReplayFormat.CHUNK_FRAMES, r.getChunkCount());
+            assertEquals(1000, r.getFrameCount());
+
+            List<ReplayManager.ReplayFrame> all = r.readAll().getFrames();
+            assertEquals(s.length, all.size());
+            for (int i = 0; i < s.length; i++) assertFrame(s[i], all.get(i));
+
+            // Перемотка: чанк с кадром 600 начинается не позже него
+            int chunk = r.findChunk(s[600].t());
+            assertEquals(600 / ReplayFormat.CHUNK_FRAMES, chunk);
+            assertFrame(s[chunk * ReplayFormat.CHUNK_FRAMES], r.readChunk(chunk).get(0));
+            assertEquals(0, r.findChunk(0L));
+        }
+    }
+
+    @Test
+    void truncatedFileIsScanned(@TempDir Path dir) throws IOException {
+        Sample[] s = run(1000, 4L);
+        Path file = write(dir.resolve("cut.replay"), UUID.randomUUID(), s);
+
+        // Обрыв посреди последнего чанка: индекс (~100 байт) потерян, от чанка осталась часть
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 200));
+
+        try (ReplayReader r = ReplayReader.open(file)) {
+            assertNotNull(r);
+            int fullChunks = 1000 / ReplayFormat.CHUNK_FRAMES;
+            assertEquals(fullChunks, r.getChunkCount(), "недописанный чанк отброшен");
+            List<ReplayManager.ReplayFrame> all = r.readAll().getFrames();
+            assertEquals(fullChunks * ReplayFormat.CHUNK_FRAMES, all.size());
+            for (int i = 0; i < all.size(); i++) assertFrame(s[i], all.get(i));
+        }
+    }
+
+    @Test
+    void notAReplay(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("legacy.replay");
+        // Заголовок Java‑сериализации (старые повторы)
+        byte[] legacy = new byte[64];
+        legacy[0] = (byte) 0xAC;
+        legacy[1] = (byte) 0xED;
+        Files.write(file, legacy);
+        assertNull(ReplayReader.open(file));
+    }
+
+    @Test
+    void sizePerFrame() {
+        Sample[] s = run(40 * ReplayFormat.CHUNK_FRAMES, 5L);
+        long bytes = 0;
+        for (int i = 0; i < 40; i++) {
+            bytes += ReplayFormat.encode(chunkOf(s, i * ReplayFormat.CHUNK_FRAMES, ReplayFormat.CHUNK_FRAMES)).length;
+        }
+        // Несжатый кадр: long + 3 double + 3 float + 2 int = 52 байта
+        assertTrue(bytes / (double) s.length < 26, "столбцовый формат как минимум вдвое меньше несжатого кадра");
+    }
+}
@@ -0,0 +1,97 @@
+package race.server.phase;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static race.server.phase.PhaseStateOverlayTest.*;
+
+/**
+ * Оверлей на 100k блоков у 50 игроков: размер NBT, время записи и чтения, память на блок
+ * (упакованные секции против компаунда {raw} на блок). Запуск: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class PhaseStateOverlayBenchmark {
+    private static final int ROUNDS = 10;
+
+    @Test
+    void serializationSizeAndTime() throws IOException {
+        Map<UUID, Map<BlockPos, Integer>> players = samplePlayers(PLAYERS, BLOCKS_PER_PLAYER, 3L);
+        int blocks = PLAYERS * BLOCKS_PER_PLAYER;
+        PhaseState state = stateWith(players);
+        NbtCompound legacy = legacyNbt(players);
+
+        int legacyBytes = serializedSize(legacy);
+        int packedBytes = serializedSize(state.writeNbt(new NbtCompound(), null));
+
+        // Прогрев, затем лучший из прогонов
+        long writeNs = Long.MAX_VALUE, readNs = Long.MAX_VALUE, legacyReadNs = Long.MAX_VALUE;
+        for (int r = 0; r <= ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            NbtCompound packed = state.writeNbt(new NbtCompound(), null);
+            long t1 = System.nanoTime();
+            PhaseState.readNbt(packed);
+            long t2 = System.nanoTime();
+            PhaseState.readNbt(legacy);
+            long t3 = System.nanoTime();
+            if (r == 0) continue;
+            writeNs = Math.min(writeNs, t1 - t0);
+            readNs = Math.min(readNs, t2 - t1);
+            legacyReadNs = Math.min(legacyReadNs, t3 - t2);
+        }
+
+        System.out.printf("phase overlay, %d players x %d blocks: legacy NBT %.1f B/block (read %.1f ms), packed NBT %.1f B/block (write %.1f ms, read %.1f ms)%n",
+                PLAYERS, BLOCKS_PER_PLAYER, legacyBytes / (double) blocks, legacyReadNs / 1e6,
+                packedBytes / (double) blocks, writeNs / 1e6, readNs / 1e6);
+        assertTrue(readNs < legacyReadNs, "упакованный формат читается быстрее старого");
+    }
+
+    @Test
+    void heapPerBlock() {
+        com.sun.management.ThreadMXBean mx = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t ? t : null;
+        assumeTrue(mx != null && mx.isThreadAllocatedMemorySupported(), "нужен счётчик выделенной памяти HotSpot");
+        mx.setThreadAllocatedMemoryEnabled(true);
+
+        Map<UUID, Map<BlockPos, Integer>> players = samplePlayers(PLAYERS, BLOCKS_PER_PLAYER, 4L);
+        int blocks = PLAYERS * BLOCKS_PER_PLAYER;
+        stateWith(players); // прогрев
+
+        // Выделено при построении — верхняя граница того, что останется в куче
+        long before = mx.getCurrentThreadAllocatedBytes();
+        PhaseState packed = stateWith(players);
+        long packedBytes = mx.getCurrentThreadAllocatedBytes() - before;
+
+        // Прежняя модель: на игрока карта BlockPos.asLong() -> компаунд {raw}
+        before = mx.getCurrentThreadAllocatedBytes();
+        List<Long2ObjectOpenHashMap<NbtCompound>> legacy = new ArrayList<>(PLAYERS);
+        players.forEach((id, b) -> {
+            Long2ObjectOpenHashMap<NbtCompound> map = new Long2ObjectOpenHashMap<>();
+            b.forEach((pos, raw) -> {
+                NbtCompound tag = new NbtCompound();
+                tag.putInt("raw", raw);
+                map.put(pos.asLong(), tag);
+            });
+            legacy.add(map);
+        });
+        long legacyBytes = mx.getCurrentThreadAllocatedBytes() - before;
+
+        System.out.printf("phase overlay heap, %d blocks: packed <= %.1f B/block, NbtCompound per block <= %.1f B/block%n",
+                blocks, packedBytes / (double) blocks, legacyBytes / (double) blocks);
+        assertNotNull(packed.peek(player(0)));
+        assertEquals(PLAYERS, legacy.size());
+        // short + int на блок, удвоение массивов секций и сами секции
+        assertTrue(packedBytes / blocks < 48, "упакованный оверлей: " + packedBytes / blocks + " B/block");
+        assertTrue(packedBytes * 3 < legacyBytes, "упакованный оверлей как минимум втрое компактнее компаунда на блок");
+    }
+}
@@ -0,0 +1,171 @@
+package race.server.phase;
+
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Оверлей фазы: упакованный формат NBT (overlayPos/overlayRaw) и чтение старого формата
+ * (компаунд на блок) для нескольких игроков, плюс граница размера. Замеры — в PhaseStateOverlayBenchmark.
+ */
+class PhaseStateOverlayTest {
+    // Как в бенчмарке: 50 игроков по ~2000 блоков = 100k блоков оверлея
+    static final int PLAYERS = 50;
+    static final int BLOCKS_PER_PLAYER = 2_000;
+
+    static UUID player(int i) {
+        return new UUID(0L, 42L + i);
+    }
+
+    // Блоки игрока вокруг его базы: несколько чанков и секций, отрицательные координаты и высоты
+    static Map<BlockPos, Integer> sampleBlocks(int count, int baseX, int baseZ, long seed) {
+        Random rnd = new Random(seed);
+        Map<BlockPos, Integer> blocks = new HashMap<>();
+        while (blocks.size() < count) {
+            BlockPos pos = new BlockPos(baseX + rnd.nextInt(48) - 24, rnd.nextInt(128) - 64, baseZ + rnd.nextInt(48) - 24);
+            blocks.put(pos, rnd.nextInt(27_000));
+        }
+        return blocks;
+    }
+
+    static Map<UUID, Map<BlockPos, Integer>> samplePlayers(int players, int blocksEach, long seed) {
+        Map<UUID, Map<BlockPos, Integer>> out = new LinkedHashMap<>();
+        for (int i = 0; i < players; i++) {
+            // Базы игроков разнесены, у части — в отрицательных координатах
+            out.put(player(i), sampleBlocks(blocksEach, (i - players / 2) * 500, (i % 7 - 3) * 500, seed * 1000 + i));
+        }
+        return out;
+    }
+
+    static PhaseState stateWith(Map<UUID, Map<BlockPos, Integer>> players) {
+        PhaseState state = new PhaseState();
+        players.forEach((id, blocks) -> {
+            PhaseState.PhaseData pd = state.of(id);
+            pd.lootSeed = id.getLeastSignificantBits();
+            blocks.forEach((pos, raw) -> state.overlayOf(pd, pos).put(pos, raw));
+        });
+        return state;
+    }
+
+    static NbtCompound legacyNbt(Map<UUID, Map<BlockPos, Integer>> players) {
+        NbtCompound playersTag = new NbtCompound();
+        players.forEach((id, blocks) -> {
+            NbtCompound overlays = new NbtCompound();
+            blocks.forEach((pos, raw) -> {
+                String chunkKey = Long.toString(ChunkPos.toLong(pos));
+                NbtCompound ovTag = overlays.getCompound(chunkKey);
+                NbtCompound blockTag = new NbtCompound();
+                blockTag.putInt("raw", raw);
+                ovTag.put(Long.toString(pos.asLong()), blockTag);
+                overlays.put(chunkKey, ovTag);
+            });
+            NbtCompound pdTag = new NbtCompound();
+            pdTag.putLong("lootSeed", id.getLeastSignificantBits());
+            pdTag.put("containers", new NbtCompound());
+            pdTag.put("overlays", overlays);
+            playersTag.put(id.toString(), pdTag);
+        });
+        NbtCompound root = new NbtCompound();
+        root.put("players", playersTag);
+        return root;
+    }
+
+    static int serializedSize(NbtCompound nbt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            NbtIo.write(nbt, out);
+        }
+        return bytes.size();
+    }
+
+    private static void assertOverlayEquals(Map<UUID, Map<BlockPos, Integer>> expected, PhaseState state) {
+        expected.forEach((id, blocks) -> {
+            PhaseState.PhaseData pd = state.peek(id);
+            assertNotNull(pd, "нет данных игрока " + id);
+            assertEquals(id.getLeastSignificantBits(), pd.lootSeed);
+            int total = 0;
+            for (PhaseState.Overlay ov : pd.chunkOverlays.values()) total += ov.size();
+            assertEquals(blocks.size(), total);
+            blocks.forEach((pos, raw) -> {
+                PhaseState.Overlay ov = PhaseState.overlayOrNull(pd, pos.getX() >> 4, pos.getZ() >> 4);
+                assertNotNull(ov, "нет оверлея чанка для " + pos);
+                assertEquals(raw.intValue(), ov.get(pos), "блок " + pos);
+            });
+        });
+    }
+
+    @Test
+    void overlayPutGetRemove() {
+        PhaseState.Overlay ov = new PhaseState.Overlay();
+        BlockPos a = new BlockPos(3, -60, 7);
+        BlockPos b = new BlockPos(3, 200, 7);
+        assertEquals(-1, ov.get(a));
+        ov.put(a, 10);
+        ov.put(b, 20);
+        ov.put(a, 11);
+        assertEquals(2, ov.size());
+        assertEquals(11, ov.get(a));
+        assertTrue(ov.hasSection(-60 >> 4));
+        assertTrue(ov.remove(a));
+        assertFalse(ov.remove(a));
+        assertFalse(ov.hasSection(-60 >> 4));
+        assertEquals(-1, ov.get(a));
+        assertEquals(20, ov.get(b));
+    }
+
+    @Test
+    void packedNbtRoundTrip() {
+        Map<UUID, Map<BlockPos, Integer>> players = samplePlayers(PLAYERS, 200, 1L);
+        NbtCompound nbt = stateWith(players).writeNbt(new NbtCompound(), null);
+
+        NbtCompound pdTag = nbt.getCompound("players").getCompound(player(0).toString());
+        assertEquals(200, pdTag.getLongArray("overlayPos").length);
+        assertEquals(200, pdTag.getIntArray("overlayRaw").length);
+        assertFalse(pdTag.contains("overlays"), "старый формат больше не пишется");
+
+        assertOverlayEquals(players, PhaseState.readNbt(nbt));
+    }
+
+    @Test
+    void emptyOverlayRoundTrip() {
+        PhaseState state = new PhaseState();
+        state.of(player(0));
+        PhaseState read = PhaseState.readNbt(state.writeNbt(new NbtCompound(), null));
+        assertNotNull(read.peek(player(0)));
+        assertTrue(read.peek(player(0)).chunkOverlays.isEmpty());
+    }
+
+    @Test
+    void legacyFormatIsRead() {
+        Map<UUID, Map<BlockPos, Integer>> players = samplePlayers(5, 500, 2L);
+        PhaseState read = PhaseState.readNbt(legacyNbt(players));
+        assertOverlayEquals(players, read);
+
+        // После пересохранения — уже упакованный формат с теми же блоками
+        assertOverlayEquals(players, PhaseState.readNbt(read.writeNbt(new NbtCompound(), null)));
+    }
+
+    @Test
+    void packedSizeBound() throws IOException {
+        Map<UUID, Map<BlockPos, Integer>> players = samplePlayers(PLAYERS, BLOCKS_PER_PLAYER, 3L);
+        int blocks = PLAYERS * BLOCKS_PER_PLAYER;
+        int packedBytes = serializedSize(stateWith(players).writeNbt(new NbtCompound(), null));
+        int legacyBytes = serializedSize(legacyNbt(players));
+        // 8 байт позиции + 4 байта raw id на блок и ~128 байт служебных полей на игрока
+        assertTrue(packedBytes <= blocks * 12 + PLAYERS * 128, "упакованный NBT: " + packedBytes + " B");
+        assertTrue(packedBytes * 2 < legacyBytes, "упакованный формат как минимум вдвое меньше");
+    }
+}
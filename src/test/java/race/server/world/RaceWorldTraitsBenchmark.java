@@ -0,0 +1,71 @@
+package race.server.world;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.util.Identifier;
+import net.minecraft.world.World;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * До и после RaceWorldTraits: строковая проверка ключа на каждый вызов (так миксины проверяли
+ * каждое чтение блока) против поля готовой записи. Запуск: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class RaceWorldTraitsBenchmark {
+    private static final int CALLS = 5_000_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void cachedTraitsVersusKeyString() {
+        RegistryKey<World>[] keys = keys();
+        RaceWorldTraits[] traits = new RaceWorldTraits[keys.length];
+        for (int i = 0; i < keys.length; i++) traits[i] = RaceWorldTraits.parse(keys[i]);
+
+        // Прогрев обоих путей, затем лучший из нескольких прогонов
+        long sink = stringCheck(keys, CALLS) + cachedCheck(traits, CALLS);
+        long stringNs = Long.MAX_VALUE, cachedNs = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            sink += stringCheck(keys, CALLS);
+            stringNs = Math.min(stringNs, System.nanoTime() - t0);
+            t0 = System.nanoTime();
+            sink += cachedCheck(traits, CALLS);
+            cachedNs = Math.min(cachedNs, System.nanoTime() - t0);
+        }
+
+        System.out.printf("race world check, %d calls: key toString+startsWith %.1f ns/call, cached traits %.1f ns/call, x%.1f (sink %d)%n",
+                CALLS, stringNs / (double) CALLS, cachedNs / (double) CALLS, stringNs / (double) cachedNs, sink);
+        assertEquals(stringCheck(keys, CALLS), cachedCheck(traits, CALLS), "оба пути дают одинаковый ответ");
+        assertTrue(cachedNs * 2 < stringNs, "чтение записи как минимум вдвое быстрее разбора ключа");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RegistryKey<World>[] keys() {
+        return new RegistryKey[] {
+                RegistryKey.of(RegistryKeys.WORLD, Identifier.of("fabric_race", "slot1_overworld_s42")),
+                RegistryKey.of(RegistryKeys.WORLD, Identifier.of("minecraft", "overworld")),
+                RegistryKey.of(RegistryKeys.WORLD, Identifier.of("fabric_race", "slot2_nether_s42")),
+                RegistryKey.of(RegistryKeys.WORLD, Identifier.of("minecraft", "the_nether")),
+        };
+    }
+
+    // Как было: новая строка ключа на каждый вызов
+    private static long stringCheck(RegistryKey<World>[] keys, int calls) {
+        long hits = 0;
+        for (int i = 0; i < calls; i++) {
+            if (keys[i & 3].getValue().toString().startsWith("fabric_race:")) hits++;
+        }
+        return hits;
+    }
+
+    private static long cachedCheck(RaceWorldTraits[] traits, int calls) {
+        long hits = 0;
+        for (int i = 0; i < calls; i++) {
+            if (traits[i & 3].raceWorld()) hits++;
+        }
+        return hits;
+    }
+}
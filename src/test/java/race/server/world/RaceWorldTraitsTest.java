@@ -0,0 +1,63 @@
+package race.server.world;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.util.Identifier;
+import net.minecraft.world.World;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Разбор ключа гоночного мира в RaceWorldTraits: слот, сид, измерение и негоночные ключи.
+ */
+class RaceWorldTraitsTest {
+
+    private static RegistryKey<World> key(String namespace, String path) {
+        return RegistryKey.of(RegistryKeys.WORLD, Identifier.of(namespace, path));
+    }
+
+    @Test
+    void parsesSlotSeedAndKind() {
+        RaceWorldTraits ow = RaceWorldTraits.parse(key("fabric_race", "slot3_overworld_s123456789"));
+        assertTrue(ow.raceWorld());
+        assertEquals(3, ow.slot());
+        assertTrue(ow.hasSeed());
+        assertEquals(123456789L, ow.seed());
+        assertEquals(RaceWorldTraits.Kind.OVERWORLD, ow.kind());
+
+        assertEquals(RaceWorldTraits.Kind.NETHER, RaceWorldTraits.parse(key("fabric_race", "slot12_nether_s1")).kind());
+        RaceWorldTraits end = RaceWorldTraits.parse(key("fabric_race", "slot12_end_s1"));
+        assertEquals(RaceWorldTraits.Kind.END, end.kind());
+        assertEquals(12, end.slot());
+    }
+
+    @Test
+    void seedIsParsedUnsigned() {
+        // Ключи пишутся через Long.toUnsignedString: отрицательный сид не должен теряться
+        long seed = -4_172_144_997_902_289_642L;
+        RaceWorldTraits t = RaceWorldTraits.parse(key("fabric_race", "slot1_overworld_s" + Long.toUnsignedString(seed)));
+        assertTrue(t.hasSeed());
+        assertEquals(seed, t.seed());
+    }
+
+    @Test
+    void nonRaceAndMalformedKeys() {
+        assertSame(RaceWorldTraits.NONE, RaceWorldTraits.parse(null));
+        assertSame(RaceWorldTraits.NONE, RaceWorldTraits.parse(key("minecraft", "overworld")));
+        assertSame(RaceWorldTraits.NONE, RaceWorldTraits.parse(key("minecraft", "slot1_overworld_s5")));
+
+        // Гоночное пространство имён, но без слота и сида: мир гоночный, остальное по умолчанию
+        RaceWorldTraits custom = RaceWorldTraits.parse(key("fabric_race", "custom_overworld"));
+        assertTrue(custom.raceWorld());
+        assertEquals(-1, custom.slot());
+        assertFalse(custom.hasSeed());
+        assertEquals(RaceWorldTraits.Kind.OVERWORLD, custom.kind());
+
+        RaceWorldTraits broken = RaceWorldTraits.parse(key("fabric_race", "slotx_nether_sabc"));
+        assertTrue(broken.raceWorld());
+        assertEquals(-1, broken.slot());
+        assertFalse(broken.hasSeed());
+        assertEquals(RaceWorldTraits.Kind.NETHER, broken.kind());
+    }
+}
@@ -0,0 +1,92 @@
+package race.server.world;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static race.server.world.WriteBehindStoreTest.*;
+
+/**
+ * Точки возврата 10k игроков: байт на игрока и время записи бинарного файла против прежнего
+ * JSON с отступами. Запуск: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class WriteBehindStoreBenchmark {
+    private static final int ROUNDS = 10;
+    private static final String[] GAME_MODES = {"SURVIVAL", "CREATIVE", "ADVENTURE", "SPECTATOR"};
+
+    @Test
+    void returnPoints10k(@TempDir Path dir) throws IOException {
+        Map<UUID, Point> points = samplePoints(PLAYERS, 5L);
+        Path file = dir.resolve("race_return_points.dat");
+        Path json = dir.resolve("race_return_points.json");
+
+        // Считаем только записи в этом потоке: фоновая запись после markDirty не должна попасть в замер
+        Thread self = Thread.currentThread();
+        int[] ownWrites = {0};
+        WriteBehindStore store = new WriteBehindStore("bench", file, MAGIC, 1, out -> {
+            write(out, points);
+            if (Thread.currentThread() == self) ownWrites[0]++;
+        });
+
+        // Прогрев, затем лучший из прогонов
+        long flushNs = Long.MAX_VALUE;
+        for (int r = 0, measured = 0; measured < ROUNDS; r++) {
+            int before = ownWrites[0];
+            store.markDirty();
+            long t0 = System.nanoTime();
+            store.flush();
+            long ns = System.nanoTime() - t0;
+            if (r == 0 || ownWrites[0] == before) continue;
+            flushNs = Math.min(flushNs, ns);
+            measured++;
+        }
+
+        long jsonNs = Long.MAX_VALUE;
+        for (int r = 0; r <= ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            writeLegacyJson(json, points);
+            long ns = System.nanoTime() - t0;
+            if (r > 0) jsonNs = Math.min(jsonNs, ns);
+        }
+
+        long bytes = Files.size(file);
+        long jsonBytes = Files.size(json);
+        System.out.printf("return points, %d players: binary %.1f B/player (flush %.1f ms), pretty JSON %.1f B/player (write %.1f ms)%n",
+                PLAYERS, bytes / (double) PLAYERS, flushNs / 1e6, jsonBytes / (double) PLAYERS, jsonNs / 1e6);
+        assertEquals(expectedSize(PLAYERS), bytes);
+        assertTrue(bytes * 3 < jsonBytes, "бинарный файл как минимум втрое меньше JSON");
+        assertTrue(flushNs < jsonNs, "бинарная запись быстрее JSON");
+    }
+
+    // Прежний ReturnPointRegistry.saveToFile: объект по UUID, имя мира и режима строками
+    private static void writeLegacyJson(Path json, Map<UUID, Point> points) throws IOException {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        JsonObject root = new JsonObject();
+        points.forEach((id, p) -> {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("world", WORLDS[p.world()]);
+            obj.addProperty("x", p.x());
+            obj.addProperty("y", p.y());
+            obj.addProperty("z", p.z());
+            obj.addProperty("yaw", p.yaw());
+            obj.addProperty("pitch", p.pitch());
+            obj.addProperty("gameMode", GAME_MODES[p.mode()]);
+            root.add(id.toString(), obj);
+        });
+        try (Writer writer = Files.newBufferedWriter(json)) {
+            gson.toJson(root, writer);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package race.server.world;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Бинарное хранилище реестров: круговой прогон на 10k игроков в формате точек возврата,
+ * чужой и более новый файл, сбой переименования и сбой сериализации (изменения не теряются).
+ * Время записи — в WriteBehindStoreBenchmark.
+ */
+class WriteBehindStoreTest {
+    static final int MAGIC = 0x52525031; // как у ReturnPointRegistry
+    static final int PLAYERS = 10_000;
+    static final String[] WORLDS = {
+            "minecraft:overworld", "fabric_race:slot1_overworld_s42", "fabric_race:slot1_nether_s42", "fabric_race:slot2_end_s7"
+    };
+    // UUID, индекс мира, три double, два float, режим игры
+    static final int RECORD_BYTES = 16 + 4 + 3 * 8 + 2 * 4 + 1;
+
+    record Point(int world, double x, double y, double z, float yaw, float pitch, byte mode) {}
+
+    static Map<UUID, Point> samplePoints(int players, long seed) {
+        Random rnd = new Random(seed);
+        Map<UUID, Point> out = new LinkedHashMap<>();
+        for (int i = 0; i < players; i++) {
+            out.put(new UUID(rnd.nextLong(), rnd.nextLong()), new Point(rnd.nextInt(WORLDS.length),
+                    rnd.nextDouble() * 60_000 - 30_000, rnd.nextInt(384) - 64, rnd.nextDouble() * 60_000 - 30_000,
+                    rnd.nextFloat() * 360 - 180, rnd.nextFloat() * 180 - 90, (byte) rnd.nextInt(4)));
+        }
+        return out;
+    }
+
+    // Та же раскладка, что у ReturnPointRegistry.write: таблица миров, затем записи
+    static void write(DataOutputStream out, Map<UUID, Point> points) throws IOException {
+        out.writeInt(WORLDS.length);
+        for (String w : WORLDS) out.writeUTF(w);
+        out.writeInt(points.size());
+        for (var e : points.entrySet()) {
+            Point p = e.getValue();
+            out.writeLong(e.getKey().getMostSignificantBits());
+            out.writeLong(e.getKey().getLeastSignificantBits());
+            out.writeInt(p.world());
+            out.writeDouble(p.x());
+            out.writeDouble(p.y());
+            out.writeDouble(p.z());
+            out.writeFloat(p.yaw());
+            out.writeFloat(p.pitch());
+            out.writeByte(p.mode());
+        }
+    }
+
+    static Map<UUID, Point> read(DataInputStream in) throws IOException {
+        List<String> worlds = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) worlds.add(in.readUTF());
+        assertEquals(List.of(WORLDS), worlds);
+        Map<UUID, Point> out = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            UUID id = new UUID(in.readLong(), in.readLong());
+            out.put(id, new Point(in.readInt(), in.readDouble(), in.readDouble(), in.readDouble(),
+                    in.readFloat(), in.readFloat(), in.readByte()));
+        }
+        return out;
+    }
+
+    static long expectedSize(int players) {
+        long size = 8 + 4 + 4 + (long) players * RECORD_BYTES;
+        for (String w : WORLDS) size += 2 + w.getBytes(StandardCharsets.UTF_8).length;
+        return size;
+    }
+
+    private static void save(WriteBehindStore store) {
+        store.markDirty();
+        store.flush();
+    }
+
+    private static Map<UUID, Point> load(WriteBehindStore store) {
+        Map<UUID, Point> out = new HashMap<>();
+        assertTrue(store.load((in, version) -> out.putAll(read(in))), "файл не прочитан");
+        return out;
+    }
+
+    @Test
+    void roundTrip10kPlayers(@TempDir Path dir) {
+        Map<UUID, Point> points = samplePoints(PLAYERS, 1L);
+        Path file = dir.resolve("race_return_points.dat");
+        WriteBehindStore store = new WriteBehindStore("test", file, MAGIC, 1, out -> write(out, points));
+        save(store);
+
+        assertTrue(Files.isRegularFile(file));
+        assertFalse(Files.exists(dir.resolve("race_return_points.dat.tmp")), "временный файл переименован");
+        assertEquals(expectedSize(PLAYERS), file.toFile().length());
+        assertEquals(points, load(new WriteBehindStore("test", file, MAGIC, 1, out -> {})));
+    }
+
+    @Test
+    void foreignOrNewerFileIsNotRead(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("store.dat");
+        assertFalse(new WriteBehindStore("test", file, MAGIC, 1, out -> {}).load((in, v) -> fail("файла нет")));
+
+        save(new WriteBehindStore("other", file, MAGIC + 1, 1, out -> out.writeInt(0)));
+        assertFalse(new WriteBehindStore("test", file, MAGIC, 1, out -> {}).load((in, v) -> fail("чужой формат")));
+
+        save(new WriteBehindStore("newer", file, MAGIC, 2, out -> out.writeInt(0)));
+        assertFalse(new WriteBehindStore("test", file, MAGIC, 1, out -> {}).load((in, v) -> fail("версия новее")));
+    }
+
+    @Test
+    void failedRenameKeepsChanges(@TempDir Path dir) throws IOException {
+        Map<UUID, Point> points = samplePoints(100, 2L);
+        Path file = dir.resolve("store.dat");
+        // На месте файла — непустой каталог: замена временного файла не удастся
+        Files.createDirectories(file.resolve("blocker"));
+        WriteBehindStore store = new WriteBehindStore("test", file, MAGIC, 1, out -> write(out, points));
+        save(store);
+        assertTrue(Files.isDirectory(file));
+
+        Files.delete(file.resolve("blocker"));
+        Files.delete(file);
+        // Флаг восстановлен: повторная запись без нового markDirty
+        store.flush();
+        assertEquals(points, load(store));
+    }
+
+    @Test
+    void failedWriterKeepsChanges(@TempDir Path dir) {
+        Map<UUID, Point> points = samplePoints(100, 3L);
+        Path file = dir.resolve("store.dat");
+        AtomicBoolean broken = new AtomicBoolean(true);
+        WriteBehindStore store = new WriteBehindStore("test", file, MAGIC, 1, out -> {
+            if (broken.getAndSet(false)) throw new IllegalStateException("реестр изменился во время записи");
+            write(out, points);
+        });
+        save(store);
+        store.flush();
+        assertEquals(points, load(store));
+    }
+}